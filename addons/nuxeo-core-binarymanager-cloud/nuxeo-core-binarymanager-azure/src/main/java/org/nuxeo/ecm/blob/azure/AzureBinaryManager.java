@@ -43,6 +43,7 @@ import org.nuxeo.ecm.core.blob.binary.FileStorage;
 import com.microsoft.azure.storage.CloudStorageAccount;
 import com.microsoft.azure.storage.StorageCredentialsSharedAccessSignature;
 import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlobRequestOptions;
 import com.microsoft.azure.storage.blob.CloudBlobClient;
 import com.microsoft.azure.storage.blob.CloudBlobContainer;
 import com.microsoft.azure.storage.blob.CloudBlockBlob;
@@ -73,6 +74,16 @@ public class AzureBinaryManager extends AbstractCloudBinaryManager {
     /** @since 10.10 */
     public static final String PREFIX_PROPERTY = "prefix";
 
+    /**
+     * Number of blocks uploaded or downloaded in parallel for a single blob.
+     *
+     * @since 11.1
+     */
+    public static final String CONCURRENCY_PROPERTY = "concurrency";
+
+    /** @since 11.1 */
+    public static final int DEFAULT_CONCURRENCY = 4;
+
     protected CloudStorageAccount storageAccount;
 
     protected CloudBlobClient blobClient;
@@ -126,7 +137,10 @@ public class AzureBinaryManager extends AbstractCloudBinaryManager {
 
     @Override
     protected FileStorage getFileStorage() {
-        return new AzureFileStorage(container, prefix);
+        BlobRequestOptions options = new BlobRequestOptions();
+        int concurrency = getIntProperty(CONCURRENCY_PROPERTY);
+        options.setConcurrentRequestCount(concurrency > 0 ? concurrency : DEFAULT_CONCURRENCY);
+        return new AzureFileStorage(container, prefix, options);
     }
 
     @Override
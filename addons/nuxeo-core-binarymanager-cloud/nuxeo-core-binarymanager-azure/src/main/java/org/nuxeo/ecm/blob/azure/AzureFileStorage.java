@@ -34,6 +34,7 @@ import org.nuxeo.ecm.core.blob.binary.FileStorage;
 
 import com.microsoft.azure.storage.StorageErrorCode;
 import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.blob.BlobRequestOptions;
 import com.microsoft.azure.storage.blob.CloudBlobContainer;
 import com.microsoft.azure.storage.blob.CloudBlockBlob;
 import com.microsoft.azure.storage.core.Base64;
@@ -50,9 +51,21 @@ public class AzureFileStorage implements FileStorage {
 
     protected String prefix;
 
+    // @since 11.1
+    protected BlobRequestOptions options;
+
     public AzureFileStorage(CloudBlobContainer container, String prefix) {
+        this(container, prefix, null);
+    }
+
+    /**
+     * @param options the request options, used to upload blocks in parallel
+     * @since 11.1
+     */
+    public AzureFileStorage(CloudBlobContainer container, String prefix, BlobRequestOptions options) {
         this.container = container;
         this.prefix = prefix;
+        this.options = options;
     }
 
     @Override
@@ -75,7 +88,7 @@ public class AzureFileStorage implements FileStorage {
             }
 
             try (InputStream is = new FileInputStream(file)) {
-                blob.upload(is, file.length());
+                blob.upload(is, file.length(), null, options, null);
             }
         } catch (StorageException | URISyntaxException e) {
             throw new IOException(e);
@@ -117,6 +130,21 @@ public class AzureFileStorage implements FileStorage {
         }
     }
 
+    @Override
+    public InputStream getStream(String digest) throws IOException {
+        try {
+            CloudBlockBlob blob = container.getBlockBlobReference(prefix + digest);
+            return blob.openInputStream(null, options, null);
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        } catch (StorageException e) {
+            if (!isMissingKey(e)) {
+                throw new IOException(e);
+            }
+            return null;
+        }
+    }
+
     protected static boolean isMissingKey(StorageException e) {
         return e.getErrorCode().equals(StorageErrorCode.RESOURCE_NOT_FOUND.toString());
     }
@@ -94,10 +94,9 @@ public class AzureGarbageCollector extends AbstractBinaryGarbageCollector<AzureB
                 }
 
                 long length = blob.getProperties().getLength();
-                if (marked.contains(digest)) {
+                if (isMarked(digest)) {
                     status.numBinaries++;
                     status.sizeBinaries += length;
-                    marked.remove(digest); // optimize memory
                 } else {
                     status.numBinariesGC++;
                     status.sizeBinariesGC += length;
@@ -25,6 +25,7 @@ import java.util.Set;
 import org.nuxeo.ecm.core.blob.binary.BinaryGarbageCollector;
 import org.nuxeo.ecm.core.blob.binary.BinaryManagerStatus;
 import org.nuxeo.ecm.core.blob.binary.CachingBinaryManager;
+import org.nuxeo.ecm.core.blob.binary.DigestBloomFilter;
 
 /**
  * @author <a href="mailto:ak@nuxeo.com">Arnaud Kervern</a>
@@ -40,6 +41,13 @@ public abstract class AbstractBinaryGarbageCollector<T extends CachingBinaryMana
 
     protected Set<String> marked;
 
+    /**
+     * The marked binaries, when they're recorded in a Bloom filter instead of {@link #marked}.
+     *
+     * @since 11.1
+     */
+    protected DigestBloomFilter markedFilter;
+
     protected AbstractBinaryGarbageCollector(T binaryManager) {
         this.binaryManager = binaryManager;
     }
@@ -51,7 +59,8 @@ public abstract class AbstractBinaryGarbageCollector<T extends CachingBinaryMana
         }
         startTime = System.currentTimeMillis();
         status = new BinaryManagerStatus();
-        marked = new HashSet<>();
+        markedFilter = DigestBloomFilter.newGarbageCollectorFilter();
+        marked = markedFilter == null ? new HashSet<>() : null;
 
         // XXX : we should be able to do better
         // and only remove the cache entry that will be removed from S3
@@ -64,8 +73,10 @@ public abstract class AbstractBinaryGarbageCollector<T extends CachingBinaryMana
             throw new RuntimeException("Not started");
         }
         try {
+            status.numBinariesMarked = markedFilter == null ? marked.size() : markedFilter.getCount();
             Set<String> unmarked = getUnmarkedBlobs();
             marked = null;
+            markedFilter = null;
 
             if (delete) {
                 binaryManager.removeBinaries(unmarked);
@@ -80,7 +91,25 @@ public abstract class AbstractBinaryGarbageCollector<T extends CachingBinaryMana
 
     @Override
     public void mark(String digest) {
-        marked.add(digest);
+        if (markedFilter == null) {
+            marked.add(digest);
+        } else {
+            markedFilter.put(digest);
+        }
+    }
+
+    /**
+     * Checks if a binary listed by {@link #getUnmarkedBlobs} has been marked.
+     * <p>
+     * As a listing returns each binary once, the digest is removed from the marked ones kept in memory, if any.
+     *
+     * @since 11.1
+     */
+    protected boolean isMarked(String digest) {
+        if (markedFilter == null) {
+            return marked.remove(digest); // optimize memory
+        }
+        return markedFilter.mightContain(digest);
     }
 
     @Override
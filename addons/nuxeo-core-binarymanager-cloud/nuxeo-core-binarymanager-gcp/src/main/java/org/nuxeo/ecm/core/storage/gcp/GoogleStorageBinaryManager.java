@@ -26,6 +26,8 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Collection;
@@ -181,8 +183,8 @@ public class GoogleStorageBinaryManager extends AbstractCloudBinaryManager {
 
         @Override
         public void storeFile(String key, File file) {
-            try {
-                bucket.create(bucketPrefix + key, new FileInputStream(file));
+            try (InputStream in = new FileInputStream(file)) {
+                bucket.create(bucketPrefix + key, in);
             } catch (IOException e) {
                 throw new NuxeoException(e);
             }
@@ -197,6 +199,12 @@ public class GoogleStorageBinaryManager extends AbstractCloudBinaryManager {
             }
             return false;
         }
+
+        @Override
+        public InputStream getStream(String key) {
+            Blob blob = bucket.get(bucketPrefix + key);
+            return blob == null ? null : Channels.newInputStream(blob.reader());
+        }
     }
 
     @Override
@@ -205,7 +213,8 @@ public class GoogleStorageBinaryManager extends AbstractCloudBinaryManager {
     }
 
     /**
-     * Garbage collector for GCP binaries that stores the marked (in use) binaries in memory.
+     * Garbage collector for GCP binaries that stores the marked (in use) binaries in memory, or in a
+     * {@link org.nuxeo.ecm.core.blob.binary.DigestBloomFilter DigestBloomFilter} if enabled.
      */
     public static class GoogleStorageBinaryGarbageCollector
             extends AbstractBinaryGarbageCollector<GoogleStorageBinaryManager> {
@@ -234,14 +243,13 @@ public class GoogleStorageBinaryManager extends AbstractCloudBinaryManager {
                         // safety
                         continue;
                     }
-                    if (marked.contains(digest)) {
+                    if (isMarked(digest)) {
                         status.numBinaries++;
                         status.sizeBinaries += blob.getSize();
                     } else {
                         status.numBinariesGC++;
                         status.sizeBinariesGC += blob.getSize();
                         unmarked.add(digest);
-                        marked.remove(digest);
                     }
                 }
                 blobs = blobs.getNextPage();
@@ -51,6 +51,7 @@ import org.nuxeo.common.Environment;
 import org.nuxeo.ecm.core.blob.binary.BinaryGarbageCollector;
 import org.nuxeo.ecm.core.blob.binary.BinaryManagerStatus;
 import org.nuxeo.ecm.core.blob.binary.CachingBinaryManager;
+import org.nuxeo.ecm.core.blob.binary.DigestBloomFilter;
 import org.nuxeo.ecm.core.blob.binary.FileStorage;
 import org.nuxeo.runtime.api.Framework;
 
@@ -294,7 +295,8 @@ public class JCloudsBinaryManager extends CachingBinaryManager {
     }
 
     /**
-     * Garbage collector for the blobstore binaries that stores the marked (in use) binaries in memory.
+     * Garbage collector for the blobstore binaries that stores the marked (in use) binaries in memory, or in a
+     * {@link DigestBloomFilter} if enabled.
      */
     public static class JCloudsBinaryGarbageCollector implements BinaryGarbageCollector {
 
@@ -306,6 +308,9 @@ public class JCloudsBinaryManager extends CachingBinaryManager {
 
         protected Set<String> marked;
 
+        // @since 11.1
+        protected DigestBloomFilter markedFilter;
+
         public JCloudsBinaryGarbageCollector(JCloudsBinaryManager binaryManager) {
             this.binaryManager = binaryManager;
         }
@@ -333,12 +338,17 @@ public class JCloudsBinaryManager extends CachingBinaryManager {
             }
             startTime = System.currentTimeMillis();
             status = new BinaryManagerStatus();
-            marked = new HashSet<>();
+            markedFilter = DigestBloomFilter.newGarbageCollectorFilter();
+            marked = markedFilter == null ? new HashSet<>() : null;
         }
 
         @Override
         public void mark(String digest) {
-            marked.add(digest);
+            if (markedFilter == null) {
+                marked.add(digest);
+            } else {
+                markedFilter.put(digest);
+            }
         }
 
         @Override
@@ -347,6 +357,7 @@ public class JCloudsBinaryManager extends CachingBinaryManager {
                 throw new RuntimeException("Not started");
             }
 
+            status.numBinariesMarked = markedFilter == null ? marked.size() : markedFilter.getCount();
             Set<String> unmarked = new HashSet<>();
             ListContainerOptions options = ListContainerOptions.NONE;
             for (;;) {
@@ -359,7 +370,9 @@ public class JCloudsBinaryManager extends CachingBinaryManager {
                         continue;
                     }
                     // TODO size in metadata available only in upcoming JClouds 1.9.0 (JCLOUDS-654)
-                    if (marked.contains(digest)) {
+                    boolean isMarked = markedFilter == null ? marked.remove(digest) // optimize memory
+                            : markedFilter.mightContain(digest);
+                    if (isMarked) {
                         status.numBinaries++;
                         // status.sizeBinaries += size;
                     } else {
@@ -367,7 +380,6 @@ public class JCloudsBinaryManager extends CachingBinaryManager {
                         // status.sizeBinariesGC += size;
                         // record file to delete
                         unmarked.add(digest);
-                        marked.remove(digest); // optimize memory
                     }
                 }
                 String marker = metadatas.getNextMarker();
@@ -377,6 +389,7 @@ public class JCloudsBinaryManager extends CachingBinaryManager {
                 options = ListContainerOptions.Builder.afterMarker(marker);
             }
             marked = null; // help GC
+            markedFilter = null;
 
             // delete unmarked objects
             if (delete) {
@@ -23,9 +23,13 @@ package org.nuxeo.ecm.core.storage.sql;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -35,10 +39,13 @@ import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.cert.Certificate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 import java.util.regex.Pattern;
 
 import javax.servlet.http.HttpServletRequest;
@@ -57,6 +64,7 @@ import org.nuxeo.ecm.core.blob.BlobProvider;
 import org.nuxeo.ecm.core.blob.ManagedBlob;
 import org.nuxeo.ecm.core.blob.binary.BinaryGarbageCollector;
 import org.nuxeo.ecm.core.blob.binary.FileStorage;
+import org.nuxeo.ecm.core.blob.binary.FileStorage.StreamingUpload;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.aws.NuxeoAWSRegionProvider;
 
@@ -70,20 +78,25 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3Builder;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.s3.AmazonS3EncryptionClientBuilder;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CryptoConfiguration;
 import com.amazonaws.services.s3.model.EncryptedPutObjectRequest;
 import com.amazonaws.services.s3.model.EncryptionMaterials;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.amazonaws.services.s3.model.SSEAwsKeyManagementParams;
 import com.amazonaws.services.s3.model.StaticEncryptionMaterialsProvider;
+import com.amazonaws.services.s3.model.UploadPartRequest;
 import com.amazonaws.services.s3.transfer.Download;
 import com.amazonaws.services.s3.transfer.TransferManager;
 import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
@@ -162,6 +175,13 @@ public class S3BinaryManager extends AbstractCloudBinaryManager {
 
     public static final String DELIMITER = "/";
 
+    /**
+     * The "subdirectory" of the temporary keys of streaming uploads.
+     *
+     * @since 11.1
+     */
+    public static final String UPLOAD_TMP_PREFIX = "tmp" + DELIMITER;
+
     private static final Pattern MD5_RE = Pattern.compile("[0-9a-f]{32}");
 
     protected String bucketName;
@@ -656,10 +676,176 @@ public class S3BinaryManager extends AbstractCloudBinaryManager {
             }
 
         }
+
+        @Override
+        public InputStream getStream(String digest) throws IOException {
+            try {
+                return amazonS3.getObject(bucketName, bucketNamePrefix + digest).getObjectContent();
+            } catch (AmazonClientException e) {
+                if (!isMissingKey(e)) {
+                    throw new IOException(e);
+                }
+                return null;
+            }
+        }
+
+        @Override
+        public StreamingUpload startUpload() {
+            if (isEncrypted || isNotBlank(serverSideKMSKeyID)) {
+                // client-side encryption or KMS keys are not supported by the copy to the final key
+                return null;
+            }
+            return new S3StreamingUpload();
+        }
+    }
+
+    /**
+     * Upload of a file whose digest is not known yet: the content is sent to a temporary key, using a multipart upload
+     * if it is larger than a part, then copied server-side to its digest key.
+     * <p>
+     * Temporary keys are in the {@value #UPLOAD_TMP_PREFIX} "subdirectory", ignored by the garbage collector. Multipart
+     * uploads abandoned by a crash are aborted at startup after a day.
+     *
+     * @since 11.1
+     */
+    protected class S3StreamingUpload extends OutputStream implements StreamingUpload {
+
+        protected final String tmpKey = bucketNamePrefix + UPLOAD_TMP_PREFIX + UUID.randomUUID();
+
+        protected final long partSize = transferManager.getConfiguration().getMinimumUploadPartSize();
+
+        protected final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        protected final List<PartETag> partETags = new ArrayList<>();
+
+        protected String uploadId;
+
+        protected boolean stored;
+
+        @Override
+        public OutputStream getOutputStream() {
+            return this;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (buffer.size() >= partSize) {
+                uploadPart();
+            }
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                // only upload a full part when more bytes come, so that the last part is never empty
+                if (buffer.size() >= partSize) {
+                    uploadPart();
+                }
+                int n = (int) Math.min(len, partSize - buffer.size());
+                buffer.write(b, off, n);
+                off += n;
+                len -= n;
+            }
+        }
+
+        protected ObjectMetadata newObjectMetadata() {
+            ObjectMetadata objectMetadata = new ObjectMetadata();
+            if (useServerSideEncryption) {
+                objectMetadata.setSSEAlgorithm(ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
+            }
+            return objectMetadata;
+        }
+
+        protected void uploadPart() throws IOException {
+            try {
+                if (uploadId == null) {
+                    uploadId = amazonS3.initiateMultipartUpload(
+                            new InitiateMultipartUploadRequest(bucketName, tmpKey, newObjectMetadata())).getUploadId();
+                }
+                UploadPartRequest request = new UploadPartRequest().withBucketName(bucketName)
+                                                                   .withKey(tmpKey)
+                                                                   .withUploadId(uploadId)
+                                                                   .withPartNumber(partETags.size() + 1)
+                                                                   .withInputStream(new ByteArrayInputStream(
+                                                                           buffer.toByteArray()))
+                                                                   .withPartSize(buffer.size());
+                partETags.add(amazonS3.uploadPart(request).getPartETag());
+                buffer.reset();
+            } catch (AmazonClientException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void complete(String digest) throws IOException {
+            long t0 = 0;
+            if (log.isDebugEnabled()) {
+                t0 = System.currentTimeMillis();
+                log.debug("completing upload of blob " + digest + " to S3");
+            }
+            String key = bucketNamePrefix + digest;
+            try {
+                // send the last part, or the whole content if small
+                if (uploadId == null) {
+                    ObjectMetadata objectMetadata = newObjectMetadata();
+                    objectMetadata.setContentLength(buffer.size());
+                    amazonS3.putObject(new PutObjectRequest(bucketName, tmpKey,
+                            new ByteArrayInputStream(buffer.toByteArray()), objectMetadata));
+                } else {
+                    uploadPart();
+                    amazonS3.completeMultipartUpload(
+                            new CompleteMultipartUploadRequest(bucketName, tmpKey, uploadId, partETags));
+                }
+                stored = true;
+                buffer.reset();
+                try {
+                    amazonS3.getObjectMetadata(bucketName, key);
+                    if (log.isDebugEnabled()) {
+                        log.debug("blob " + digest + " is already in S3");
+                    }
+                } catch (AmazonClientException e) {
+                    if (!isMissingKey(e)) {
+                        throw e;
+                    }
+                    // not already present -> copy the blob to its key
+                    ObjectMetadata tmpMetadata = amazonS3.getObjectMetadata(bucketName, tmpKey);
+                    String sseAlgorithm = useServerSideEncryption ? ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION
+                            : null;
+                    S3Utils.copyFile(amazonS3, tmpMetadata, bucketName, tmpKey, bucketName, key, sseAlgorithm,
+                            false);
+                }
+            } catch (AmazonClientException e) {
+                throw new IOException(e);
+            } finally {
+                abort();
+                if (log.isDebugEnabled()) {
+                    long dtms = System.currentTimeMillis() - t0;
+                    log.debug("completed upload of blob " + digest + " to S3 in " + dtms + "ms");
+                }
+            }
+        }
+
+        @Override
+        public void abort() {
+            buffer.reset();
+            try {
+                if (stored) {
+                    amazonS3.deleteObject(bucketName, tmpKey);
+                    stored = false;
+                } else if (uploadId != null) {
+                    amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, tmpKey, uploadId));
+                }
+                uploadId = null;
+            } catch (AmazonClientException e) {
+                log.warn("Cannot clean up temporary upload: " + tmpKey, e);
+            }
+        }
     }
 
     /**
-     * Garbage collector for S3 binaries that stores the marked (in use) binaries in memory.
+     * Garbage collector for S3 binaries that stores the marked (in use) binaries in memory, or in a
+     * {@link org.nuxeo.ecm.core.blob.binary.DigestBloomFilter DigestBloomFilter} if enabled.
      */
     public static class S3BinaryGarbageCollector extends AbstractBinaryGarbageCollector<S3BinaryManager> {
 
@@ -696,7 +882,7 @@ public class S3BinaryManager extends AbstractCloudBinaryManager {
                         continue;
                     }
                     long length = summary.getSize();
-                    if (marked.contains(digest)) {
+                    if (isMarked(digest)) {
                         status.numBinaries++;
                         status.sizeBinaries += length;
                     } else {
@@ -704,7 +890,6 @@ public class S3BinaryManager extends AbstractCloudBinaryManager {
                         status.sizeBinariesGC += length;
                         // record file to delete
                         unmarked.add(digest);
-                        marked.remove(digest); // optimize memory
                     }
                 }
             } while (list.isTruncated());
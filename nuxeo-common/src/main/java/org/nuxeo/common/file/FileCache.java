@@ -34,6 +34,7 @@ import java.io.InputStream;
  * then pass this file to {@link #putFile(String, File)}.
  *
  * @see LRUFileCache
+ * @see TinyLFUFileCache
  */
 public interface FileCache {
 
@@ -0,0 +1,756 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.common.file;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A cache of {@link File}s with maximum filesystem size, using a frequency-based admission policy.
+ * <p>
+ * New files enter a small LRU window. When the window is full, its least recently used file is admitted in the main LRU
+ * region only if it was requested more often than the file it would replace there, according to a frequency sketch of
+ * the recent requests (W-TinyLFU). This way, files requested once, like large downloads, don't evict the files that are
+ * requested often.
+ * <p>
+ * The index is split in stripes by key, each one having its own lock, so that requests for different files don't
+ * contend. The maximum size and number of files apply to the whole cache: the least recently used files are found
+ * across all the stripes.
+ * <p>
+ * Request threads only update the in-memory index of the cache: evictions and the deletion of the evicted files are
+ * done by a maintenance thread. Files accessed more recently than the minimum age are never evicted.
+ * <p>
+ * The cache keys are restricted to a subset of ASCII: letters, digits and dashes. Usually a MD5 or SHA1 hash is used.
+ *
+ * @since 11.1
+ */
+public class TinyLFUFileCache implements FileCache, AutoCloseable {
+
+    private static final Log log = LogFactory.getLog(TinyLFUFileCache.class);
+
+    public static final int DEFAULT_CONCURRENCY = 16;
+
+    /** Percentage of the size and number of files of the cache reserved for the window. */
+    protected static final int WINDOW_PERCENT = 1;
+
+    protected final Path dir;
+
+    protected final long minAgeMillis;
+
+    protected final long windowMaxSize;
+
+    protected final long windowMaxCount;
+
+    protected final long mainMaxSize;
+
+    protected final long mainMaxCount;
+
+    protected final Stripe[] stripes;
+
+    protected final int stripeMask;
+
+    /** Global size and number of files of each region, updated with the lock of the stripe holding the entry. */
+    protected final AtomicLong windowSize = new AtomicLong();
+
+    protected final AtomicLong windowCount = new AtomicLong();
+
+    protected final AtomicLong mainSize = new AtomicLong();
+
+    protected final AtomicLong mainCount = new AtomicLong();
+
+    /** Logical clock ordering the accesses across stripes, as several accesses can happen in the same millisecond. */
+    protected final AtomicLong accessClock = new AtomicLong();
+
+    protected final ExecutorService maintenanceExecutor;
+
+    protected final ReentrantLock maintenanceLock = new ReentrantLock();
+
+    protected final AtomicBoolean maintenanceScheduled = new AtomicBoolean();
+
+    protected final LongAdder hits = new LongAdder();
+
+    protected final LongAdder misses = new LongAdder();
+
+    protected final LongAdder bytesServed = new LongAdder();
+
+    protected final LongAdder evictions = new LongAdder();
+
+    protected final LongAdder rejections = new LongAdder();
+
+    /**
+     * Constructs a cache in the given directory with the given maximum size (in bytes).
+     *
+     * @param dir the directory to use to store cached files
+     * @param maxSize the maximum size of the cache (in bytes)
+     * @param maxCount the maximum number of files in the cache
+     * @param minAge the minimum age of a file in the cache to be eligible for removal (in seconds)
+     */
+    public TinyLFUFileCache(File dir, long maxSize, long maxCount, long minAge) {
+        this(dir, maxSize, maxCount, minAge, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Constructs a cache in the given directory with the given maximum size (in bytes).
+     *
+     * @param dir the directory to use to store cached files
+     * @param maxSize the maximum size of the cache (in bytes)
+     * @param maxCount the maximum number of files in the cache
+     * @param minAge the minimum age of a file in the cache to be eligible for removal (in seconds)
+     * @param concurrency the minimum number of stripes of the index, rounded up to a power of two
+     */
+    public TinyLFUFileCache(File dir, long maxSize, long maxCount, long minAge, int concurrency) {
+        this.dir = dir.toPath();
+        this.minAgeMillis = minAge * 1000;
+        windowMaxSize = Math.max(1, maxSize / 100 * WINDOW_PERCENT);
+        windowMaxCount = Math.max(1, maxCount / 100 * WINDOW_PERCENT);
+        mainMaxSize = Math.max(0, maxSize - windowMaxSize);
+        mainMaxCount = Math.max(0, maxCount - windowMaxCount);
+        int n = concurrency <= 1 ? 1 : Integer.highestOneBit(concurrency - 1) << 1;
+        stripes = new Stripe[n];
+        for (int i = 0; i < n; i++) {
+            // each stripe only sees the requests for its keys
+            stripes[i] = new Stripe(Math.max(1, maxCount / n));
+        }
+        stripeMask = n - 1;
+        maintenanceExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Nuxeo-FileCacheMaintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loadEntries();
+    }
+
+    /**
+     * Indexes the files already present in the cache directory, oldest first.
+     */
+    protected void loadEntries() {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        List<LRUFileCache.PathInfo> files = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, LRUFileCache.RegularFileFilter.INSTANCE)) {
+            for (Path path : ds) {
+                if (LRUFileCache.SIMPLE_ASCII.matcher(path.getFileName().toString()).matches()) {
+                    files.add(new LRUFileCache.PathInfo(path));
+                }
+            }
+        } catch (IOException e) {
+            log.error(e, e);
+        }
+        files.sort((a, b) -> Long.compare(a.time, b.time));
+        for (LRUFileCache.PathInfo pi : files) {
+            String key = pi.path.getFileName().toString();
+            Stripe stripe = stripe(key);
+            stripe.lock.lock();
+            try {
+                stripe.addMain(new Entry(key, pi.path, pi.size, pi.time, accessClock.incrementAndGet()));
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (needsMaintenance()) {
+            scheduleMaintenance();
+        }
+    }
+
+    protected Stripe stripe(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & stripeMask];
+    }
+
+    @Override
+    public long getSize() {
+        return windowSize.get() + mainSize.get();
+    }
+
+    @Override
+    public int getNumberOfItems() {
+        return (int) (windowCount.get() + mainCount.get());
+    }
+
+    /**
+     * Gets the number of requests for which the file was found in the cache.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of requests for which the file was not found in the cache.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the total size of the files returned by the cache, in bytes.
+     */
+    public long getBytesServed() {
+        return bytesServed.sum();
+    }
+
+    /**
+     * Gets the number of files removed from the cache to respect its maximum size and number of files.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Gets the number of evictions of files that were not admitted in the main region of the cache.
+     */
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+
+    @Override
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.clear();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        // also delete the files that are not indexed
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, LRUFileCache.RegularFileFilter.INSTANCE)) {
+            for (Path path : ds) {
+                delete(path);
+            }
+        } catch (NoSuchFileException e) {
+            // nothing to clear
+        } catch (IOException e) {
+            log.error(e, e);
+        }
+    }
+
+    /**
+     * Runs the pending evictions in the calling thread.
+     */
+    public void cleanUp() {
+        maintain();
+    }
+
+    protected void scheduleMaintenance() {
+        if (maintenanceScheduled.compareAndSet(false, true)) {
+            try {
+                maintenanceExecutor.execute(() -> {
+                    maintenanceScheduled.set(false);
+                    maintain();
+                });
+            } catch (RejectedExecutionException e) {
+                // cache closed
+                maintenanceScheduled.set(false);
+            }
+        }
+    }
+
+    protected boolean windowFull() {
+        return windowSize.get() > windowMaxSize || windowCount.get() > windowMaxCount;
+    }
+
+    protected boolean mainFull() {
+        return mainSize.get() > mainMaxSize || mainCount.get() > mainMaxCount;
+    }
+
+    protected boolean needsMaintenance() {
+        return windowFull() || mainFull();
+    }
+
+    /**
+     * Moves the files overflowing the window to the main region if they are admitted, and evicts files.
+     * <p>
+     * A single maintenance runs at a time. It holds the lock of at most one stripe at a time, so that request threads
+     * are only blocked for the stripe being updated.
+     */
+    protected void maintain() {
+        maintenanceLock.lock();
+        try {
+            long threshold = System.currentTimeMillis() - minAgeMillis;
+            while (windowFull()) {
+                Stripe stripe = getLeastRecentlyUsed(true);
+                if (stripe == null || !admitLeastRecentlyUsed(stripe, threshold)) {
+                    break;
+                }
+            }
+            // the main region may still be too big after loading the existing files
+            while (mainFull()) {
+                Stripe stripe = getLeastRecentlyUsed(false);
+                if (stripe == null || !evictLeastRecentlyUsed(stripe, threshold, Integer.MAX_VALUE)) {
+                    break;
+                }
+            }
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the stripe holding the least recently used file of the window or of the main region.
+     */
+    protected Stripe getLeastRecentlyUsed(boolean inWindow) {
+        Stripe lru = null;
+        long lruOrder = Long.MAX_VALUE;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Entry entry = stripe.getLeastRecentlyUsed(inWindow);
+                if (entry != null && entry.order < lruOrder) {
+                    lru = stripe;
+                    lruOrder = entry.order;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return lru;
+    }
+
+    /**
+     * Moves the least recently used file of the window of the given stripe to the main region if it's more frequent
+     * than the files that have to be evicted to make room for it, otherwise evicts it.
+     *
+     * @return {@code false} if the file is too recent to leave the window
+     */
+    protected boolean admitLeastRecentlyUsed(Stripe stripe, long threshold) {
+        Entry candidate;
+        int frequency;
+        stripe.lock.lock();
+        try {
+            candidate = stripe.getLeastRecentlyUsed(true);
+            if (candidate == null) {
+                return true;
+            }
+            if (candidate.time > threshold) {
+                return false;
+            }
+            frequency = stripe.sketch.frequency(candidate.key);
+        } finally {
+            stripe.lock.unlock();
+        }
+        // a file that can't fit in the main region doesn't evict anything
+        boolean admitted = candidate.size <= mainMaxSize && mainMaxCount > 0
+                && makeRoom(candidate.size, frequency, threshold);
+        stripe.lock.lock();
+        try {
+            // the file may have been forgotten in the meantime
+            if (stripe.removeWindow(candidate)) {
+                if (admitted) {
+                    stripe.addMain(candidate);
+                } else {
+                    rejections.increment();
+                    evict(candidate);
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * Evicts the least recently used files of the main region to make room for a file, as long as they are less
+     * frequent than it.
+     *
+     * @return {@code true} if there is enough room for the file
+     */
+    protected boolean makeRoom(long size, int frequency, long threshold) {
+        while (mainSize.get() + size > mainMaxSize || mainCount.get() + 1 > mainMaxCount) {
+            Stripe stripe = getLeastRecentlyUsed(false);
+            if (stripe == null || !evictLeastRecentlyUsed(stripe, threshold, frequency)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Evicts the least recently used file of the main region of the given stripe.
+     *
+     * @param frequency the frequency the file must be less frequent than to be evicted
+     * @return {@code false} if the file can't be evicted
+     */
+    protected boolean evictLeastRecentlyUsed(Stripe stripe, long threshold, int frequency) {
+        stripe.lock.lock();
+        try {
+            Entry victim = stripe.getLeastRecentlyUsed(false);
+            if (victim == null) {
+                // emptied in the meantime
+                return true;
+            }
+            if (victim.time > threshold || frequency <= stripe.sketch.frequency(victim.key)) {
+                return false;
+            }
+            stripe.removeMain(victim);
+            evict(victim);
+            return true;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    protected void evict(Entry entry) {
+        evictions.increment();
+        delete(entry.path);
+    }
+
+    protected void touch(Entry entry) {
+        entry.time = System.currentTimeMillis();
+        entry.order = accessClock.incrementAndGet();
+    }
+
+    /**
+     * Stops the maintenance thread. The files are not deleted.
+     */
+    @Override
+    public void close() {
+        maintenanceExecutor.shutdownNow();
+    }
+
+    @Override
+    public File getTempFile() throws IOException {
+        // make sure we have a temporary directory
+        // even if it's been deleted by an external process doing cleanup
+        Files.createDirectories(dir);
+        return Files.createTempFile(dir, LRUFileCache.TMP_PREFIX, LRUFileCache.TMP_SUFFIX).toFile();
+    }
+
+    protected void checkKey(String key) throws IllegalArgumentException {
+        if (!LRUFileCache.SIMPLE_ASCII.matcher(key).matches() || ".".equals(key) || "..".equals(key)) {
+            throw new IllegalArgumentException("Invalid key: " + key);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The key is used as a file name in the directory cache.
+     */
+    @Override
+    public File putFile(String key, InputStream in) throws IOException {
+        File tmp;
+        try {
+            // check the cache
+            checkKey(key);
+            Stripe stripe = stripe(key);
+            stripe.lock.lock();
+            try {
+                Entry entry = stripe.getLive(key);
+                if (entry != null) {
+                    touch(entry);
+                    return entry.path.toFile();
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+
+            // store the stream in a temporary file
+            tmp = getTempFile();
+            try (FileOutputStream out = new FileOutputStream(tmp)) {
+                IOUtils.copy(in, out);
+            }
+        } finally {
+            in.close();
+        }
+        return putFile(key, tmp);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The key is used as a file name in the directory cache.
+     */
+    @Override
+    public File putFile(String key, File file) throws IllegalArgumentException, IOException {
+        Path source = file.toPath();
+
+        // put file in cache
+        checkKey(key);
+        Path path = dir.resolve(key);
+        Stripe stripe = stripe(key);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.getLive(key);
+            if (entry == null) {
+                try {
+                    Files.move(source, path);
+                } catch (FileAlreadyExistsException faee) {
+                    // already something there, not indexed yet
+                    delete(source);
+                }
+                stripe.addWindow(new Entry(key, path, Files.size(path), System.currentTimeMillis(),
+                        accessClock.incrementAndGet()));
+            } else {
+                touch(entry);
+                // remove unused tmp file
+                delete(source);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (needsMaintenance()) {
+            scheduleMaintenance();
+        }
+        return path.toFile();
+    }
+
+    @Override
+    public File getFile(String key) {
+        checkKey(key);
+        Stripe stripe = stripe(key);
+        Entry entry;
+        stripe.lock.lock();
+        try {
+            // misses are counted too, so that a file requested often is admitted once cached
+            stripe.sketch.increment(key);
+            entry = stripe.getLive(key);
+            if (entry != null) {
+                touch(entry);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        bytesServed.add(entry.size);
+        return entry.path.toFile();
+    }
+
+    protected static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.error(e, e);
+        }
+    }
+
+    /**
+     * A file in the cache.
+     */
+    protected static class Entry {
+
+        protected final String key;
+
+        protected final Path path;
+
+        protected final long size;
+
+        /** Last access time. */
+        protected long time;
+
+        /** Last access order in the cache. */
+        protected long order;
+
+        protected Entry(String key, Path path, long size, long time, long order) {
+            this.key = key;
+            this.path = path;
+            this.size = size;
+            this.time = time;
+            this.order = order;
+        }
+    }
+
+    /**
+     * A stripe of the index of the cache. All methods must be called with the lock held.
+     */
+    protected class Stripe {
+
+        protected final ReentrantLock lock = new ReentrantLock();
+
+        /** Entries in access order, least recently used first. */
+        protected final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+
+        /** Entries in access order, least recently used first. */
+        protected final LinkedHashMap<String, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+
+        protected final FrequencySketch sketch;
+
+        protected Stripe(long expectedCount) {
+            sketch = new FrequencySketch(expectedCount);
+        }
+
+        /**
+         * Gets an entry whose file still exists, forgetting it if its file was deleted by an external process.
+         */
+        protected Entry getLive(String key) {
+            Entry entry = window.get(key);
+            if (entry == null) {
+                entry = main.get(key);
+            }
+            if (entry != null && !Files.exists(entry.path)) {
+                if (!removeWindow(entry)) {
+                    removeMain(entry);
+                }
+                entry = null;
+            }
+            return entry;
+        }
+
+        protected Entry getLeastRecentlyUsed(boolean inWindow) {
+            Iterator<Entry> it = (inWindow ? window : main).values().iterator();
+            return it.hasNext() ? it.next() : null;
+        }
+
+        protected void addWindow(Entry entry) {
+            window.put(entry.key, entry);
+            windowSize.addAndGet(entry.size);
+            windowCount.incrementAndGet();
+        }
+
+        protected void addMain(Entry entry) {
+            main.put(entry.key, entry);
+            mainSize.addAndGet(entry.size);
+            mainCount.incrementAndGet();
+        }
+
+        protected boolean removeWindow(Entry entry) {
+            // doesn't change the access order, unlike get
+            if (!window.remove(entry.key, entry)) {
+                return false;
+            }
+            windowSize.addAndGet(-entry.size);
+            windowCount.decrementAndGet();
+            return true;
+        }
+
+        protected boolean removeMain(Entry entry) {
+            if (!main.remove(entry.key, entry)) {
+                return false;
+            }
+            mainSize.addAndGet(-entry.size);
+            mainCount.decrementAndGet();
+            return true;
+        }
+
+        protected void clear() {
+            for (Entry entry : new ArrayList<>(window.values())) {
+                removeWindow(entry);
+                delete(entry.path);
+            }
+            for (Entry entry : new ArrayList<>(main.values())) {
+                removeMain(entry);
+                delete(entry.path);
+            }
+        }
+    }
+
+    /**
+     * An approximate count of the recent requests of each key (count-min sketch with 4-bit counters), whose counters
+     * are halved periodically so that old requests are forgotten. Not thread-safe.
+     */
+    protected static class FrequencySketch {
+
+        protected static final int DEPTH = 4;
+
+        protected static final int MAX_FREQUENCY = 15;
+
+        protected final byte[] counters;
+
+        protected final int width;
+
+        protected final int sampleSize;
+
+        protected int additions;
+
+        protected FrequencySketch(long expected) {
+            long w = Long.highestOneBit(Math.max(64, Math.min(1 << 16, expected)) - 1) << 1;
+            width = (int) w;
+            counters = new byte[DEPTH * width];
+            sampleSize = 10 * width;
+        }
+
+        protected void increment(String key) {
+            long h = hash(key);
+            boolean added = false;
+            for (int i = 0; i < DEPTH; i++) {
+                int index = index(h, i);
+                if (counters[index] < MAX_FREQUENCY) {
+                    counters[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        protected int frequency(String key) {
+            long h = hash(key);
+            int frequency = MAX_FREQUENCY;
+            for (int i = 0; i < DEPTH; i++) {
+                frequency = Math.min(frequency, counters[index(h, i)]);
+            }
+            return frequency;
+        }
+
+        protected int index(long h, int i) {
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32) | 1;
+            return i * width + ((h1 + i * h2) & (width - 1));
+        }
+
+        protected void reset() {
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] >>>= 1;
+            }
+            additions /= 2;
+        }
+
+        protected static long hash(String key) {
+            // FNV-1a over the chars, then the MurmurHash3 finalizer to spread the bits
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                h = (h ^ key.charAt(i)) * 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.common.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestTinyLFUFileCache {
+
+    protected File dir;
+
+    protected TinyLFUFileCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = File.createTempFile("nxtesttinylfufilecache.", "", new File(System.getProperty("java.io.tmpdir")));
+        dir.delete();
+        dir.mkdir();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (cache != null) {
+            cache.close();
+        }
+        FileUtils.deleteQuietly(dir);
+    }
+
+    protected void put(String key, int size) throws IOException {
+        // callers check the cache before putting a file
+        assertNull(cache.getFile(key));
+        cache.putFile(key, new ByteArrayInputStream(new byte[size]));
+        cache.cleanUp();
+    }
+
+    @Test
+    public void testPutGetClear() throws Exception {
+        cache = new TinyLFUFileCache(dir, 1000, 100, 0);
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getNumberOfItems());
+
+        put("1", 30);
+        put("2", 40);
+        assertEquals(2, cache.getNumberOfItems());
+        assertEquals(70, cache.getSize());
+        assertEquals(new File(dir, "1"), cache.getFile("1"));
+        assertEquals(30, cache.getFile("1").length());
+        assertNull(cache.getFile("3"));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(60, cache.getBytesServed());
+
+        // file deleted by an external process
+        FileUtils.deleteDirectory(dir);
+        assertNull(cache.getFile("1"));
+        put("1", 30);
+        assertEquals(new File(dir, "1"), cache.getFile("1"));
+
+        cache.clear();
+        assertEquals(0, cache.getNumberOfItems());
+        assertEquals(0, cache.getSize());
+        assertEquals(0, dir.listFiles().length);
+    }
+
+    @Test
+    public void testOneHitWondersDoNotEvictFrequentFiles() throws Exception {
+        // one stripe with a window of 1 file and a main region of 10 files
+        cache = new TinyLFUFileCache(dir, 100_000, 11, 0, 1);
+        for (int i = 0; i < 10; i++) {
+            put("hot" + i, 100);
+        }
+        for (int n = 0; n < 3; n++) {
+            for (int i = 0; i < 10; i++) {
+                assertNotNull(cache.getFile("hot" + i));
+            }
+        }
+
+        // files downloaded once
+        for (int i = 0; i < 20; i++) {
+            put("once" + i, 500);
+        }
+        assertEquals(11, cache.getNumberOfItems());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(new File(dir, "hot" + i).exists());
+        }
+        // only the last one is still in the window
+        for (int i = 0; i < 19; i++) {
+            assertFalse(new File(dir, "once" + i).exists());
+        }
+        assertTrue(new File(dir, "once19").exists());
+        assertEquals(19, cache.getEvictionCount());
+        assertEquals(19, cache.getRejectionCount());
+    }
+
+    @Test
+    public void testOneHitWondersDoNotEvictFrequentFilesWithDefaultConcurrency() throws Exception {
+        // the maximum number of files is less than the number of stripes, it applies to the whole cache
+        cache = new TinyLFUFileCache(dir, 100_000, 11, 0);
+        for (int i = 0; i < 10; i++) {
+            put("hot" + i, 100);
+        }
+        assertEquals(10, cache.getNumberOfItems());
+        for (int n = 0; n < 3; n++) {
+            for (int i = 0; i < 10; i++) {
+                assertNotNull(cache.getFile("hot" + i));
+            }
+        }
+
+        // files downloaded once
+        for (int i = 0; i < 20; i++) {
+            put("once" + i, 500);
+        }
+        assertEquals(11, cache.getNumberOfItems());
+        assertEquals(10 * 100 + 500, cache.getSize());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(new File(dir, "hot" + i).exists());
+        }
+        for (int i = 0; i < 19; i++) {
+            assertFalse(new File(dir, "once" + i).exists());
+        }
+        assertTrue(new File(dir, "once19").exists());
+        assertEquals(19, cache.getEvictionCount());
+        assertEquals(19, cache.getRejectionCount());
+    }
+
+    @Test
+    public void testFileBiggerThanMainRegionDoesNotEvict() throws Exception {
+        cache = new TinyLFUFileCache(dir, 1000, 100, 0);
+        for (int i = 0; i < 5; i++) {
+            put("file" + i, 100);
+        }
+        // requested more often than the cached files
+        for (int n = 0; n < 10; n++) {
+            assertNull(cache.getFile("big"));
+        }
+        put("big", 2000);
+        // rejected without evicting the other files
+        assertFalse(new File(dir, "big").exists());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(new File(dir, "file" + i).exists());
+        }
+        assertEquals(5, cache.getNumberOfItems());
+        assertEquals(500, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(1, cache.getRejectionCount());
+    }
+
+    @Test
+    public void testFrequentFileIsAdmitted() throws Exception {
+        cache = new TinyLFUFileCache(dir, 100_000, 10, 0, 1);
+        for (int i = 0; i < 10; i++) {
+            put("cold" + i, 100);
+        }
+        // requested several times before being cached
+        for (int n = 0; n < 3; n++) {
+            assertNull(cache.getFile("new"));
+        }
+        put("new", 100);
+        put("other", 100);
+        // admitted in place of the least recently used file
+        assertEquals(10, cache.getNumberOfItems());
+        assertTrue(new File(dir, "new").exists());
+        assertFalse(new File(dir, "cold0").exists());
+        // the last cold file left the window first, and was not admitted
+        assertFalse(new File(dir, "cold9").exists());
+        assertEquals(1, cache.getRejectionCount());
+    }
+
+    @Test
+    public void testMinAge() throws Exception {
+        cache = new TinyLFUFileCache(dir, 100, 9999, 3600, 1);
+        put("1", 60);
+        put("2", 60);
+        put("3", 60);
+        // over the maximum size, but too recent to be evicted
+        assertEquals(3, cache.getNumberOfItems());
+        assertEquals(180, cache.getSize());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testLoadExistingFiles() throws Exception {
+        cache = new TinyLFUFileCache(dir, 1000, 100, 0);
+        put("1", 30);
+        cache.close();
+
+        cache = new TinyLFUFileCache(dir, 1000, 100, 0);
+        assertEquals(1, cache.getNumberOfItems());
+        assertEquals(30, cache.getSize());
+        assertEquals(new File(dir, "1"), cache.getFile("1"));
+    }
+
+}
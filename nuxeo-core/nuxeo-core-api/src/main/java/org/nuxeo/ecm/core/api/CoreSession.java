@@ -1138,6 +1138,16 @@ public interface CoreSession {
      */
     ScrollResult<String> scroll(String scrollId);
 
+    /**
+     * Closes a scroll before its last batch of results has been requested, releasing its resources without waiting for
+     * its timeout.
+     *
+     * @param scrollId the scroll id, part of the {@link ScrollResult} responses
+     * @return {@code true} if the scroll was closed, {@code false} if it was unknown, finished or timed out
+     * @since 11.1
+     */
+    boolean closeScroll(String scrollId);
+
     /** -------------------------- Security API --------------------------- * */
 
     /**
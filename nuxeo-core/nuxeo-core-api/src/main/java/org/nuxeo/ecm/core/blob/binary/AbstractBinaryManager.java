@@ -132,9 +132,18 @@ public abstract class AbstractBinaryManager implements BinaryManager {
     public static final int MAX_BUF_SIZE = 64 * 1024; // 64 kB
 
     protected String storeAndDigest(InputStream in, OutputStream out) throws IOException {
+        return storeAndDigest(in, out, getDigestAlgorithm());
+    }
+
+    /**
+     * Copies the stream and computes its digest with the given algorithm.
+     *
+     * @since 11.1
+     */
+    protected String storeAndDigest(InputStream in, OutputStream out, String algorithm) throws IOException {
         MessageDigest digest;
         try {
-            digest = MessageDigest.getInstance(getDigestAlgorithm());
+            digest = MessageDigest.getInstance(algorithm);
         } catch (NoSuchAlgorithmException e) {
             throw (IOException) new IOException().initCause(e);
         }
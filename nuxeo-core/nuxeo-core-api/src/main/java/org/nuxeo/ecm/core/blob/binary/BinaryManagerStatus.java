@@ -33,6 +33,15 @@ public class BinaryManagerStatus {
 
     public long sizeBinariesGC;
 
+    // @since 11.1
+    public long numBinariesMarked;
+
+    // @since 11.1
+    public long numDirectoriesToSweep;
+
+    // @since 11.1
+    public long numDirectoriesSwept;
+
     /**
      * The GC duration, in milliseconds
      */
@@ -68,6 +77,33 @@ public class BinaryManagerStatus {
         return sizeBinariesGC;
     }
 
+    /**
+     * The number of binaries marked as used, when known.
+     *
+     * @since 11.1
+     */
+    public long getNumBinariesMarked() {
+        return numBinariesMarked;
+    }
+
+    /**
+     * The number of top-level directories to sweep, when the sweep is done per directory.
+     *
+     * @since 11.1
+     */
+    public long getNumDirectoriesToSweep() {
+        return numDirectoriesToSweep;
+    }
+
+    /**
+     * The number of top-level directories already swept, to follow the progress of the sweep.
+     *
+     * @since 11.1
+     */
+    public long getNumDirectoriesSwept() {
+        return numDirectoriesSwept;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -75,7 +111,10 @@ public class BinaryManagerStatus {
         .append(", numBinaries=").append(numBinaries) //
         .append(", sizeBinaries=").append(sizeBinaries) //
         .append(", numBinariesGC=").append(numBinariesGC) //
-        .append(", sizeBinariesGC=").append(sizeBinariesGC).append("]");
+        .append(", sizeBinariesGC=").append(sizeBinariesGC) //
+        .append(", numBinariesMarked=").append(numBinariesMarked) //
+        .append(", numDirectoriesToSweep=").append(numDirectoriesToSweep) //
+        .append(", numDirectoriesSwept=").append(numDirectoriesSwept).append("]");
         return builder.toString();
     }
 
@@ -20,26 +20,56 @@
 package org.nuxeo.ecm.core.blob.binary;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.TeeOutputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.nuxeo.common.file.FileCache;
-import org.nuxeo.common.file.LRUFileCache;
+import org.nuxeo.common.file.TinyLFUFileCache;
 import org.nuxeo.common.utils.SizeUtils;
+import org.nuxeo.ecm.core.blob.binary.FileStorage.StreamingUpload;
 import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.trackers.files.FileEventTracker;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
 /**
  * Abstract class for a {@link BinaryManager} that uses a cache for its files because fetching them is expensive.
  * <p>
  * Initialization of the {@link BinaryManager} must call {@link #initializeCache} from the {@link #initialize} method.
+ * <p>
+ * Files missing from the cache are fetched from the storage by background threads, a single fetch being done for
+ * concurrent requests of the same file. When the {@link FileStorage} can stream files, {@link #getStream} serves the
+ * bytes as soon as they are received, while the file is written to the cache. Likewise when it supports
+ * {@linkplain FileStorage#startUpload streaming uploads}, new files are sent to the storage while they are written to
+ * the cache.
+ * <p>
+ * The cache is a {@link TinyLFUFileCache}, which doesn't let files requested once evict the files requested often.
  *
  * @since 5.7
  */
@@ -53,6 +83,27 @@ public abstract class CachingBinaryManager extends AbstractBinaryManager {
 
     protected FileStorage fileStorage;
 
+    // @since 11.1
+    protected ExecutorService fetchExecutor;
+
+    // @since 11.1
+    protected final Map<String, Fetch> fetches = new ConcurrentHashMap<>();
+
+    // @since 11.1
+    protected Meter uploadedBytes;
+
+    // @since 11.1
+    protected Meter downloadedBytes;
+
+    // @since 11.1
+    protected Timer uploadTimer;
+
+    // @since 11.1
+    protected Timer downloadTimer;
+
+    // @since 11.1
+    protected String cacheMetricsName;
+
     @Override
     public void initialize(String blobProviderId, Map<String, String> properties) throws IOException {
         super.initialize(blobProviderId, properties);
@@ -72,8 +123,38 @@ public abstract class CachingBinaryManager extends AbstractBinaryManager {
      * @since 5.9.2
      */
     protected void initializeCache(File dir, long maxSize, long maxCount, long minAge, FileStorage fileStorage) {
-        fileCache = new LRUFileCache(dir, maxSize, maxCount, minAge);
+        TinyLFUFileCache cache = new TinyLFUFileCache(dir, maxSize, maxCount, minAge);
+        fileCache = cache;
         this.fileStorage = fileStorage;
+        // unbounded, as readers wait for their fetch: a fetch must never be queued behind other slow fetches
+        // there is at most one fetch per file requested concurrently, idle threads are released after a minute
+        AtomicInteger threadNumber = new AtomicInteger();
+        fetchExecutor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "Nuxeo-BinaryFetch-" + blobProviderId + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        String name = MetricRegistry.name("nuxeo", "binarymanager", blobProviderId);
+        uploadedBytes = registry.meter(MetricRegistry.name(name, "upload", "bytes"));
+        downloadedBytes = registry.meter(MetricRegistry.name(name, "download", "bytes"));
+        uploadTimer = registry.timer(MetricRegistry.name(name, "upload"));
+        downloadTimer = registry.timer(MetricRegistry.name(name, "download"));
+        cacheMetricsName = MetricRegistry.name(name, "cache");
+        registry.removeMatching((metricName, metric) -> metricName.startsWith(cacheMetricsName + "."));
+        registry.register(MetricRegistry.name(cacheMetricsName, "hit-ratio"), new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                long hits = cache.getHitCount();
+                return Ratio.of(hits, hits + cache.getMissCount());
+            }
+        });
+        registry.register(MetricRegistry.name(cacheMetricsName, "bytes-served"),
+                (Gauge<Long>) cache::getBytesServed);
+        registry.register(MetricRegistry.name(cacheMetricsName, "evictions"), (Gauge<Long>) cache::getEvictionCount);
+        registry.register(MetricRegistry.name(cacheMetricsName, "rejections"),
+                (Gauge<Long>) cache::getRejectionCount);
+        registry.register(MetricRegistry.name(cacheMetricsName, "size"), (Gauge<Long>) cache::getSize);
     }
 
     /**
@@ -118,6 +199,16 @@ public abstract class CachingBinaryManager extends AbstractBinaryManager {
 
     @Override
     public void close() {
+        if (fetchExecutor != null) {
+            fetchExecutor.shutdownNow();
+        }
+        if (cacheMetricsName != null) {
+            MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+            registry.removeMatching((metricName, metric) -> metricName.startsWith(cacheMetricsName + "."));
+        }
+        if (fileCache instanceof TinyLFUFileCache) {
+            ((TinyLFUFileCache) fileCache).close();
+        }
         fileCache.clear();
         if (cachedir != null) {
             try {
@@ -131,14 +222,26 @@ public abstract class CachingBinaryManager extends AbstractBinaryManager {
     @Override
     protected Binary getBinary(InputStream in) throws IOException {
         // write the input stream to a temporary file, while computing a digest
+        // and sending it to the storage if it supports streaming uploads
         File tmp = fileCache.getTempFile();
+        StreamingUpload upload = fileStorage.startUpload();
         OutputStream out = new FileOutputStream(tmp);
+        if (upload != null) {
+            out = new TeeOutputStream(out, upload.getOutputStream());
+        }
         String digest;
         try {
-            digest = storeAndDigest(in, out);
-        } finally {
-            in.close();
-            out.close();
+            try {
+                digest = storeAndDigest(in, out);
+            } finally {
+                in.close();
+                out.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (upload != null) {
+                upload.abort();
+            }
+            throw e;
         }
 
         File cachedFile = fileCache.getFile(digest);
@@ -149,9 +252,20 @@ public abstract class CachingBinaryManager extends AbstractBinaryManager {
             }
             // delete tmp file, not needed anymore
             tmp.delete();
+            if (upload != null) {
+                upload.abort();
+            }
         } else {
-            // send the file to storage
-            fileStorage.storeFile(digest, tmp);
+            // send the file to storage, or complete the streamed upload
+            long length = tmp.length();
+            try (Timer.Context context = uploadTimer.time()) {
+                if (upload == null) {
+                    fileStorage.storeFile(digest, tmp);
+                } else {
+                    upload.complete(digest);
+                }
+            }
+            uploadedBytes.mark(length);
             // register the file in the file cache
             fileCache.putFile(digest, tmp);
         }
@@ -177,16 +291,277 @@ public abstract class CachingBinaryManager extends AbstractBinaryManager {
             return file;
         }
         // fetch file from storage
+        return fetch(digest).awaitFile();
+    }
+
+    /**
+     * Gets a stream on a file from cache or storage.
+     * <p>
+     * If the file is not in the cache and the storage can stream it, the stream returns the bytes while they are
+     * fetched.
+     * <p>
+     * Used by {@link LazyBinary}.
+     *
+     * @return the stream, or {@code null} if the file is not in storage
+     * @since 11.1
+     */
+    public InputStream getStream(String digest) throws IOException {
+        File file = fileCache.getFile(digest);
+        if (file == null) {
+            Fetch fetch = fetch(digest);
+            File tmp = fetch.awaitStart();
+            if (tmp != null) {
+                try {
+                    return new FetchInputStream(fetch, tmp);
+                } catch (NoSuchFileException e) {
+                    // fetch completed and moved the file to the cache in the meantime
+                }
+            }
+            file = fetch.awaitFile();
+        }
+        return file == null ? null : new FileInputStream(file);
+    }
+
+    /**
+     * Gets the fetch in progress for a file, or starts a new one.
+     *
+     * @since 11.1
+     */
+    protected Fetch fetch(String digest) {
+        return fetches.computeIfAbsent(digest, k -> {
+            Fetch fetch = new Fetch();
+            fetchExecutor.execute(() -> runFetch(digest, fetch));
+            return fetch;
+        });
+    }
+
+    protected void runFetch(String digest, Fetch fetch) {
+        try {
+            // a fetch that just completed may have put the file in the cache
+            File file = fileCache.getFile(digest);
+            if (file == null) {
+                file = fetchToCache(digest, fetch);
+            }
+            fetch.complete(file);
+        } catch (IOException | RuntimeException e) {
+            fetch.fail(e);
+        } finally {
+            fetches.remove(digest, fetch);
+        }
+    }
+
+    /**
+     * Fetches a file from storage and puts it in the cache.
+     *
+     * @return the cached file, or {@code null} if the file is not in storage
+     * @since 11.1
+     */
+    protected File fetchToCache(String digest, Fetch fetch) throws IOException {
         File tmp = fileCache.getTempFile();
-        if (fileStorage.fetchFile(digest, tmp)) {
-            // put file in cache
-            file = fileCache.putFile(digest, tmp);
-            return file;
-        } else {
+        boolean found;
+        try (Timer.Context context = downloadTimer.time()) {
+            InputStream stream = fileStorage.getStream(digest);
+            if (stream == null) {
+                found = fileStorage.fetchFile(digest, tmp);
+            } else {
+                try (InputStream in = stream; OutputStream out = new FetchOutputStream(tmp, fetch)) {
+                    fetch.start(tmp);
+                    // the key may have been computed with another algorithm than the current one, or not be a digest
+                    String algorithm = DIGESTS_BY_LENGTH.get(digest.length());
+                    if (algorithm == null) {
+                        IOUtils.copy(in, out);
+                        out.flush();
+                    } else {
+                        String actualDigest = storeAndDigest(in, out, algorithm);
+                        if (!digest.equals(actualDigest)) {
+                            throw new IOException("Invalid fetched binary, expected digest " + digest + " got "
+                                    + actualDigest);
+                        }
+                    }
+                }
+                found = true;
+            }
+        } catch (IOException | RuntimeException e) {
+            tmp.delete();
+            throw e;
+        }
+        if (!found) {
             // file not in storage
             tmp.delete();
             return null;
         }
+        downloadedBytes.mark(tmp.length());
+        // put file in cache
+        return fileCache.putFile(digest, tmp);
+    }
+
+    /**
+     * The state of the fetch of a file from storage, shared between the fetching thread and the readers.
+     *
+     * @since 11.1
+     */
+    protected static class Fetch {
+
+        /** The file being written, if streaming. */
+        protected File tmp;
+
+        /** The number of bytes written to the file so far. */
+        protected long length;
+
+        protected boolean started;
+
+        protected boolean done;
+
+        protected File file;
+
+        protected Exception error;
+
+        protected synchronized void start(File tmp) {
+            this.tmp = tmp;
+            started = true;
+            notifyAll();
+        }
+
+        protected synchronized void progress(int n) {
+            length += n;
+            notifyAll();
+        }
+
+        protected synchronized void complete(File file) {
+            this.file = file;
+            started = done = true;
+            notifyAll();
+        }
+
+        protected synchronized void fail(Exception error) {
+            this.error = error;
+            started = done = true;
+            notifyAll();
+        }
+
+        /**
+         * Waits for the fetch to start.
+         *
+         * @return the file being written if the fetch is streaming, or {@code null} if the complete file must be
+         *         waited for
+         */
+        protected synchronized File awaitStart() throws IOException {
+            while (!started) {
+                await();
+            }
+            return done ? null : tmp;
+        }
+
+        /**
+         * Waits for bytes after the given position to be written.
+         *
+         * @return the number of bytes available, less than or equal to the position at the end of the file
+         */
+        protected synchronized long awaitAvailable(long position) throws IOException {
+            while (length <= position && !done) {
+                await();
+            }
+            checkError();
+            return length;
+        }
+
+        protected synchronized File awaitFile() throws IOException {
+            while (!done) {
+                await();
+            }
+            checkError();
+            return file;
+        }
+
+        protected void checkError() throws IOException {
+            if (error != null) {
+                throw new IOException("Cannot fetch binary", error);
+            }
+        }
+
+        protected void await() throws InterruptedIOException {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+    }
+
+    /**
+     * Writes the fetched bytes to the file and notifies the readers.
+     *
+     * @since 11.1
+     */
+    protected static class FetchOutputStream extends FilterOutputStream {
+
+        protected final Fetch fetch;
+
+        protected FetchOutputStream(File file, Fetch fetch) throws IOException {
+            super(new FileOutputStream(file));
+            this.fetch = fetch;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            fetch.progress(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            // unbuffered, so the bytes are readable from the file when notifying
+            out.write(b, off, len);
+            fetch.progress(len);
+        }
+    }
+
+    /**
+     * Reads a file while it is being fetched.
+     *
+     * @since 11.1
+     */
+    protected static class FetchInputStream extends InputStream {
+
+        protected final Fetch fetch;
+
+        protected final FileChannel channel;
+
+        protected long position;
+
+        protected FetchInputStream(Fetch fetch, File file) throws IOException {
+            this.fetch = fetch;
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            int n = read(b, 0, 1);
+            return n <= 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            long available = fetch.awaitAvailable(position);
+            if (available <= position) {
+                return -1;
+            }
+            int n = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, available - position)), position);
+            if (n > 0) {
+                position += n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
     }
 
 }
@@ -0,0 +1,172 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.blob.binary;
+
+import java.nio.ByteBuffer;
+
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * A Bloom filter of binary digests, stored outside of the Java heap in direct buffers.
+ * <p>
+ * Used by the garbage collectors to record the marked binaries: a digest that was put in the filter is always found
+ * by {@link #mightContain}, and a digest that was not put is found with a probability close to the configured false
+ * positive probability, which means that some unused binaries may be kept until the next GC, but that a used binary
+ * is never collected. When more digests than expected are put, the false positive probability increases.
+ *
+ * @since 11.1
+ */
+public class DigestBloomFilter {
+
+    /**
+     * Framework property to enable the recording of marked binaries in a Bloom filter, instead of touching the binary
+     * files or keeping their digests on the Java heap.
+     */
+    public static final String GC_BLOOM_FILTER_ENABLED_PROP = "nuxeo.binarymanager.gc.bloomfilter.enabled";
+
+    /**
+     * Framework property for the expected number of marked binaries, used to size the filter.
+     */
+    public static final String GC_BLOOM_FILTER_EXPECTED_PROP = "nuxeo.binarymanager.gc.bloomfilter.expected";
+
+    /**
+     * Framework property for the false positive probability of the filter.
+     */
+    public static final String GC_BLOOM_FILTER_FPP_PROP = "nuxeo.binarymanager.gc.bloomfilter.fpp";
+
+    public static final long DEFAULT_EXPECTED = 10_000_000;
+
+    public static final double DEFAULT_FPP = 0.01;
+
+    protected static final int PAGE_SHIFT = 30;
+
+    protected static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    protected final ByteBuffer[] pages;
+
+    protected final long numBits;
+
+    protected final int numHashes;
+
+    protected long count;
+
+    /**
+     * Creates a filter.
+     *
+     * @param expected the expected number of digests
+     * @param fpp the false positive probability when the expected number of digests has been put
+     */
+    public DigestBloomFilter(long expected, double fpp) {
+        if (expected <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter parameters: " + expected + ", " + fpp);
+        }
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expected * Math.log(fpp) / (ln2 * ln2));
+        long numBytes = Math.max(8, (bits + 7) / 8);
+        numBits = numBytes * 8;
+        numHashes = Math.max(1, (int) Math.round((double) numBits / expected * ln2));
+        int numPages = (int) ((numBytes + PAGE_SIZE - 1) >>> PAGE_SHIFT);
+        pages = new ByteBuffer[numPages];
+        for (int i = 0; i < numPages; i++) {
+            long size = Math.min(PAGE_SIZE, numBytes - ((long) i << PAGE_SHIFT));
+            pages[i] = ByteBuffer.allocateDirect((int) size);
+        }
+    }
+
+    /**
+     * Creates a filter for a garbage collection, configured by the framework properties.
+     *
+     * @return the filter, or {@code null} if the garbage collectors don't use a Bloom filter
+     */
+    public static DigestBloomFilter newGarbageCollectorFilter() {
+        if (!Framework.isBooleanPropertyTrue(GC_BLOOM_FILTER_ENABLED_PROP)) {
+            return null;
+        }
+        long expected = Long.parseLong(Framework.getProperty(GC_BLOOM_FILTER_EXPECTED_PROP,
+                String.valueOf(DEFAULT_EXPECTED)));
+        double fpp = Double.parseDouble(Framework.getProperty(GC_BLOOM_FILTER_FPP_PROP, String.valueOf(DEFAULT_FPP)));
+        return new DigestBloomFilter(expected, fpp);
+    }
+
+    /**
+     * Puts a digest in the filter.
+     */
+    public synchronized void put(String digest) {
+        long h1 = hash(digest, 0xcbf29ce484222325L);
+        long h2 = hash(digest, 0x84222325cbf29ce4L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            ByteBuffer page = pages[(int) (bit >>> (PAGE_SHIFT + 3))];
+            int index = (int) ((bit >>> 3) & (PAGE_SIZE - 1));
+            page.put(index, (byte) (page.get(index) | (1 << (bit & 7))));
+        }
+        count++;
+    }
+
+    /**
+     * Checks if a digest may have been put in the filter.
+     * <p>
+     * This can be called concurrently by several threads once all the digests have been put, and after a call to
+     * {@link #getCount} made the puts visible to the calling threads.
+     *
+     * @return {@code false} if the digest was never put in the filter, {@code true} if it probably was
+     */
+    public boolean mightContain(String digest) {
+        long h1 = hash(digest, 0xcbf29ce484222325L);
+        long h2 = hash(digest, 0x84222325cbf29ce4L) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            ByteBuffer page = pages[(int) (bit >>> (PAGE_SHIFT + 3))];
+            int index = (int) ((bit >>> 3) & (PAGE_SIZE - 1));
+            if ((page.get(index) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of digests put in the filter.
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the off-heap size of the filter, in bytes.
+     */
+    public long getSize() {
+        return numBits / 8;
+    }
+
+    protected static long hash(String digest, long seed) {
+        // FNV-1a over the chars, then the MurmurHash3 finalizer to spread the bits
+        long h = seed;
+        for (int i = 0; i < digest.length(); i++) {
+            h = (h ^ digest.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+}
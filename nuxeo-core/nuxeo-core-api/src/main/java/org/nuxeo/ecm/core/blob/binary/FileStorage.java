@@ -20,6 +20,8 @@ package org.nuxeo.ecm.core.blob.binary;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * Interface to store a file or fetch a file or its length.
@@ -47,4 +49,61 @@ public interface FileStorage {
      */
     boolean fetchFile(String key, File file) throws IOException;
 
+    /**
+     * Gets a stream on the content of a file based on its key, to read it progressively instead of waiting for a
+     * complete {@link #fetchFile}.
+     * <p>
+     * The default implementation returns {@code null}, meaning that streaming is not supported.
+     *
+     * @param key the file key
+     * @return the stream, or {@code null} if the file cannot be streamed, in which case {@link #fetchFile} is used
+     * @throws IOException if a storage error occurred
+     * @since 11.1
+     */
+    default InputStream getStream(String key) throws IOException {
+        return null;
+    }
+
+    /**
+     * Starts storing a file whose key is not known yet, so that its content can be sent to the storage while it is
+     * received instead of once it has been fully written locally. The upload is completed with the key computed from
+     * the content, or aborted.
+     * <p>
+     * The default implementation returns {@code null}, meaning that streaming uploads are not supported.
+     *
+     * @return the upload, or {@code null} if not supported, in which case {@link #storeFile} is used
+     * @throws IOException if a storage error occurred
+     * @since 11.1
+     */
+    default StreamingUpload startUpload() throws IOException {
+        return null;
+    }
+
+    /**
+     * An upload started by {@link FileStorage#startUpload}.
+     *
+     * @since 11.1
+     */
+    interface StreamingUpload {
+
+        /**
+         * Gets the stream to which the content is written. Closing it does not complete the upload.
+         */
+        OutputStream getOutputStream();
+
+        /**
+         * Completes the upload, storing the written content based on the given key.
+         *
+         * @param key the file key
+         * @throws IOException if a storage error occurred
+         */
+        void complete(String key) throws IOException;
+
+        /**
+         * Aborts the upload, discarding the written content.
+         */
+        void abort();
+
+    }
+
 }
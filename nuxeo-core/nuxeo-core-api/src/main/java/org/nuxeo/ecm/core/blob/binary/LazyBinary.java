@@ -19,7 +19,6 @@
 package org.nuxeo.ecm.core.blob.binary;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -57,8 +56,7 @@ public class LazyBinary extends Binary {
 
     @Override
     public InputStream getStream() throws IOException {
-        File file = getFile();
-        return file == null ? null : new FileInputStream(file);
+        return getCachingBinaryManager().getStream(digest);
     }
 
     @Override
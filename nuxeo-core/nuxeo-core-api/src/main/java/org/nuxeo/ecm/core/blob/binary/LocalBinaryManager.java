@@ -28,7 +28,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.FileUtils;
@@ -270,6 +278,23 @@ public class LocalBinaryManager extends AbstractBinaryManager {
 
         protected BinaryManagerStatus status;
 
+        // @since 11.1
+        protected DigestBloomFilter markedFilter;
+
+        /**
+         * The top-level directories already swept by an interrupted {@link #stop}.
+         *
+         * @since 11.1
+         */
+        protected final Set<String> sweptDirectories = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Whether the last {@link #stop} failed, leaving the GC in progress.
+         *
+         * @since 11.1
+         */
+        protected volatile boolean stopFailed;
+
         public DefaultBinaryGarbageCollector(LocalBinaryManager binaryManager) {
             this.binaryManager = binaryManager;
         }
@@ -287,20 +312,38 @@ public class LocalBinaryManager extends AbstractBinaryManager {
         @Override
         public boolean isInProgress() {
             // volatile as this is designed to be called from another thread
-            return startTime != 0;
+            // a GC that failed to stop is not running anymore, even if it can still be resumed
+            return startTime != 0 && !stopFailed;
         }
 
+        /**
+         * Starts the GC.
+         * <p>
+         * If the previous GC failed to stop, it is abandoned and a new GC starts from scratch. To resume its sweep
+         * instead, call {@link #stop} again.
+         */
         @Override
         public void start() {
             if (startTime != 0) {
-                throw new RuntimeException("Alread started");
+                if (!stopFailed) {
+                    throw new RuntimeException("Already started");
+                }
+                log.warn("Previous GC of " + getId() + " failed to stop, starting a new one");
             }
+            stopFailed = false;
             startTime = System.currentTimeMillis();
             status = new BinaryManagerStatus();
+            markedFilter = DigestBloomFilter.newGarbageCollectorFilter();
+            sweptDirectories.clear();
         }
 
         @Override
         public void mark(String digest) {
+            if (markedFilter != null) {
+                // no write to the binary, the sweep checks the files against the filter
+                markedFilter.put(digest);
+                return;
+            }
             File file = binaryManager.getFileForDigest(digest, false);
             if (!file.exists()) {
                 log.error("Unknown file digest: " + digest);
@@ -314,11 +357,110 @@ public class LocalBinaryManager extends AbstractBinaryManager {
             if (startTime == 0) {
                 throw new RuntimeException("Not started");
             }
-            deleteOld(binaryManager.getStorageDir(), startTime - TIME_RESOLUTION, 0, delete);
+            try {
+                if (markedFilter == null) {
+                    deleteOld(binaryManager.getStorageDir(), startTime - TIME_RESOLUTION, 0, delete);
+                } else {
+                    // also makes the marks visible to the sweeping threads
+                    status.numBinariesMarked = markedFilter.getCount();
+                    sweep(startTime - TIME_RESOLUTION, delete);
+                    markedFilter = null;
+                    sweptDirectories.clear();
+                }
+            } catch (RuntimeException e) {
+                stopFailed = true;
+                throw e;
+            }
+            stopFailed = false;
             status.gcDuration = System.currentTimeMillis() - startTime;
             startTime = 0;
         }
 
+        /**
+         * Sweeps the binaries not found in the marked filter, in parallel over the top-level directories.
+         * <p>
+         * If the sweep fails, the GC stays in progress and calling {@link #stop} again resumes the sweep, skipping the
+         * directories already swept.
+         *
+         * @since 11.1
+         */
+        protected void sweep(long minTime, boolean delete) {
+            File[] dirs = binaryManager.getStorageDir().listFiles();
+            if (dirs == null || dirs.length == 0) {
+                return;
+            }
+            synchronized (status) {
+                status.numDirectoriesToSweep = dirs.length;
+                status.numDirectoriesSwept = sweptDirectories.size();
+            }
+            int threads = Math.min(dirs.length, Runtime.getRuntime().availableProcessors());
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>(dirs.length);
+                for (File dir : dirs) {
+                    if (!sweptDirectories.contains(dir.getName())) {
+                        futures.add(executor.submit(() -> sweepDirectory(dir, minTime, delete)));
+                    }
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new NuxeoException(e);
+            } catch (ExecutionException e) {
+                throw new NuxeoException("Cannot sweep binaries, stop the GC again to resume", e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        protected void sweepDirectory(File dir, long minTime, boolean delete) {
+            BinaryManagerStatus dirStatus = new BinaryManagerStatus();
+            sweep(dir, minTime, delete, dirStatus);
+            synchronized (status) {
+                status.numBinaries += dirStatus.numBinaries;
+                status.sizeBinaries += dirStatus.sizeBinaries;
+                status.numBinariesGC += dirStatus.numBinariesGC;
+                status.sizeBinariesGC += dirStatus.sizeBinariesGC;
+                sweptDirectories.add(dir.getName());
+                status.numDirectoriesSwept = sweptDirectories.size();
+            }
+        }
+
+        protected void sweep(File file, long minTime, boolean delete, BinaryManagerStatus dirStatus) {
+            if (file.isDirectory()) {
+                for (File f : file.listFiles()) {
+                    sweep(f, minTime, delete, dirStatus);
+                }
+                if (file.list().length == 0) {
+                    // empty directory
+                    file.delete();
+                }
+            } else if (file.isFile() && file.canWrite()) {
+                long length = file.length();
+                if (markedFilter.mightContain(file.getName())) {
+                    dirStatus.sizeBinaries += length;
+                    dirStatus.numBinaries++;
+                    return;
+                }
+                // not marked, but may have been created since the GC start
+                long lastModified = file.lastModified();
+                if (lastModified == 0) {
+                    log.error("Cannot read last modified for file: " + file);
+                } else if (lastModified < minTime) {
+                    dirStatus.sizeBinariesGC += length;
+                    dirStatus.numBinariesGC++;
+                    if (delete && !file.delete()) {
+                        log.warn("Cannot gc file: " + file);
+                    }
+                } else {
+                    dirStatus.sizeBinaries += length;
+                    dirStatus.numBinaries++;
+                }
+            }
+        }
+
         protected void deleteOld(File file, long minTime, int depth, boolean delete) {
             if (file.isDirectory()) {
                 for (File f : file.listFiles()) {
@@ -93,6 +93,14 @@ public interface Session<T extends QueryFilter> {
      */
     ScrollResult<String> scroll(String scrollId);
 
+    /**
+     * Closes a scroll before its end.
+     *
+     * @return {@code true} if the scroll was closed, {@code false} if it was unknown
+     * @since 11.1
+     */
+    boolean closeScroll(String scrollId);
+
     /**
      * Gets the lock manager for this session.
      *
@@ -0,0 +1,281 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.blob.binary;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.blob.binary.FileStorage.StreamingUpload;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.test.runner.RuntimeFeature;
+
+@RunWith(FeaturesRunner.class)
+@Features(RuntimeFeature.class)
+public class TestCachingBinaryManager {
+
+    private static final String CONTENT = "this is a file au caf\u00e9";
+
+    private static final String CONTENT_MD5 = "d25ea4f4642073b7f218024d397dbaef";
+
+    /**
+     * Storage in memory, whose streams block after a given number of bytes until released, and optionally supporting
+     * streaming uploads.
+     */
+    protected static class MemoryFileStorage implements FileStorage {
+
+        protected final Map<String, byte[]> files = new ConcurrentHashMap<>();
+
+        protected final AtomicInteger streams = new AtomicInteger();
+
+        protected final CountDownLatch released = new CountDownLatch(1);
+
+        protected volatile int blockAt = Integer.MAX_VALUE;
+
+        protected volatile boolean streamingUploads;
+
+        protected final AtomicInteger completedUploads = new AtomicInteger();
+
+        protected final AtomicInteger abortedUploads = new AtomicInteger();
+
+        @Override
+        public void storeFile(String key, File file) throws IOException {
+            files.put(key, Files.readAllBytes(file.toPath()));
+        }
+
+        @Override
+        public boolean fetchFile(String key, File file) throws IOException {
+            byte[] bytes = files.get(key);
+            if (bytes == null) {
+                return false;
+            }
+            Files.write(file.toPath(), bytes);
+            return true;
+        }
+
+        @Override
+        public InputStream getStream(String key) {
+            byte[] bytes = files.get(key);
+            if (bytes == null) {
+                return null;
+            }
+            streams.incrementAndGet();
+            return new ByteArrayInputStream(bytes) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    if (pos >= blockAt) {
+                        try {
+                            released.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new IllegalStateException(e);
+                        }
+                    } else {
+                        len = Math.min(len, blockAt - pos);
+                    }
+                    return super.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public StreamingUpload startUpload() {
+            if (!streamingUploads) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            return new StreamingUpload() {
+
+                @Override
+                public OutputStream getOutputStream() {
+                    return out;
+                }
+
+                @Override
+                public void complete(String key) {
+                    files.put(key, out.toByteArray());
+                    completedUploads.incrementAndGet();
+                }
+
+                @Override
+                public void abort() {
+                    abortedUploads.incrementAndGet();
+                }
+            };
+        }
+    }
+
+    protected static class MemoryCachingBinaryManager extends CachingBinaryManager {
+
+        @Override
+        public void initialize(String blobProviderId, Map<String, String> properties) throws IOException {
+            super.initialize(blobProviderId, properties);
+            cachedir = Files.createTempDirectory("nxbincache.").toFile();
+            initializeCache(cachedir, 1024 * 1024, 100, 0, new MemoryFileStorage());
+        }
+
+        protected MemoryFileStorage getStorage() {
+            return (MemoryFileStorage) fileStorage;
+        }
+    }
+
+    protected MemoryCachingBinaryManager binaryManager;
+
+    @Before
+    public void setUp() throws IOException {
+        binaryManager = new MemoryCachingBinaryManager();
+        binaryManager.initialize("memory", Collections.emptyMap());
+    }
+
+    @After
+    public void tearDown() {
+        binaryManager.close();
+        FileUtils.deleteQuietly(binaryManager.cachedir);
+    }
+
+    @Test
+    public void testStreamWhileFetching() throws IOException {
+        binaryManager.getBinary(Blobs.createBlob(CONTENT));
+        assertNotNull(binaryManager.getStorage().files.get(CONTENT_MD5));
+        binaryManager.fileCache.clear();
+        binaryManager.getStorage().blockAt = 5;
+
+        try (InputStream in = binaryManager.getStream(CONTENT_MD5)) {
+            // first bytes served while the fetch is blocked
+            byte[] start = new byte[5];
+            IOUtils.readFully(in, start);
+            assertEquals(CONTENT.substring(0, 5), new String(start, UTF_8));
+            assertNull(binaryManager.fileCache.getFile(CONTENT_MD5));
+
+            binaryManager.getStorage().released.countDown();
+            assertEquals(CONTENT.substring(5), IOUtils.toString(in, UTF_8));
+        }
+        // the fetch populated the cache
+        File file = binaryManager.getFile(CONTENT_MD5);
+        assertEquals(CONTENT, FileUtils.readFileToString(file, UTF_8));
+        assertEquals(file, binaryManager.fileCache.getFile(CONTENT_MD5));
+        assertEquals(1, binaryManager.getStorage().streams.get());
+    }
+
+    @Test
+    public void testConcurrentReadsShareFetch() throws IOException {
+        binaryManager.getBinary(Blobs.createBlob(CONTENT));
+        binaryManager.fileCache.clear();
+        binaryManager.getStorage().blockAt = 0;
+
+        try (InputStream in1 = binaryManager.getStream(CONTENT_MD5);
+                InputStream in2 = binaryManager.getStream(CONTENT_MD5)) {
+            binaryManager.getStorage().released.countDown();
+            assertEquals(CONTENT, IOUtils.toString(in1, UTF_8));
+            assertEquals(CONTENT, IOUtils.toString(in2, UTF_8));
+        }
+        assertEquals(1, binaryManager.getStorage().streams.get());
+    }
+
+    @Test
+    public void testFetchKeyWithOtherDigestOrNotDigest() throws Exception {
+        byte[] bytes = CONTENT.getBytes(UTF_8);
+        String sha256 = AbstractBinaryManager.toHexString(MessageDigest.getInstance("SHA-256").digest(bytes));
+        binaryManager.getStorage().files.put(sha256, bytes);
+        binaryManager.getStorage().files.put("notadigest", bytes);
+
+        // checked with the algorithm matching the key length
+        try (InputStream in = binaryManager.getStream(sha256)) {
+            assertEquals(CONTENT, IOUtils.toString(in, UTF_8));
+        }
+        // not checked
+        try (InputStream in = binaryManager.getStream("notadigest")) {
+            assertEquals(CONTENT, IOUtils.toString(in, UTF_8));
+        }
+    }
+
+    @Test
+    public void testManyConcurrentFetches() throws IOException {
+        int n = 10;
+        for (int i = 0; i < n; i++) {
+            binaryManager.getStorage().files.put("key" + i, (CONTENT + i).getBytes(UTF_8));
+        }
+        binaryManager.getStorage().blockAt = 0;
+
+        // all the fetches are started, none waits for a thread held by another blocked fetch
+        List<InputStream> streams = new ArrayList<>();
+        try {
+            for (int i = 0; i < n; i++) {
+                streams.add(binaryManager.getStream("key" + i));
+            }
+            assertEquals(n, binaryManager.getStorage().streams.get());
+            binaryManager.getStorage().released.countDown();
+            for (int i = 0; i < n; i++) {
+                assertEquals(CONTENT + i, IOUtils.toString(streams.get(i), UTF_8));
+            }
+        } finally {
+            for (InputStream stream : streams) {
+                stream.close();
+            }
+        }
+    }
+
+    @Test
+    public void testStreamingUpload() throws IOException {
+        binaryManager.getStorage().streamingUploads = true;
+
+        binaryManager.getBinary(Blobs.createBlob(CONTENT));
+        assertEquals(CONTENT, new String(binaryManager.getStorage().files.get(CONTENT_MD5), UTF_8));
+        assertEquals(1, binaryManager.getStorage().completedUploads.get());
+        assertNotNull(binaryManager.fileCache.getFile(CONTENT_MD5));
+
+        // already in cache, the streamed content is discarded
+        binaryManager.getBinary(Blobs.createBlob(CONTENT));
+        assertEquals(1, binaryManager.getStorage().completedUploads.get());
+        assertEquals(1, binaryManager.getStorage().abortedUploads.get());
+    }
+
+    @Test
+    public void testMissingBinary() throws IOException {
+        assertNull(binaryManager.getStream(CONTENT_MD5));
+        assertNull(binaryManager.getFile(CONTENT_MD5));
+    }
+
+}
@@ -23,12 +23,14 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -38,7 +40,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.nuxeo.common.Environment;
 import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.api.impl.blob.FileBlob;
+import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.test.runner.Deploy;
 import org.nuxeo.runtime.test.runner.Features;
 import org.nuxeo.runtime.test.runner.FeaturesRunner;
@@ -146,6 +150,116 @@ public class TestDefaultBinaryManager {
         binaryManager.close();
     }
 
+    @Test
+    @Deploy("org.nuxeo.ecm.core.api")
+    @Deploy("org.nuxeo.ecm.core.api.tests:OSGI-INF/test-default-blob-provider.xml")
+    public void testGarbageCollectorWithBloomFilter() throws Exception {
+        Framework.getProperties().put(DigestBloomFilter.GC_BLOOM_FILTER_ENABLED_PROP, "true");
+        try {
+            DefaultBinaryManager binaryManager = new DefaultBinaryManager();
+            binaryManager.initialize("repo", Collections.emptyMap());
+            binaryManager.getBinary(Blobs.createBlob(CONTENT));
+            // other binary we'll GC
+            binaryManager.getBinary(Blobs.createBlob("abc"));
+            File file = binaryManager.getFileForDigest(CONTENT_MD5, false);
+            long lastModified = file.lastModified();
+
+            // sleep before GC to pass its time threshold
+            Thread.sleep(3 * 1000);
+
+            // create another binary after time threshold, it won't be GCed
+            binaryManager.getBinary(Blobs.createBlob("defg"));
+            assertEquals(3, countFiles(binaryManager.getStorageDir()));
+
+            BinaryGarbageCollector gc = binaryManager.getGarbageCollector();
+            gc.start();
+            gc.mark(CONTENT_MD5);
+            gc.stop(true);
+            assertFalse(gc.isInProgress());
+            BinaryManagerStatus status = gc.getStatus();
+            assertEquals(1, status.numBinariesMarked);
+            assertEquals(2, status.numBinaries);
+            assertEquals(CONTENT.getBytes("UTF-8").length + 4, status.sizeBinaries);
+            assertEquals(1, status.numBinariesGC);
+            assertEquals(3, status.sizeBinariesGC);
+            assertEquals(2, countFiles(binaryManager.getStorageDir()));
+            // marking didn't write to the binary
+            assertEquals(lastModified, file.lastModified());
+
+            binaryManager.close();
+        } finally {
+            Framework.getProperties().remove(DigestBloomFilter.GC_BLOOM_FILTER_ENABLED_PROP);
+        }
+    }
+
+    @Test
+    @Deploy("org.nuxeo.ecm.core.api")
+    @Deploy("org.nuxeo.ecm.core.api.tests:OSGI-INF/test-default-blob-provider.xml")
+    public void testGarbageCollectorAfterFailedSweep() throws Exception {
+        Framework.getProperties().put(DigestBloomFilter.GC_BLOOM_FILTER_ENABLED_PROP, "true");
+        try {
+            AtomicBoolean failSweep = new AtomicBoolean();
+            DefaultBinaryManager binaryManager = new DefaultBinaryManager() {
+                @Override
+                protected void createGarbageCollector() {
+                    garbageCollector = new DefaultBinaryGarbageCollector(this) {
+                        @Override
+                        protected void sweepDirectory(File dir, long minTime, boolean delete) {
+                            if (failSweep.getAndSet(false)) {
+                                throw new NuxeoException("Simulated failure");
+                            }
+                            super.sweepDirectory(dir, minTime, delete);
+                        }
+                    };
+                }
+            };
+            binaryManager.initialize("repo", Collections.emptyMap());
+            binaryManager.getBinary(Blobs.createBlob(CONTENT));
+
+            // failed sweep, resumed by stopping again
+            BinaryGarbageCollector gc = binaryManager.getGarbageCollector();
+            gc.start();
+            gc.mark(CONTENT_MD5);
+            failSweep.set(true);
+            try {
+                gc.stop(true);
+                fail();
+            } catch (NuxeoException e) {
+                assertEquals("Simulated failure", e.getCause().getMessage());
+            }
+            assertFalse(gc.isInProgress());
+            BinaryManagerStatus status = gc.getStatus();
+            assertTrue(status.numDirectoriesSwept < status.numDirectoriesToSweep);
+            gc.stop(true);
+            assertFalse(gc.isInProgress());
+            status = gc.getStatus();
+            assertEquals(status.numDirectoriesToSweep, status.numDirectoriesSwept);
+            assertEquals(1, status.numBinaries);
+
+            // failed sweep, abandoned by starting a new GC
+            gc.start();
+            gc.mark(CONTENT_MD5);
+            failSweep.set(true);
+            try {
+                gc.stop(true);
+                fail();
+            } catch (NuxeoException e) {
+                // expected
+            }
+            gc.start();
+            assertTrue(gc.isInProgress());
+            gc.mark(CONTENT_MD5);
+            gc.stop(true);
+            assertFalse(gc.isInProgress());
+            assertEquals(1, gc.getStatus().numBinaries);
+            assertEquals(1, countFiles(binaryManager.getStorageDir()));
+
+            binaryManager.close();
+        } finally {
+            Framework.getProperties().remove(DigestBloomFilter.GC_BLOOM_FILTER_ENABLED_PROP);
+        }
+    }
+
     @Test
     public void testTemporaryCopies() throws IOException {
         DefaultBinaryManager binaryManager = new DefaultBinaryManager();
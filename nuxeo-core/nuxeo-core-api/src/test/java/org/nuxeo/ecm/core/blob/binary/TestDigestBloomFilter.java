@@ -0,0 +1,51 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.blob.binary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Test;
+
+public class TestDigestBloomFilter {
+
+    @Test
+    public void testFilter() {
+        int n = 10_000;
+        DigestBloomFilter filter = new DigestBloomFilter(n, 0.01);
+        for (int i = 0; i < n; i++) {
+            filter.put(DigestUtils.md5Hex("marked" + i));
+        }
+        assertEquals(n, filter.getCount());
+        // no false negatives
+        for (int i = 0; i < n; i++) {
+            assertTrue(filter.mightContain(DigestUtils.md5Hex("marked" + i)));
+        }
+        // false positives close to the configured probability
+        int falsePositives = 0;
+        for (int i = 0; i < n; i++) {
+            if (filter.mightContain(DigestUtils.md5Hex("unmarked" + i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(String.valueOf(falsePositives), falsePositives < n * 0.02);
+    }
+
+}
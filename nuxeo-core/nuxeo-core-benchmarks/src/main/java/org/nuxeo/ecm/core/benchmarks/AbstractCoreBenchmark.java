@@ -0,0 +1,110 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.benchmarks;
+
+import static org.nuxeo.ecm.core.test.StorageConfiguration.CORE_MEM;
+import static org.nuxeo.ecm.core.test.StorageConfiguration.CORE_PROPERTY;
+import static org.nuxeo.ecm.core.test.StorageConfiguration.CORE_VCS;
+
+import java.util.concurrent.TimeUnit;
+
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Base class for benchmarks needing a repository.
+ * <p>
+ * Each fork starts a runtime with the repository given by the {@link #core} parameter, and a transaction is active
+ * while benchmark methods run. Benchmarks are single-threaded, as transactions are bound to the running thread.
+ *
+ * @since 11.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public abstract class AbstractCoreBenchmark {
+
+    @Param({ CORE_MEM, CORE_VCS })
+    public String core;
+
+    protected BenchmarkRuntime runtime;
+
+    protected CoreFeature coreFeature;
+
+    protected CoreSession session;
+
+    @Setup(Level.Trial)
+    public void setUpRuntime() throws Exception {
+        System.setProperty(CORE_PROPERTY, core);
+        runtime = new BenchmarkRuntime(CoreBenchmarkConfig.class);
+        runtime.startRuntime();
+        coreFeature = runtime.getFeature(CoreFeature.class);
+        session = coreFeature.getCoreSession();
+        TransactionHelper.startTransaction();
+        setUpData();
+        nextTransaction();
+    }
+
+    /**
+     * Creates the data needed by the benchmark, called once per fork.
+     */
+    protected void setUpData() {
+        // nothing by default
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownRuntime() {
+        TransactionHelper.commitOrRollbackTransaction();
+        runtime.stopRuntime();
+    }
+
+    protected void nextTransaction() {
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+    }
+
+    protected DocumentModel createFolder(String parentPath, String name) {
+        DocumentModel folder = session.createDocumentModel(parentPath, name, "BenchmarkFolder");
+        return session.createDocument(folder);
+    }
+
+    protected DocumentModel createDocument(String parentPath, String name) {
+        DocumentModel doc = session.createDocumentModel(parentPath, name, "BenchmarkDocument");
+        doc.setPropertyValue("dc:title", name);
+        return session.createDocument(doc);
+    }
+
+}
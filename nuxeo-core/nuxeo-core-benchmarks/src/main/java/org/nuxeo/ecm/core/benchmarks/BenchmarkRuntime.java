@@ -0,0 +1,65 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.benchmarks;
+
+import java.util.List;
+
+import org.junit.runner.notification.RunNotifier;
+import org.junit.runners.model.InitializationError;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+
+/**
+ * Drives the lifecycle of the test features (runtime, repository, transactions) outside of JUnit, so that JMH
+ * benchmarks run against the same repository setup as the unit tests.
+ *
+ * @since 11.1
+ */
+public class BenchmarkRuntime extends FeaturesRunner {
+
+    public BenchmarkRuntime(Class<?> configClass) throws InitializationError {
+        super(configClass);
+    }
+
+    @Override
+    protected void collectInitializationErrors(List<Throwable> errors) {
+        // the configuration class only holds annotations, there are no test methods to validate
+    }
+
+    /**
+     * Starts the runtime and deploys the repository, as done before running the first test of a class.
+     */
+    public void startRuntime() throws Exception {
+        injector = onInjector(new RunNotifier());
+        initialize();
+        start();
+        beforeRun();
+    }
+
+    /**
+     * Undeploys the repository and stops the runtime, as done after running the last test of a class.
+     */
+    public void stopRuntime() {
+        try {
+            afterRun();
+        } finally {
+            stop();
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.benchmarks;
+
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+
+/**
+ * Holder of the features and deployments used by the benchmarks.
+ * <p>
+ * The repository kind is selected, as for unit tests, by the {@code nuxeo.test.core} system property.
+ *
+ * @since 11.1
+ */
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.CLASS)
+@Deploy("org.nuxeo.ecm.core.benchmarks")
+public class CoreBenchmarkConfig {
+
+}
@@ -0,0 +1,78 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.benchmarks;
+
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmarks of document creation and update followed by a session save.
+ *
+ * @since 11.1
+ */
+@State(Scope.Benchmark)
+public class DocumentBenchmark extends AbstractCoreBenchmark {
+
+    protected DocumentModel folder;
+
+    protected DocumentModel doc;
+
+    protected long counter;
+
+    @Override
+    protected void setUpData() {
+        DocumentModel root = createFolder("/", "documents");
+        doc = createDocument(root.getPathAsString(), "doc");
+        session.save();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpIteration() {
+        // a new folder per iteration so that creations don't all go into a single huge folder
+        folder = createFolder("/documents", "folder" + counter++);
+        session.save();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() {
+        nextTransaction();
+    }
+
+    @Benchmark
+    public DocumentModel createAndSave() {
+        DocumentModel created = createDocument(folder.getPathAsString(), "doc" + counter++);
+        session.save();
+        return created;
+    }
+
+    @Benchmark
+    public DocumentModel updateAndSave() {
+        doc.setPropertyValue("dc:title", "title" + counter);
+        doc.setPropertyValue("bench:counter", Long.valueOf(counter++));
+        doc = session.saveDocument(doc);
+        session.save();
+        return doc;
+    }
+
+}
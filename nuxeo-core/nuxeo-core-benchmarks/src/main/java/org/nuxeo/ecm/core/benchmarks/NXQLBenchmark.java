@@ -0,0 +1,100 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.benchmarks;
+
+import static org.nuxeo.ecm.core.test.StorageConfiguration.CORE_VCS;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.nuxeo.ecm.core.query.QueryFilter;
+import org.nuxeo.ecm.core.query.sql.SQLQueryParser;
+import org.nuxeo.ecm.core.query.sql.model.SQLQuery;
+import org.nuxeo.ecm.core.storage.dbs.DBSQueryOptimizer;
+import org.nuxeo.ecm.core.storage.sql.Model;
+import org.nuxeo.ecm.core.storage.sql.RepositoryDescriptor;
+import org.nuxeo.ecm.core.storage.sql.RepositoryImpl;
+import org.nuxeo.ecm.core.storage.sql.coremodel.SQLRepositoryService;
+import org.nuxeo.ecm.core.storage.sql.jdbc.JDBCConnection;
+import org.nuxeo.ecm.core.storage.sql.jdbc.NXQLQueryMaker;
+import org.nuxeo.ecm.core.storage.sql.jdbc.QueryMaker.Query;
+import org.nuxeo.ecm.core.storage.sql.jdbc.SQLInfo;
+import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.Dialect;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.datasource.ConnectionHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of NXQL parsing and translation to the backend query language.
+ * <p>
+ * For VCS the translation is the SQL generation done by {@link NXQLQueryMaker}, for DBS it is the query optimization
+ * done before evaluation.
+ *
+ * @since 11.1
+ */
+@State(Scope.Benchmark)
+public class NXQLBenchmark extends AbstractCoreBenchmark {
+
+    protected static final String QUERY = "SELECT * FROM BenchmarkDocument" //
+            + " WHERE ecm:isProxy = 0 AND ecm:isTrashed = 0 AND ecm:isVersion = 0" //
+            + " AND dc:title LIKE 'doc%' AND bench:counter > 10" //
+            + " AND bench:items/*1/name = 'item1' AND bench:items/*1/size > 5" //
+            + " AND ecm:primaryType IN ('BenchmarkDocument', 'File')" //
+            + " ORDER BY dc:modified DESC, ecm:uuid";
+
+    protected SQLInfo sqlInfo;
+
+    protected Model model;
+
+    @Override
+    protected void setUpData() {
+        if (!CORE_VCS.equals(core)) {
+            return;
+        }
+        // build the SQL info the same way the JDBC backend does
+        RepositoryImpl repository = Framework.getService(SQLRepositoryService.class)
+                                             .getRepositoryImpl(session.getRepositoryName());
+        RepositoryDescriptor descriptor = repository.getRepositoryDescriptor();
+        model = repository.getModel();
+        try (Connection connection = ConnectionHelper.getConnection(
+                JDBCConnection.getDataSourceName(descriptor.name))) {
+            Dialect dialect = Dialect.createDialect(connection, descriptor);
+            sqlInfo = new SQLInfo(model, dialect, false);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public SQLQuery parse() {
+        return SQLQueryParser.parse(QUERY);
+    }
+
+    @Benchmark
+    public Object parseAndTranslate() {
+        if (sqlInfo != null) {
+            Query query = new NXQLQueryMaker().buildQuery(sqlInfo, model, path -> null, QUERY, QueryFilter.EMPTY);
+            return query.selectInfo.sql;
+        }
+        return new DBSQueryOptimizer().optimize(SQLQueryParser.parse(QUERY));
+    }
+
+}
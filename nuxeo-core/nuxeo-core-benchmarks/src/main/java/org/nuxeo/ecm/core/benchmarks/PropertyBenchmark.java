@@ -0,0 +1,100 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.benchmarks;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of {@link DocumentModel} property access on a complex schema, without any storage access.
+ *
+ * @since 11.1
+ */
+@State(Scope.Benchmark)
+public class PropertyBenchmark extends AbstractCoreBenchmark {
+
+    @Param({ "20" })
+    public int items;
+
+    protected DocumentModel doc;
+
+    protected ArrayList<Map<String, Serializable>> itemsValue;
+
+    protected String lastItemXPath;
+
+    @Override
+    protected void setUpData() {
+        itemsValue = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            Map<String, Serializable> details = new HashMap<>();
+            details.put("label", "label" + i);
+            details.put("values", new ArrayList<>(Arrays.asList("a", "b", "c")));
+            Map<String, Serializable> item = new HashMap<>();
+            item.put("name", "item" + i);
+            item.put("size", Long.valueOf(i));
+            item.put("created", new GregorianCalendar());
+            item.put("details", (Serializable) details);
+            itemsValue.add(item);
+        }
+        lastItemXPath = "bench:items/" + (items - 1) + "/details/label";
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpDocument() {
+        doc = session.createDocumentModel("/", "doc", "BenchmarkDocument");
+        doc.setPropertyValue("bench:items", itemsValue);
+    }
+
+    @Benchmark
+    public DocumentModel setComplexList() {
+        doc.setPropertyValue("bench:items", itemsValue);
+        return doc;
+    }
+
+    @Benchmark
+    public Serializable getComplexList() {
+        return doc.getPropertyValue("bench:items");
+    }
+
+    @Benchmark
+    public Serializable getNestedProperty() {
+        return doc.getPropertyValue(lastItemXPath);
+    }
+
+    @Benchmark
+    public List<Serializable> setAndGetSimpleProperties() {
+        doc.setPropertyValue("dc:title", "title");
+        doc.setPropertyValue("bench:counter", Long.valueOf(1));
+        return Arrays.asList(doc.getPropertyValue("dc:title"), doc.getPropertyValue("bench:counter"));
+    }
+
+}
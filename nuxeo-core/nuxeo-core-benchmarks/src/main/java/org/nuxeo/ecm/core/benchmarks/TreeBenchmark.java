@@ -0,0 +1,76 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.benchmarks;
+
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentModelList;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.PathRef;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of tree navigation: listing the children of a wide folder and resolving a deep path.
+ *
+ * @since 11.1
+ */
+@State(Scope.Benchmark)
+public class TreeBenchmark extends AbstractCoreBenchmark {
+
+    @Param({ "1000" })
+    public int width;
+
+    @Param({ "20" })
+    public int depth;
+
+    protected DocumentRef wideFolderRef;
+
+    protected PathRef deepPathRef;
+
+    @Override
+    protected void setUpData() {
+        DocumentModel wideFolder = createFolder("/", "wide");
+        for (int i = 0; i < width; i++) {
+            createDocument(wideFolder.getPathAsString(), "doc" + i);
+            if (i % 100 == 99) {
+                session.save();
+            }
+        }
+        wideFolderRef = wideFolder.getRef();
+        String path = "/";
+        for (int i = 0; i < depth; i++) {
+            path = createFolder(path, "level" + i).getPathAsString();
+        }
+        deepPathRef = new PathRef(path);
+        session.save();
+    }
+
+    @Benchmark
+    public DocumentModelList getChildren() {
+        return session.getChildren(wideFolderRef);
+    }
+
+    @Benchmark
+    public DocumentModel getDocumentByPath() {
+        return session.getDocument(deepPathRef);
+    }
+
+}
@@ -54,15 +54,7 @@ public class TransientStorageComponent extends DefaultComponent implements Trans
         Objects.requireNonNull(name, "Transient store name cannot be null");
         TransientStore store = stores.get(name);
         if (store == null) {
-            TransientStoreConfig descriptor = getDescriptor(EP_STORE, name);
-            if (descriptor == null) {
-                // instantiate a copy of the default descriptor
-                descriptor = new TransientStoreConfig(getDefaultDescriptor()); // copy
-                descriptor.name = name; // set new name in copy
-            } else if (!DEFAULT_STORE_NAME.equals(name)) {
-                // make sure descriptor inherits config from default
-                descriptor = getDefaultDescriptor().merge(descriptor);
-            }
+            TransientStoreConfig descriptor = getStoreConfig(name);
             TransientStoreProvider provider;
             try {
                 Class<? extends TransientStoreProvider> klass = descriptor.implClass;
@@ -80,6 +72,21 @@ public class TransientStorageComponent extends DefaultComponent implements Trans
         return store;
     }
 
+    @Override
+    public TransientStoreConfig getStoreConfig(String name) {
+        Objects.requireNonNull(name, "Transient store name cannot be null");
+        TransientStoreConfig descriptor = getDescriptor(EP_STORE, name);
+        if (descriptor == null) {
+            // instantiate a copy of the default descriptor
+            descriptor = new TransientStoreConfig(getDefaultDescriptor()); // copy
+            descriptor.name = name; // set new name in copy
+        } else if (!DEFAULT_STORE_NAME.equals(name)) {
+            // make sure descriptor inherits config from default
+            descriptor = getDefaultDescriptor().merge(descriptor);
+        }
+        return descriptor;
+    }
+
     protected TransientStoreConfig getDefaultDescriptor() {
         TransientStoreConfig descriptor = getDescriptor(EP_STORE, DEFAULT_STORE_NAME);
         if (descriptor == null) {
@@ -37,6 +37,17 @@ public interface TransientStoreService {
      */
     TransientStore getStore(String name);
 
+    /**
+     * Retrieves the configuration of a {@link TransientStore} by its name.
+     * <p>
+     * If the {@link TransientStore} is not configured, returns the default configuration.
+     *
+     * @param name the name of the target {@link TransientStore}
+     * @return the configuration of the target {@link TransientStore}
+     * @since 11.1
+     */
+    TransientStoreConfig getStoreConfig(String name);
+
     /**
      * Triggers Garbage collecting of all {@link TransientStore}
      */
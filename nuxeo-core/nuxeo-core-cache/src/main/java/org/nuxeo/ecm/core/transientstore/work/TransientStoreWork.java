@@ -22,11 +22,13 @@ package org.nuxeo.ecm.core.transientstore.work;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
 import org.nuxeo.ecm.core.api.blobholder.SimpleBlobHolderWithProperties;
 import org.nuxeo.ecm.core.transientstore.api.TransientStore;
+import org.nuxeo.ecm.core.transientstore.api.TransientStoreConfig;
 import org.nuxeo.ecm.core.transientstore.api.TransientStoreService;
 import org.nuxeo.ecm.core.work.AbstractWork;
 import org.nuxeo.runtime.api.Framework;
@@ -116,6 +118,38 @@ public abstract class TransientStoreWork extends AbstractWork {
         return entryKey;
     }
 
+    /**
+     * Returns the name of the transient store holding the result of this work.
+     *
+     * @since 11.1
+     */
+    protected String getTransientStoreName() {
+        return STORE_NAME;
+    }
+
+    /**
+     * Returns the time after which a result stored when this work was scheduled would have expired from its transient
+     * store, according to the store first level TTL.
+     *
+     * @since 11.1
+     */
+    protected long getEntryExpirationTime() {
+        TransientStoreService transientStoreService = Framework.getService(TransientStoreService.class);
+        TransientStoreConfig config = transientStoreService.getStoreConfig(getTransientStoreName());
+        return getSchedulingTime() + TimeUnit.MINUTES.toMillis(config.getFirstLevelTTL());
+    }
+
+    /**
+     * Completes the entry without result so that clients polling it stop waiting.
+     *
+     * @since 11.1
+     */
+    @Override
+    public void expire() {
+        TransientStoreService transientStoreService = Framework.getService(TransientStoreService.class);
+        transientStoreService.getStore(getTransientStoreName()).setCompleted(entryKey, true);
+    }
+
     @Override
     public boolean isIdempotent() {
         return false;
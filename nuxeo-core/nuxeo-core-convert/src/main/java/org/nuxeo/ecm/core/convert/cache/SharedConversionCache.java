@@ -0,0 +1,160 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.convert.cache;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
+import org.nuxeo.ecm.core.api.blobholder.SimpleBlobHolderWithProperties;
+import org.nuxeo.ecm.core.transientstore.api.MaximumTransientSpaceExceeded;
+import org.nuxeo.ecm.core.transientstore.api.TransientStore;
+import org.nuxeo.ecm.core.transientstore.api.TransientStoreService;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.SharedMetricRegistries;
+
+/**
+ * Conversion result cache shared by all the nodes of a cluster, stored in a {@link TransientStore}.
+ * <p>
+ * Entries are keyed by converter name, conversion parameters and digests of the source blobs, so that a binary
+ * attached to many documents is converted only once. Eviction is done by the transient store, according to its TTLs
+ * and its target and absolute maximum sizes.
+ *
+ * @since 11.1
+ */
+public class SharedConversionCache {
+
+    private static final Log log = LogFactory.getLog(SharedConversionCache.class);
+
+    protected static final String KEY_PREFIX = "conv-";
+
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    protected final String storeName;
+
+    protected final Counter hits;
+
+    protected final Counter misses;
+
+    public SharedConversionCache(String storeName) {
+        this.storeName = storeName;
+        hits = registry.counter(MetricRegistry.name("nuxeo", "conversion", "cache", "hits"));
+        misses = registry.counter(MetricRegistry.name("nuxeo", "conversion", "cache", "misses"));
+        String ratioName = MetricRegistry.name("nuxeo", "conversion", "cache", "hit-ratio");
+        if (!registry.getGauges().containsKey(ratioName)) {
+            registry.register(ratioName, new RatioGauge() {
+                @Override
+                protected Ratio getRatio() {
+                    return Ratio.of(hits.getCount(), hits.getCount() + misses.getCount());
+                }
+            });
+        }
+    }
+
+    protected TransientStore getStore() {
+        return Framework.getService(TransientStoreService.class).getStore(storeName);
+    }
+
+    /**
+     * Computes the cache key of a conversion.
+     *
+     * @return the key, or {@code null} if the conversion cannot be cached because a source blob has no digest
+     */
+    public static String computeKey(String converterName, BlobHolder blobHolder, Map<String, Serializable> parameters) {
+        List<Blob> blobs = blobHolder.getBlobs();
+        if (blobs == null || blobs.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(converterName);
+        if (blobs.size() == 1) {
+            // computes the digest if needed
+            sb.append('\0').append(blobHolder.getHash());
+        } else {
+            for (Blob blob : blobs) {
+                if (blob == null || blob.getDigest() == null) {
+                    return null;
+                }
+                sb.append('\0').append(blob.getDigest());
+            }
+        }
+        if (parameters != null) {
+            // sorted for a stable key
+            new TreeMap<>(parameters).forEach(
+                    (key, value) -> sb.append('\0').append(key).append('=').append(String.valueOf(value)));
+        }
+        return KEY_PREFIX + DigestUtils.sha256Hex(sb.toString());
+    }
+
+    /**
+     * Gets a conversion result from the cache.
+     *
+     * @return the result, or {@code null} if not in the cache
+     */
+    public BlobHolder get(String key) {
+        TransientStore store = getStore();
+        if (!store.exists(key) || !store.isCompleted(key)) {
+            misses.inc();
+            return null;
+        }
+        List<Blob> blobs = store.getBlobs(key);
+        if (blobs == null || blobs.isEmpty()) {
+            // expired concurrently
+            misses.inc();
+            return null;
+        }
+        hits.inc();
+        return new SimpleBlobHolderWithProperties(new ArrayList<>(blobs), store.getParameters(key));
+    }
+
+    /**
+     * Puts a conversion result in the cache.
+     */
+    public void put(String key, BlobHolder result) {
+        List<Blob> blobs = result.getBlobs();
+        if (blobs == null || blobs.isEmpty()) {
+            return;
+        }
+        TransientStore store = getStore();
+        try {
+            store.putBlobs(key, blobs);
+            Map<String, Serializable> properties = result.getProperties();
+            if (properties != null && !properties.isEmpty()) {
+                store.putParameters(key, properties);
+            }
+            store.setCompleted(key, true);
+            // switches the entry to the release TTL, or removes it if the store is over its target size
+            store.release(key);
+        } catch (MaximumTransientSpaceExceeded e) {
+            log.debug("Conversion cache is full, not caching: " + key);
+        }
+    }
+
+}
@@ -46,6 +46,12 @@ public class GlobalConfigDescriptor implements Serializable {
 
     public static final String DEFAULT_CACHING_DIRECTORY = "convertcache";
 
+    /** @since 11.1 */
+    public static final boolean DEFAULT_SHARED_CACHE_ENABLED = false;
+
+    /** @since 11.1 */
+    public static final String DEFAULT_SHARED_CACHE_STORE = "conversionCache";
+
     @XNode("enableCache")
     protected Boolean enableCache;
 
@@ -100,6 +106,33 @@ public class GlobalConfigDescriptor implements Serializable {
         return diskCacheSize == null ? DEFAULT_DISK_CACHE_IN_KB : diskCacheSize.intValue();
     }
 
+    /** @since 11.1 */
+    @XNode("enableSharedCache")
+    protected Boolean enableSharedCache;
+
+    /**
+     * Whether conversion results are also cached in a transient store shared by the cluster nodes, keyed by source
+     * blob digest.
+     *
+     * @since 11.1
+     */
+    public boolean isSharedCacheEnabled() {
+        return enableSharedCache == null ? DEFAULT_SHARED_CACHE_ENABLED : enableSharedCache.booleanValue();
+    }
+
+    /** @since 11.1 */
+    @XNode("sharedCacheStore")
+    protected String sharedCacheStore;
+
+    /**
+     * The name of the transient store used by the shared cache.
+     *
+     * @since 11.1
+     */
+    public String getSharedCacheStore() {
+        return sharedCacheStore == null ? DEFAULT_SHARED_CACHE_STORE : sharedCacheStore;
+    }
+
     public void update(GlobalConfigDescriptor other) {
         if (other.enableCache != null) {
             enableCache = other.enableCache;
@@ -113,6 +146,12 @@ public class GlobalConfigDescriptor implements Serializable {
         if (other.cachingDirectory != null) {
             cachingDirectory = other.cachingDirectory;
         }
+        if (other.enableSharedCache != null) {
+            enableSharedCache = other.enableSharedCache;
+        }
+        if (other.sharedCacheStore != null) {
+            sharedCacheStore = other.sharedCacheStore;
+        }
     }
 
 }
@@ -53,6 +53,7 @@ import org.nuxeo.ecm.core.convert.api.ConverterNotRegistered;
 import org.nuxeo.ecm.core.convert.cache.CacheKeyGenerator;
 import org.nuxeo.ecm.core.convert.cache.ConversionCacheHolder;
 import org.nuxeo.ecm.core.convert.cache.GCTask;
+import org.nuxeo.ecm.core.convert.cache.SharedConversionCache;
 import org.nuxeo.ecm.core.convert.extension.ChainedConverter;
 import org.nuxeo.ecm.core.convert.extension.Converter;
 import org.nuxeo.ecm.core.convert.extension.ConverterDescriptor;
@@ -96,6 +97,9 @@ public class ConversionServiceImpl extends DefaultComponent implements Conversio
 
     protected GCTask gcTask;
 
+    /** @since 11.1 */
+    protected volatile SharedConversionCache sharedCache;
+
     @Override
     public void activate(ComponentContext context) {
         converterDescriptors.clear();
@@ -125,6 +129,7 @@ public class ConversionServiceImpl extends DefaultComponent implements Conversio
             GlobalConfigDescriptor desc = (GlobalConfigDescriptor) contribution;
             config.update(desc);
             config.clearCachingDirectory();
+            sharedCache = null;
         } else {
             log.error("Unable to handle unknown extensionPoint {}", extensionPoint);
         }
@@ -334,6 +339,14 @@ public class ConversionServiceImpl extends DefaultComponent implements Conversio
 
         BlobHolder result = ConversionCacheHolder.getFromCache(cacheKey);
 
+        String sharedCacheKey = null;
+        if (result == null && config.isSharedCacheEnabled()) {
+            sharedCacheKey = SharedConversionCache.computeKey(converterName, blobHolder, parameters);
+            if (sharedCacheKey != null) {
+                result = getSharedCache().get(sharedCacheKey);
+            }
+        }
+
         if (result == null) {
             Converter converter = desc.getConverterInstance();
             result = converter.convert(blobHolder, parameters);
@@ -341,6 +354,9 @@ public class ConversionServiceImpl extends DefaultComponent implements Conversio
             if (config.isCacheEnabled()) {
                 ConversionCacheHolder.addToCache(cacheKey, result);
             }
+            if (sharedCacheKey != null && result != null) {
+                getSharedCache().put(sharedCacheKey, result);
+            }
         } else if (result.getBlobs() != null && result.getBlobs().size() == 1) {
             // we need to reset the filename if result is a single file from the cache because the name is just a hash
             result.getBlob().setFilename(null);
@@ -354,6 +370,25 @@ public class ConversionServiceImpl extends DefaultComponent implements Conversio
         return result;
     }
 
+    /**
+     * Gets the conversion cache shared by the cluster nodes.
+     *
+     * @since 11.1
+     */
+    protected SharedConversionCache getSharedCache() {
+        SharedConversionCache cache = sharedCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = sharedCache;
+                if (cache == null) {
+                    cache = new SharedConversionCache(config.getSharedCacheStore());
+                    sharedCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
     /**
      * Returns true if the converter has the given {@code mimeType} as source mime type, false otherwise.
      *
@@ -130,6 +130,26 @@ public class ConversionWork extends TransientStoreWork {
         }
     }
 
+    /**
+     * An asynchronous conversion is polled by a client waiting for its result.
+     *
+     * @since 11.1
+     */
+    @Override
+    public boolean isPriority() {
+        return true;
+    }
+
+    /**
+     * The result is not needed anymore once its transient store entry would have expired.
+     *
+     * @since 11.1
+     */
+    @Override
+    public long getDeadline() {
+        return getEntryExpirationTime();
+    }
+
     @Override
     public String getTitle() {
         if (converterName != null) {
@@ -0,0 +1,113 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.convert.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
+import org.nuxeo.ecm.core.api.blobholder.SimpleBlobHolder;
+import org.nuxeo.ecm.core.convert.api.ConversionService;
+import org.nuxeo.ecm.core.convert.cache.SharedConversionCache;
+import org.nuxeo.runtime.metrics.MetricsService;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.transientstore.test.TransientStoreFeature;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.SharedMetricRegistries;
+
+/**
+ * @since 11.1
+ */
+@RunWith(FeaturesRunner.class)
+@Features({ ConvertFeature.class, TransientStoreFeature.class })
+@Deploy("org.nuxeo.ecm.core.convert:OSGI-INF/convert-service-config-shared.xml")
+@Deploy("org.nuxeo.ecm.core.convert:OSGI-INF/converters-test-contrib3.xml")
+public class TestSharedCache {
+
+    @Inject
+    protected ConversionService conversionService;
+
+    protected Counter getCounter(String name) {
+        return SharedMetricRegistries.getOrCreate(MetricsService.class.getName())
+                                     .counter("nuxeo.conversion.cache." + name);
+    }
+
+    @Test
+    public void testKey() {
+        BlobHolder bh1 = new SimpleBlobHolder(Blobs.createBlob("hello"));
+        BlobHolder bh2 = new SimpleBlobHolder(Blobs.createBlob("hello"));
+        BlobHolder bh3 = new SimpleBlobHolder(Blobs.createBlob("world"));
+        Map<String, Serializable> params1 = new LinkedHashMap<>();
+        params1.put("a", "1");
+        params1.put("b", "2");
+        Map<String, Serializable> params2 = new LinkedHashMap<>();
+        params2.put("b", "2");
+        params2.put("a", "1");
+        String key = SharedConversionCache.computeKey("identity", bh1, params1);
+        assertNotNull(key);
+        // same content and parameters in a different order
+        assertEquals(key, SharedConversionCache.computeKey("identity", bh2, params2));
+        // different content, converter or parameters
+        assertNotEquals(key, SharedConversionCache.computeKey("identity", bh3, params1));
+        assertNotEquals(key, SharedConversionCache.computeKey("other", bh1, params1));
+        assertNotEquals(key, SharedConversionCache.computeKey("identity", bh1, null));
+        // no blob
+        assertNull(SharedConversionCache.computeKey("identity", new SimpleBlobHolder((Blob) null), null));
+    }
+
+    @Test
+    public void testSharedCache() throws Exception {
+        long hits = getCounter("hits").getCount();
+        long misses = getCounter("misses").getCount();
+
+        // two distinct blobs with the same content, as attached to two documents
+        Blob blob1 = Blobs.createBlob("some content", "text/plain", null, "doc1.txt");
+        Blob blob2 = Blobs.createBlob("some content", "text/plain", null, "doc2.txt");
+
+        BlobHolder result = conversionService.convert("identity", new SimpleBlobHolder(blob1), new HashMap<>());
+        assertNotNull(result);
+        assertEquals(misses + 1, getCounter("misses").getCount());
+        assertEquals(hits, getCounter("hits").getCount());
+
+        result = conversionService.convert("identity", new SimpleBlobHolder(blob2), new HashMap<>());
+        assertNotNull(result);
+        assertEquals(hits + 1, getCounter("hits").getCount());
+        assertEquals("some content", result.getBlob().getString());
+        // the filename is computed from the source blob, not from the cached one
+        assertTrue(result.getBlob().getFilename().startsWith("doc2."));
+    }
+
+}
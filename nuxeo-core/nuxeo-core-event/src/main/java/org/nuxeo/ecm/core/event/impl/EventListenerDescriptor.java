@@ -29,9 +29,11 @@ import org.apache.commons.logging.LogFactory;
 import org.nuxeo.common.xmap.annotation.XNode;
 import org.nuxeo.common.xmap.annotation.XNodeList;
 import org.nuxeo.common.xmap.annotation.XObject;
+import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.event.Event;
 import org.nuxeo.ecm.core.event.EventBundle;
+import org.nuxeo.ecm.core.event.EventContext;
 import org.nuxeo.ecm.core.event.EventListener;
 import org.nuxeo.ecm.core.event.PostCommitEventListener;
 import org.nuxeo.ecm.core.event.PostCommitFilteringEventListener;
@@ -96,6 +98,9 @@ public class EventListenerDescriptor {
 
     protected Set<String> events;
 
+    // @since 11.1
+    protected Set<String> documentTypes;
+
     protected RuntimeContext rc;
 
     protected EventListener inLineListener;
@@ -131,6 +136,23 @@ public class EventListenerDescriptor {
         this.events = events.isEmpty() ? null : events;
     }
 
+    /**
+     * @since 11.1
+     */
+    public Set<String> getDocumentTypes() {
+        return documentTypes;
+    }
+
+    /**
+     * Restricts the listener to the events having a source document of one of the given types.
+     *
+     * @since 11.1
+     */
+    @XNodeList(value = "documentType", componentType = String.class, type = HashSet.class, nullByDefault = true)
+    public void setDocumentTypes(Set<String> documentTypes) {
+        this.documentTypes = documentTypes.isEmpty() ? null : documentTypes;
+    }
+
     public void setEnabled(boolean isEnabled) {
         this.isEnabled = isEnabled;
     }
@@ -229,6 +251,10 @@ public class EventListenerDescriptor {
             events = other.events;
         }
 
+        if (other.documentTypes != null) {
+            documentTypes = other.documentTypes;
+        }
+
         if (other.transactionTimeOut != null) {
             transactionTimeOut = other.transactionTimeOut;
         }
@@ -246,6 +272,24 @@ public class EventListenerDescriptor {
         return events == null || events.contains(eventName);
     }
 
+    /**
+     * Checks if the event source document type is one of the declared document types. If no document type is declared,
+     * all events are accepted, otherwise events without a source document are not.
+     *
+     * @since 11.1
+     */
+    public boolean acceptDocumentType(Event event) {
+        if (documentTypes == null) {
+            return true;
+        }
+        EventContext context = event.getContext();
+        if (!(context instanceof DocumentEventContext)) {
+            return false;
+        }
+        DocumentModel doc = ((DocumentEventContext) context).getSourceDocument();
+        return doc != null && documentTypes.contains(doc.getType());
+    }
+
     public void setIsAsync(Boolean isAsync) {
         this.isAsync = isAsync;
     }
@@ -267,7 +311,7 @@ public class EventListenerDescriptor {
         EventBundle filtered = new EventBundleImpl();
 
         for (Event event : bundle) {
-            if (!acceptEvent(event.getName())) {
+            if (!acceptEvent(event.getName()) || !acceptDocumentType(event)) {
                 continue;
             }
             PostCommitEventListener pcl = asPostCommitListener();
@@ -287,7 +331,7 @@ public class EventListenerDescriptor {
      */
     public boolean acceptBundle(EventBundle bundle) {
         for (Event event : bundle) {
-            if (!acceptEvent(event.getName())) {
+            if (!acceptEvent(event.getName()) || !acceptDocumentType(event)) {
                 continue;
             }
             PostCommitEventListener pcl = asPostCommitListener();
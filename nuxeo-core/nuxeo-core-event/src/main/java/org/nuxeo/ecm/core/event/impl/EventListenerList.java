@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import org.nuxeo.ecm.core.event.EventListener;
 import org.nuxeo.ecm.core.event.PostCommitEventListener;
@@ -49,12 +50,16 @@ public class EventListenerList {
 
     protected volatile List<EventListenerDescriptor> enabledAsyncPostCommitListenersDescriptors = null;
 
+    // @since 11.1
+    protected volatile InlineListenersIndex enabledInlineListenersIndex = null;
+
     protected final Map<String, EventListenerDescriptor> descriptors = new HashMap<>();
 
     protected synchronized void flushCache() {
         enabledAsyncPostCommitListenersDescriptors = null;
         enabledInlineListenersDescriptors = null;
         enabledSyncPostCommitListenersDescriptors = null;
+        enabledInlineListenersIndex = null;
     }
 
     public void add(EventListenerDescriptor descriptor) {
@@ -161,12 +166,14 @@ public class EventListenerList {
                 enabledSyncPostCommitListenersDescriptors.add(desc);
             }
         }
-        enabledInlineListenersDescriptors = new ArrayList<>();
+        List<EventListenerDescriptor> enabledInline = new ArrayList<>();
         for (EventListenerDescriptor desc : inlineListenersDescriptors) {
             if (desc.isEnabled) {
-                enabledInlineListenersDescriptors.add(desc);
+                enabledInline.add(desc);
             }
         }
+        enabledInlineListenersIndex = new InlineListenersIndex(enabledInline);
+        enabledInlineListenersDescriptors = enabledInline;
     }
 
     public List<EventListenerDescriptor> getEnabledInlineListenersDescriptors() {
@@ -176,6 +183,28 @@ public class EventListenerList {
         return new ArrayList<>(enabledInlineListenersDescriptors);
     }
 
+    /**
+     * Gets the enabled inline listeners accepting the given event name, ordered by priority.
+     * <p>
+     * The returned array is shared and must not be modified.
+     *
+     * @since 11.1
+     */
+    public EventListenerDescriptor[] getEnabledInlineListenersDescriptors(String eventName) {
+        InlineListenersIndex index = enabledInlineListenersIndex;
+        if (index == null) {
+            index = getEnabledInlineListenersIndex();
+        }
+        return index.get(eventName);
+    }
+
+    protected synchronized InlineListenersIndex getEnabledInlineListenersIndex() {
+        if (enabledInlineListenersIndex == null) {
+            recomputeEnabledListeners();
+        }
+        return enabledInlineListenersIndex;
+    }
+
     public List<EventListenerDescriptor> getEnabledSyncPostCommitListenersDescriptors() {
         if (enabledSyncPostCommitListenersDescriptors == null) {
             recomputeEnabledListeners();
@@ -198,4 +227,50 @@ public class EventListenerList {
         return descriptors.containsKey(name);
     }
 
+    /**
+     * Immutable index of the inline listeners by accepted event name, rebuilt when listeners are (de)registered or
+     * enabled/disabled.
+     *
+     * @since 11.1
+     */
+    protected static class InlineListenersIndex {
+
+        protected static final EventListenerDescriptor[] EMPTY = new EventListenerDescriptor[0];
+
+        protected final Map<String, EventListenerDescriptor[]> byEventName;
+
+        /** Listeners accepting all events, used for the event names not in the index. */
+        protected final EventListenerDescriptor[] anyEvent;
+
+        protected InlineListenersIndex(List<EventListenerDescriptor> listeners) {
+            Map<String, List<EventListenerDescriptor>> map = new HashMap<>();
+            for (EventListenerDescriptor desc : listeners) {
+                if (desc.events != null) {
+                    for (String event : desc.events) {
+                        map.putIfAbsent(event, new ArrayList<>());
+                    }
+                }
+            }
+            List<EventListenerDescriptor> any = new ArrayList<>();
+            // listeners are sorted by priority, keep that order in each entry
+            for (EventListenerDescriptor desc : listeners) {
+                if (desc.events == null) {
+                    any.add(desc);
+                    map.values().forEach(list -> list.add(desc));
+                } else {
+                    desc.events.forEach(event -> map.get(event).add(desc));
+                }
+            }
+            byEventName = new HashMap<>();
+            for (Entry<String, List<EventListenerDescriptor>> es : map.entrySet()) {
+                byEventName.put(es.getKey(), es.getValue().toArray(EMPTY));
+            }
+            anyEvent = any.toArray(EMPTY);
+        }
+
+        protected EventListenerDescriptor[] get(String eventName) {
+            return byEventName.getOrDefault(eventName, anyEvent);
+        }
+    }
+
 }
@@ -27,7 +27,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.naming.NamingException;
@@ -56,8 +58,13 @@ import org.nuxeo.ecm.core.event.pipe.dispatch.EventBundleDispatcher;
 import org.nuxeo.ecm.core.event.pipe.dispatch.EventDispatcherDescriptor;
 import org.nuxeo.ecm.core.event.pipe.dispatch.EventDispatcherRegistry;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.transaction.TransactionHelper;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
 /**
  * Implementation of the event service.
  */
@@ -110,6 +117,12 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
 
     protected EventBundleDispatcher pipeDispatcher;
 
+    // @since 11.1
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    // @since 11.1
+    protected final Map<String, Timer> inlineListenerTimers = new ConcurrentHashMap<>();
+
     public EventServiceImpl() {
         listenerDescriptors = new EventListenerList();
         postCommitExec = new PostCommitEventExecutor();
@@ -230,19 +243,26 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
     public void fireEvent(Event event) {
 
         String ename = event.getName();
-        EventStats stats = Framework.getService(EventStats.class);
-        for (EventListenerDescriptor desc : listenerDescriptors.getEnabledInlineListenersDescriptors()) {
-            if (!desc.acceptEvent(ename)) {
+        EventListenerDescriptor[] listeners = listenerDescriptors.getEnabledInlineListenersDescriptors(ename);
+        EventStats stats = listeners.length == 0 ? null : Framework.getService(EventStats.class);
+        boolean trace = SequenceTracer.isEnabled();
+        for (EventListenerDescriptor desc : listeners) {
+            if (!desc.acceptDocumentType(event)) {
                 continue;
             }
             try {
-                long t0 = System.currentTimeMillis();
-                SequenceTracer.start("Fire sync event " + event.getName());
+                long t0 = System.nanoTime();
+                if (trace) {
+                    SequenceTracer.start("Fire sync event " + ename);
+                }
                 desc.asEventListener().handleEvent(event);
-                long elapsed = System.currentTimeMillis() - t0;
-                SequenceTracer.stop("done in " + elapsed + " ms");
+                long elapsed = System.nanoTime() - t0;
+                getInlineListenerTimer(desc).update(elapsed, TimeUnit.NANOSECONDS);
+                if (trace) {
+                    SequenceTracer.stop("done in " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms");
+                }
                 if (stats != null) {
-                    stats.logSyncExec(desc, elapsed);
+                    stats.logSyncExec(desc, TimeUnit.NANOSECONDS.toMillis(elapsed));
                 }
                 if (event.isCanceled()) {
                     // break loop
@@ -253,7 +273,9 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
                 throw e;
             } catch (RuntimeException e) {
                 // get message
-                SequenceTracer.destroy("failure");
+                if (trace) {
+                    SequenceTracer.destroy("failure");
+                }
                 String message = "Exception during " + desc.getName() + " sync listener execution, ";
                 if (event.isBubbleException()) {
                     message += "other listeners will be ignored";
@@ -306,6 +328,16 @@ public class EventServiceImpl implements EventService, EventServiceAdmin, Synchr
         }
     }
 
+    /**
+     * Gets the timer measuring the executions of an inline listener.
+     *
+     * @since 11.1
+     */
+    protected Timer getInlineListenerTimer(EventListenerDescriptor desc) {
+        return inlineListenerTimers.computeIfAbsent(desc.getName(),
+                name -> registry.timer(MetricRegistry.name("nuxeo", "event", "listener", name, "inline")));
+    }
+
     @Override
     public void fireEventBundle(EventBundle event) {
         List<EventListenerDescriptor> postCommitSync = listenerDescriptors.getEnabledSyncPostCommitListenersDescriptors();
@@ -0,0 +1,125 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.event.pipe.stream;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.common.utils.ExceptionUtils;
+import org.nuxeo.ecm.core.event.EventBundle;
+import org.nuxeo.ecm.core.event.EventServiceAdmin;
+import org.nuxeo.ecm.core.event.EventStats;
+import org.nuxeo.ecm.core.event.ReconnectedEventBundle;
+import org.nuxeo.ecm.core.event.impl.EventListenerDescriptor;
+import org.nuxeo.ecm.core.event.impl.ReconnectedEventBundleImpl;
+import org.nuxeo.lib.stream.computation.AbstractComputation;
+import org.nuxeo.lib.stream.computation.ComputationContext;
+import org.nuxeo.lib.stream.computation.Record;
+import org.nuxeo.lib.stream.computation.Watermark;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
+/**
+ * A Stream computation running the asynchronous post-commit listeners on the event bundles written by a
+ * {@link StreamEventBundlePipe}.
+ * <p>
+ * Listeners are run one after the other in the computation thread, each in its own transaction, so a slow listener
+ * slows down the reading of the stream instead of piling up works. For each listener the
+ * {@code nuxeo.event.pipe.<pipe>.listener.<listener>.process} timer measures the throughput and processing time, and
+ * the {@code latency} timer the delay between the commit of the events and the end of their processing.
+ *
+ * @since 11.1
+ */
+public class StreamEventBundleComputation extends AbstractComputation {
+
+    private static final Log log = LogFactory.getLog(StreamEventBundleComputation.class);
+
+    protected static final int DEFAULT_RETRY_COUNT = 2;
+
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    public StreamEventBundleComputation(String name) {
+        super(name, 1, 0);
+    }
+
+    @Override
+    public void processRecord(ComputationContext context, String inputStreamName, Record record) {
+        EventBundle bundle = SerializationUtils.deserialize(record.getData());
+        long timestamp = Watermark.ofValue(record.getWatermark()).getTimestamp();
+        EventServiceAdmin eventService = Framework.getService(EventServiceAdmin.class);
+        for (EventListenerDescriptor listener : eventService.getListenerList()
+                                                            .getEnabledAsyncPostCommitListenersDescriptors()) {
+            EventBundle filtered = listener.filterBundle(bundle);
+            if (!filtered.isEmpty()) {
+                runListener(listener, filtered, timestamp);
+            }
+        }
+        context.askForCheckpoint();
+    }
+
+    protected void runListener(EventListenerDescriptor listener, EventBundle bundle, long timestamp) {
+        Integer count = listener.getRetryCount();
+        int retries = count == null || count < 0 ? DEFAULT_RETRY_COUNT : count;
+        for (int attempt = 0;; attempt++) {
+            ReconnectedEventBundle reconnected = new ReconnectedEventBundleImpl(bundle, listener.getName());
+            long start = System.currentTimeMillis();
+            try {
+                TransactionHelper.runInTransaction(() -> listener.asPostCommitListener().handleEvent(reconnected));
+                long end = System.currentTimeMillis();
+                getTimer(listener, "process").update(end - start, TimeUnit.MILLISECONDS);
+                getTimer(listener, "latency").update(end - timestamp, TimeUnit.MILLISECONDS);
+                EventStats stats = Framework.getService(EventStats.class);
+                if (stats != null) {
+                    stats.logAsyncExec(listener, end - start);
+                }
+                return;
+            } catch (RuntimeException e) {
+                if (ExceptionUtils.hasInterruptedCause(e)) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                if (attempt >= retries) {
+                    registry.counter(getMetricName(listener, "failure")).inc();
+                    log.error("Failed to execute async event " + bundle.getName() + " on listener "
+                            + listener.getName(), e);
+                    return;
+                }
+                log.debug("Retrying listener " + listener.getName() + " after: " + e.getMessage());
+            } finally {
+                reconnected.disconnect();
+            }
+        }
+    }
+
+    protected Timer getTimer(EventListenerDescriptor listener, String metric) {
+        return registry.timer(getMetricName(listener, metric));
+    }
+
+    protected String getMetricName(EventListenerDescriptor listener, String metric) {
+        return MetricRegistry.name("nuxeo", "event", "pipe", metadata.name(), "listener", listener.getName(), metric);
+    }
+
+}
@@ -0,0 +1,241 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.event.pipe.stream;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventBundle;
+import org.nuxeo.ecm.core.event.EventContext;
+import org.nuxeo.ecm.core.event.impl.DocumentEventContext;
+import org.nuxeo.ecm.core.event.impl.EventBundleImpl;
+import org.nuxeo.ecm.core.event.pipe.AbstractEventBundlePipe;
+import org.nuxeo.lib.stream.computation.ComputationPolicy;
+import org.nuxeo.lib.stream.computation.ComputationPolicyBuilder;
+import org.nuxeo.lib.stream.computation.Record;
+import org.nuxeo.lib.stream.computation.Settings;
+import org.nuxeo.lib.stream.computation.StreamManager;
+import org.nuxeo.lib.stream.computation.StreamProcessor;
+import org.nuxeo.lib.stream.computation.Topology;
+import org.nuxeo.lib.stream.computation.Watermark;
+import org.nuxeo.lib.stream.log.LogManager;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.codec.CodecService;
+import org.nuxeo.runtime.model.ComponentManager;
+import org.nuxeo.runtime.stream.StreamService;
+
+/**
+ * Pipe writing the event bundles to a stream, the asynchronous post-commit listeners are run by a
+ * {@link StreamEventBundleComputation} on any node sharing the stream, and the events survive a crash.
+ * <p>
+ * Bundles are split by source document and records are keyed by document id, so the events of a document are
+ * processed in order. When the consumers lag behind by more than {@code maxLag} records, sending is delayed by at most
+ * {@code maxBlockMs} to slow down the producers.
+ * <p>
+ * The pipe parameters are the {@code logConfig} to use, which must be contributed to the StreamService, the
+ * {@code concurrency} and {@code partitions} of the computation, the {@code codec} of the records, {@code maxLag} and
+ * {@code maxBlockMs}.
+ *
+ * @since 11.1
+ */
+public class StreamEventBundlePipe extends AbstractEventBundlePipe<List<Record>> {
+
+    private static final Log log = LogFactory.getLog(StreamEventBundlePipe.class);
+
+    public static final String LOG_CONFIG_PARAM = "logConfig";
+
+    public static final String DEFAULT_LOG_CONFIG = "event";
+
+    public static final String CODEC_PARAM = "codec";
+
+    public static final String DEFAULT_CODEC = "legacy";
+
+    public static final String PARTITIONS_PARAM = "partitions";
+
+    public static final String CONCURRENCY_PARAM = "concurrency";
+
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    public static final String MAX_LAG_PARAM = "maxLag";
+
+    public static final long DEFAULT_MAX_LAG = 10_000;
+
+    public static final String MAX_BLOCK_MS_PARAM = "maxBlockMs";
+
+    public static final long DEFAULT_MAX_BLOCK_MS = 1_000;
+
+    protected static final long LAG_CHECK_PERIOD_MS = 1_000;
+
+    protected static final long BACK_PRESSURE_PAUSE_MS = 50;
+
+    protected LogManager logManager;
+
+    protected StreamManager streamManager;
+
+    protected StreamProcessor processor;
+
+    protected long maxLag;
+
+    protected long maxBlockMs;
+
+    protected volatile long lastLag;
+
+    protected volatile long lastLagCheck;
+
+    @Override
+    public void initPipe(String name, Map<String, String> params) {
+        super.initPipe(name, params);
+        maxLag = Long.parseLong(params.getOrDefault(MAX_LAG_PARAM, String.valueOf(DEFAULT_MAX_LAG)));
+        maxBlockMs = Long.parseLong(params.getOrDefault(MAX_BLOCK_MS_PARAM, String.valueOf(DEFAULT_MAX_BLOCK_MS)));
+        int concurrency = Integer.parseInt(
+                params.getOrDefault(CONCURRENCY_PARAM, String.valueOf(DEFAULT_CONCURRENCY)));
+        int partitions = Integer.parseInt(params.getOrDefault(PARTITIONS_PARAM, String.valueOf(concurrency)));
+        String logConfig = params.getOrDefault(LOG_CONFIG_PARAM, DEFAULT_LOG_CONFIG);
+        String codecName = params.getOrDefault(CODEC_PARAM, DEFAULT_CODEC);
+
+        StreamService service = Framework.getService(StreamService.class);
+        logManager = service.getLogManager(logConfig);
+        streamManager = service.getStreamManager(logConfig);
+        // the stream and the computation are named after the pipe
+        Topology topology = Topology.builder()
+                                    .addComputation(() -> new StreamEventBundleComputation(name),
+                                            Collections.singletonList("i1:" + name))
+                                    .build();
+        // retries are done per listener by the computation
+        ComputationPolicy policy = new ComputationPolicyBuilder().continueOnFailure(true).build();
+        Settings settings = new Settings(concurrency, partitions,
+                Framework.getService(CodecService.class).getCodec(codecName, Record.class), policy);
+        processor = streamManager.registerAndCreateProcessor(name, topology, settings);
+        new ComponentListener().install();
+        log.info("Initialized event pipe: " + name + " on log config: " + logConfig);
+    }
+
+    @Override
+    protected List<Record> marshall(EventBundle events) {
+        // split the bundle by document keeping the order of events
+        Map<String, EventBundle> bundles = new LinkedHashMap<>();
+        String noDocumentKey = UUID.randomUUID().toString();
+        for (Event event : events) {
+            String key = getDocumentId(event);
+            bundles.computeIfAbsent(key == null ? noDocumentKey : key,
+                    k -> new EventBundleImpl(events.getSourceVMID())).push(event);
+        }
+        long watermark = Watermark.ofNow().getValue();
+        List<Record> records = new ArrayList<>(bundles.size());
+        bundles.forEach((key, bundle) -> records.add(new Record(key, SerializationUtils.serialize(bundle), watermark)));
+        return records;
+    }
+
+    protected String getDocumentId(Event event) {
+        EventContext context = event.getContext();
+        if (context instanceof DocumentEventContext) {
+            DocumentModel source = ((DocumentEventContext) context).getSourceDocument();
+            if (source != null) {
+                return source.getId();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected void send(List<Record> records) {
+        applyBackPressure();
+        records.forEach(record -> streamManager.append(getName(), record));
+    }
+
+    protected void applyBackPressure() {
+        if (maxLag <= 0) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + maxBlockMs;
+        while (getLag(false) > maxLag) {
+            if (System.currentTimeMillis() >= deadline) {
+                log.debug("Consumers of " + getName() + " are lagging: " + lastLag + ", sending anyway");
+                return;
+            }
+            try {
+                Thread.sleep(BACK_PRESSURE_PAUSE_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            getLag(true);
+        }
+    }
+
+    /**
+     * Returns the lag of the consumers, the value is refreshed at most every {@link #LAG_CHECK_PERIOD_MS} unless
+     * {@code force} is set.
+     */
+    protected long getLag(boolean force) {
+        long now = System.currentTimeMillis();
+        if (force || now - lastLagCheck > LAG_CHECK_PERIOD_MS) {
+            lastLag = logManager.getLag(getName(), getName()).lag();
+            lastLagCheck = now;
+        }
+        return lastLag;
+    }
+
+    @Override
+    public boolean waitForCompletion(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        // the listeners are run before the consumer offsets are committed
+        while (getLag(true) > 0) {
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(BACK_PRESSURE_PAUSE_MS);
+        }
+        return true;
+    }
+
+    @Override
+    public void shutdown() throws InterruptedException {
+        if (processor != null) {
+            processor.stop(Duration.ofSeconds(1));
+            processor = null;
+        }
+    }
+
+    protected class ComponentListener implements ComponentManager.Listener {
+        @Override
+        public void afterStart(ComponentManager mgr, boolean isResume) {
+            // run the listeners once all components are started
+            if (processor != null) {
+                processor.start();
+            }
+        }
+
+        @Override
+        public void afterStop(ComponentManager mgr, boolean isStandby) {
+            Framework.getRuntime().getComponentManager().removeListener(this);
+        }
+    }
+
+}
@@ -18,9 +18,12 @@
  */
 package org.nuxeo.ecm.core.work;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.time.Duration;
 import java.util.EnumSet;
 import java.util.Map;
+import java.util.UUID;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
@@ -32,7 +35,8 @@ import org.nuxeo.lib.stream.log.LogOffset;
 
 /**
  * Base for filter that saves long record's value in an alternate storage. The record is then marked with an internal
- * flag and contains an empty value.
+ * flag and its value is replaced by a compact reference to the stored value (claim check), the value is fetched back
+ * when the record is read by a computation.
  *
  * @since 11.1
  */
@@ -105,8 +109,18 @@ public abstract class BaseOverflowRecordFilter implements RecordFilter {
         }
         EnumSet<Record.Flag> flags = EnumSet.copyOf(record.getFlags());
         flags.add(Record.Flag.EXTERNAL_VALUE);
-        storeValue(getUniqRecordKey(record), record.getData());
-        return new Record(record.getKey(), null, record.getWatermark(), flags);
+        String claimKey = getClaimKey(record);
+        storeValue(claimKey, record.getData());
+        return new Record(record.getKey(), claimKey.getBytes(UTF_8), record.getWatermark(), flags);
+    }
+
+    /**
+     * Returns a new key to store the value of a record, unique even for records with the same key and watermark.
+     *
+     * @since 11.1
+     */
+    protected String getClaimKey(Record record) {
+        return String.format("%s:%s", record.getKey(), UUID.randomUUID());
     }
 
     protected String getUniqRecordKey(Record record) {
@@ -116,11 +130,14 @@ public abstract class BaseOverflowRecordFilter implements RecordFilter {
 
     @Override
     public Record afterRead(Record record, LogOffset offset) {
-        if (record.getFlags().contains(Record.Flag.EXTERNAL_VALUE) && record.getData().length == 0) {
-            byte[] value = fetchValue(getUniqRecordKey(record));
+        if (record.getFlags().contains(Record.Flag.EXTERNAL_VALUE)) {
+            // records appended without claim key have an empty value
+            String claimKey = record.getData().length == 0 ? getUniqRecordKey(record)
+                    : new String(record.getData(), UTF_8);
+            byte[] value = fetchValue(claimKey);
             if (log.isDebugEnabled()) {
                 log.debug(String.format("Record: %s retrieve value of size: %d", record.getKey(),
-                        record.getData().length));
+                        value == null ? 0 : value.length));
             }
             if (value == null || value.length == 0) {
                 log.error(String.format("Record %s offset %s value not found, the record is lost, skipping",
@@ -47,6 +47,12 @@ public class SleepWork extends AbstractWork {
 
     protected boolean coalescing = false;
 
+    // @since 11.1
+    protected boolean priority = false;
+
+    // @since 11.1
+    protected long deadline = 0;
+
     /**
      * Creates a work instance that does nothing but sleep.
      *
@@ -180,6 +186,24 @@ public class SleepWork extends AbstractWork {
         this.coalescing = coalescing;
     }
 
+    @Override
+    public boolean isPriority() {
+        return priority;
+    }
+
+    public void setPriority(boolean priority) {
+        this.priority = priority;
+    }
+
+    @Override
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName() + "(" + (getId().length() > 10 ? "" : getId() + ", ") + durationMillis
@@ -26,10 +26,13 @@ import static org.nuxeo.ecm.core.work.BaseOverflowRecordFilter.THRESHOLD_SIZE_OP
 import static org.nuxeo.ecm.core.work.api.WorkManager.Scheduling.CANCEL_SCHEDULED;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
@@ -139,6 +142,21 @@ public class StreamWorkManager extends WorkManagerImpl {
      */
     public static final String COMPUTATION_FILTER_PREFIX_KEY = "nuxeo.stream.work.computation.filter.storeKeyPrefix";
 
+    /**
+     * Set to {@code false} to append the works scheduled after commit one by one instead of coalescing them per
+     * transaction.
+     *
+     * @since 11.1
+     */
+    public static final String AFTER_COMMIT_COALESCING_KEY = "nuxeo.stream.work.afterCommit.coalescing.enabled";
+
+    /**
+     * Suffix of the stream of a queue priority lane.
+     *
+     * @since 11.1
+     */
+    public static final String PRIORITY_LANE_SUFFIX = "-priority";
+
     protected Topology topology;
 
     protected Topology topologyDisabled;
@@ -155,6 +173,16 @@ public class StreamWorkManager extends WorkManagerImpl {
 
     protected long stateTTL;
 
+    // @since 11.1
+    protected boolean afterCommitCoalescing;
+
+    /**
+     * The works scheduled after commit by the active transactions.
+     *
+     * @since 11.1
+     */
+    protected final Map<Transaction, WorkSchedulingBatch> afterCommitBatches = new ConcurrentHashMap<>();
+
     protected int getOverProvisioningFactor() {
         // Enable over provisioning only if the log can be distributed
         if (getLogManager().supportSubscribe()) {
@@ -184,6 +212,7 @@ public class StreamWorkManager extends WorkManagerImpl {
             return;
         }
         if (CANCEL_SCHEDULED.equals(scheduling)) {
+            cancelAfterCommit(queueId, work);
             if (storeState) {
                 if (WorkStateHelper.getState(work.getId()) != null) {
                     WorkStateHelper.setCanceled(work.getId());
@@ -198,15 +227,16 @@ public class StreamWorkManager extends WorkManagerImpl {
             return;
         }
         WorkSchedulePath.newInstance(work);
+        String stream = getStreamName(queueId, work);
         // We don't need to set a codec because appender is initialized with proper codec during processor init
-        LogAppender<Record> appender = logManager.getAppender(queueId);
+        LogAppender<Record> appender = logManager.getAppender(stream);
         if (appender == null) {
             log.error(String.format("Not scheduled work, unknown category: %s, mapped to %s", work.getCategory(),
-                    queueId));
+                    stream));
             return;
         }
         String key = work.getPartitionKey();
-        LogOffset offset = streamManager.append(queueId, Record.of(key, WorkComputation.serialize(work)));
+        LogOffset offset = streamManager.append(stream, Record.of(key, WorkComputation.serialize(work)));
         if (work.isCoalescing()) {
             WorkStateHelper.setLastOffset(work.getId(), offset.offset(), stateTTL);
         }
@@ -227,6 +257,71 @@ public class StreamWorkManager extends WorkManagerImpl {
         ConfigurationService configuration = Framework.getService(ConfigurationService.class);
         storeState = configuration.isBooleanTrue(STORESTATE_KEY);
         stateTTL = configuration.getLong(STATETTL_KEY, STATETTL_DEFAULT_VALUE);
+        afterCommitCoalescing = !configuration.isBooleanFalse(AFTER_COMMIT_COALESCING_KEY);
+    }
+
+    /**
+     * Appends a batch of works to a queue, with a single call per lane.
+     *
+     * @since 11.1
+     */
+    protected void schedule(String queueId, List<Work> works) {
+        Map<String, List<Work>> lanes = new LinkedHashMap<>();
+        works.forEach(work -> lanes.computeIfAbsent(getStreamName(queueId, work), k -> new ArrayList<>()).add(work));
+        lanes.forEach(this::appendWorks);
+    }
+
+    /**
+     * @since 11.1
+     */
+    protected void appendWorks(String stream, List<Work> works) {
+        if (logManager.getAppender(stream) == null) {
+            log.error(String.format("Not scheduled works, unknown stream: %s", stream));
+            return;
+        }
+        List<Record> records = new ArrayList<>(works.size());
+        for (Work work : works) {
+            WorkSchedulePath.newInstance(work);
+            records.add(Record.of(work.getPartitionKey(), WorkComputation.serialize(work)));
+        }
+        List<LogOffset> offsets = streamManager.append(stream, records);
+        for (int i = 0; i < works.size(); i++) {
+            Work work = works.get(i);
+            if (work.isCoalescing()) {
+                WorkStateHelper.setLastOffset(work.getId(), offsets.get(i).offset(), stateTTL);
+            }
+            if (storeState) {
+                WorkStateHelper.setState(work.getId(), Work.State.SCHEDULED, stateTTL);
+            }
+        }
+    }
+
+    /**
+     * Returns the stream where a work is appended: the priority lane of the queue for a priority work when the queue
+     * has one, the queue stream otherwise.
+     *
+     * @since 11.1
+     */
+    protected String getStreamName(String queueId, Work work) {
+        if (work.isPriority() && hasPriorityLane(queueId)) {
+            return getPriorityLane(queueId);
+        }
+        return queueId;
+    }
+
+    /**
+     * @since 11.1
+     */
+    protected boolean hasPriorityLane(String queueId) {
+        WorkQueueDescriptor wqd = getWorkQueueDescriptor(queueId);
+        return wqd != null && wqd.getPriorityThreads() > 0;
+    }
+
+    /**
+     * @since 11.1
+     */
+    protected String getPriorityLane(String queueId) {
+        return queueId + PRIORITY_LANE_SUFFIX;
     }
 
     protected RecordFilterChain getRecordFilter() {
@@ -346,15 +441,17 @@ public class StreamWorkManager extends WorkManagerImpl {
         List<WorkQueueDescriptor> descriptors = getDescriptors(QUEUES_EP);
         // create the single topology with one root per work pool
         Topology.Builder builder = Topology.builder();
-        descriptors.stream().filter(WorkQueueDescriptor::isProcessingEnabled).forEach(d -> builder.addComputation(
-                () -> new WorkComputation(d.getId()), Collections.singletonList("i1:" + d.getId())));
+        descriptors.stream()
+                   .filter(WorkQueueDescriptor::isProcessingEnabled)
+                   .forEach(d -> getStreamNames(d).forEach(stream -> builder.addComputation(
+                           () -> new WorkComputation(stream), Collections.singletonList("i1:" + stream))));
         topology = builder.build();
         // create a topology for the disabled work pools in order to init their input streams
         Topology.Builder builderDisabled = Topology.builder();
         descriptors.stream()
                    .filter(Predicate.not(WorkQueueDescriptor::isProcessingEnabled))
-                   .forEach(d -> builderDisabled.addComputation(() -> new WorkComputation(d.getId()),
-                           Collections.singletonList("i1:" + d.getId())));
+                   .forEach(d -> getStreamNames(d).forEach(stream -> builderDisabled.addComputation(
+                           () -> new WorkComputation(stream), Collections.singletonList("i1:" + stream))));
         topologyDisabled = builderDisabled.build();
         // The retry policy is handled at AbstractWork level, but we want to skip failure
         ComputationPolicy policy = new ComputationPolicyBuilder().continueOnFailure(true).build();
@@ -362,6 +459,24 @@ public class StreamWorkManager extends WorkManagerImpl {
         settings = new Settings(DEFAULT_CONCURRENCY, getPartitions(DEFAULT_CONCURRENCY), getCodec(), policy, filter);
         descriptors.forEach(item -> settings.setConcurrency(item.getId(), item.getMaxThreads()));
         descriptors.forEach(item -> settings.setPartitions(item.getId(), getPartitions(item.getMaxThreads())));
+        // each priority lane has its own threads, so its works don't wait behind the queue backlog
+        descriptors.stream().filter(item -> item.getPriorityThreads() > 0).forEach(item -> {
+            String lane = getPriorityLane(item.getId());
+            settings.setConcurrency(lane, item.getPriorityThreads());
+            settings.setPartitions(lane, getPartitions(item.getPriorityThreads()));
+        });
+    }
+
+    /**
+     * Returns the streams of a queue: the queue stream followed by its priority lane if any.
+     *
+     * @since 11.1
+     */
+    protected List<String> getStreamNames(WorkQueueDescriptor descriptor) {
+        if (descriptor.getPriorityThreads() > 0) {
+            return List.of(descriptor.getId(), getPriorityLane(descriptor.getId()));
+        }
+        return List.of(descriptor.getId());
     }
 
     protected int getPartitions(int maxThreads) {
@@ -399,6 +514,94 @@ public class StreamWorkManager extends WorkManagerImpl {
         }
     }
 
+    /**
+     * Collects the works scheduled after commit by a transaction. A work replaces a previously scheduled work with the
+     * same id in the same queue, and on commit the works of each queue are appended in a single call.
+     *
+     * @since 11.1
+     */
+    public class WorkSchedulingBatch implements Synchronization {
+
+        protected final Transaction transaction;
+
+        protected final Map<String, Map<String, Work>> works = new LinkedHashMap<>();
+
+        protected final Map<String, Integer> coalesced = new HashMap<>();
+
+        public WorkSchedulingBatch(Transaction transaction) {
+            this.transaction = transaction;
+        }
+
+        public synchronized void add(String queueId, Work work) {
+            Map<String, Work> queueWorks = works.computeIfAbsent(queueId, k -> new LinkedHashMap<>());
+            // remove first so that a replaced work takes the position of the latest scheduling
+            if (queueWorks.remove(work.getId()) != null) {
+                coalesced.merge(queueId, 1, Integer::sum);
+            }
+            queueWorks.put(work.getId(), work);
+        }
+
+        public synchronized void remove(String queueId, Work work) {
+            Map<String, Work> queueWorks = works.get(queueId);
+            if (queueWorks != null) {
+                queueWorks.remove(work.getId());
+            }
+        }
+
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public synchronized void afterCompletion(int status) {
+            afterCommitBatches.remove(transaction);
+            if (status == Status.STATUS_COMMITTED) {
+                works.forEach((queueId, queueWorks) -> {
+                    int count = coalesced.getOrDefault(queueId, 0);
+                    if (count > 0) {
+                        registry.counter(MetricRegistry.name("nuxeo", "works", "total", queueId, "coalesced"))
+                                .inc(count);
+                        if (log.isDebugEnabled()) {
+                            log.debug(String.format("Coalesced %d works scheduled after commit on queue: %s", count,
+                                    queueId));
+                        }
+                    }
+                    if (!queueWorks.isEmpty()) {
+                        // a failure on one queue must not prevent scheduling on the others
+                        try {
+                            StreamWorkManager.this.schedule(queueId, new ArrayList<>(queueWorks.values()));
+                        } catch (RuntimeException e) {
+                            log.error(String.format("Failed to schedule %d works after commit on queue: %s",
+                                    queueWorks.size(), queueId), e);
+                        }
+                    }
+                });
+            } else if (status != Status.STATUS_ROLLEDBACK) {
+                throw new IllegalArgumentException("Unsupported transaction status " + status);
+            }
+        }
+    }
+
+    /**
+     * Removes a work from the works scheduled after commit by the current transaction.
+     *
+     * @since 11.1
+     */
+    protected void cancelAfterCommit(String queueId, Work work) {
+        if (afterCommitBatches.isEmpty()) {
+            return;
+        }
+        try {
+            Transaction transaction = TransactionHelper.lookupTransactionManager().getTransaction();
+            WorkSchedulingBatch batch = transaction == null ? null : afterCommitBatches.get(transaction);
+            if (batch != null) {
+                batch.remove(queueId, work);
+            }
+        } catch (NamingException | SystemException e) {
+            log.debug("Cannot lookup the current transaction", e);
+        }
+    }
+
     @Override
     void activateQueue(WorkQueueDescriptor config) {
         // queue processing is activated only from component listener afterStart
@@ -431,6 +634,12 @@ public class StreamWorkManager extends WorkManagerImpl {
         queueMetrics.putGauge(() -> getMetricsWithNuxeoClassLoader(queueId).completed, "completed");
         queueMetrics.putGauge(() -> getMetricsWithNuxeoClassLoader(queueId).canceled, "canceled");
         registry.registerAll(queueMetrics);
+        if (hasPriorityLane(queueId)) {
+            String lane = getPriorityLane(queueId);
+            NuxeoMetricSet laneMetrics = new NuxeoMetricSet("nuxeo", "works", "total", lane);
+            laneMetrics.putGauge(() -> logManager.getLag(lane, lane).lag(), "scheduled");
+            registry.registerAll(laneMetrics);
+        }
     }
 
     @Override
@@ -487,13 +696,22 @@ public class StreamWorkManager extends WorkManagerImpl {
     @Override
     public WorkQueueMetrics getMetrics(String queueId) {
         LogLag lag = logManager.getLag(queueId, queueId);
+        long scheduled = lag.lag();
+        long completed = lag.lower();
         long running = 0;
         if (lag.lag() > 0) {
             // we don't have the exact running metric
             // give an approximation that can be higher that actual one because of the over provisioning
             running = min(lag.lag(), settings.getPartitions(queueId));
         }
-        return new WorkQueueMetrics(queueId, lag.lag(), running, lag.lower(), 0);
+        if (hasPriorityLane(queueId)) {
+            String lane = getPriorityLane(queueId);
+            LogLag laneLag = logManager.getLag(lane, lane);
+            scheduled += laneLag.lag();
+            completed += laneLag.lower();
+            running += min(laneLag.lag(), settings.getPartitions(lane));
+        }
+        return new WorkQueueMetrics(queueId, scheduled, running, completed, 0);
     }
 
     @Override
@@ -620,7 +838,18 @@ public class StreamWorkManager extends WorkManagerImpl {
                 if (log.isDebugEnabled()) {
                     log.debug("Scheduled after commit: " + work.getId());
                 }
-                transaction.registerSynchronization(new StreamWorkManager.WorkScheduling(work, scheduling));
+                if (afterCommitCoalescing) {
+                    String queueId = getCategoryQueueId(work.getCategory());
+                    WorkSchedulingBatch batch = afterCommitBatches.get(transaction);
+                    if (batch == null) {
+                        batch = new WorkSchedulingBatch(transaction);
+                        transaction.registerSynchronization(batch);
+                        afterCommitBatches.put(transaction, batch);
+                    }
+                    batch.add(queueId, work);
+                } else {
+                    transaction.registerSynchronization(new StreamWorkManager.WorkScheduling(work, scheduling));
+                }
                 return true;
             } else if (status == Status.STATUS_COMMITTED) {
                 // called in afterCompletion, we can schedule immediately
@@ -39,10 +39,12 @@ import org.nuxeo.ecm.core.work.api.Work;
 import org.nuxeo.lib.stream.computation.AbstractComputation;
 import org.nuxeo.lib.stream.computation.ComputationContext;
 import org.nuxeo.lib.stream.computation.Record;
+import org.nuxeo.lib.stream.computation.Watermark;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.services.config.ConfigurationService;
 
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import com.codahale.metrics.Timer;
@@ -61,6 +63,12 @@ public class WorkComputation extends AbstractComputation {
 
     protected final Timer workTimer;
 
+    // @since 11.1
+    protected final Timer latencyTimer;
+
+    // @since 11.1
+    protected final Counter expiredCounter;
+
     protected final long stateTTL;
 
     protected Work work;
@@ -69,6 +77,8 @@ public class WorkComputation extends AbstractComputation {
         super(name, 1, 0);
         MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
         workTimer = registry.timer(MetricRegistry.name("nuxeo", "works", name, "total"));
+        latencyTimer = registry.timer(MetricRegistry.name("nuxeo", "works", name, "latency"));
+        expiredCounter = registry.counter(MetricRegistry.name("nuxeo", "works", name, "expired"));
         stateTTL = Framework.getService(ConfigurationService.class).getLong(STATETTL_KEY, STATETTL_DEFAULT_VALUE);
     }
 
@@ -82,13 +92,24 @@ public class WorkComputation extends AbstractComputation {
     @Override
     public void processRecord(ComputationContext context, String inputStreamName, Record record) {
         work = deserialize(record.getData());
+        // time spent waiting in the queue or priority lane stream
+        long appendTime = Watermark.ofValue(record.getWatermark()).getTimestamp();
+        latencyTimer.update(System.currentTimeMillis() - appendTime, TimeUnit.MILLISECONDS);
         try {
+            boolean storeState = Framework.getService(ConfigurationService.class).isBooleanTrue(STORESTATE_KEY);
             if (work.isCoalescing() && WorkStateHelper.getLastOffset(work.getId()) > context.getLastOffset().offset()) {
                 log.debug("Skipping duplicate of coalescing work id: " + work.getId() + " " + work);
+            } else if (work.getDeadline() > 0 && work.getDeadline() < System.currentTimeMillis()) {
+                log.debug("Skipping expired work id: " + work.getId() + " " + work);
+                expiredCounter.inc();
+                work.expire();
+                // the work will not run, set the state to null for 'completed' as after an execution
+                if (storeState && WorkStateHelper.getState(work.getId()) == Work.State.SCHEDULED) {
+                    WorkStateHelper.setState(work.getId(), null, stateTTL);
+                }
             } else if (work.isIdempotent() && workIds.contains(work.getId())) {
                 log.debug("Skipping duplicate of idempotent work id: " + work.getId());
             } else {
-                boolean storeState = Framework.getService(ConfigurationService.class).isBooleanTrue(STORESTATE_KEY);
                 if (storeState) {
                     if (WorkStateHelper.getState(work.getId()) != Work.State.SCHEDULED) {
                         log.warn("work has been canceled, saving and returning");
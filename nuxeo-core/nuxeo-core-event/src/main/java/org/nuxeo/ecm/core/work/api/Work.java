@@ -405,4 +405,34 @@ public interface Work extends Serializable {
         return false;
     }
 
+    /**
+     * Returns true if the work is interactive and should be executed in the priority lane of its queue, when the queue
+     * has one. It is up to the work manager implementation to support or not priority lanes.
+     *
+     * @since 11.1
+     */
+    default boolean isPriority() {
+        return false;
+    }
+
+    /**
+     * Returns the time in milliseconds since epoch after which the work result is no longer needed, or {@code 0} if
+     * the work has no deadline. The work manager implementation can skip the execution of an expired work.
+     *
+     * @since 11.1
+     */
+    default long getDeadline() {
+        return 0;
+    }
+
+    /**
+     * Called by the work manager instead of executing the work when its deadline has passed, so that the work can
+     * report to its clients that no result will be produced.
+     *
+     * @since 11.1
+     */
+    default void expire() {
+        // nothing by default
+    }
+
 }
@@ -81,6 +81,23 @@ public class WorkQueueDescriptor implements Descriptor {
         return maxThreads == null ? DEFAULT_MAX_THREADS : maxThreads.intValue();
     }
 
+    /**
+     * When greater than zero, the queue has a priority lane processed by this number of dedicated threads, works
+     * returning {@code true} for {@link Work#isPriority()} are scheduled in this lane so that they don't wait behind
+     * the backlog of the queue. Only supported by the stream work manager.
+     *
+     * @since 11.1
+     */
+    @XNode("priorityThreads")
+    public Integer priorityThreads;
+
+    /**
+     * @since 11.1
+     */
+    public int getPriorityThreads() {
+        return priorityThreads == null ? 0 : priorityThreads.intValue();
+    }
+
     @XNodeList(value = "category", type = HashSet.class, componentType = String.class)
     public Set<String> categories = Collections.emptySet();
 
@@ -107,6 +124,7 @@ public class WorkQueueDescriptor implements Descriptor {
         merged.capacity = other.capacity != null ? other.capacity : capacity;
         merged.processing = other.processing != null ? other.processing : processing;
         merged.maxThreads = other.maxThreads != null ? other.maxThreads : maxThreads;
+        merged.priorityThreads = other.priorityThreads != null ? other.priorityThreads : priorityThreads;
         merged.categories = new HashSet<>(categories);
         merged.categories.addAll(other.categories);
         return merged;
@@ -125,6 +143,8 @@ public class WorkQueueDescriptor implements Descriptor {
         sb.append(isProcessingEnabled());
         sb.append(" maxThreads=");
         sb.append(getMaxThreads());
+        sb.append(" priorityThreads=");
+        sb.append(getPriorityThreads());
         sb.append(" capacity=");
         sb.append(getCapacity());
         sb.append(")");
@@ -23,15 +23,21 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import javax.inject.Inject;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.event.Event;
 import org.nuxeo.ecm.core.event.EventService;
 import org.nuxeo.ecm.core.event.PostCommitEventListener;
+import org.nuxeo.ecm.core.event.impl.EventContextImpl;
+import org.nuxeo.ecm.core.event.impl.EventImpl;
 import org.nuxeo.ecm.core.event.impl.EventListenerDescriptor;
+import org.nuxeo.ecm.core.event.impl.EventListenerList;
 import org.nuxeo.ecm.core.event.impl.EventServiceImpl;
 import org.nuxeo.ecm.core.event.script.ScriptingPostCommitEventListener;
 import org.nuxeo.runtime.api.Framework;
@@ -104,6 +110,37 @@ public class TestEventListenerContrib {
         assertEquals(20, desc.getPriority());
     }
 
+    @Test
+    public void testInlineListenersIndex() throws Exception {
+        hotDeployer.deploy("org.nuxeo.ecm.core.event.test:test-listeners-index.xml");
+        EventListenerList listenerList = getService().getEventListenerList();
+        EventListenerDescriptor anyEvent = getService().getEventListener("indexAnyEvent");
+        EventListenerDescriptor testEvent = getService().getEventListener("indexTestEvent");
+
+        List<EventListenerDescriptor> listeners;
+        listeners = Arrays.asList(listenerList.getEnabledInlineListenersDescriptors("test"));
+        assertTrue(listeners.contains(anyEvent));
+        assertTrue(listeners.contains(testEvent));
+        // priority order is kept
+        assertTrue(listeners.indexOf(anyEvent) < listeners.indexOf(testEvent));
+
+        listeners = Arrays.asList(listenerList.getEnabledInlineListenersDescriptors("otherEvent"));
+        assertTrue(listeners.contains(anyEvent));
+        assertFalse(listeners.contains(testEvent));
+
+        // the index is rebuilt when a listener is disabled
+        getService().setListenerEnabledFlag("indexAnyEvent", false);
+        listeners = Arrays.asList(listenerList.getEnabledInlineListenersDescriptors("test"));
+        assertFalse(listeners.contains(anyEvent));
+        assertTrue(listeners.contains(testEvent));
+
+        // document type prefilter, an event without source document is only accepted without document types
+        assertEquals(Collections.singleton("File"), testEvent.getDocumentTypes());
+        Event event = new EventImpl("test", new EventContextImpl());
+        assertTrue(anyEvent.acceptDocumentType(event));
+        assertFalse(testEvent.acceptDocumentType(event));
+    }
+
     @Test
     public void testInvalidListeners() throws Exception {
         assertEquals(0, getService().getEventListenerList().getAsyncPostCommitListeners().size());
@@ -0,0 +1,91 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.work;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A work blocked until released by the test, or a priority work signaling its execution.
+ * <p>
+ * Works are serialized in the stream, so the latches are static.
+ *
+ * @since 11.1
+ */
+public class BlockingWork extends AbstractWork {
+
+    private static final long serialVersionUID = 1L;
+
+    protected static volatile CountDownLatch release;
+
+    protected static volatile CountDownLatch priorityDone;
+
+    protected final boolean priority;
+
+    public BlockingWork(boolean priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Resets the latches, to be called before scheduling the works.
+     */
+    public static void reset(int priorityCount) {
+        release = new CountDownLatch(1);
+        priorityDone = new CountDownLatch(priorityCount);
+    }
+
+    public static void release() {
+        release.countDown();
+    }
+
+    public static boolean awaitPriorityDone(long timeout, TimeUnit unit) throws InterruptedException {
+        return priorityDone.await(timeout, unit);
+    }
+
+    @Override
+    public String getCategory() {
+        return SleepWork.CATEGORY;
+    }
+
+    @Override
+    public boolean isPriority() {
+        return priority;
+    }
+
+    @Override
+    public String getTitle() {
+        return (priority ? "Priority " : "Blocking ") + id;
+    }
+
+    @Override
+    public void work() {
+        if (priority) {
+            priorityDone.countDown();
+            return;
+        }
+        try {
+            if (!release.await(1, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("Work not released: " + id);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
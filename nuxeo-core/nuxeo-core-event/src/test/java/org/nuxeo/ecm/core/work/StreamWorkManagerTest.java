@@ -20,6 +20,7 @@ package org.nuxeo.ecm.core.work;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.concurrent.TimeUnit;
@@ -30,7 +31,13 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.nuxeo.ecm.core.work.api.Work;
 import org.nuxeo.ecm.core.work.api.WorkQueueMetrics;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
 
 /**
  * Adapt the tests with the limitation of the stream impl.
@@ -144,6 +151,71 @@ public class StreamWorkManagerTest extends AbstractWorkManagerTest {
         tracker.assertDiff(0, 0, 6, 0);
     }
 
+    @Test
+    @Deploy("org.nuxeo.runtime.jtajca")
+    public void testWorksCoalescedAfterCommit() throws InterruptedException {
+        Counter coalesced = SharedMetricRegistries.getOrCreate(MetricsService.class.getName())
+                                                  .counter(MetricRegistry.name("nuxeo", "works", "total", QUEUE,
+                                                          "coalesced"));
+        long initialCoalesced = coalesced.getCount();
+        SleepWork work1 = new SleepWork(getDurationMillis());
+        SleepWork work2 = new SleepWork(getDurationMillis());
+        TransactionHelper.startTransaction();
+        try {
+            service.schedule(work1, true);
+            service.schedule(work2, true);
+            service.schedule(work1, true);
+            service.schedule(work1, true);
+            // nothing is appended before commit
+            tracker.assertDiff(0, 0, 0, 0);
+        } finally {
+            TransactionHelper.commitOrRollbackTransaction();
+        }
+        assertTrue(service.awaitCompletion(getDurationMillis() * 5, TimeUnit.MILLISECONDS));
+        // duplicates are not appended
+        tracker.assertDiff(0, 0, 2, 0);
+        assertEquals(initialCoalesced + 2, coalesced.getCount());
+    }
+
+    @Test
+    @Deploy("org.nuxeo.ecm.core.event:test-stream-workmanager-priority-lane.xml")
+    public void testPriorityLane() throws InterruptedException {
+        BlockingWork.reset(1);
+        try {
+            // fill the queue with a backlog of 2 blocked works per thread
+            for (int i = 0; i < 4; i++) {
+                service.schedule(new BlockingWork(false));
+            }
+            service.schedule(new BlockingWork(true));
+
+            // the priority work doesn't wait behind the blocked backlog
+            assertTrue(BlockingWork.awaitPriorityDone(getDurationMillis() * 10, TimeUnit.MILLISECONDS));
+            assertTrue(service.getMetrics(QUEUE).getScheduled().longValue() > 0);
+        } finally {
+            BlockingWork.release();
+        }
+
+        assertTrue(service.awaitCompletion(getDurationMillis() * 10, TimeUnit.MILLISECONDS));
+        tracker.assertDiff(0, 0, 5, 0);
+    }
+
+    @Test
+    public void testExpiredWorkIsSkipped() throws InterruptedException {
+        Counter expired = SharedMetricRegistries.getOrCreate(MetricsService.class.getName())
+                                                .counter(MetricRegistry.name("nuxeo", "works", QUEUE, "expired"));
+        long initialExpired = expired.getCount();
+        SleepWork work = new SleepWork(getDurationMillis() * 100);
+        work.setDeadline(System.currentTimeMillis() - 1);
+        service.schedule(work);
+
+        // the long work is not executed
+        assertTrue(service.awaitCompletion(getDurationMillis(), TimeUnit.MILLISECONDS));
+        tracker.assertDiff(0, 0, 1, 0);
+        assertEquals(initialExpired + 1, expired.getCount());
+        // the skipped work is not left in the scheduled state
+        assertNull(service.getWorkState(work.getId()));
+    }
+
     @Override
     @Ignore
     @Test
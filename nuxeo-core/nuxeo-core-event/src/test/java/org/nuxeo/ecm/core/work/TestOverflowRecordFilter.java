@@ -0,0 +1,90 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.work;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.nuxeo.ecm.core.work.BaseOverflowRecordFilter.THRESHOLD_SIZE_OPTION;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.nuxeo.lib.stream.computation.Record;
+import org.nuxeo.lib.stream.computation.Watermark;
+
+/**
+ * @since 11.1
+ */
+public class TestOverflowRecordFilter {
+
+    protected static class MapOverflowRecordFilter extends BaseOverflowRecordFilter {
+
+        protected final Map<String, byte[]> store = new HashMap<>();
+
+        @Override
+        protected void storeValue(String key, byte[] data) {
+            store.put(getPrefixedKey(key), data);
+        }
+
+        @Override
+        protected byte[] fetchValue(String key) {
+            return store.get(getPrefixedKey(key));
+        }
+    }
+
+    @Test
+    public void testClaimCheck() {
+        MapOverflowRecordFilter filter = new MapOverflowRecordFilter();
+        filter.init(Collections.singletonMap(THRESHOLD_SIZE_OPTION, "100"));
+
+        Record small = Record.of("key", new byte[100]);
+        assertSame(small, filter.beforeAppend(small));
+        assertTrue(filter.store.isEmpty());
+
+        // records with the same key and watermark don't share the stored value
+        long watermark = Watermark.ofNow().getValue();
+        byte[] value1 = new byte[1000];
+        byte[] value2 = new byte[1000];
+        value2[0] = 1;
+        Record big1 = new Record("key", value1, watermark, EnumSet.of(Record.Flag.DEFAULT));
+        Record big2 = new Record("key", value2, watermark, EnumSet.of(Record.Flag.DEFAULT));
+        Record appended1 = filter.beforeAppend(big1);
+        Record appended2 = filter.beforeAppend(big2);
+        assertEquals(2, filter.store.size());
+
+        // only a compact reference is kept in the record
+        assertTrue(appended1.getFlags().contains(Record.Flag.EXTERNAL_VALUE));
+        assertTrue(appended1.getData().length < 100);
+        assertNotEquals(new String(appended1.getData()), new String(appended2.getData()));
+
+        Record read1 = filter.afterRead(appended1, null);
+        Record read2 = filter.afterRead(appended2, null);
+        assertFalse(read1.getFlags().contains(Record.Flag.EXTERNAL_VALUE));
+        assertArrayEquals(value1, read1.getData());
+        assertArrayEquals(value2, read2.getData());
+    }
+
+}
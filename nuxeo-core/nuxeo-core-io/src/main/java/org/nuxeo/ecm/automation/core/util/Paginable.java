@@ -129,4 +129,14 @@ public interface Paginable<T> extends List<T> {
      */
     long getResultsCountLimit();
 
+    /**
+     * Returns the keyset to use to fetch the next page with keyset pagination, or {@code null} if keyset pagination is
+     * not used or there is no next page.
+     *
+     * @since 11.1
+     */
+    default String getNextPageKeyset() {
+        return null;
+    }
+
 }
@@ -19,6 +19,9 @@
 package org.nuxeo.ecm.core.io.download;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -44,6 +47,13 @@ public class DownloadHelper {
     // jetty (with CamelCase "Eof")
     private static final String EOF_EXCEPTION = "EofException";
 
+    /**
+     * Maximum number of ranges accepted in a multiple byte ranges request.
+     *
+     * @since 11.1
+     */
+    public static final int MAX_RANGES = 16;
+
     // utility class
     private DownloadHelper() {
     }
@@ -56,17 +66,70 @@ public class DownloadHelper {
      * @return the byte range, or {@code null} if it couldn't be parsed.
      */
     public static ByteRange parseRange(String range, long length) {
-        try {
-            // TODO does no support multiple ranges
-            if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return null;
+        }
+        return parseRangeSpec(range.substring(6), length);
+    }
+
+    /**
+     * Parses a possibly multiple byte range.
+     * <p>
+     * Overlapping, repeated or adjacent ranges are coalesced (RFC 7233 section 6.1), so the returned ranges are
+     * disjoint and sorted by start. A single range is returned if they all coalesce into one.
+     *
+     * @param range the byte range as a string
+     * @param length the file length
+     * @return the byte ranges, or {@code null} if they couldn't be parsed or if there are more than
+     *         {@link #MAX_RANGES} of them
+     * @since 11.1
+     */
+    public static List<ByteRange> parseRanges(String range, long length) {
+        if (!range.startsWith("bytes=")) {
+            return null;
+        }
+        String[] specs = range.substring(6).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+        List<ByteRange> byteRanges = new ArrayList<>(specs.length);
+        for (String spec : specs) {
+            ByteRange byteRange = parseRangeSpec(spec, length);
+            if (byteRange == null) {
                 return null;
             }
-            int i = range.indexOf('-', 6);
+            byteRanges.add(byteRange);
+        }
+        return coalesce(byteRanges);
+    }
+
+    protected static List<ByteRange> coalesce(List<ByteRange> byteRanges) {
+        byteRanges.sort(Comparator.comparingLong(ByteRange::getStart));
+        List<ByteRange> coalesced = new ArrayList<>(byteRanges.size());
+        ByteRange current = null;
+        for (ByteRange byteRange : byteRanges) {
+            if (current == null) {
+                current = byteRange;
+            } else if (byteRange.getStart() <= current.getEnd() + 1) {
+                // overlapping or adjacent
+                current = new ByteRange(current.getStart(), Math.max(current.getEnd(), byteRange.getEnd()));
+            } else {
+                coalesced.add(current);
+                current = byteRange;
+            }
+        }
+        coalesced.add(current);
+        return coalesced;
+    }
+
+    protected static ByteRange parseRangeSpec(String spec, long length) {
+        try {
+            int i = spec.indexOf('-');
             if (i < 0) {
                 return null;
             }
-            String start = range.substring(6, i).trim();
-            String end = range.substring(i + 1).trim();
+            String start = spec.substring(0, i).trim();
+            String end = spec.substring(i + 1).trim();
             long rangeStart = 0;
             long rangeEnd = length - 1;
             if (start.isEmpty()) {
@@ -19,6 +19,7 @@
  */
 package org.nuxeo.ecm.core.io.download;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -27,6 +28,12 @@ import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -79,10 +86,15 @@ import org.nuxeo.ecm.core.io.NginxConstants;
 import org.nuxeo.ecm.core.transientstore.api.TransientStore;
 import org.nuxeo.ecm.core.transientstore.api.TransientStoreService;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.model.ComponentContext;
 import org.nuxeo.runtime.model.DefaultComponent;
 import org.nuxeo.runtime.transaction.TransactionHelper;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
 /**
  * This service allows the download of blobs to a HTTP response.
  *
@@ -116,6 +128,14 @@ public class DownloadServiceImpl extends DefaultComponent implements DownloadSer
 
     protected RedirectResolver redirectResolver;
 
+    // @since 11.1
+    protected final Meter downloadedBytes;
+
+    public DownloadServiceImpl() {
+        MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        downloadedBytes = registry.meter(MetricRegistry.name("nuxeo", "download", "bytes"));
+    }
+
     @Override
     public void start(ComponentContext context) {
         super.start(context);
@@ -603,7 +623,16 @@ public class DownloadServiceImpl extends DefaultComponent implements DownloadSer
             if (StringUtils.isBlank(range)) {
                 byteRange = null;
             } else {
-                byteRange = DownloadHelper.parseRange(range, length);
+                List<ByteRange> byteRanges = DownloadHelper.parseRanges(range, length);
+                if (byteRanges != null && byteRanges.size() > 1 && context.getBlobTransferer() == null) {
+                    // multiple byte ranges need our own transfer as a multipart response
+                    if (byteRanges.get(0).getStart() == 0) {
+                        logDownload(doc, xpath, filename, reason, extendedInfos);
+                    }
+                    transferBlobWithByteRanges(blob, byteRanges, response);
+                    return;
+                }
+                byteRange = byteRanges == null || byteRanges.size() > 1 ? null : byteRanges.get(0);
                 if (byteRange == null) {
                     log.error("Invalid byte range received: {}", range);
                 } else {
@@ -667,21 +696,105 @@ public class DownloadServiceImpl extends DefaultComponent implements DownloadSer
 
     @Override
     public void transferBlobWithByteRange(Blob blob, ByteRange byteRange, Supplier<OutputStream> outputStreamSupplier) {
-        try (InputStream in = blob.getStream()) {
+        try {
             @SuppressWarnings("resource")
             OutputStream out = outputStreamSupplier.get(); // not ours to close
             BufferingServletOutputStream.stopBuffering(out);
-            if (byteRange == null) {
-                IOUtils.copy(in, out);
-            } else {
-                IOUtils.copyLarge(in, out, byteRange.getStart(), byteRange.getLength());
-            }
+            transfer(blob, byteRange, out);
             out.flush();
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
+    /**
+     * Sends several byte ranges of a blob as a {@code multipart/byteranges} response, per RFC7233 4.1.
+     *
+     * @since 11.1
+     */
+    protected void transferBlobWithByteRanges(Blob blob, List<ByteRange> byteRanges, HttpServletResponse response)
+            throws IOException {
+        long length = blob.getLength();
+        String boundary = UUID.randomUUID().toString();
+        String partContentType = response.getContentType();
+        List<byte[]> partHeaders = new ArrayList<>(byteRanges.size());
+        long contentLength = 0;
+        for (ByteRange byteRange : byteRanges) {
+            String partHeader = "\r\n--" + boundary + "\r\n" //
+                    + (partContentType == null ? "" : "Content-Type: " + partContentType + "\r\n") //
+                    + "Content-Range: bytes " + byteRange.getStart() + "-" + byteRange.getEnd() + "/" + length
+                    + "\r\n\r\n";
+            byte[] bytes = partHeader.getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(bytes);
+            contentLength += bytes.length + byteRange.getLength();
+        }
+        byte[] end = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += end.length;
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        @SuppressWarnings("resource")
+        OutputStream out = response.getOutputStream(); // not ours to close
+        BufferingServletOutputStream.stopBuffering(out);
+        for (int i = 0; i < byteRanges.size(); i++) {
+            out.write(partHeaders.get(i));
+            transfer(blob, byteRanges.get(i), out);
+        }
+        out.write(end);
+        out.flush();
+        response.flushBuffer();
+    }
+
+    /**
+     * Writes a blob, or a byte range of it, to an output stream.
+     * <p>
+     * Blobs backed by a file are sent from a {@link FileChannel} using {@link FileChannel#transferTo}, without copying
+     * the bytes through the Java heap when the output stream is itself a channel, and reading only the requested
+     * range. Other blobs are streamed.
+     *
+     * @return the number of bytes written
+     * @since 11.1
+     */
+    protected long transfer(Blob blob, ByteRange byteRange, OutputStream out) throws IOException {
+        long count;
+        File file = blob.getFile();
+        if (file != null) {
+            count = transferFile(file, byteRange, out);
+        } else {
+            try (InputStream in = blob.getStream()) {
+                if (byteRange == null) {
+                    count = IOUtils.copyLarge(in, out);
+                } else {
+                    count = IOUtils.copyLarge(in, out, byteRange.getStart(), byteRange.getLength());
+                }
+            }
+        }
+        downloadedBytes.mark(count);
+        return count;
+    }
+
+    protected long transferFile(File file, ByteRange byteRange, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long position = byteRange == null ? 0 : byteRange.getStart();
+            long count = byteRange == null ? channel.size() : byteRange.getLength();
+            @SuppressWarnings("resource")
+            WritableByteChannel target = out instanceof WritableByteChannel ? (WritableByteChannel) out
+                    : Channels.newChannel(out); // not ours to close
+            long remaining = count;
+            while (remaining > 0) {
+                long n = channel.transferTo(position, remaining, target);
+                if (n <= 0) {
+                    // end of file reached
+                    break;
+                }
+                position += n;
+                remaining -= n;
+            }
+            return count - remaining;
+        }
+    }
+
     protected String fixXPath(String xpath) {
         // Hack for Flash Url wich doesn't support ':' char
         return xpath == null ? null : xpath.replace(';', ':');
@@ -145,6 +145,10 @@ public abstract class DefaultListJsonWriter<EntityType> extends AbstractJsonWrit
             jg.writeNumberField("numberOfPages", paginable.getNumberOfPages());
             jg.writeBooleanField("isPreviousPageAvailable", paginable.isPreviousPageAvailable());
             jg.writeBooleanField("isNextPageAvailable", paginable.isNextPageAvailable());
+            String nextPageKeyset = paginable.getNextPageKeyset();
+            if (nextPageKeyset != null) {
+                jg.writeStringField("nextPageKeyset", nextPageKeyset);
+            }
             jg.writeBooleanField("isLastPageAvailable", paginable.isLastPageAvailable());
             jg.writeBooleanField("isSortable", paginable.isSortable());
             jg.writeBooleanField("hasError", paginable.hasError());
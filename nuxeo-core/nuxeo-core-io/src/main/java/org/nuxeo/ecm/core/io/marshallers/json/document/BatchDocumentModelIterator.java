@@ -0,0 +1,158 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.io.marshallers.json.document;
+
+import static java.util.stream.Collectors.joining;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentModelIterator;
+import org.nuxeo.ecm.core.api.IterableQueryResult;
+import org.nuxeo.ecm.core.api.ScrollResult;
+import org.nuxeo.ecm.core.query.sql.NXQL;
+
+/**
+ * A {@link DocumentModelIterator} over the documents of a query result or of a scroll, loading them lazily by batches.
+ * <p>
+ * Each batch is loaded with a single query on the document ids instead of one fetch per document, and only the current
+ * batch is kept in memory. The order of the ids is kept, and the documents that can't be read are skipped. The
+ * documents hold the prefetched schemas, the other schemas being only loaded if they are read, for instance when
+ * rendering the requested properties.
+ * <p>
+ * The iterator must be closed to close the query result or the scroll, in case the iteration was abandoned early.
+ *
+ * @since 11.1
+ */
+public class BatchDocumentModelIterator implements DocumentModelIterator, Closeable {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    protected final CoreSession session;
+
+    protected final Iterator<String> ids;
+
+    protected final int batchSize;
+
+    protected final IterableQueryResult queryResult;
+
+    protected final String scrollId;
+
+    protected Iterator<DocumentModel> batch = Collections.emptyIterator();
+
+    /**
+     * Iterates over the documents whose ids are in the {@value NXQL#ECM_UUID} column of a query result.
+     */
+    public BatchDocumentModelIterator(CoreSession session, IterableQueryResult queryResult, int batchSize) {
+        this.session = session;
+        this.ids = StreamSupport.stream(queryResult.spliterator(), false)
+                                .map(row -> (String) row.get(NXQL.ECM_UUID))
+                                .filter(Objects::nonNull)
+                                .iterator();
+        this.batchSize = batchSize;
+        this.queryResult = queryResult;
+        this.scrollId = null;
+    }
+
+    /**
+     * Iterates over the documents of a scroll, starting with the given scroll result.
+     */
+    public BatchDocumentModelIterator(CoreSession session, ScrollResult<String> scrollResult, int batchSize) {
+        this.session = session;
+        this.ids = Stream.iterate(scrollResult, ScrollResult::hasResults, sr -> session.scroll(sr.getScrollId()))
+                         .flatMap(sr -> sr.getResults().stream())
+                         .iterator();
+        this.batchSize = batchSize;
+        this.queryResult = null;
+        this.scrollId = scrollResult.getScrollId();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!batch.hasNext()) {
+            if (!ids.hasNext()) {
+                return false;
+            }
+            batch = loadBatch().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public DocumentModel next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return batch.next();
+    }
+
+    protected List<DocumentModel> loadBatch() {
+        List<String> batchIds = new ArrayList<>(batchSize);
+        while (ids.hasNext() && batchIds.size() < batchSize) {
+            batchIds.add(ids.next());
+        }
+        String query = "SELECT * FROM Document WHERE " + NXQL.ECM_UUID + " IN ("
+                + batchIds.stream().map(NXQL::escapeString).collect(joining(", ")) + ")";
+        Map<String, DocumentModel> docs = new HashMap<>();
+        for (DocumentModel doc : session.query(query)) {
+            docs.put(doc.getId(), doc);
+        }
+        List<DocumentModel> list = new ArrayList<>(docs.size());
+        for (String id : batchIds) {
+            DocumentModel doc = docs.get(id);
+            if (doc != null) {
+                list.add(doc);
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public Iterator<DocumentModel> iterator() {
+        return this;
+    }
+
+    @Override
+    public long size() {
+        return UNKNOWN_SIZE;
+    }
+
+    @Override
+    public void close() {
+        if (queryResult != null) {
+            queryResult.close();
+        }
+        if (scrollId != null) {
+            // no-op if the scroll is finished
+            session.closeScroll(scrollId);
+        }
+    }
+
+}
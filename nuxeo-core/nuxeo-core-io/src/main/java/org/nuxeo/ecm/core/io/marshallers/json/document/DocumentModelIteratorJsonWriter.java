@@ -0,0 +1,86 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.io.marshallers.json.document;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON_TYPE;
+import static org.nuxeo.ecm.core.io.marshallers.json.document.DocumentModelListJsonWriter.ENTITY_DOCUMENT_LIST;
+import static org.nuxeo.ecm.core.io.registry.MarshallingConstants.ENTITY_FIELD_NAME;
+import static org.nuxeo.ecm.core.io.registry.reflect.Instantiations.SINGLETON;
+import static org.nuxeo.ecm.core.io.registry.reflect.Priorities.REFERENCE;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentModelIterator;
+import org.nuxeo.ecm.core.io.marshallers.json.AbstractJsonWriter;
+import org.nuxeo.ecm.core.io.marshallers.json.OutputStreamWithJsonWriter;
+import org.nuxeo.ecm.core.io.registry.Writer;
+import org.nuxeo.ecm.core.io.registry.context.RenderingContext;
+import org.nuxeo.ecm.core.io.registry.reflect.Setup;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Convert a {@link DocumentModelIterator} to Json, using the {@link DocumentModelListJsonWriter} format without
+ * pagination information.
+ * <p>
+ * Documents are written as they are pulled from the iterator and the output is flushed regularly, so that large results
+ * are streamed to the client without being held in memory. Use a {@link BatchDocumentModelIterator} to load the
+ * documents of a query result or of a scroll lazily. The iterator is closed after writing if it is {@link Closeable}.
+ * </p>
+ *
+ * @since 11.1
+ */
+@Setup(mode = SINGLETON, priority = REFERENCE)
+public class DocumentModelIteratorJsonWriter extends AbstractJsonWriter<DocumentModelIterator> {
+
+    /**
+     * Number of documents written between two flushes of the output.
+     */
+    public static final int FLUSH_INTERVAL = 100;
+
+    @Override
+    public void write(DocumentModelIterator docs, JsonGenerator jg) throws IOException {
+        try {
+            jg.writeStartObject();
+            ctx.setParameterValues(RenderingContext.RESPONSE_HEADER_ENTITY_TYPE_KEY, ENTITY_DOCUMENT_LIST);
+            jg.writeStringField(ENTITY_FIELD_NAME, ENTITY_DOCUMENT_LIST);
+            // resolve the document writer once for all the entries
+            Writer<DocumentModel> documentWriter = registry.getWriter(ctx, DocumentModel.class, APPLICATION_JSON_TYPE);
+            OutputStreamWithJsonWriter out = new OutputStreamWithJsonWriter(jg);
+            jg.writeArrayFieldStart("entries");
+            int count = 0;
+            while (docs.hasNext()) {
+                DocumentModel doc = docs.next();
+                documentWriter.write(doc, DocumentModel.class, DocumentModel.class, APPLICATION_JSON_TYPE, out);
+                if (++count % FLUSH_INTERVAL == 0) {
+                    jg.flush();
+                }
+            }
+            jg.writeEndArray();
+            jg.writeEndObject();
+        } finally {
+            if (docs instanceof Closeable) {
+                ((Closeable) docs).close();
+            }
+        }
+    }
+
+}
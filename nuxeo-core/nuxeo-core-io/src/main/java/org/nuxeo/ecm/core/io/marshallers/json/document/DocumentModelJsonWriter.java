@@ -207,7 +207,6 @@ public class DocumentModelJsonWriter extends ExtensibleEntityJsonWriter<Document
 
         jg.writeArrayFieldStart("schemas");
         if (docSchemas.length > 0) {
-            SchemaManager schemaManager = Framework.getService(SchemaManager.class);
             for (String schemaName : docSchemas) {
                 Schema schema = schemaManager.getSchema(schemaName);
                 if (schema != null) {
@@ -78,6 +78,14 @@ public interface PageProvider<T> extends Serializable {
      */
     String SKIP_AGGREGATES_PROP = "skipAggregates";
 
+    /**
+     * Keyset to use to fetch the first page with keyset pagination.
+     *
+     * @see #setCurrentPageKeyset
+     * @since 11.1
+     */
+    String KEYSET_FIRST_PAGE = "*";
+
     /**
      * Returns the provider identifier
      */
@@ -473,4 +481,51 @@ public interface PageProvider<T> extends Serializable {
      * @since 9.3
      */
     long getResultsCountLimit();
+
+    /**
+     * Sets the keyset of the page to fetch, as returned by {@link #getNextPageKeyset()} for the previous page, or
+     * {@link #KEYSET_FIRST_PAGE} for the first page.
+     * <p>
+     * With keyset pagination, a page is fetched by filtering on the sort keys of the last entry of the previous page
+     * instead of skipping the entries of the previous pages, so that deep pages are as cheap as the first one. It
+     * requires sorting on non-null indexed properties, a sort on the document id is added to make sort keys unique.
+     * The total results count is not computed.
+     *
+     * @param keyset the keyset, or {@code null} to use offset pagination
+     * @throws UnsupportedOperationException if the page provider does not support keyset pagination
+     * @since 11.1
+     */
+    default void setCurrentPageKeyset(String keyset) {
+        if (keyset != null) {
+            throw new UnsupportedOperationException("Keyset pagination not supported by: " + getName());
+        }
+    }
+
+    /**
+     * Gets the keyset of the current page, or {@code null} if offset pagination is used.
+     *
+     * @since 11.1
+     */
+    default String getCurrentPageKeyset() {
+        return null;
+    }
+
+    /**
+     * Gets the keyset of the page following the current one, or {@code null} if there is no next page or if keyset
+     * pagination is not used.
+     *
+     * @since 11.1
+     */
+    default String getNextPageKeyset() {
+        return null;
+    }
+
+    /**
+     * Whether this page provider supports keyset pagination, see {@link #setCurrentPageKeyset}.
+     *
+     * @since 11.1
+     */
+    default boolean isKeysetPaginationSupported() {
+        return false;
+    }
 }
@@ -18,6 +18,9 @@
  */
 package org.nuxeo.ecm.core.redis.contribs;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.nuxeo.ecm.core.storage.dbs.DBSInvalidations;
 
 /**
@@ -33,6 +36,8 @@ public class RedisDBSInvalidations {
 
     private static final String ALL_DOCUMENTS = "ALL";
 
+    private static final String PARENT_PREFIX = "+";
+
     private String nodeId;
 
     private DBSInvalidations invalidations;
@@ -63,7 +68,11 @@ public class RedisDBSInvalidations {
         }
         DBSInvalidations invals = new DBSInvalidations();
         for (String id : invalsStr.split(ID_SEPARATOR)) {
-            invals.add(id);
+            if (id.startsWith(PARENT_PREFIX)) {
+                invals.addParent(id.substring(PARENT_PREFIX.length()));
+            } else {
+                invals.add(id);
+            }
         }
         return invals;
     }
@@ -75,6 +84,7 @@ public class RedisDBSInvalidations {
     public String serialize() {
         // message:
         // - nodeId:id1/id2/...
+        // - nodeId:id1/+parentId1/... (parents having a child created, moved or renamed)
         // - nodeId:ALL
         return nodeId + MESSAGE_SEPARATOR + serializeInvalidations(invalidations);
     }
@@ -83,7 +93,14 @@ public class RedisDBSInvalidations {
         if (invals.all) {
             return ALL_DOCUMENTS;
         }
-        return String.join(ID_SEPARATOR, invals.ids);
+        List<String> parts = new ArrayList<>();
+        if (invals.ids != null) {
+            parts.addAll(invals.ids);
+        }
+        if (invals.parentIds != null) {
+            invals.parentIds.forEach(parentId -> parts.add(PARENT_PREFIX + parentId));
+        }
+        return String.join(ID_SEPARATOR, parts);
     }
 
     @Override
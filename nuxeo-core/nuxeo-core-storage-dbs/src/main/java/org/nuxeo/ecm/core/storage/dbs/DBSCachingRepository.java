@@ -24,13 +24,17 @@ import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_PARENT_ID;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.commons.logging.Log;
@@ -47,6 +51,7 @@ import org.nuxeo.ecm.core.query.sql.model.OrderByClause;
 import org.nuxeo.ecm.core.storage.State;
 import org.nuxeo.ecm.core.storage.State.StateDiff;
 import org.nuxeo.ecm.core.storage.dbs.DBSTransactionState.ChangeTokenUpdater;
+import org.nuxeo.ecm.core.storage.dbs.DBSTransactionState.StateUpdate;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.cluster.ClusterService;
 import org.nuxeo.runtime.metrics.MetricsService;
@@ -73,6 +78,22 @@ public class DBSCachingRepository implements DBSRepository {
 
     private final Cache<String, String> childCache;
 
+    /**
+     * Child keys (see {@link #computeChildCacheKey}) known to have no child.
+     *
+     * @since 11.1
+     */
+    private final Cache<String, Boolean> negativeChildCache;
+
+    /**
+     * Incremented on each invalidation of {@link #negativeChildCache}, to avoid caching a negative lookup done
+     * concurrently with a child creation.
+     */
+    private final AtomicLong negativeChildGeneration = new AtomicLong();
+
+    /** Child keys of the children created, moved or renamed in the current transactions. */
+    private final Set<String> negativeChildInvalidations = new HashSet<>();
+
     private DBSClusterInvalidator clusterInvalidator;
 
     private final DBSInvalidations invalidations;
@@ -87,6 +108,9 @@ public class DBSCachingRepository implements DBSRepository {
         childCache = newCache(descriptor);
         registry.registerAll(
                 GuavaCacheMetric.of(childCache, "nuxeo", "repositories", repository.getName(), "childCache"));
+        negativeChildCache = newCache(descriptor);
+        registry.registerAll(GuavaCacheMetric.of(negativeChildCache, "nuxeo", "repositories", repository.getName(),
+                "negativeChildCache"));
         if (log.isInfoEnabled()) {
             log.info(String.format("DBS cache activated on '%s' repository", repository.getName()));
         }
@@ -152,10 +176,14 @@ public class DBSCachingRepository implements DBSRepository {
         // Clear caches
         cache.invalidateAll();
         childCache.invalidateAll();
+        negativeChildCache.invalidateAll();
         // Remove metrics
         String cacheName = MetricRegistry.name("nuxeo", "repositories", repository.getName(), "cache");
         String childCacheName = MetricRegistry.name("nuxeo", "repositories", repository.getName(), "childCache");
-        registry.removeMatching((name, metric) -> name.startsWith(cacheName) || name.startsWith(childCacheName));
+        String negativeChildCacheName = MetricRegistry.name("nuxeo", "repositories", repository.getName(),
+                "negativeChildCache");
+        registry.removeMatching((name, metric) -> name.startsWith(cacheName) || name.startsWith(childCacheName)
+                || name.startsWith(negativeChildCacheName));
         if (log.isInfoEnabled()) {
             log.info(String.format("DBS cache deactivated on '%s' repository", repository.getName()));
         }
@@ -204,18 +232,44 @@ public class DBSCachingRepository implements DBSRepository {
     public void createState(State state) {
         repository.createState(state);
         // don't cache new state, it is inefficient on mass import
+        invalidateNegativeChild(state.get(KEY_PARENT_ID), state.get(KEY_NAME));
     }
 
     @Override
     public void createStates(List<State> states) {
         repository.createStates(states);
         // don't cache new states, it is inefficient on mass import
+        states.forEach(state -> invalidateNegativeChild(state.get(KEY_PARENT_ID), state.get(KEY_NAME)));
     }
 
     @Override
     public void updateState(String id, StateDiff diff, ChangeTokenUpdater changeTokenUpdater) {
-        repository.updateState(id, diff, changeTokenUpdater);
-        invalidate(id);
+        String childKey = getNewChildCacheKey(id, diff);
+        try {
+            repository.updateState(id, diff, changeTokenUpdater);
+        } finally {
+            // after the write, so that a concurrent lookup cannot re-cache the child as absent
+            invalidateNegativeChild(childKey);
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public void updateStates(List<StateUpdate> updates) {
+        List<String> childKeys = new ArrayList<>();
+        for (StateUpdate update : updates) {
+            String childKey = getNewChildCacheKey(update.id, update.diff);
+            if (childKey != null) {
+                childKeys.add(childKey);
+            }
+        }
+        try {
+            repository.updateStates(updates);
+        } finally {
+            // some updates may have been applied even if others failed
+            childKeys.forEach(this::invalidateNegativeChild);
+            invalidateAll(updates.stream().map(update -> update.id).collect(Collectors.toList()));
+        }
     }
 
     @Override
@@ -243,11 +297,121 @@ public class DBSCachingRepository implements DBSRepository {
                 }
             }
         }
+        if (isNegativeChild(parentId, name)) {
+            return null;
+        }
+        long generation = negativeChildGeneration.get();
         State state = repository.readChildState(parentId, name, ignored);
-        putInCache(state);
+        if (state == null) {
+            putNegativeChild(parentId, name, ignored, generation);
+        } else {
+            putInCache(state);
+        }
         return state;
     }
 
+    @Override
+    public boolean hasChild(String parentId, String name, Set<String> ignored) {
+        processReceivedInvalidations();
+
+        String stateId = childCache.getIfPresent(computeChildCacheKey(parentId, name));
+        if (stateId != null && !ignored.contains(stateId)) {
+            State state = cache.getIfPresent(stateId);
+            if (state != null && parentId.equals(state.get(KEY_PARENT_ID)) && name.equals(state.get(KEY_NAME))) {
+                return true;
+            }
+        }
+        if (isNegativeChild(parentId, name)) {
+            return false;
+        }
+        long generation = negativeChildGeneration.get();
+        boolean hasChild = repository.hasChild(parentId, name, ignored);
+        if (!hasChild) {
+            putNegativeChild(parentId, name, ignored, generation);
+        }
+        return hasChild;
+    }
+
+    private boolean isNegativeChild(String parentId, String name) {
+        return negativeChildCache.getIfPresent(computeChildCacheKey(parentId, name)) != null;
+    }
+
+    private void putNegativeChild(String parentId, String name, Set<String> ignored, long generation) {
+        if (!ignored.isEmpty()) {
+            // an ignored document may be the child
+            return;
+        }
+        String childKey = computeChildCacheKey(parentId, name);
+        negativeChildCache.put(childKey, Boolean.TRUE);
+        if (negativeChildGeneration.get() != generation) {
+            // a child may have been created concurrently
+            negativeChildCache.invalidate(childKey);
+        }
+    }
+
+    private void invalidateNegativeChild(Object parentId, Object name) {
+        if (parentId == null || name == null) {
+            // version or proxy without parent
+            return;
+        }
+        invalidateNegativeChild(computeChildCacheKey(parentId.toString(), name.toString()));
+        if (clusterInvalidator != null) {
+            synchronized (invalidations) {
+                invalidations.addParent(parentId.toString());
+            }
+        }
+    }
+
+    private void invalidateNegativeChild(String childKey) {
+        if (childKey == null) {
+            return;
+        }
+        negativeChildGeneration.incrementAndGet();
+        negativeChildCache.invalidate(childKey);
+        synchronized (invalidations) {
+            negativeChildInvalidations.add(childKey);
+        }
+    }
+
+    /**
+     * Gets the child key of the new location of a moved or renamed document, or {@code null} if the diff doesn't
+     * change its location. Also records its new parent for the cluster invalidations.
+     */
+    private String getNewChildCacheKey(String id, StateDiff diff) {
+        if (!diff.containsKey(KEY_PARENT_ID) && !diff.containsKey(KEY_NAME)) {
+            return null;
+        }
+        // move or rename, find the new location
+        State state = cache.getIfPresent(id);
+        if (state == null) {
+            state = repository.readPartialState(id, Arrays.asList(KEY_PARENT_ID, KEY_NAME));
+        }
+        Object parentId = diff.containsKey(KEY_PARENT_ID) ? diff.get(KEY_PARENT_ID)
+                : state == null ? null : state.get(KEY_PARENT_ID);
+        Object name = diff.containsKey(KEY_NAME) ? diff.get(KEY_NAME) : state == null ? null : state.get(KEY_NAME);
+        if (parentId == null || name == null) {
+            // version or proxy without parent
+            return null;
+        }
+        if (clusterInvalidator != null) {
+            synchronized (invalidations) {
+                invalidations.addParent(parentId.toString());
+            }
+        }
+        return computeChildCacheKey(parentId.toString(), name.toString());
+    }
+
+    /**
+     * Invalidates the negative child lookups under the given parents, received from other cluster nodes.
+     */
+    private void invalidateNegativeChildren(Set<String> parentIds) {
+        negativeChildGeneration.incrementAndGet();
+        negativeChildCache.asMap().keySet().removeIf(childKey -> {
+            int i = childKey.indexOf('_');
+            return i > 0 && parentIds.contains(childKey.substring(0, i));
+        });
+    }
+
     private void putInCache(State state) {
         if (state != null) {
             String stateId = state.get(KEY_ID).toString();
@@ -278,6 +442,12 @@ public class DBSCachingRepository implements DBSRepository {
 
     protected void sendInvalidationsToOther() {
         synchronized (invalidations) {
+            if (!negativeChildInvalidations.isEmpty()) {
+                // negative lookups by other sessions before our commit may not have seen the new children
+                negativeChildGeneration.incrementAndGet();
+                negativeChildCache.invalidateAll(negativeChildInvalidations);
+                negativeChildInvalidations.clear();
+            }
             if (!invalidations.isEmpty()) {
                 if (clusterInvalidator != null) {
                     clusterInvalidator.sendInvalidations(invalidations);
@@ -293,8 +463,15 @@ public class DBSCachingRepository implements DBSRepository {
             if (invalidations.all) {
                 cache.invalidateAll();
                 childCache.invalidateAll();
-            } else if (invalidations.ids != null) {
-                cache.invalidateAll(invalidations.ids);
+                negativeChildGeneration.incrementAndGet();
+                negativeChildCache.invalidateAll();
+            } else {
+                if (invalidations.ids != null) {
+                    cache.invalidateAll(invalidations.ids);
+                }
+                if (invalidations.parentIds != null) {
+                    invalidateNegativeChildren(invalidations.parentIds);
+                }
             }
         }
     }
@@ -334,11 +511,6 @@ public class DBSCachingRepository implements DBSRepository {
         return repository.generateNewId();
     }
 
-    @Override
-    public boolean hasChild(String parentId, String name, Set<String> ignored) {
-        return repository.hasChild(parentId, name, ignored);
-    }
-
     @Override
     public List<State> queryKeyValue(String key, Object value, Set<String> ignored) {
         return repository.queryKeyValue(key, value, ignored);
@@ -359,6 +531,11 @@ public class DBSCachingRepository implements DBSRepository {
         return repository.getDescendants(id, keys, limit);
     }
 
+    @Override
+    public List<String> getDescendantsIds(String id, String afterId, int limit) {
+        return repository.getDescendantsIds(id, afterId, limit);
+    }
+
     @Override
     public boolean queryKeyValuePresence(String key, String value, Set<String> ignored) {
         return repository.queryKeyValuePresence(key, value, ignored);
@@ -385,6 +562,11 @@ public class DBSCachingRepository implements DBSRepository {
         return repository.scroll(scrollId);
     }
 
+    @Override
+    public boolean closeScroll(String scrollId) {
+        return repository.closeScroll(scrollId);
+    }
+
     @Override
     public Lock getLock(String id) {
         return repository.getLock(id);
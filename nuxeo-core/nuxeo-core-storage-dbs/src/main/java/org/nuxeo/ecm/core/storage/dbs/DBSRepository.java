@@ -18,11 +18,16 @@
  */
 package org.nuxeo.ecm.core.storage.dbs;
 
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ID;
+
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Stream;
 
 import org.nuxeo.ecm.core.api.PartialList;
@@ -34,6 +39,7 @@ import org.nuxeo.ecm.core.query.sql.model.OrderByClause;
 import org.nuxeo.ecm.core.storage.State;
 import org.nuxeo.ecm.core.storage.State.StateDiff;
 import org.nuxeo.ecm.core.storage.dbs.DBSTransactionState.ChangeTokenUpdater;
+import org.nuxeo.ecm.core.storage.dbs.DBSTransactionState.StateUpdate;
 
 /**
  * Interface for a {@link Repository} for Document-Based Storage.
@@ -144,6 +150,20 @@ public interface DBSRepository extends Repository, LockManager {
      */
     void updateState(String id, StateDiff diff, ChangeTokenUpdater changeTokenUpdater);
 
+    /**
+     * Updates documents.
+     * <p>
+     * Change token conditions are checked per document. If some documents could not be updated because of a
+     * concurrent update, a {@link org.nuxeo.ecm.core.api.ConcurrentUpdateException ConcurrentUpdateException} is
+     * thrown; implementations may have applied the other updates of the batch before throwing it.
+     *
+     * @param updates the document updates
+     * @since 11.1
+     */
+    default void updateStates(List<StateUpdate> updates) {
+        updates.forEach(update -> updateState(update.id, update.diff, update.changeTokenUpdater));
+    }
+
     /**
      * Deletes a set of document.
      *
@@ -223,6 +243,35 @@ public interface DBSRepository extends Repository, LockManager {
         return getDescendants(id, keys);
     }
 
+    /**
+     * Returns a page of the ids of the descendants from a given root document, ordered by id. This does not include the
+     * root document itself.
+     * <p>
+     * Iterating over the pages using the last id of a page as the start of the next one returns all the descendants
+     * while holding only one page in memory, even if the descendants are updated between two pages.
+     *
+     * @param id the root document id
+     * @param afterId the returned ids are greater than this one, or {@code null} for the first page
+     * @param limit the maximum number of ids to return
+     * @return the ids of the descendants, ordered by id
+     * @since 11.1
+     */
+    default List<String> getDescendantsIds(String id, String afterId, int limit) {
+        // keep the lowest ids while scanning the descendants, override for a more efficient implementation
+        TreeSet<String> ids = new TreeSet<>();
+        try (Stream<State> states = getDescendants(id, Collections.emptySet())) {
+            states.map(state -> (String) state.get(KEY_ID))
+                  .filter(cid -> afterId == null || cid.compareTo(afterId) > 0)
+                  .forEach(cid -> {
+                      ids.add(cid);
+                      if (ids.size() > limit) {
+                          ids.pollLast();
+                      }
+                  });
+        }
+        return new ArrayList<>(ids);
+    }
+
     /**
      * Queries the repository to check if there are documents having key = value.
      *
@@ -275,6 +324,14 @@ public interface DBSRepository extends Repository, LockManager {
      */
     ScrollResult<String> scroll(String scrollId);
 
+    /**
+     * Closes a scroll before its end, releasing its resources.
+     *
+     * @return {@code true} if the scroll was closed, {@code false} if it was unknown
+     * @since 11.1
+     */
+    boolean closeScroll(String scrollId);
+
     /**
      * Called when created a transaction.
      *
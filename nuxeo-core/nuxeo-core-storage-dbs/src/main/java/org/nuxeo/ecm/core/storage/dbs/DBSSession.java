@@ -95,6 +95,7 @@ import java.util.stream.Stream;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.mutable.Mutable;
+import org.apache.commons.lang3.mutable.MutableBoolean;
 import org.apache.commons.lang3.mutable.MutableObject;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -858,6 +859,7 @@ public class DBSSession implements Session<QueryFilter> {
      * <li>proxy-target relations: if a proxy is removed, update the target's PROXY_IDS; and if a target is removed,
      * raise an error if a proxy still exists for that target.
      * </ul>
+     * Only the proxies and proxy targets of the removed tree are kept in memory, not all the removed ids.
      */
     protected void remove(String rootId, NuxeoPrincipal principal) {
         transaction.save();
@@ -871,18 +873,22 @@ public class DBSSession implements Session<QueryFilter> {
         }
 
         // find all sub-docs
-        Set<String> removedIds = new HashSet<>();
+        MutableBoolean hasDescendants = new MutableBoolean();
+        Set<String> removedProxyIds = new HashSet<>();
         Set<String> retentionActiveIds = new HashSet<>();
         Set<String> targetIds = new HashSet<>();
         Map<String, Object[]> targetProxies = new HashMap<>();
 
         Consumer<State> collector = state -> {
             String id = (String) state.get(KEY_ID);
-            removedIds.add(id);
+            if (!rootId.equals(id)) {
+                hasDescendants.setTrue();
+            }
             if (TRUE.equals(state.get(KEY_IS_RETENTION_ACTIVE))) {
                 retentionActiveIds.add(id);
             }
             if (TRUE.equals(state.get(KEY_IS_PROXY))) {
+                removedProxyIds.add(id);
                 String targetId = (String) state.get(KEY_PROXY_TARGET_ID);
                 targetIds.add(targetId);
             }
@@ -911,7 +917,7 @@ public class DBSSession implements Session<QueryFilter> {
         for (Entry<String, Object[]> en : targetProxies.entrySet()) {
             String targetId = en.getKey();
             for (Object proxyId : en.getValue()) {
-                if (!removedIds.contains(proxyId)) {
+                if (!removedProxyIds.contains(proxyId)) {
                     throw new DocumentExistsException("Cannot remove " + rootId + ", subdocument " + targetId
                             + " is the target of proxy " + proxyId);
                 }
@@ -921,7 +927,7 @@ public class DBSSession implements Session<QueryFilter> {
         // remove root doc
         transaction.removeStates(Collections.singleton(rootId));
         // Check that the ids to remove is not only the root id
-        if (removedIds.size() > 1) {
+        if (hasDescendants.isTrue()) {
             String nxql = String.format("SELECT * FROM Document, Relation WHERE ecm:ancestorId = '%s'", rootId);
             BulkCommand command = new BulkCommand.Builder(ACTION_NAME, nxql, principal.getName())
                                                  .repository(getRepositoryName())
@@ -931,13 +937,13 @@ public class DBSSession implements Session<QueryFilter> {
 
         // fix proxies back-pointers on proxy targets
         for (String targetId : targetIds) {
-            if (removedIds.contains(targetId)) {
+            if (targetProxies.containsKey(targetId)) {
                 // the target was also removed, skip
                 continue;
             }
             DBSDocumentState target = transaction.getStateForUpdate(targetId);
             if (target != null) {
-                removeBackProxyIds(target, removedIds);
+                removeBackProxyIds(target, removedProxyIds);
             }
         }
 
@@ -1809,6 +1815,11 @@ public class DBSSession implements Session<QueryFilter> {
         return repository.scroll(scrollId);
     }
 
+    @Override
+    public boolean closeScroll(String scrollId) {
+        return repository.closeScroll(scrollId);
+    }
+
     private String countUpToAsString(long countUpTo) {
         if (countUpTo > 0) {
             return String.format("count total results up to %d", countUpTo);
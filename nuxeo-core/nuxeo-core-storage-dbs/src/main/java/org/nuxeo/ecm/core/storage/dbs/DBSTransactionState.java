@@ -61,6 +61,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apache.commons.logging.Log;
@@ -85,6 +87,7 @@ import org.nuxeo.ecm.core.storage.State;
 import org.nuxeo.ecm.core.storage.State.ListDiff;
 import org.nuxeo.ecm.core.storage.State.StateDiff;
 import org.nuxeo.ecm.core.storage.StateHelper;
+import org.nuxeo.ecm.core.storage.StreamFulltextExtractor;
 import org.nuxeo.ecm.core.work.api.Work;
 import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.ecm.core.work.api.WorkManager.Scheduling;
@@ -120,6 +123,12 @@ public class DBSTransactionState {
 
     public static final String READ_ACL_ASYNC_THRESHOLD_DEFAULT = "500";
 
+    /** @since 11.1 */
+    public static final String DESCENDANTS_BATCH_SIZE_PROPERTY = "nuxeo.core.descendants.batch.size";
+
+    /** @since 11.1 */
+    public static final String DESCENDANTS_BATCH_SIZE_DEFAULT = "500";
+
     protected final DBSRepository repository;
 
     protected final DBSSession session;
@@ -148,6 +157,23 @@ public class DBSTransactionState {
      */
     protected Map<String, State> undoLog;
 
+    /**
+     * Undo actions for the descendants updated by batches, which are not recorded in the {@link #undoLog}. They are
+     * applied in reverse order after the undo log on rollback.
+     * <p>
+     * Null when there is no active transaction.
+     *
+     * @since 11.1
+     */
+    protected List<Runnable> descendantsUndoLog;
+
+    /**
+     * Ids of the descendants being saved by batch, for which no entry is recorded in the {@link #undoLog}.
+     *
+     * @since 11.1
+     */
+    protected Set<String> noUndoLogIds = Collections.emptySet();
+
     protected final Set<String> browsePermissions;
 
     public DBSTransactionState(DBSRepository repository, DBSSession session) {
@@ -412,29 +438,132 @@ public class DBSTransactionState {
      * Recursing from given doc, replace the first ndel ancestors with those passed.
      * <p>
      * Doesn't check transient (assumes save is done). The modifications are automatically saved.
+     * <p>
+     * Descendants are processed by batches, see {@link #forEachDescendantsBatch}. On rollback, their ancestors are
+     * restored from the ones of the moved document.
      */
     public void updateAncestors(String id, int ndel, Object[] ancestorIds) {
-        int nadd = ancestorIds.length;
-        Set<String> ids = new HashSet<>();
-        ids.add(id);
-        try (Stream<State> states = getDescendants(id, Collections.emptySet(), 0)) {
-            states.forEach(state -> ids.add((String) state.get(KEY_ID)));
+        DBSDocumentState docState = getStateForUpdate(id);
+        Object[] ancestors = (Object[]) docState.get(KEY_ANCESTOR_IDS);
+        Object[] newAncestors = replaceAncestors(ancestors, ndel, ancestorIds);
+        docState.put(KEY_ANCESTOR_IDS, newAncestors);
+        forEachDescendantsBatch(id, cid -> {
+            DBSDocumentState cdocState = getStateForUpdate(cid);
+            Object[] cancestors = replaceAncestorsBefore((Object[]) cdocState.get(KEY_ANCESTOR_IDS), id, newAncestors);
+            if (cancestors != null) {
+                cdocState.put(KEY_ANCESTOR_IDS, cancestors);
+            }
+        });
+        if (descendantsUndoLog != null) {
+            Object[] oldAncestors = ancestors == null ? new Object[0] : ancestors.clone();
+            descendantsUndoLog.add(() -> undoDescendantsAncestors(id, oldAncestors));
         }
-        // we collect all ids first to avoid reentrancy to the repository
-        for (String cid : ids) {
-            // XXX TODO oneShot update, don't pollute transient space
-            DBSDocumentState docState = getStateForUpdate(cid);
-            Object[] ancestors = (Object[]) docState.get(KEY_ANCESTOR_IDS);
-            Object[] newAncestors;
-            if (ancestors == null) {
-                newAncestors = ancestorIds.clone();
-            } else {
-                newAncestors = new Object[ancestors.length - ndel + nadd];
-                System.arraycopy(ancestorIds, 0, newAncestors, 0, nadd);
-                System.arraycopy(ancestors, ndel, newAncestors, nadd, ancestors.length - ndel);
+    }
+
+    /**
+     * Replaces the ancestors located before the given ancestor id. The ancestors to replace are the ones before the
+     * moved document, this way a descendant returned twice by the repository is not updated twice.
+     *
+     * @return the new ancestors, or {@code null} if the id is not an ancestor
+     * @since 11.1
+     */
+    protected static Object[] replaceAncestorsBefore(Object[] ancestors, String id, Object[] newAncestors) {
+        int ndel = ancestors == null ? -1 : Arrays.asList(ancestors).indexOf(id);
+        if (ndel < 0) {
+            return null;
+        }
+        return replaceAncestors(ancestors, ndel, newAncestors);
+    }
+
+    /**
+     * Restores the ancestors of the descendants of a moved document, writing directly to the repository.
+     *
+     * @since 11.1
+     */
+    protected void undoDescendantsAncestors(String id, Object[] oldAncestors) {
+        forEachDescendantsIds(id, ids -> {
+            List<StateUpdate> updates = new ArrayList<>(ids.size());
+            for (State state : repository.readStates(ids)) {
+                Object[] ancestors = (Object[]) state.get(KEY_ANCESTOR_IDS);
+                Object[] newAncestors = replaceAncestorsBefore(ancestors, id, oldAncestors);
+                if (newAncestors != null && !Arrays.equals(ancestors, newAncestors)) {
+                    State oldState = new State(1);
+                    oldState.put(KEY_ANCESTOR_IDS, ancestors);
+                    State newState = new State(1);
+                    newState.put(KEY_ANCESTOR_IDS, newAncestors);
+                    updates.add(new StateUpdate((String) state.get(KEY_ID), StateHelper.diff(oldState, newState),
+                            null));
+                }
+            }
+            if (!updates.isEmpty()) {
+                repository.updateStates(updates);
             }
-            docState.put(KEY_ANCESTOR_IDS, newAncestors);
+        });
+    }
+
+    protected static Object[] replaceAncestors(Object[] ancestors, int ndel, Object[] ancestorIds) {
+        if (ancestors == null) {
+            return ancestorIds.clone();
         }
+        int nadd = ancestorIds.length;
+        Object[] newAncestors = new Object[ancestors.length - ndel + nadd];
+        System.arraycopy(ancestorIds, 0, newAncestors, 0, nadd);
+        System.arraycopy(ancestors, ndel, newAncestors, nadd, ancestors.length - ndel);
+        return newAncestors;
+    }
+
+    protected int getDescendantsBatchSize() {
+        return Integer.parseInt(Framework.getProperty(DESCENDANTS_BATCH_SIZE_PROPERTY, DESCENDANTS_BATCH_SIZE_DEFAULT));
+    }
+
+    /**
+     * Processes the descendants of a document by batches of ids, so that the number of states in memory doesn't depend
+     * on the size of the tree.
+     * <p>
+     * The states of each batch are fetched in one call and put in the transient space before being passed one by one to
+     * the consumer. The batch is then saved, and the states fetched for it are removed from the transient space. These
+     * states are not recorded in the undo log, the caller must register a {@link #descendantsUndoLog} action instead.
+     *
+     * @since 11.1
+     */
+    protected void forEachDescendantsBatch(String id, Consumer<String> consumer) {
+        forEachDescendantsIds(id, ids -> processDescendantsBatch(ids, consumer));
+    }
+
+    /**
+     * Passes the ids of the descendants of a document to the consumer by batches.
+     * <p>
+     * The ids are read one page at a time, ordered by id and starting after the last id of the previous page, so that
+     * only one batch of ids is in memory and the consumer can write to the repository between two pages.
+     *
+     * @since 11.1
+     */
+    protected void forEachDescendantsIds(String id, Consumer<List<String>> consumer) {
+        int batchSize = getDescendantsBatchSize();
+        String afterId = null;
+        List<String> ids;
+        do {
+            ids = repository.getDescendantsIds(id, afterId, batchSize);
+            if (!ids.isEmpty()) {
+                consumer.accept(ids);
+                afterId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == batchSize);
+    }
+
+    protected void processDescendantsBatch(List<String> ids, Consumer<String> consumer) {
+        // states already transient may be referenced by documents, they must stay
+        List<String> fetchedIds = ids.stream().filter(cid -> !transientStates.containsKey(cid)).collect(
+                Collectors.toList());
+        getStatesForUpdate(fetchedIds);
+        ids.forEach(consumer);
+        noUndoLogIds = new HashSet<>(fetchedIds);
+        try {
+            save();
+        } finally {
+            noUndoLogIds = Collections.emptySet();
+        }
+        fetchedIds.forEach(transientStates::remove);
     }
 
     protected int getReadAclsAsyncThreshold() {
@@ -461,11 +590,20 @@ public class DBSTransactionState {
 
         // check if we have a small enough number of descendants that we can process them synchronously
         int limit = getReadAclsAsyncThreshold();
+        if (limit == 0) {
+            // update all descendants synchronously, by batches
+            forEachDescendantsBatch(id, this::updateDocumentReadAcls);
+            if (descendantsUndoLog != null) {
+                // recompute them on rollback, once the ACLs of the document and its ancestors are restored
+                descendantsUndoLog.add(() -> forEachDescendantsIds(id, this::updateReadACLs));
+            }
+            return;
+        }
         Set<String> ids = new HashSet<>();
         try (Stream<State> states = getDescendants(id, Collections.emptySet(), limit)) {
             states.forEach(state -> ids.add((String) state.get(KEY_ID)));
         }
-        if (limit == 0 || ids.size() < limit) {
+        if (ids.size() < limit) {
             // update all descendants synchronously
             ids.forEach(this::updateDocumentReadAcls);
         } else {
@@ -746,6 +884,8 @@ public class DBSTransactionState {
         if (!statesToCreate.isEmpty()) {
             repository.createStates(statesToCreate);
         }
+        List<StateUpdate> statesToUpdate = new ArrayList<>();
+        List<DBSDocumentState> docStatesToUpdate = new ArrayList<>();
         for (DBSDocumentState docState : transientStates.values()) {
             String id = docState.getId();
             if (transientCreated.contains(id)) {
@@ -753,32 +893,36 @@ public class DBSTransactionState {
             }
             StateDiff diff = docState.getStateChange();
             if (diff != null) {
-                try {
-                    if (undoLog != null) {
-                        if (!undoLog.containsKey(id)) {
-                            undoLog.put(id, StateHelper.deepCopy(docState.getOriginalState()));
-                        }
-                        // else there's already a create or an update in the undo log so original info is enough
+                if (undoLog != null && !noUndoLogIds.contains(id)) {
+                    if (!undoLog.containsKey(id)) {
+                        undoLog.put(id, StateHelper.deepCopy(docState.getOriginalState()));
                     }
-                    ChangeTokenUpdater changeTokenUpdater;
-                    if (session.changeTokenEnabled) {
-                        // increment system change token
-                        Long base = (Long) docState.get(KEY_SYS_CHANGE_TOKEN);
-                        docState.put(KEY_SYS_CHANGE_TOKEN, DeltaLong.valueOf(base, 1));
-                        diff.put(KEY_SYS_CHANGE_TOKEN, DeltaLong.valueOf(base, 1));
-                        // update change token if applicable (user change)
-                        if (userChangeIds.contains(id)) {
-                            changeTokenUpdater = new ChangeTokenUpdater(docState);
-                        } else {
-                            changeTokenUpdater = null;
-                        }
+                    // else there's already a create or an update in the undo log so original info is enough
+                }
+                ChangeTokenUpdater changeTokenUpdater;
+                if (session.changeTokenEnabled) {
+                    // increment system change token
+                    Long base = (Long) docState.get(KEY_SYS_CHANGE_TOKEN);
+                    docState.put(KEY_SYS_CHANGE_TOKEN, DeltaLong.valueOf(base, 1));
+                    diff.put(KEY_SYS_CHANGE_TOKEN, DeltaLong.valueOf(base, 1));
+                    // update change token if applicable (user change)
+                    if (userChangeIds.contains(id)) {
+                        changeTokenUpdater = new ChangeTokenUpdater(docState);
                     } else {
                         changeTokenUpdater = null;
                     }
-                    repository.updateState(id, diff, changeTokenUpdater);
-                } finally {
-                    docState.setNotDirty();
+                } else {
+                    changeTokenUpdater = null;
                 }
+                statesToUpdate.add(new StateUpdate(id, diff, changeTokenUpdater));
+                docStatesToUpdate.add(docState);
+            }
+        }
+        if (!statesToUpdate.isEmpty()) {
+            try {
+                repository.updateStates(statesToUpdate);
+            } finally {
+                docStatesToUpdate.forEach(DBSDocumentState::setNotDirty);
             }
         }
         transientCreated.clear();
@@ -830,6 +974,32 @@ public class DBSTransactionState {
         }
     }
 
+    /**
+     * A document update to be written to the repository: the id of the document, the diff to apply, and the change
+     * token logic to use (may be {@code null}).
+     *
+     * @since 11.1
+     */
+    public static class StateUpdate {
+
+        public final String id;
+
+        public final StateDiff diff;
+
+        public final ChangeTokenUpdater changeTokenUpdater;
+
+        public StateUpdate(String id, StateDiff diff, ChangeTokenUpdater changeTokenUpdater) {
+            this.id = id;
+            this.diff = diff;
+            this.changeTokenUpdater = changeTokenUpdater;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + '(' + id + ',' + diff + ')';
+        }
+    }
+
     protected void applyUndoLog() {
         Set<String> deletes = new HashSet<>();
         for (Entry<String, State> es : undoLog.entrySet()) {
@@ -964,6 +1134,7 @@ public class DBSTransactionState {
      */
     public void begin() {
         undoLog = new HashMap<>();
+        descendantsUndoLog = new ArrayList<>();
         repository.begin();
     }
 
@@ -985,6 +1156,7 @@ public class DBSTransactionState {
         clearTransient();
         // the transaction ended, the proxied DBSSession will disappear and cannot be reused anyway
         undoLog = null;
+        descendantsUndoLog = null;
     }
 
     /**
@@ -993,11 +1165,28 @@ public class DBSTransactionState {
     public void rollback() {
         clearTransient();
         applyUndoLog();
+        applyDescendantsUndoLog();
         // the transaction ended, the proxied DBSSession will disappear and cannot be reused anyway
         undoLog = null;
+        descendantsUndoLog = null;
         repository.rollback();
     }
 
+    /**
+     * Applies the undo actions for the descendants, once the documents of the undo log are restored.
+     *
+     * @since 11.1
+     */
+    protected void applyDescendantsUndoLog() {
+        if (descendantsUndoLog == null) {
+            return;
+        }
+        for (int i = descendantsUndoLog.size() - 1; i >= 0; i--) {
+            descendantsUndoLog.get(i).run();
+        }
+        clearTransient();
+    }
+
     protected void clearTransient() {
         transientStates.clear();
         transientCreated.clear();
@@ -1168,6 +1357,10 @@ public class DBSTransactionState {
         // do async fulltext indexing only if high-level sessions are available
         RepositoryManager repositoryManager = Framework.getService(RepositoryManager.class);
         if (repositoryManager != null && !works.isEmpty()) {
+            if (StreamFulltextExtractor.isEnabled()) {
+                // fulltext extraction is done by batches by a stream processor
+                works = StreamFulltextExtractor.submit(works);
+            }
             WorkManager workManager = Framework.getService(WorkManager.class);
             for (Work work : works) {
                 // schedule work post-commit
@@ -19,9 +19,13 @@
 package org.nuxeo.ecm.core.storage.dbs;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -42,6 +46,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.nuxeo.ecm.core.storage.State;
 import org.nuxeo.ecm.core.storage.State.StateDiff;
+import org.nuxeo.ecm.core.storage.dbs.DBSTransactionState.StateUpdate;
 import org.nuxeo.runtime.test.runner.Deploy;
 import org.nuxeo.runtime.test.runner.Features;
 import org.nuxeo.runtime.test.runner.FeaturesRunner;
@@ -138,6 +143,27 @@ public class TestDBSCachingRepository {
         verify(subRepository, times(2)).readState(eq(id));
     }
 
+    @Test
+    public void testUpdateStates() {
+        String id1 = "ID1";
+        String id2 = "ID2";
+
+        // First add states in cache
+        repository.readStates(Arrays.asList(id1, id2));
+        repository.readStates(Arrays.asList(id1, id2));
+        verify(subRepository, times(1)).readStates(eq(Arrays.asList(id1, id2)));
+
+        // Second update these states in one call
+        List<StateUpdate> updates = Arrays.asList(new StateUpdate(id1, mock(StateDiff.class), null),
+                new StateUpdate(id2, mock(StateDiff.class), null));
+        repository.updateStates(updates);
+        verify(subRepository, times(1)).updateStates(eq(updates));
+
+        // Check states are no longer in cache
+        repository.readStates(Arrays.asList(id1, id2));
+        verify(subRepository, times(2)).readStates(eq(Arrays.asList(id1, id2)));
+    }
+
     @Test
     public void testDeleteStates() {
         String id = "ID";
@@ -177,6 +203,123 @@ public class TestDBSCachingRepository {
         assertEquals(dbState, cachedState);
     }
 
+    @Test
+    public void testHasChild() {
+        String parentId = "PARENT-ID";
+        String name = "NAME";
+
+        // Read the child to put it in cache
+        repository.readChildState(parentId, name, Collections.emptySet());
+
+        // Check child presence from cache
+        assertTrue(repository.hasChild(parentId, name, Collections.emptySet()));
+        verify(subRepository, times(0)).hasChild(any(), any(), any());
+    }
+
+    @Test
+    public void testNegativeChild() {
+        String parentId = "PARENT-ID";
+        String name = "NAME";
+        when(subRepository.readChildState(eq(parentId), eq(name), any())).thenReturn(null);
+
+        // First check - call sub repository
+        assertFalse(repository.hasChild(parentId, name, Collections.emptySet()));
+        verify(subRepository, times(1)).hasChild(eq(parentId), eq(name), any());
+
+        // Second check and read - call negative cache
+        assertFalse(repository.hasChild(parentId, name, Collections.emptySet()));
+        assertNull(repository.readChildState(parentId, name, Collections.emptySet()));
+        verify(subRepository, times(1)).hasChild(eq(parentId), eq(name), any());
+        verify(subRepository, times(0)).readChildState(eq(parentId), eq(name), any());
+
+        // Create the child
+        State state = newState("ID");
+        state.setSingle(KEY_PARENT_ID, parentId);
+        state.setSingle(KEY_NAME, name);
+        repository.createState(state);
+
+        // Check child is no longer in negative cache
+        repository.hasChild(parentId, name, Collections.emptySet());
+        verify(subRepository, times(2)).hasChild(eq(parentId), eq(name), any());
+    }
+
+    @Test
+    public void testNegativeChildWithIgnored() {
+        String parentId = "PARENT-ID";
+        String name = "NAME";
+
+        // Negative lookups ignoring some documents are not cached
+        assertFalse(repository.hasChild(parentId, name, Collections.singleton("ID")));
+        assertFalse(repository.hasChild(parentId, name, Collections.emptySet()));
+        verify(subRepository, times(2)).hasChild(eq(parentId), eq(name), any());
+    }
+
+    @Test
+    public void testNegativeChildRename() {
+        String parentId = "PARENT-ID";
+        String name = "NAME";
+        String id = "ID";
+        assertFalse(repository.hasChild(parentId, name, Collections.emptySet()));
+
+        // Rename a cached document of the parent
+        State state = newState(id);
+        state.setSingle(KEY_PARENT_ID, parentId);
+        state.setSingle(KEY_NAME, "OLD");
+        when(subRepository.readState(eq(id))).thenReturn(state);
+        repository.readState(id);
+        StateDiff diff = new StateDiff();
+        diff.put(KEY_NAME, name);
+        repository.updateState(id, diff, null);
+
+        // Check the new name is no longer in negative cache
+        repository.hasChild(parentId, name, Collections.emptySet());
+        verify(subRepository, times(2)).hasChild(eq(parentId), eq(name), any());
+    }
+
+    @Test
+    public void testNegativeChildPerName() {
+        String parentId = "PARENT-ID";
+        assertFalse(repository.hasChild(parentId, "NAME1", Collections.emptySet()));
+        assertFalse(repository.hasChild(parentId, "NAME2", Collections.emptySet()));
+
+        // Create a child with the first name
+        State state = newState("ID");
+        state.setSingle(KEY_PARENT_ID, parentId);
+        state.setSingle(KEY_NAME, "NAME1");
+        repository.createState(state);
+
+        // Only the first name is no longer in negative cache
+        repository.hasChild(parentId, "NAME1", Collections.emptySet());
+        repository.hasChild(parentId, "NAME2", Collections.emptySet());
+        verify(subRepository, times(2)).hasChild(eq(parentId), eq("NAME1"), any());
+        verify(subRepository, times(1)).hasChild(eq(parentId), eq("NAME2"), any());
+    }
+
+    @Test
+    public void testNegativeChildConcurrentLookupDuringRename() {
+        String parentId = "PARENT-ID";
+        String name = "NAME";
+        String id = "ID";
+        State state = newState(id);
+        state.setSingle(KEY_PARENT_ID, parentId);
+        state.setSingle(KEY_NAME, "OLD");
+        when(subRepository.readState(eq(id))).thenReturn(state);
+        repository.readState(id);
+
+        // A lookup done while the rename is being written doesn't see it yet
+        doAnswer(invocation -> {
+            assertFalse(repository.hasChild(parentId, name, Collections.emptySet()));
+            return null;
+        }).when(subRepository).updateState(eq(id), any(), any());
+        StateDiff diff = new StateDiff();
+        diff.put(KEY_NAME, name);
+        repository.updateState(id, diff, null);
+
+        // Check the stale negative lookup was not kept
+        repository.hasChild(parentId, name, Collections.emptySet());
+        verify(subRepository, times(2)).hasChild(eq(parentId), eq(name), any());
+    }
+
     private State newState(String id) {
         State state = new State();
         state.setSingle(KEY_ID, id);
@@ -58,6 +58,21 @@ public class TestDBSInvalidations {
         ser = new String(baout.toByteArray());
         assertTrue(ser, Arrays.asList(",foo,bar", ",bar,foo").contains(ser)); // non-deterministic order
 
+        invals = new DBSInvalidations();
+        invals.add("foo");
+        invals.addParent("bar");
+        baout.reset();
+        invals.serialize(baout);
+        ser = new String(baout.toByteArray());
+        assertEquals(",foo;bar", ser);
+
+        invals = new DBSInvalidations();
+        invals.addParent("bar");
+        baout.reset();
+        invals.serialize(baout);
+        ser = new String(baout.toByteArray());
+        assertEquals(";bar", ser);
+
         invals = new DBSInvalidations();
         invals.setAll();
         baout.reset();
@@ -90,6 +105,17 @@ public class TestDBSInvalidations {
         bain = new ByteArrayInputStream(",foo,bar".getBytes());
         invals = DBSInvalidations.deserialize(bain);
         assertEquals(new HashSet<>(Arrays.asList("foo", "bar")), invals.ids);
+        assertNull(invals.parentIds);
+
+        bain = new ByteArrayInputStream(",foo;bar;baz,gee".getBytes());
+        invals = DBSInvalidations.deserialize(bain);
+        assertEquals(new HashSet<>(Arrays.asList("foo", "gee")), invals.ids);
+        assertEquals(new HashSet<>(Arrays.asList("bar", "baz")), invals.parentIds);
+
+        bain = new ByteArrayInputStream(";bar".getBytes());
+        invals = DBSInvalidations.deserialize(bain);
+        assertNull(invals.ids);
+        assertEquals(Collections.singleton("bar"), invals.parentIds);
     }
 
 }
@@ -71,6 +71,7 @@ import org.nuxeo.ecm.core.storage.dbs.DBSExpressionEvaluator;
 import org.nuxeo.ecm.core.storage.dbs.DBSRepositoryBase;
 import org.nuxeo.ecm.core.storage.dbs.DBSSession.OrderByComparator;
 import org.nuxeo.ecm.core.storage.dbs.DBSTransactionState.ChangeTokenUpdater;
+import org.nuxeo.ecm.core.storage.dbs.DBSTransactionState.StateUpdate;
 import org.nuxeo.runtime.api.Framework;
 
 /**
@@ -204,6 +205,26 @@ public class MemRepository extends DBSRepositoryBase {
         }
     }
 
+    @Override
+    public void updateStates(List<StateUpdate> updates) {
+        // apply all updates, like an unordered database bulk write, and report conflicts at the end
+        List<String> conflicts = new ArrayList<>();
+        for (StateUpdate update : updates) {
+            try {
+                updateState(update.id, update.diff, update.changeTokenUpdater);
+            } catch (ConcurrentUpdateException e) {
+                conflicts.add(update.id);
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            ConcurrentUpdateException e = new ConcurrentUpdateException(conflicts.get(0));
+            if (conflicts.size() > 1) {
+                e.addInfo("Other concurrent updates: " + conflicts.subList(1, conflicts.size()));
+            }
+            throw e;
+        }
+    }
+
     @Override
     public void deleteStates(Set<String> ids) {
         if (log.isTraceEnabled()) {
@@ -408,6 +429,12 @@ public class MemRepository extends DBSRepositoryBase {
         throw new NuxeoException("Unknown or timed out scrollId");
     }
 
+    @Override
+    public boolean closeScroll(String scrollId) {
+        // ids are returned as a single batch, nothing is kept
+        return false;
+    }
+
     /**
      * Applies a {@link StateDiff} in-place onto a base {@link State}.
      * <p>
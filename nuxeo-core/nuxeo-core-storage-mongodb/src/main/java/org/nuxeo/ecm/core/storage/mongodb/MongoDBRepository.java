@@ -82,16 +82,19 @@ import org.nuxeo.ecm.core.storage.dbs.DBSExpressionEvaluator;
 import org.nuxeo.ecm.core.storage.dbs.DBSRepositoryBase;
 import org.nuxeo.ecm.core.storage.dbs.DBSStateFlattener;
 import org.nuxeo.ecm.core.storage.dbs.DBSTransactionState.ChangeTokenUpdater;
+import org.nuxeo.ecm.core.storage.dbs.DBSTransactionState.StateUpdate;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.mongodb.MongoDBConnectionService;
 
 import com.mongodb.Block;
 import com.mongodb.QueryOperators;
+import com.mongodb.bulk.BulkWriteResult;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.BulkWriteOptions;
 import com.mongodb.client.model.CountOptions;
 import com.mongodb.client.model.Filters;
 import com.mongodb.client.model.FindOneAndUpdateOptions;
@@ -99,7 +102,10 @@ import com.mongodb.client.model.IndexOptions;
 import com.mongodb.client.model.Indexes;
 import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
 
@@ -330,24 +336,7 @@ public class MongoDBRepository extends DBSRepositoryBase {
     public void updateState(String id, StateDiff diff, ChangeTokenUpdater changeTokenUpdater) {
         List<Document> updates = converter.diffToBson(diff);
         for (Document update : updates) {
-            Document filter = new Document(idKey, id);
-            if (changeTokenUpdater == null) {
-                log.trace("MongoDB: UPDATE {}: {}", id, update);
-            } else {
-                // assume bson is identical to dbs internals
-                // condition works even if value is null
-                Map<String, Serializable> conditions = changeTokenUpdater.getConditions();
-                Map<String, Serializable> tokenUpdates = changeTokenUpdater.getUpdates();
-                if (update.containsKey(MONGODB_SET)) {
-                    ((Document) update.get(MONGODB_SET)).putAll(tokenUpdates);
-                } else {
-                    Document set = new Document();
-                    set.putAll(tokenUpdates);
-                    update.put(MONGODB_SET, set);
-                }
-                log.trace("MongoDB: UPDATE {}: IF {} THEN {}", id, conditions, update);
-                filter.putAll(conditions);
-            }
+            Document filter = getUpdateFilter(id, update, changeTokenUpdater);
             UpdateResult w = coll.updateMany(filter, update);
             if (w.getModifiedCount() != 1) {
                 log.trace("MongoDB:    -> CONCURRENT UPDATE: {}", id);
@@ -358,6 +347,86 @@ public class MongoDBRepository extends DBSRepositoryBase {
         }
     }
 
+    @Override
+    public void updateStates(List<StateUpdate> stateUpdates) {
+        List<WriteModel<Document>> writes = new ArrayList<>(stateUpdates.size());
+        List<String> ids = new ArrayList<>(stateUpdates.size());
+        for (StateUpdate stateUpdate : stateUpdates) {
+            String id = stateUpdate.id;
+            List<Document> updates = converter.diffToBson(stateUpdate.diff);
+            if (updates.size() != 1 || stateUpdate.changeTokenUpdater != null) {
+                // several database updates are needed for this document and they must be done in order,
+                // or the change token must be checked per document: two writers starting from the same base token
+                // compute the same new token, so a conflict cannot be detected after the fact
+                updateState(id, stateUpdate.diff, stateUpdate.changeTokenUpdater);
+                continue;
+            }
+            Document update = updates.get(0);
+            Document filter = getUpdateFilter(id, update, null);
+            writes.add(new UpdateOneModel<>(filter, update));
+            ids.add(id);
+        }
+        if (writes.isEmpty()) {
+            return;
+        }
+        // unordered so that the server can apply the updates in parallel, each one is atomic on its document
+        BulkWriteResult w = coll.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        if (w.getMatchedCount() != writes.size()) {
+            checkConcurrentUpdates(ids);
+        }
+    }
+
+    /**
+     * Finds which documents of a bulk update were not matched because they were concurrently deleted, and throws a
+     * {@link ConcurrentUpdateException} for them.
+     *
+     * @since 11.1
+     */
+    protected void checkConcurrentUpdates(List<String> ids) {
+        Set<String> existingIds = new HashSet<>();
+        coll.find(Filters.in(idKey, ids))
+            .projection(Projections.include(idKey))
+            .forEach((Block<Document>) doc -> existingIds.add((String) doc.get(idKey)));
+        List<String> conflicts = ids.stream().filter(id -> !existingIds.contains(id)).collect(Collectors.toList());
+        if (conflicts.isEmpty()) {
+            // the missing documents were re-created in the meantime, still fail the whole batch
+            conflicts = ids;
+        }
+        log.trace("MongoDB:    -> CONCURRENT UPDATE: {}", conflicts);
+        ConcurrentUpdateException e = new ConcurrentUpdateException(conflicts.get(0));
+        if (conflicts.size() > 1) {
+            e.addInfo("Other concurrent updates: " + conflicts.subList(1, conflicts.size()));
+        }
+        throw e;
+    }
+
+    /**
+     * Gets the filter to use to update a document, adding change token conditions and updates if needed.
+     *
+     * @since 11.1
+     */
+    protected Document getUpdateFilter(String id, Document update, ChangeTokenUpdater changeTokenUpdater) {
+        Document filter = new Document(idKey, id);
+        if (changeTokenUpdater == null) {
+            log.trace("MongoDB: UPDATE {}: {}", id, update);
+        } else {
+            // assume bson is identical to dbs internals
+            // condition works even if value is null
+            Map<String, Serializable> conditions = changeTokenUpdater.getConditions();
+            Map<String, Serializable> tokenUpdates = changeTokenUpdater.getUpdates();
+            if (update.containsKey(MONGODB_SET)) {
+                ((Document) update.get(MONGODB_SET)).putAll(tokenUpdates);
+            } else {
+                Document set = new Document();
+                set.putAll(tokenUpdates);
+                update.put(MONGODB_SET, set);
+            }
+            log.trace("MongoDB: UPDATE {}: IF {} THEN {}", id, conditions, update);
+            filter.putAll(conditions);
+        }
+        return filter;
+    }
+
     @Override
     public void deleteStates(Set<String> ids) {
         Bson filter = Filters.in(idKey, ids);
@@ -448,6 +517,26 @@ public class MongoDBRepository extends DBSRepositoryBase {
         return stream(filter, fields, limit);
     }
 
+    @Override
+    public List<String> getDescendantsIds(String rootId, String afterId, int limit) {
+        Bson filter = Filters.eq(KEY_ANCESTOR_IDS, rootId);
+        if (afterId != null) {
+            filter = Filters.and(filter, Filters.gt(idKey, afterId));
+        }
+        Bson projection = Projections.include(idKey);
+        Bson orderBy = Sorts.ascending(idKey);
+        logQuery(filter, projection, orderBy, limit, 0);
+        List<String> ids = new ArrayList<>(limit);
+        try (MongoCursor<Document> cursor = coll.find(filter)
+                                                .projection(projection)
+                                                .sort(orderBy)
+                                                .limit(limit)
+                                                .iterator()) {
+            cursor.forEachRemaining(doc -> ids.add(doc.getString(idKey)));
+        }
+        return ids;
+    }
+
     @Override
     public boolean queryKeyValuePresence(String key, String value, Set<String> ignored) {
         Document filter = new Document(converter.keyToBson(key), value);
@@ -632,6 +721,11 @@ public class MongoDBRepository extends DBSRepositoryBase {
         return cursorService.scroll(scrollId);
     }
 
+    @Override
+    public boolean closeScroll(String scrollId) {
+        return cursorService.unregisterCursor(scrollId);
+    }
+
     protected void addPrincipals(Document query, Set<String> principals) {
         if (principals != null) {
             Document inPrincipals = new Document(QueryOperators.IN, new ArrayList<>(principals));
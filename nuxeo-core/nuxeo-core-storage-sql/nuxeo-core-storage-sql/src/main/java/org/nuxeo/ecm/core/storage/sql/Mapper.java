@@ -61,6 +61,14 @@ public interface Mapper extends RowMapper, XAResource {
      */
     ScrollResult<String> scroll(String scrollId);
 
+    /**
+     * Closes a scroll before its end, releasing its cursor.
+     *
+     * @return {@code true} if the scroll was closed, {@code false} if it was unknown
+     * @since 11.1
+     */
+    boolean closeScroll(String scrollId);
+
     /**
      * Identifiers assigned by a server to identify a client mapper and its repository.
      */
@@ -0,0 +1,523 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.transaction.xa.XAException;
+import javax.transaction.xa.Xid;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.common.utils.SizeUtils;
+import org.nuxeo.ecm.core.storage.sql.ACLRow.ACLRowPositionComparator;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.Timer.Context;
+
+/**
+ * A {@link RowMapper} that uses an {@link OffHeapRowCache} shared by all the sessions of a repository.
+ * <p>
+ * The cache only holds {@link Row}s that have been read from the underlying {@link RowMapper} and are known to be
+ * committed: writes remove the rows from the shared cache instead of putting them, rows written by the current
+ * transaction bypass the shared cache until it ends, and invalidations from other sessions (through the
+ * {@link InvalidationsPropagator}) or from other cluster nodes (through the cluster invalidator) remove them as well.
+ * <p>
+ * The following caching mapper properties are available:
+ * <ul>
+ * <li>{@value #SIZE_PROP}: the off-heap size of the cache, default {@value #DEFAULT_SIZE}. The JVM maximum direct
+ * memory size must be configured accordingly.
+ * <li>{@value #CONCURRENCY_PROP}: the number of cache segments, default {@value #DEFAULT_CONCURRENCY}.
+ * </ul>
+ *
+ * @since 11.1
+ */
+public class OffHeapCachingRowMapper implements RowMapper {
+
+    private static final Log log = LogFactory.getLog(OffHeapCachingRowMapper.class);
+
+    public static final String SIZE_PROP = "offHeapSize";
+
+    public static final String DEFAULT_SIZE = "256MB";
+
+    public static final String CONCURRENCY_PROP = "offHeapConcurrency";
+
+    public static final String DEFAULT_CONCURRENCY = "16";
+
+    private static final String ABSENT = "__ABSENT__\0\0\0";
+
+    private static final Row ABSENT_ROW = new Row(ABSENT, (Serializable) null);
+
+    /** The caches, shared by all the mappers of a repository. */
+    protected static final Map<String, OffHeapRowCache> CACHES = new ConcurrentHashMap<>();
+
+    protected OffHeapRowCache cache;
+
+    protected Model model;
+
+    /**
+     * The {@link RowMapper} to which operations that cannot be processed from the cache are delegated.
+     */
+    protected RowMapper rowMapper;
+
+    /**
+     * The local invalidations due to writes through this mapper that should be propagated to other sessions at
+     * post-commit time.
+     */
+    protected final Invalidations localInvalidations;
+
+    /**
+     * The rows written through this mapper in the current transaction. Their uncommitted values must not be seen by
+     * other sessions, so they are neither read from nor put in the shared cache until the transaction ends.
+     */
+    protected final Set<RowId> writtenRowIds;
+
+    /**
+     * The queue of invalidations received from other session or from the cluster invalidator, to process at
+     * pre-transaction time.
+     */
+    protected final InvalidationsQueue invalidationsQueue;
+
+    /**
+     * The propagator of invalidations to other mappers.
+     */
+    protected InvalidationsPropagator invalidationsPropagator;
+
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    protected Timer cacheGetTimer;
+
+    // sor means system of record (database access)
+    protected Counter sorRows;
+
+    protected Timer sorGetTimer;
+
+    public OffHeapCachingRowMapper() {
+        localInvalidations = new Invalidations();
+        writtenRowIds = new HashSet<>();
+        invalidationsQueue = new InvalidationsQueue("mapper-" + this);
+    }
+
+    public void initialize(String repositoryName, Model model, RowMapper rowMapper,
+            InvalidationsPropagator invalidationsPropagator, Map<String, String> properties) {
+        this.model = model;
+        this.rowMapper = rowMapper;
+        this.invalidationsPropagator = invalidationsPropagator;
+        invalidationsPropagator.addQueue(invalidationsQueue);
+        cache = CACHES.computeIfAbsent(repositoryName, name -> newCache(name, properties));
+        cacheGetTimer = registry.timer(
+                MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches", "offheap", "get"));
+        sorRows = registry.counter(
+                MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches", "offheap", "sor", "rows"));
+        sorGetTimer = registry.timer(
+                MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches", "offheap", "sor", "get"));
+    }
+
+    protected OffHeapRowCache newCache(String repositoryName, Map<String, String> properties) {
+        long size = SizeUtils.parseSizeInBytes(properties.getOrDefault(SIZE_PROP, DEFAULT_SIZE));
+        int concurrency = Integer.parseInt(properties.getOrDefault(CONCURRENCY_PROP, DEFAULT_CONCURRENCY));
+        log.info("Creating off-heap VCS cache for repository: " + repositoryName + " with size: " + size);
+        String metricName = MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches", "offheap");
+        registry.removeMatching((name, metric) -> name.startsWith(metricName + '.'));
+        return new OffHeapRowCache(size, concurrency, registry, metricName);
+    }
+
+    /**
+     * Clears all the shared caches.
+     */
+    public static void clearCaches() {
+        CACHES.values().forEach(OffHeapRowCache::clear);
+    }
+
+    public void close() {
+        invalidationsPropagator.removeQueue(invalidationsQueue);
+    }
+
+    @Override
+    public Serializable generateNewId() {
+        return rowMapper.generateNewId();
+    }
+
+    /*
+     * ----- Cache -----
+     */
+
+    protected static boolean isAbsent(Row row) {
+        return row == ABSENT_ROW; // == is ok
+    }
+
+    /**
+     * Puts a row read from the database (or an absent marker if not a {@link Row}) in the cache.
+     */
+    protected void cachePut(RowId rowId, long stamp) {
+        if (rowId instanceof Row) {
+            Row row = (Row) rowId;
+            // for ACL collections, make sure the order is correct
+            // (without the cache, the query to get a list of collection does an
+            // ORDER BY pos, so users of the cache must get the same behavior)
+            if (row.isCollection() && row.values.length > 0 && row.values[0] instanceof ACLRow) {
+                row = row.clone();
+                row.values = sortACLRows((ACLRow[]) row.values);
+            }
+            rowId = row;
+        }
+        cache.put(rowId, stamp);
+    }
+
+    protected ACLRow[] sortACLRows(ACLRow[] acls) {
+        List<ACLRow> list = new ArrayList<>(Arrays.asList(acls));
+        Collections.sort(list, ACLRowPositionComparator.INSTANCE);
+        ACLRow[] res = new ACLRow[acls.length];
+        return list.toArray(res);
+    }
+
+    @SuppressWarnings("resource") // Time.Context closed by stop()
+    protected Row cacheGet(RowId rowId) {
+        final Context context = cacheGetTimer.time();
+        try {
+            return cache.get(rowId, ABSENT_ROW);
+        } finally {
+            context.stop();
+        }
+    }
+
+    protected void cacheRemove(RowId rowId) {
+        cache.remove(rowId);
+    }
+
+    /**
+     * Removes a row written in the current transaction from the cache, and remembers it to bypass the cache for it.
+     */
+    protected void cacheRemoveWritten(RowId rowId) {
+        cache.remove(rowId);
+        writtenRowIds.add(new RowId(rowId));
+    }
+
+    protected boolean isWritten(RowId rowId) {
+        return !writtenRowIds.isEmpty() && writtenRowIds.contains(rowId);
+    }
+
+    protected void cacheRemove(Invalidations invalidations) {
+        if (invalidations.modified != null) {
+            invalidations.modified.forEach(this::cacheRemove);
+        }
+        if (invalidations.deleted != null) {
+            invalidations.deleted.forEach(this::cacheRemove);
+        }
+    }
+
+    /*
+     * ----- Invalidations / Cache Management -----
+     */
+
+    @Override
+    public Invalidations receiveInvalidations() {
+        // invalidations from the underlying mapper (cluster)
+        // already propagated to our invalidations queue
+        Invalidations remoteInvals = rowMapper.receiveInvalidations();
+
+        Invalidations ret = invalidationsQueue.getInvalidations();
+
+        if (remoteInvals != null && !ret.all) {
+            // the cache is shared, local invalidations were already applied by the sender
+            cacheRemove(remoteInvals);
+        }
+
+        // invalidate our cache
+        if (ret.all) {
+            clearCache();
+        }
+
+        return ret.isEmpty() ? null : ret;
+    }
+
+    // propagate invalidations
+    @Override
+    public void sendInvalidations(Invalidations invalidations) {
+        // our writes are committed, rows can be cached again
+        writtenRowIds.clear();
+        // add local invalidations
+        if (!localInvalidations.isEmpty()) {
+            if (invalidations == null) {
+                invalidations = new Invalidations();
+            }
+            invalidations.add(localInvalidations);
+            localInvalidations.clear();
+        }
+
+        if (invalidations != null && !invalidations.isEmpty()) {
+            // rows read by other sessions while we were writing may have been cached before our commit
+            if (invalidations.all) {
+                cache.clear();
+            } else {
+                cacheRemove(invalidations);
+            }
+
+            // send to underlying mapper
+            rowMapper.sendInvalidations(invalidations);
+
+            // queue to other mappers
+            invalidationsPropagator.propagateInvalidations(invalidations, invalidationsQueue);
+        }
+    }
+
+    @Override
+    public void clearCache() {
+        cache.clear();
+        localInvalidations.clear();
+        writtenRowIds.clear();
+        rowMapper.clearCache();
+    }
+
+    @Override
+    public long getCacheSize() {
+        // the shared cache is reported by the cache-size gauge
+        return 0;
+    }
+
+    @Override
+    public void rollback(Xid xid) throws XAException {
+        try {
+            rowMapper.rollback(xid);
+        } finally {
+            // written rows bypassed the cache, but make sure no uncommitted value stays in it
+            writtenRowIds.forEach(this::cacheRemove);
+            writtenRowIds.clear();
+            localInvalidations.clear();
+        }
+    }
+
+    /*
+     * ----- Batch -----
+     */
+
+    /*
+     * Use those from the cache if available, read from the mapper for the rest.
+     */
+    @Override
+    public List<? extends RowId> read(Collection<RowId> rowIds, boolean cacheOnly) {
+        List<RowId> res = new ArrayList<>(rowIds.size());
+        // find which are in cache, and which not
+        List<RowId> todo = new ArrayList<>();
+        List<Long> stamps = new ArrayList<>();
+        List<RowId> written = new ArrayList<>();
+        for (RowId rowId : rowIds) {
+            if (isWritten(rowId)) {
+                if (cacheOnly) {
+                    res.add(new RowId(rowId));
+                } else {
+                    written.add(rowId);
+                }
+                continue;
+            }
+            Row row = cacheGet(rowId);
+            if (row == null) {
+                if (cacheOnly) {
+                    res.add(new RowId(rowId));
+                } else {
+                    todo.add(rowId);
+                    stamps.add(Long.valueOf(cache.getStamp(rowId)));
+                }
+            } else if (isAbsent(row)) {
+                res.add(new RowId(rowId));
+            } else {
+                res.add(row);
+            }
+        }
+        if (!todo.isEmpty()) {
+            @SuppressWarnings("resource")
+            final Context context = sorGetTimer.time();
+            try {
+                // ask missing ones to underlying row mapper
+                List<? extends RowId> fetched = rowMapper.read(todo, cacheOnly);
+                // add them to the cache, the underlying mapper returns them in the requested order
+                for (int i = 0; i < fetched.size(); i++) {
+                    cachePut(fetched.get(i), stamps.get(i).longValue());
+                }
+                // merge results
+                res.addAll(fetched);
+                sorRows.inc(fetched.size());
+            } finally {
+                context.stop();
+            }
+        }
+        if (!written.isEmpty()) {
+            // rows written in this transaction, not cached
+            res.addAll(rowMapper.read(written, false));
+        }
+        return res;
+    }
+
+    /*
+     * Remove from the cache then pass all the writes to the mapper.
+     */
+    @Override
+    public void write(RowBatch batch) {
+        // we avoid gathering invalidations for a write-only table: fulltext
+        for (Row row : batch.creates) {
+            cacheRemoveWritten(row);
+            if (!Model.FULLTEXT_TABLE_NAME.equals(row.tableName)) {
+                // we need to send modified invalidations for created
+                // fragments because other session's ABSENT fragments have
+                // to be invalidated
+                localInvalidations.addModified(new RowId(row));
+            }
+        }
+        for (RowUpdate rowu : batch.updates) {
+            cacheRemoveWritten(rowu.row);
+            if (!Model.FULLTEXT_TABLE_NAME.equals(rowu.row.tableName)) {
+                localInvalidations.addModified(new RowId(rowu.row));
+            }
+        }
+        for (RowId rowId : batch.deletes) {
+            if (rowId instanceof Row) {
+                throw new AssertionError();
+            }
+            cacheRemoveWritten(rowId);
+            if (!Model.FULLTEXT_TABLE_NAME.equals(rowId.tableName)) {
+                localInvalidations.addDeleted(rowId);
+            }
+        }
+        for (RowId rowId : batch.deletesDependent) {
+            if (rowId instanceof Row) {
+                throw new AssertionError();
+            }
+            cacheRemoveWritten(rowId);
+            if (!Model.FULLTEXT_TABLE_NAME.equals(rowId.tableName)) {
+                localInvalidations.addDeleted(rowId);
+            }
+        }
+
+        // propagate to underlying mapper
+        rowMapper.write(batch);
+    }
+
+    /*
+     * ----- Read -----
+     */
+
+    @Override
+    public Row readSimpleRow(RowId rowId) {
+        if (isWritten(rowId)) {
+            return rowMapper.readSimpleRow(rowId);
+        }
+        Row row = cacheGet(rowId);
+        if (row == null) {
+            long stamp = cache.getStamp(rowId);
+            row = rowMapper.readSimpleRow(rowId);
+            cachePut(row == null ? rowId : row, stamp);
+            return row;
+        } else if (isAbsent(row)) {
+            return null;
+        } else {
+            return row;
+        }
+    }
+
+    @Override
+    public Map<String, String> getBinaryFulltext(RowId rowId) {
+        return rowMapper.getBinaryFulltext(rowId);
+    }
+
+    @Override
+    public Serializable[] readCollectionRowArray(RowId rowId) {
+        if (isWritten(rowId)) {
+            return rowMapper.readCollectionRowArray(rowId);
+        }
+        Row row = cacheGet(rowId);
+        if (row == null) {
+            long stamp = cache.getStamp(rowId);
+            Serializable[] array = rowMapper.readCollectionRowArray(rowId);
+            assert array != null;
+            row = new Row(rowId.tableName, rowId.id, array);
+            cachePut(row, stamp);
+            return row.values;
+        } else if (isAbsent(row)) {
+            return null;
+        } else {
+            return row.values;
+        }
+    }
+
+    @Override
+    public List<Row> readSelectionRows(SelectionType selType, Serializable selId, Serializable filter,
+            Serializable criterion, boolean limitToOne) {
+        // no stamps available for rows we don't know in advance, don't cache them
+        return rowMapper.readSelectionRows(selType, selId, filter, criterion, limitToOne);
+    }
+
+    @Override
+    public Set<Serializable> readSelectionsIds(SelectionType selType, List<Serializable> values) {
+        return rowMapper.readSelectionsIds(selType, values);
+    }
+
+    /*
+     * ----- Copy -----
+     */
+
+    @Override
+    public CopyResult copy(IdWithTypes source, Serializable destParentId, String destName, Row overwriteRow) {
+        CopyResult result = rowMapper.copy(source, destParentId, destName, overwriteRow);
+        Invalidations invalidations = result.invalidations;
+        if (invalidations.modified != null) {
+            for (RowId rowId : invalidations.modified) {
+                cacheRemoveWritten(rowId);
+                localInvalidations.addModified(new RowId(rowId));
+            }
+        }
+        if (invalidations.deleted != null) {
+            for (RowId rowId : invalidations.deleted) {
+                cacheRemoveWritten(rowId);
+                localInvalidations.addDeleted(rowId);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<NodeInfo> getDescendantsInfo(Serializable rootId) {
+        return rowMapper.getDescendantsInfo(rootId);
+    }
+
+    @Override
+    public void remove(Serializable rootId, List<NodeInfo> nodeInfos) {
+        rowMapper.remove(rootId, nodeInfos);
+        for (NodeInfo info : nodeInfos) {
+            for (String fragmentName : model.getTypeFragments(new IdWithTypes(info.id, info.primaryType, null))) {
+                RowId rowId = new RowId(fragmentName, info.id);
+                cacheRemoveWritten(rowId);
+                localInvalidations.addDeleted(rowId);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,361 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * A size-bounded store of serialized {@link Row}s kept outside of the Java heap, in direct buffers.
+ * <p>
+ * The store is split in segments, each one having its own lock, its own direct buffer and its own on-heap index from
+ * {@link RowId} to buffer position. A segment buffer is written as a ring: new entries are appended, and the oldest
+ * entries are evicted when their space is overwritten. An entry read while in the older half of the ring is appended
+ * again, so that frequently read rows are not evicted (second chance eviction, approximating LRU).
+ * <p>
+ * To avoid caching a row read from the database concurrently with its invalidation, writers first get a stamp with
+ * {@link #getStamp}, and {@link #put} is ignored if the segment had invalidations since the stamp was taken.
+ *
+ * @since 11.1
+ */
+public class OffHeapRowCache {
+
+    protected static final byte KIND_ABSENT = 0;
+
+    protected static final byte KIND_SIMPLE = 1;
+
+    protected static final byte KIND_COLLECTION = 2;
+
+    protected final Segment[] segments;
+
+    protected final int segmentMask;
+
+    protected final Counter hits;
+
+    protected final Counter misses;
+
+    protected final Counter evictions;
+
+    /**
+     * Creates a new store.
+     *
+     * @param maxBytes the total off-heap size of the store
+     * @param concurrency the minimum number of segments, rounded up to a power of two
+     * @param registry the metric registry
+     * @param name the base name of the metrics
+     */
+    public OffHeapRowCache(long maxBytes, int concurrency, MetricRegistry registry, String name) {
+        int n = Integer.highestOneBit(Math.max(1, concurrency - 1)) << 1;
+        long segmentSize = maxBytes / n;
+        if (segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too big off-heap segments, increase concurrency: " + segmentSize);
+        }
+        segments = new Segment[n];
+        for (int i = 0; i < n; i++) {
+            segments[i] = new Segment((int) segmentSize);
+        }
+        segmentMask = n - 1;
+        hits = registry.counter(MetricRegistry.name(name, "hits"));
+        misses = registry.counter(MetricRegistry.name(name, "misses"));
+        evictions = registry.counter(MetricRegistry.name(name, "evictions"));
+        registry.register(MetricRegistry.name(name, "cache-size"), (Gauge<Long>) this::getCount);
+        registry.register(MetricRegistry.name(name, "bytes"), (Gauge<Long>) this::getBytes);
+    }
+
+    protected Segment segment(RowId rowId) {
+        int h = rowId.hashCode();
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    /**
+     * Gets the invalidation stamp to pass to a later {@link #put} of this row.
+     */
+    public long getStamp(RowId rowId) {
+        Segment segment = segment(rowId);
+        segment.lock.lock();
+        try {
+            return segment.invalidations;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Gets a row from the store.
+     *
+     * @return a new row, or {@code absent} if the row is known to be absent from the database, or {@code null} if it
+     *         is not in the store
+     */
+    public Row get(RowId rowId, Row absent) {
+        Segment segment = segment(rowId);
+        byte[] bytes;
+        segment.lock.lock();
+        try {
+            bytes = segment.get(rowId);
+        } finally {
+            segment.lock.unlock();
+        }
+        if (bytes == null) {
+            misses.inc();
+            return null;
+        }
+        hits.inc();
+        return bytes[0] == KIND_ABSENT ? absent : deserialize(bytes);
+    }
+
+    /**
+     * Puts a row (or an absent marker if {@code row} is not a {@link Row}) in the store, unless the row was
+     * invalidated since the given stamp was taken.
+     */
+    public void put(RowId row, long stamp) {
+        byte[] bytes = serialize(row);
+        Segment segment = segment(row);
+        segment.lock.lock();
+        try {
+            if (segment.invalidations == stamp) {
+                segment.put(new RowId(row), bytes);
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void remove(RowId rowId) {
+        Segment segment = segment(rowId);
+        segment.lock.lock();
+        try {
+            segment.invalidations++;
+            segment.remove(rowId);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.invalidations++;
+                segment.clear();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (Segment segment : segments) {
+            count += segment.index.size();
+        }
+        return count;
+    }
+
+    public long getBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.liveBytes;
+        }
+        return bytes;
+    }
+
+    protected static byte[] serialize(RowId rowId) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            if (!(rowId instanceof Row)) {
+                baos.write(KIND_ABSENT);
+                return baos.toByteArray();
+            }
+            Row row = (Row) rowId;
+            baos.write(row.isCollection() ? KIND_COLLECTION : KIND_SIMPLE);
+            try (ObjectOutputStream out = new ObjectOutputStream(baos)) {
+                out.writeUTF(row.tableName);
+                out.writeObject(row.id);
+                if (row.isCollection()) {
+                    out.writeObject(row.values);
+                } else {
+                    out.writeInt(row.size);
+                    for (int i = 0; i < row.size; i++) {
+                        out.writeUTF(row.keys[i]);
+                        out.writeObject(row.values[i]);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return baos.toByteArray();
+    }
+
+    protected static Row deserialize(byte[] bytes) {
+        ByteArrayInputStream bais = new ByteArrayInputStream(bytes, 1, bytes.length - 1);
+        try (ObjectInputStream in = new ObjectInputStream(bais)) {
+            // rows are rebuilt through their constructors, which intern table names
+            String tableName = in.readUTF();
+            Serializable id = (Serializable) in.readObject();
+            if (bytes[0] == KIND_COLLECTION) {
+                return new Row(tableName, id, (Serializable[]) in.readObject());
+            }
+            Row row = new Row(tableName, id);
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                row.putNew(in.readUTF(), (Serializable) in.readObject());
+            }
+            return row;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The position of an entry in a segment buffer.
+     */
+    protected static class Entry {
+
+        protected final RowId rowId;
+
+        /** Position in the ring, not modulo the capacity. */
+        protected final long start;
+
+        protected final int length;
+
+        protected Entry(RowId rowId, long start, int length) {
+            this.rowId = rowId;
+            this.start = start;
+            this.length = length;
+        }
+    }
+
+    /**
+     * A segment of the store. All methods must be called with the lock held.
+     */
+    protected class Segment {
+
+        protected final ReentrantLock lock = new ReentrantLock();
+
+        protected final ByteBuffer buffer;
+
+        protected final int capacity;
+
+        protected final Map<RowId, Entry> index = new HashMap<>();
+
+        /** Entries in write order, including the ones replaced or removed since then. */
+        protected final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+        /** Total number of bytes written in the ring since creation. */
+        protected long head;
+
+        protected long liveBytes;
+
+        protected long invalidations;
+
+        protected Segment(int capacity) {
+            this.capacity = capacity;
+            buffer = ByteBuffer.allocateDirect(capacity);
+        }
+
+        protected byte[] get(RowId rowId) {
+            Entry entry = index.get(rowId);
+            if (entry == null) {
+                return null;
+            }
+            byte[] bytes = new byte[entry.length];
+            ByteBuffer buf = buffer.duplicate();
+            buf.position((int) (entry.start % capacity));
+            buf.get(bytes);
+            if (entry.start < head - capacity / 2) {
+                // second chance: move it to the head of the ring before it gets evicted
+                write(entry.rowId, bytes);
+            }
+            return bytes;
+        }
+
+        protected void put(RowId rowId, byte[] bytes) {
+            if (bytes.length > capacity / 2) {
+                // too big to be cached, forget any previous value
+                remove(rowId);
+                return;
+            }
+            write(rowId, bytes);
+        }
+
+        protected void write(RowId rowId, byte[] bytes) {
+            int length = bytes.length;
+            int pos = (int) (head % capacity);
+            if (pos + length > capacity) {
+                // entries don't wrap, skip the end of the buffer
+                head += capacity - pos;
+                pos = 0;
+            }
+            evictBefore(head + length - capacity);
+            ByteBuffer buf = buffer.duplicate();
+            buf.position(pos);
+            buf.put(bytes);
+            Entry entry = new Entry(rowId, head, length);
+            head += length;
+            entries.addLast(entry);
+            Entry old = index.put(rowId, entry);
+            if (old != null) {
+                liveBytes -= old.length;
+            }
+            liveBytes += length;
+        }
+
+        protected void evictBefore(long limit) {
+            while (!entries.isEmpty() && entries.peekFirst().start < limit) {
+                Entry entry = entries.removeFirst();
+                if (index.get(entry.rowId) == entry) {
+                    index.remove(entry.rowId);
+                    liveBytes -= entry.length;
+                    evictions.inc();
+                }
+            }
+        }
+
+        protected void remove(RowId rowId) {
+            Entry entry = index.remove(rowId);
+            if (entry != null) {
+                liveBytes -= entry.length;
+            }
+        }
+
+        protected void clear() {
+            index.clear();
+            entries.clear();
+            liveBytes = 0;
+        }
+    }
+
+}
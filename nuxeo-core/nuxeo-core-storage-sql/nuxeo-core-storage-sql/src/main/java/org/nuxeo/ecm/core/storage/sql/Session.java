@@ -154,6 +154,14 @@ public interface Session extends Connection {
      */
     ScrollResult<String> scroll(String scrollId);
 
+    /**
+     * Closes a scroll before its end, releasing its cursor.
+     *
+     * @return {@code true} if the scroll was closed, {@code false} if it was unknown
+     * @since 11.1
+     */
+    boolean closeScroll(String scrollId);
+
     /**
      * Interface for a class that knows how to resolve a node path into a node id.
      */
@@ -61,6 +61,7 @@ import org.nuxeo.ecm.core.query.sql.NXQL;
 import org.nuxeo.ecm.core.schema.DocumentType;
 import org.nuxeo.ecm.core.schema.SchemaManager;
 import org.nuxeo.ecm.core.storage.FulltextExtractorWork;
+import org.nuxeo.ecm.core.storage.StreamFulltextExtractor;
 import org.nuxeo.ecm.core.storage.sql.PersistenceContext.PathAndId;
 import org.nuxeo.ecm.core.storage.sql.RowMapper.NodeInfo;
 import org.nuxeo.ecm.core.storage.sql.RowMapper.RowBatch;
@@ -340,6 +341,10 @@ public class SessionImpl implements Session, XAResource {
         // do async fulltext indexing only if high-level sessions are available
         RepositoryManager repositoryManager = Framework.getService(RepositoryManager.class);
         if (repositoryManager != null && !works.isEmpty()) {
+            if (StreamFulltextExtractor.isEnabled()) {
+                // fulltext extraction is done by batches by a stream processor
+                works = StreamFulltextExtractor.submit(works);
+            }
             WorkManager workManager = Framework.getService(WorkManager.class);
             for (Work work : works) {
                 // schedule work post-commit
@@ -752,6 +757,11 @@ public class SessionImpl implements Session, XAResource {
         return mapper.scroll(scrollId);
     }
 
+    @Override
+    public boolean closeScroll(String scrollId) {
+        return mapper.closeScroll(scrollId);
+    }
+
     /**
      * Gets complex children names defined by the primary type and the list of mixins.
      */
@@ -67,6 +67,11 @@ public class SoftRefCachingMapper extends SoftRefCachingRowMapper implements Cac
         return mapper.scroll(scrollId);
     }
 
+    @Override
+    public boolean closeScroll(String scrollId) {
+        return mapper.closeScroll(scrollId);
+    }
+
     @Override
     public Identification getIdentification() {
         return mapper.getIdentification();
@@ -68,6 +68,11 @@ public class UnifiedCachingMapper extends UnifiedCachingRowMapper implements Cac
         return mapper.scroll(scrollId);
     }
 
+    @Override
+    public boolean closeScroll(String scrollId) {
+        return mapper.closeScroll(scrollId);
+    }
+
     @Override
     public Identification getIdentification() {
         return mapper.getIdentification();
@@ -176,6 +176,11 @@ public class SQLSession implements Session<QueryFilter> {
         return session.scroll(scrollId);
     }
 
+    @Override
+    public boolean closeScroll(String scrollId) {
+        return session.closeScroll(scrollId);
+    }
+
     @Override
     public Document getDocumentByUUID(String uuid) throws DocumentNotFoundException {
         /*
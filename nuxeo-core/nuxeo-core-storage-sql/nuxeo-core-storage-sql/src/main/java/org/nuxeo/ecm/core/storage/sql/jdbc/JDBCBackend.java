@@ -39,9 +39,14 @@ import org.nuxeo.ecm.core.storage.sql.RepositoryDescriptor;
 import org.nuxeo.ecm.core.storage.sql.RepositoryImpl;
 import org.nuxeo.ecm.core.storage.sql.Session.PathResolver;
 import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.Dialect;
+import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.datasource.ConnectionHelper;
 import org.nuxeo.runtime.datasource.DataSourceHelper;
 import org.nuxeo.runtime.datasource.PooledDataSourceRegistry.PooledDataSource;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
 
 /**
  * JDBC Backend for a repository.
@@ -50,6 +55,18 @@ public class JDBCBackend implements RepositoryBackend {
 
     private static final Log log = LogFactory.getLog(JDBCBackend.class);
 
+    /** @since 11.1 */
+    public static final String QUERY_CACHE_SIZE_PROP = "org.nuxeo.vcs.queryCache.size";
+
+    /** @since 11.1 */
+    public static final String QUERY_CACHE_SIZE_DEFAULT = "1000";
+
+    /** @since 11.1 */
+    public static final String STATEMENT_CACHE_SIZE_PROP = "org.nuxeo.vcs.statementCache.size";
+
+    /** @since 11.1 */
+    public static final String STATEMENT_CACHE_SIZE_DEFAULT = "50";
+
     private RepositoryImpl repository;
 
     private Model model;
@@ -104,6 +121,17 @@ public class JDBCBackend implements RepositoryBackend {
         // Model and SQLInfo
         model = new Model(modelSetup);
         sqlInfo = new SQLInfo(model, dialect, repository.requiresClusterSQL);
+        MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        sqlInfo.statementMetrics = new StatementMetrics(registry, repositoryDescriptor.name);
+        int queryCacheSize = Integer.parseInt(Framework.getProperty(QUERY_CACHE_SIZE_PROP, QUERY_CACHE_SIZE_DEFAULT));
+        if (queryCacheSize > 0) {
+            sqlInfo.queryCache = new QueryCache(dialect, queryCacheSize, registry, repositoryDescriptor.name);
+        }
+        int statementCacheSize = Integer.parseInt(
+                Framework.getProperty(STATEMENT_CACHE_SIZE_PROP, STATEMENT_CACHE_SIZE_DEFAULT));
+        if (statementCacheSize > 0) {
+            sqlInfo.statementCaches = new StatementCache.Registry(sqlInfo.statementMetrics, statementCacheSize);
+        }
 
         // DDL mode
         String ddlMode = repositoryDescriptor.getDDLMode();
@@ -156,6 +184,12 @@ public class JDBCBackend implements RepositoryBackend {
         if (clusterInvalidator != null) {
             clusterInvalidator.close();
         }
+        if (sqlInfo != null && sqlInfo.statementCaches != null) {
+            sqlInfo.statementCaches.close();
+        }
+        if (sqlInfo != null && sqlInfo.statementMetrics != null) {
+            sqlInfo.statementMetrics.close();
+        }
     }
 
 }
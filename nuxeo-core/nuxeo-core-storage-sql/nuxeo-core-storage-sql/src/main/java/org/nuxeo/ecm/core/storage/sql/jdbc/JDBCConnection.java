@@ -19,6 +19,7 @@
 package org.nuxeo.ecm.core.storage.sql.jdbc;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -81,6 +82,14 @@ public class JDBCConnection {
 
     protected boolean setClientInfo;
 
+    /**
+     * The prepared statements cache for the physical connection behind the current connection, or {@code null} if not
+     * used yet.
+     *
+     * @since 11.1
+     */
+    protected StatementCache statementCache;
+
     /**
      * Creates a new Mapper.
      *
@@ -147,11 +156,30 @@ public class JDBCConnection {
         }
     }
 
+    /**
+     * Prepares a statement for SQL without specific statement settings, reusing a previous one for the same SQL if
+     * possible.
+     *
+     * @since 11.1
+     */
+    protected PreparedStatement prepareCachedStatement(String sql) throws SQLException {
+        if (statementCache == null) {
+            if (sqlInfo.statementCaches == null) {
+                return connection.prepareStatement(sql);
+            }
+            // the cache is kept with the physical connection, as the connection handle is closed after each call
+            statementCache = sqlInfo.statementCaches.get(ConnectionHelper.unwrap(connection));
+        }
+        return statementCache.prepareStatement(sql);
+    }
+
     public void close() {
         closeConnections();
     }
 
     public void closeConnections() {
+        // the statement cache stays with the physical connection, for the next use of it from the pool
+        statementCache = null;
         if (connection != null) {
             try {
                 try {
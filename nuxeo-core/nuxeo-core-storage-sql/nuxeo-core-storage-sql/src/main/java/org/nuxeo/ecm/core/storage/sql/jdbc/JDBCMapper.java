@@ -89,6 +89,8 @@ import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.DialectOracle;
 import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.SQLStatement.ListCollector;
 import org.nuxeo.runtime.api.Framework;
 
+import com.codahale.metrics.Timer;
+
 /**
  * A {@link JDBCMapper} maps objects to and from a JDBC database. It is specific to a given database connection, as it
  * computes statements.
@@ -663,6 +665,19 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
         }
     }
 
+    /**
+     * Translates a query to SQL, reusing a previous translation of the same query if possible.
+     *
+     * @since 11.1
+     */
+    protected QueryMaker.Query buildQuery(QueryMaker queryMaker, String query, QueryFilter queryFilter,
+            Object... params) {
+        if (sqlInfo.queryCache == null) {
+            return queryMaker.buildQuery(sqlInfo, model, pathResolver, query, queryFilter, params);
+        }
+        return sqlInfo.queryCache.buildQuery(queryMaker, sqlInfo, model, pathResolver, query, queryFilter, params);
+    }
+
     protected QueryMaker findQueryMaker(String queryType) {
         for (Class<? extends QueryMaker> klass : queryMakerService.getQueryMakers()) {
             QueryMaker queryMaker;
@@ -770,7 +785,7 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
         if (queryMaker == null) {
             throw new NuxeoException("No QueryMaker accepts query: " + queryType + ": " + query);
         }
-        QueryMaker.Query q = queryMaker.buildQuery(sqlInfo, model, pathResolver, query, queryFilter, params);
+        QueryMaker.Query q = buildQuery(queryMaker, query, queryFilter, params);
 
         if (q == null) {
             logger.log("Query cannot return anything due to conflicting clauses");
@@ -808,7 +823,12 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
             for (Serializable object : q.selectParams) {
                 setToPreparedStatement(ps, i++, object);
             }
+            Timer.Context timerContext = sqlInfo.statementMetrics == null ? null
+                    : sqlInfo.statementMetrics.getTimer(q.selectInfo.sql).time();
             try (ResultSet rs = ps.executeQuery()) {
+                if (timerContext != null) {
+                    timerContext.stop();
+                }
                 countExecute();
 
                 // limit/offset
@@ -933,7 +953,7 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
     @SuppressWarnings("resource") // PreparedStatement + ResultSet for cursor, must not be closed
     protected ScrollResult<String> scrollSearch(String query, QueryFilter queryFilter, int batchSize, int keepAliveSeconds) {
         QueryMaker queryMaker = findQueryMaker("NXQL");
-        QueryMaker.Query q = queryMaker.buildQuery(sqlInfo, model, pathResolver, query, queryFilter);
+        QueryMaker.Query q = buildQuery(queryMaker, query, queryFilter);
         if (q == null) {
             logger.log("Query cannot return anything due to conflicting clauses");
             throw new NuxeoException("Query cannot return anything due to conflicting clauses");
@@ -1042,6 +1062,11 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
         return new ScrollResultImpl<>(NOSCROLL_ID, ids);
     }
 
+    @Override
+    public boolean closeScroll(String scrollId) {
+        return unregisterCursor(scrollId);
+    }
+
     @Override
     public ScrollResult<String> scroll(String scrollId) {
         if (NOSCROLL_ID.equals(scrollId) || !dialect.supportsScroll()) {
@@ -67,8 +67,13 @@ import org.nuxeo.ecm.core.storage.sql.jdbc.db.Column;
 import org.nuxeo.ecm.core.storage.sql.jdbc.db.Table;
 import org.nuxeo.ecm.core.storage.sql.jdbc.db.Update;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.services.config.ConfigurationService;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
 /**
  * A {@link JDBCRowMapper} maps {@link Row}s to and from a JDBC database.
  */
@@ -95,6 +100,9 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
 
     private final CollectionIO scalarCollectionIO;
 
+    /** Rows inserted, to measure the ingestion rate. */
+    private final Meter insertedRows;
+
     public JDBCRowMapper(Model model, SQLInfo sqlInfo, ClusterInvalidator clusterInvalidator,
             InvalidationsPropagator invalidationsPropagator) {
         super(model, sqlInfo);
@@ -104,6 +112,9 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
         collectionDeleteBeforeAppend = configurationService.isBooleanTrue(COLLECTION_DELETE_BEFORE_APPEND_PROP);
         aclCollectionIO = new ACLCollectionIO(collectionDeleteBeforeAppend);
         scalarCollectionIO = new ScalarCollectionIO(collectionDeleteBeforeAppend);
+        MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+        insertedRows = registry.meter(
+                MetricRegistry.name("nuxeo", "repositories", getRepositoryName(), "rows", "inserted"));
     }
 
     @Override
@@ -260,7 +271,7 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
         if (logger.isLogEnabled()) {
             logger.logSQL(sql, ids);
         }
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+        try (PreparedStatement ps = prepareCachedStatement(sql)) {
             int i = 1;
             for (Serializable id : ids) {
                 dialect.setId(ps, i++, id);
@@ -345,7 +356,7 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
         if (joinMap == null) {
             joinMap = Collections.emptyMap();
         }
-        try (PreparedStatement ps = connection.prepareStatement(select.sql)) {
+        try (PreparedStatement ps = prepareCachedStatement(select.sql)) {
 
             /*
              * Compute where part.
@@ -505,29 +516,91 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
 
     /**
      * Inserts multiple rows, all for the same table.
+     * <p>
+     * When the dialect supports it, rows are written using multi-row {@code INSERT}s. To keep the number of distinct
+     * statements low, rows are split in chunks of the maximum multi-row size, then of decreasing powers of two.
      */
     protected void insertSimpleRows(String tableName, List<Row> rows) {
         if (rows.isEmpty()) {
             return;
         }
-        String sql = sqlInfo.getInsertSql(tableName);
-        if (sql == null) {
+        if (sqlInfo.getInsertSql(tableName) == null) {
             throw new NuxeoException("Unknown table: " + tableName);
         }
-        boolean batched = supportsBatchUpdates && rows.size() > 1;
-        String loggedSql = batched ? sql + " -- BATCHED" : sql;
         List<Column> columns = sqlInfo.getInsertColumns(tableName);
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+        int maxRowsPerStatement = dialect.getMultiRowInsertSize(columns.size());
+        int start = 0;
+        for (Pair<Integer, Integer> chunk : getMultiRowInsertChunks(rows.size(), maxRowsPerStatement)) {
+            int rowsPerStatement = chunk.getLeft().intValue();
+            int end = start + rowsPerStatement * chunk.getRight().intValue();
+            insertSimpleRows(tableName, rows.subList(start, end), columns, rowsPerStatement);
+            start = end;
+        }
+        insertedRows.mark(rows.size());
+    }
+
+    /**
+     * Splits rows to insert in chunks of the maximum multi-row size, then of decreasing powers of two.
+     * <p>
+     * Successive statements of the maximum size are grouped in the same chunk, to be batched together.
+     *
+     * @param rowCount the number of rows to insert
+     * @param maxRowsPerStatement the maximum number of rows per statement
+     * @return the chunks, as pairs of the number of rows per statement and the number of statements
+     * @since 11.1
+     */
+    protected static List<Pair<Integer, Integer>> getMultiRowInsertChunks(int rowCount, int maxRowsPerStatement) {
+        List<Pair<Integer, Integer>> chunks = new ArrayList<>();
+        int remaining = rowCount;
+        while (remaining > 0) {
+            int rowsPerStatement;
+            int statements;
+            if (remaining >= maxRowsPerStatement) {
+                rowsPerStatement = maxRowsPerStatement;
+                statements = remaining / rowsPerStatement;
+            } else {
+                rowsPerStatement = Integer.highestOneBit(remaining);
+                statements = 1;
+            }
+            chunks.add(Pair.of(Integer.valueOf(rowsPerStatement), Integer.valueOf(statements)));
+            remaining -= rowsPerStatement * statements;
+        }
+        return chunks;
+    }
+
+    /**
+     * Inserts multiple rows, all for the same table, using statements inserting a given number of rows.
+     *
+     * @param rows the rows, whose number must be a multiple of {@code rowsPerStatement}
+     * @since 11.1
+     */
+    protected void insertSimpleRows(String tableName, List<Row> rows, List<Column> columns, int rowsPerStatement) {
+        String sql = sqlInfo.getInsertSql(tableName, rowsPerStatement);
+        boolean batched = supportsBatchUpdates && rows.size() > rowsPerStatement;
+        String loggedSql = sqlInfo.getInsertSql(tableName);
+        if (rowsPerStatement > 1) {
+            loggedSql += " -- MULTI-ROW " + rowsPerStatement;
+        }
+        if (batched) {
+            loggedSql += " -- BATCHED";
+        }
+        try (PreparedStatement ps = prepareCachedStatement(sql)) {
             int batch = 0;
+            int rowInStatement = 0;
+            int i = 1;
             for (Iterator<Row> rowIt = rows.iterator(); rowIt.hasNext();) {
                 Row row = rowIt.next();
                 if (logger.isLogEnabled()) {
                     logger.logSQL(loggedSql, columns, row);
                 }
-                int i = 1;
                 for (Column column : columns) {
                     column.setToPreparedStatement(ps, i++, row.get(column.getKey()));
                 }
+                if (++rowInStatement < rowsPerStatement) {
+                    continue;
+                }
+                rowInStatement = 0;
+                i = 1;
                 if (batched) {
                     ps.addBatch();
                     batch++;
@@ -563,7 +636,7 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
         String sql = sqlInfo.getInsertSql(tableName);
         List<Column> columns = sqlInfo.getInsertColumns(tableName);
         CollectionIO io = getCollectionIO(tableName);
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+        try (PreparedStatement ps = prepareCachedStatement(sql)) {
             io.executeInserts(ps, rowus, columns, supportsBatchUpdates, sql, this);
         } catch (SQLException e) {
             checkConcurrentUpdate(e);
@@ -592,7 +665,7 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
             boolean batched = supportsBatchUpdates && rowUpdates.size() > 1
                     && (dialect.supportsBatchUpdateCount() || !changeTokenEnabled);
             String loggedSql = batched ? update.sql + " -- BATCHED" : update.sql;
-            try (PreparedStatement ps = connection.prepareStatement(update.sql)) {
+            try (PreparedStatement ps = prepareCachedStatement(update.sql)) {
                 int batch = 0;
                 for (Iterator<RowUpdate> rowIt = rowUpdates.iterator(); rowIt.hasNext();) {
                     RowUpdate rowu = rowIt.next();
@@ -817,7 +890,7 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
         if (logger.isLogEnabled()) {
             logger.logSQL(sql, ids);
         }
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+        try (PreparedStatement ps = prepareCachedStatement(sql)) {
             int i = 1;
             for (Serializable id : ids) {
                 dialect.setId(ps, i++, id);
@@ -882,7 +955,7 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
         if (logger.isLogEnabled()) {
             logger.logSQL(sql, Collections.singletonList(id));
         }
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+        try (PreparedStatement ps = prepareCachedStatement(sql)) {
             List<Column> columns = sqlInfo.selectFragmentById.get(tableName).whatColumns;
             dialect.setId(ps, 1, id); // assumes only one primary column
             try (ResultSet rs = ps.executeQuery()) {
@@ -0,0 +1,167 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.mutable.MutableBoolean;
+import org.nuxeo.ecm.core.api.impl.FacetFilter;
+import org.nuxeo.ecm.core.query.QueryFilter;
+import org.nuxeo.ecm.core.query.sql.NXQL;
+import org.nuxeo.ecm.core.query.sql.model.SQLQuery.Transformer;
+import org.nuxeo.ecm.core.storage.sql.Model;
+import org.nuxeo.ecm.core.storage.sql.Session.PathResolver;
+import org.nuxeo.ecm.core.storage.sql.jdbc.QueryMaker.Query;
+import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.Dialect;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+
+/**
+ * A repository-wide LRU cache of the SQL translations of queries.
+ * <p>
+ * The translation is cached independently of the actual principals of the {@link QueryFilter}, which are only used as
+ * parameters of the SQL: the query is translated with placeholder principals, which are replaced by the actual ones
+ * when the translation is reused.
+ * <p>
+ * Queries resolving paths (whose translation depends on the repository content), using the {@code NOW()} function
+ * (evaluated at translation time) or using non-identity security query transformers are not cached.
+ *
+ * @since 11.1
+ */
+public class QueryCache {
+
+    protected static final String[] PRINCIPALS_PLACEHOLDER = { "\0principals\0" };
+
+    /** Conservative detection of the NOW function, a match in a string literal only prevents caching. */
+    protected static final Pattern NOW_FUNCTION = Pattern.compile("\\b" + NXQL.NOW_FUNCTION + "\\s*\\(",
+            Pattern.CASE_INSENSITIVE);
+
+    protected final Dialect dialect;
+
+    protected final Map<List<Object>, Query> cache;
+
+    protected final Counter hits;
+
+    protected final Counter misses;
+
+    public QueryCache(Dialect dialect, int maxSize, MetricRegistry registry, String repositoryName) {
+        this.dialect = dialect;
+        cache = Collections.synchronizedMap(new LinkedHashMap<List<Object>, Query>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Query> eldest) {
+                return size() > maxSize;
+            }
+        });
+        hits = registry.counter(MetricRegistry.name("nuxeo", "repositories", repositoryName, "queryCache", "hits"));
+        misses = registry.counter(
+                MetricRegistry.name("nuxeo", "repositories", repositoryName, "queryCache", "misses"));
+    }
+
+    /**
+     * Builds the SQL query for a query, or gets it from the cache.
+     *
+     * @see QueryMaker#buildQuery
+     */
+    public Query buildQuery(QueryMaker queryMaker, SQLInfo sqlInfo, Model model, PathResolver pathResolver,
+            String query, QueryFilter queryFilter, Object... params) {
+        if (!isCacheable(query, queryFilter)) {
+            return queryMaker.buildQuery(sqlInfo, model, pathResolver, query, queryFilter, params);
+        }
+        List<Object> key = getKey(queryMaker, query, queryFilter, params);
+        Query q = cache.get(key);
+        if (q != null) {
+            hits.inc();
+            return withPrincipals(q, queryFilter.getPrincipals());
+        }
+        misses.inc();
+        QueryFilter placeholderFilter = queryFilter.getPrincipals() == null ? queryFilter
+                : new QueryFilter(queryFilter.getPrincipal(), PRINCIPALS_PLACEHOLDER, queryFilter.getPermissions(),
+                        queryFilter.getFacetFilter(), queryFilter.getQueryTransformers(), queryFilter.getLimit(),
+                        queryFilter.getOffset());
+        MutableBoolean pathResolved = new MutableBoolean();
+        PathResolver trackingPathResolver = path -> {
+            pathResolved.setTrue();
+            return pathResolver.getIdForPath(path);
+        };
+        q = queryMaker.buildQuery(sqlInfo, model, trackingPathResolver, query, placeholderFilter, params);
+        if (q == null) {
+            return null;
+        }
+        if (pathResolved.isFalse()) {
+            cache.put(key, q);
+        }
+        return withPrincipals(q, queryFilter.getPrincipals());
+    }
+
+    protected boolean isCacheable(String query, QueryFilter queryFilter) {
+        if (NOW_FUNCTION.matcher(query).find()) {
+            // the current date is bound as a parameter when translating the query
+            return false;
+        }
+        for (Transformer transformer : queryFilter.getQueryTransformers()) {
+            if (transformer != Transformer.IDENTITY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected List<Object> getKey(QueryMaker queryMaker, String query, QueryFilter queryFilter, Object... params) {
+        FacetFilter facetFilter = queryFilter.getFacetFilter();
+        String[] permissions = queryFilter.getPermissions();
+        Boolean hasPrincipals = Boolean.valueOf(queryFilter.getPrincipals() != null);
+        return Arrays.asList(queryMaker.getClass().getName(), query, hasPrincipals,
+                permissions == null ? null : Arrays.asList(permissions),
+                facetFilter == null ? null : facetFilter.required, facetFilter == null ? null : facetFilter.excluded,
+                facetFilter == null ? null : facetFilter.shortcut, Arrays.asList(params));
+    }
+
+    /**
+     * Returns a copy of the query where the placeholder principals are replaced by the actual ones.
+     */
+    protected Query withPrincipals(Query q, String[] principals) {
+        Object placeholder = dialect.supportsArrays() ? PRINCIPALS_PLACEHOLDER
+                : StringUtils.join(PRINCIPALS_PLACEHOLDER, Dialect.ARRAY_SEP);
+        Serializable actual = dialect.supportsArrays() ? principals : StringUtils.join(principals, Dialect.ARRAY_SEP);
+        Query res = new Query();
+        res.selectInfo = q.selectInfo;
+        res.selectParams = new ArrayList<>(q.selectParams.size());
+        for (Serializable param : q.selectParams) {
+            boolean isPlaceholder = param == placeholder || (param instanceof String && param.equals(placeholder));
+            res.selectParams.add(isPlaceholder ? actual : param);
+        }
+        return res;
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+}
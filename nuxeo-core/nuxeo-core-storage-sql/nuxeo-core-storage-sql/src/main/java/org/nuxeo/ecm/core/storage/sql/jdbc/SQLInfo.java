@@ -34,6 +34,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.nuxeo.ecm.core.api.NuxeoException;
@@ -132,6 +134,36 @@ public class SQLInfo {
 
     protected List<Column> getBinariesColumns;
 
+    /**
+     * Memoized SQL for statements depending on a number of ids or a set of columns.
+     *
+     * @since 11.1
+     */
+    protected final Map<List<Object>, Object> sqlCache = new ConcurrentHashMap<>();
+
+    protected static final int SQL_CACHE_MAX_SIZE = 10_000;
+
+    /**
+     * The per-statement metrics, or {@code null} if not tracked.
+     *
+     * @since 11.1
+     */
+    public StatementMetrics statementMetrics;
+
+    /**
+     * The prepared statements caches by physical connection, or {@code null} if disabled.
+     *
+     * @since 11.1
+     */
+    public StatementCache.Registry statementCaches;
+
+    /**
+     * The cache of query translations, or {@code null} if disabled.
+     *
+     * @since 11.1
+     */
+    public QueryCache queryCache;
+
     /**
      * Generates and holds the needed SQL statements given a {@link Model} and a {@link Dialect}.
      *
@@ -183,6 +215,23 @@ public class SQLInfo {
         return database;
     }
 
+    /**
+     * Gets a memoized SQL statement, or computes it.
+     *
+     * @since 11.1
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> T getCachedSql(List<Object> key, Supplier<T> supplier) {
+        T value = (T) sqlCache.get(key);
+        if (value == null) {
+            value = supplier.get();
+            if (sqlCache.size() < SQL_CACHE_MAX_SIZE) {
+                sqlCache.put(key, value);
+            }
+        }
+        return value;
+    }
+
     // ----- select -----
 
     public String getSelectRootIdSql() {
@@ -269,6 +318,31 @@ public class SQLInfo {
         return insertSqlMap.get(tableName);
     }
 
+    /**
+     * Returns the SQL {@code INSERT} to add several rows at once. The columns are the same as for
+     * {@link #getInsertSql(String)}, repeated for each row.
+     *
+     * @param tableName the table name
+     * @param n the number of rows to insert
+     * @return the SQL {@code INSERT} statement
+     * @since 11.1
+     */
+    public String getInsertSql(String tableName, int n) {
+        if (n == 1) {
+            return getInsertSql(tableName);
+        }
+        List<Object> key = Arrays.asList("insert", tableName, Integer.valueOf(n));
+        return getCachedSql(key, () -> computeInsertSql(tableName, n));
+    }
+
+    protected String computeInsertSql(String tableName, int n) {
+        Insert insert = new Insert(database.getTable(tableName));
+        for (Column column : getInsertColumns(tableName)) {
+            insert.addColumn(column);
+        }
+        return insert.getStatement(n);
+    }
+
     /**
      * Returns the list of columns to use for an {@INSERT} statement {@link #getInsertSql}.
      *
@@ -332,6 +406,24 @@ public class SQLInfo {
      * </pre>
      */
     public SQLInfoSelect getUpdateById(String tableName, RowUpdate rowu) {
+        List<Object> key = new ArrayList<>(rowu.keys.size() * 2 + 2);
+        key.add("update");
+        key.add(tableName);
+        for (String k : rowu.keys) {
+            Serializable value = rowu.row.get(k);
+            key.add(k);
+            key.add(Boolean.valueOf(value instanceof Delta && ((Delta) value).getBase() != null));
+        }
+        if (rowu.conditions != null) {
+            for (Entry<String, Serializable> es : rowu.conditions.entrySet()) {
+                key.add(es.getKey());
+                key.add(Boolean.valueOf(es.getValue() == null));
+            }
+        }
+        return getCachedSql(key, () -> computeUpdateById(tableName, rowu));
+    }
+
+    protected SQLInfoSelect computeUpdateById(String tableName, RowUpdate rowu) {
         Table table = database.getTable(tableName);
         Update update = new Update(table);
 
@@ -392,6 +484,13 @@ public class SQLInfo {
      */
     public SQLInfoSelect getSelectFragmentsByIds(String tableName, int nids, String[] orderBys,
             Set<String> skipColumns) {
+        List<Object> key = Arrays.asList("selectByIds", tableName, Integer.valueOf(nids),
+                orderBys == null ? null : Arrays.asList(orderBys), skipColumns);
+        return getCachedSql(key, () -> computeSelectFragmentsByIds(tableName, nids, orderBys, skipColumns));
+    }
+
+    protected SQLInfoSelect computeSelectFragmentsByIds(String tableName, int nids, String[] orderBys,
+            Set<String> skipColumns) {
         Table table = database.getTable(tableName);
         List<Column> whatColumns = new LinkedList<>();
         List<String> whats = new LinkedList<>();
@@ -542,6 +641,11 @@ public class SQLInfo {
      * @return the SQL {@code DELETE} statement with a {@code IN} for the keys
      */
     public String getDeleteSql(String tableName, int n) {
+        List<Object> key = Arrays.asList("delete", tableName, Integer.valueOf(n));
+        return getCachedSql(key, () -> computeDeleteSql(tableName, n));
+    }
+
+    protected String computeDeleteSql(String tableName, int n) {
         Table table = database.getTable(tableName);
         Delete delete = new Delete(table);
         String where = null;
@@ -0,0 +1,235 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.codahale.metrics.Timer;
+
+/**
+ * A cache of {@link PreparedStatement}s for a physical connection, keyed by SQL text.
+ * <p>
+ * As mappers get a connection handle from the pool for each call, the caches are kept in a {@link Registry} by
+ * physical connection, so that they live as long as the physical connection stays open in the pool.
+ * <p>
+ * The statements returned by {@link #prepareStatement} are used as usual and closed when done; closing them puts them
+ * back in the cache instead of closing the underlying statement. If a statement for the same SQL is already in use, a
+ * new one is prepared. The least recently used statements are closed when the cache is full.
+ * <p>
+ * Statement executions are timed with the {@link StatementMetrics} of the repository.
+ * <p>
+ * Only statements without specific settings (fetch size, max rows, result set type) must be prepared through this
+ * cache, as a statement keeps its settings between uses.
+ *
+ * @since 11.1
+ */
+public class StatementCache {
+
+    private static final Log log = LogFactory.getLog(StatementCache.class);
+
+    protected final Connection connection;
+
+    protected final StatementMetrics metrics;
+
+    protected final Map<String, PreparedStatement> statements;
+
+    protected boolean closed;
+
+    public StatementCache(Connection connection, StatementMetrics metrics, int maxSize) {
+        this.connection = connection;
+        this.metrics = metrics;
+        statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > maxSize) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets a prepared statement for the given SQL, from the cache if possible.
+     */
+    public synchronized PreparedStatement prepareStatement(String sql) throws SQLException {
+        if (closed) {
+            throw new SQLException("Statement cache is closed");
+        }
+        PreparedStatement ps = statements.remove(sql); // in use until closed
+        if (ps == null) {
+            ps = connection.prepareStatement(sql);
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, new CachedStatementHandler(sql, ps));
+    }
+
+    protected synchronized void release(String sql, PreparedStatement ps) throws SQLException {
+        if (closed) {
+            ps.close();
+            return;
+        }
+        ps.clearParameters();
+        ps.clearBatch();
+        PreparedStatement old = statements.put(sql, ps);
+        if (old != null) {
+            // statement for the same SQL used concurrently
+            old.close();
+        }
+    }
+
+    /**
+     * Closes all the cached statements. Must be called before closing the connection.
+     */
+    public synchronized void close() {
+        closed = true;
+        for (Iterator<PreparedStatement> it = statements.values().iterator(); it.hasNext();) {
+            closeQuietly(it.next());
+            it.remove();
+        }
+    }
+
+    protected static void closeQuietly(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException e) {
+            log.warn("Cannot close statement: " + e, e);
+        }
+    }
+
+    /**
+     * The statement caches of a repository, one per physical connection.
+     * <p>
+     * The cache of a physical connection that was closed by the pool is discarded the next time a cache is created.
+     */
+    public static class Registry {
+
+        protected final StatementMetrics metrics;
+
+        protected final int maxSize;
+
+        protected final Map<Connection, StatementCache> caches = new IdentityHashMap<>();
+
+        public Registry(StatementMetrics metrics, int maxSize) {
+            this.metrics = metrics;
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Gets the statement cache for a physical connection, creating it if needed.
+         */
+        public synchronized StatementCache get(Connection physicalConnection) {
+            StatementCache cache = caches.get(physicalConnection);
+            if (cache == null) {
+                purgeClosed();
+                cache = new StatementCache(physicalConnection, metrics, maxSize);
+                caches.put(physicalConnection, cache);
+            }
+            return cache;
+        }
+
+        protected void purgeClosed() {
+            for (Iterator<Map.Entry<Connection, StatementCache>> it = caches.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<Connection, StatementCache> en = it.next();
+                boolean connectionClosed;
+                try {
+                    connectionClosed = en.getKey().isClosed();
+                } catch (SQLException e) {
+                    connectionClosed = true;
+                }
+                if (connectionClosed) {
+                    en.getValue().close();
+                    it.remove();
+                }
+            }
+        }
+
+        public synchronized int size() {
+            return caches.size();
+        }
+
+        /**
+         * Closes all the cached statements.
+         */
+        public synchronized void close() {
+            caches.values().forEach(StatementCache::close);
+            caches.clear();
+        }
+    }
+
+    /**
+     * Proxy for a cached statement, putting it back in the cache on close and timing its executions.
+     */
+    protected class CachedStatementHandler implements InvocationHandler {
+
+        protected final String sql;
+
+        protected final PreparedStatement ps;
+
+        protected boolean released;
+
+        protected CachedStatementHandler(String sql, PreparedStatement ps) {
+            this.sql = sql;
+            this.ps = ps;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("close") && method.getParameterCount() == 0) {
+                if (!released) {
+                    released = true;
+                    release(sql, ps);
+                }
+                return null;
+            } else if (name.equals("isClosed") && method.getParameterCount() == 0) {
+                return Boolean.valueOf(released);
+            } else if (released) {
+                throw new SQLException("Statement is closed");
+            }
+            Timer.Context context = name.startsWith("execute") ? metrics.getTimer(sql).time() : null;
+            try {
+                return method.invoke(ps, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (context != null) {
+                    context.stop();
+                }
+            }
+        }
+    }
+
+}
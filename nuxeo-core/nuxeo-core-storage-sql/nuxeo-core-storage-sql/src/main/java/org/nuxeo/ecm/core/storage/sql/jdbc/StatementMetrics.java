@@ -0,0 +1,123 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * Per-statement timers for the SQL executed on a repository.
+ * <p>
+ * Each distinct SQL statement gets a timer named {@code nuxeo.repositories.<repo>.statements.<hash>}, the SQL for a
+ * hash is logged at DEBUG level when the timer is created. The {@code nuxeo.repositories.<repo>.statements.top} gauge
+ * gives the most costly statements with their SQL. Past {@link #MAX_STATEMENTS} distinct statements, the remaining ones
+ * share the {@code other} timer, to protect against the variety of SQL generated by queries.
+ *
+ * @since 11.1
+ */
+public class StatementMetrics {
+
+    private static final Log log = LogFactory.getLog(StatementMetrics.class);
+
+    public static final int MAX_STATEMENTS = 1000;
+
+    public static final int TOP_SIZE = 10;
+
+    protected final MetricRegistry registry;
+
+    protected final String prefix;
+
+    protected final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    protected final Timer other;
+
+    public StatementMetrics(MetricRegistry registry, String repositoryName) {
+        this.registry = registry;
+        prefix = MetricRegistry.name("nuxeo", "repositories", repositoryName, "statements");
+        registry.removeMatching((name, metric) -> name.startsWith(prefix + '.'));
+        other = registry.timer(MetricRegistry.name(prefix, "other"));
+        registry.register(MetricRegistry.name(prefix, "top"), (Gauge<String>) () -> formatTop(TOP_SIZE));
+    }
+
+    /**
+     * Gets the timer for the given SQL statement.
+     */
+    public Timer getTimer(String sql) {
+        Timer timer = timers.get(sql);
+        if (timer == null) {
+            if (timers.size() >= MAX_STATEMENTS) {
+                return other;
+            }
+            timer = timers.computeIfAbsent(sql, this::newTimer);
+        }
+        return timer;
+    }
+
+    protected Timer newTimer(String sql) {
+        String hash = Integer.toHexString(sql.hashCode());
+        if (log.isDebugEnabled()) {
+            log.debug("SQL statement " + hash + ": " + sql);
+        }
+        return registry.timer(MetricRegistry.name(prefix, hash));
+    }
+
+    /**
+     * Gets the statements having the highest total execution time.
+     */
+    public List<Map.Entry<String, Timer>> getTop(int n) {
+        return timers.entrySet()
+                     .stream()
+                     .sorted(Comparator.comparingDouble((Map.Entry<String, Timer> e) -> -totalTime(e.getValue())))
+                     .limit(n)
+                     .collect(Collectors.toList());
+    }
+
+    protected static double totalTime(Timer timer) {
+        return timer.getCount() * timer.getSnapshot().getMean();
+    }
+
+    protected String formatTop(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Timer> en : getTop(n)) {
+            Timer timer = en.getValue();
+            sb.append(String.format("count=%d mean=%.3fms: %s%n", timer.getCount(),
+                    timer.getSnapshot().getMean() / 1_000_000, en.getKey()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Unregisters the metrics.
+     */
+    public void close() {
+        registry.removeMatching((name, metric) -> name.startsWith(prefix + '.'));
+        timers.clear();
+    }
+
+}
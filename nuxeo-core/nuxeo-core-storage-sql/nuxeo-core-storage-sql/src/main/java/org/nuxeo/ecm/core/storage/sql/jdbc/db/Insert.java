@@ -70,6 +70,22 @@ public class Insert implements Serializable {
      * @return the SQL insert or copy statement
      */
     public String getStatement() {
+        return getStatement(1);
+    }
+
+    /**
+     * Gets the statement to insert several rows at once.
+     * <p>
+     * Example: {@code INSERT INTO foo (a, b) VALUES (?, ?), (?, ?)}
+     *
+     * @param n the number of rows, must be 1 if {@link #setValues} has been called or if there are no columns
+     * @return the SQL insert statement
+     * @since 11.1
+     */
+    public String getStatement(int n) {
+        if (n != 1 && (insertValues != null || columns.isEmpty())) {
+            throw new IllegalArgumentException("Cannot insert several rows with: " + getStatement());
+        }
         StringBuilder sb = new StringBuilder(128);
         sb.append("INSERT INTO ");
         sb.append(table.getQuotedName());
@@ -89,9 +105,14 @@ public class Insert implements Serializable {
             sb.append(String.join(", ", columnNames));
             sb.append(") ");
             if (insertValues == null) {
-                sb.append("VALUES (");
-                sb.append(String.join(", ", values));
-                sb.append(')');
+                sb.append("VALUES ");
+                String rowValues = '(' + String.join(", ", values) + ')';
+                for (int i = 0; i < n; i++) {
+                    if (i > 0) {
+                        sb.append(", ");
+                    }
+                    sb.append(rowValues);
+                }
             } else {
                 sb.append(insertValues);
             }
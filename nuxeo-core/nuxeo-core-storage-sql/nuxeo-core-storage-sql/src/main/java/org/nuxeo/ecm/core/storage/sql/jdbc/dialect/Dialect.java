@@ -97,6 +97,17 @@ public abstract class Dialect {
      */
     public static final String DIALECT_CLASS = "nuxeo.vcs.dialect";
 
+    /**
+     * Property to configure the maximum number of rows written by a single multi-row {@code INSERT}, for the dialects
+     * supporting it. Use 1 to disable multi-row inserts.
+     *
+     * @since 11.1
+     */
+    public static final String MULTI_ROW_INSERT_SIZE_PROP = "nuxeo.vcs.insert.multirow.size";
+
+    /** @since 11.1 */
+    public static final String MULTI_ROW_INSERT_SIZE_DEFAULT = "100";
+
     public static final Map<String, Class<? extends Dialect>> DIALECTS = new HashMap<>();
 
     static {
@@ -190,6 +201,9 @@ public abstract class Dialect {
 
     protected final int readAclMaxSize;
 
+    /** @since 11.1 */
+    protected final int multiRowInsertSize;
+
     /**
      * Creates a {@code Dialect} by connecting to the datasource to check what database is used.
      */
@@ -277,6 +291,12 @@ public abstract class Dialect {
             softDeleteEnabled = repositoryDescriptor.getSoftDeleteEnabled();
             proxiesEnabled = repositoryDescriptor.getProxiesEnabled();
         }
+        if (Framework.isInitialized()) {
+            multiRowInsertSize = Integer.parseInt(
+                    Framework.getProperty(MULTI_ROW_INSERT_SIZE_PROP, MULTI_ROW_INSERT_SIZE_DEFAULT));
+        } else {
+            multiRowInsertSize = Integer.parseInt(MULTI_ROW_INSERT_SIZE_DEFAULT);
+        }
     }
 
     /**
@@ -1357,6 +1377,44 @@ public abstract class Dialect {
         return true;
     }
 
+    /**
+     * Does the dialect support inserting several rows with a single {@code INSERT ... VALUES (...), (...)} statement.
+     *
+     * @since 11.1
+     */
+    public boolean supportsMultiRowInsert() {
+        return false;
+    }
+
+    /**
+     * Gets the maximum number of bind parameters allowed in a single statement, or 0 if there is no such limit.
+     *
+     * @since 11.1
+     */
+    public int getMaxBindParameters() {
+        return 0;
+    }
+
+    /**
+     * Gets the maximum number of rows to write with a single multi-row {@code INSERT}, taking into account the maximum
+     * number of bind parameters of the database.
+     *
+     * @param columnCount the number of columns inserted for each row
+     * @return the maximum number of rows, 1 if multi-row inserts are not supported
+     * @since 11.1
+     */
+    public int getMultiRowInsertSize(int columnCount) {
+        if (!supportsMultiRowInsert() || columnCount == 0) {
+            return 1;
+        }
+        int size = multiRowInsertSize;
+        int maxBindParameters = getMaxBindParameters();
+        if (maxBindParameters > 0) {
+            size = Math.min(size, maxBindParameters / columnCount);
+        }
+        return Math.max(size, 1);
+    }
+
     /**
      * Registers return parameters.
      * <p>
@@ -289,6 +289,11 @@ public class DialectH2 extends Dialect {
         return String.format("NX_IN_TREE(%s, ?)", idColumnName);
     }
 
+    @Override
+    public boolean supportsMultiRowInsert() {
+        return true;
+    }
+
     @Override
     public boolean supportsArrays() {
         return false;
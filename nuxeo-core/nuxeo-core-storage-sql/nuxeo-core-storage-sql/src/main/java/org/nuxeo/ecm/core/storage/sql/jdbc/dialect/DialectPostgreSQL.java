@@ -948,6 +948,17 @@ public class DialectPostgreSQL extends Dialect {
         return true;
     }
 
+    @Override
+    public boolean supportsMultiRowInsert() {
+        return true;
+    }
+
+    @Override
+    public int getMaxBindParameters() {
+        // the protocol uses a 16-bit count of parameters
+        return Short.MAX_VALUE;
+    }
+
     @Override
     public boolean supportsArrays() {
         return true;
@@ -219,6 +219,11 @@ public class ConnectionImpl implements Session {
         return getSession().scroll(scrollId);
     }
 
+    @Override
+    public boolean closeScroll(String scrollId) {
+        return getSession().closeScroll(scrollId);
+    }
+
     @Override
     public boolean hasChildNode(Node parent, String name, boolean complexProp) {
         return getSession().hasChildNode(parent, name, complexProp);
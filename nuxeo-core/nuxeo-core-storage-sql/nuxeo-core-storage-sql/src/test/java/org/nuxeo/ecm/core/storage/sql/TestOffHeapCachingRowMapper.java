@@ -0,0 +1,260 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.transaction.xa.Xid;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestOffHeapCachingRowMapper {
+
+    protected static final String REPOSITORY_NAME = "testoffheap";
+
+    /** The committed rows, shared by all the sessions. */
+    protected Map<RowId, Row> database;
+
+    protected InvalidationsPropagator propagator;
+
+    protected TxRowMapper sor1;
+
+    protected TxRowMapper sor2;
+
+    protected OffHeapCachingRowMapper mapper1;
+
+    protected OffHeapCachingRowMapper mapper2;
+
+    @Before
+    public void setUp() {
+        database = new HashMap<>();
+        propagator = new InvalidationsPropagator();
+        sor1 = new TxRowMapper();
+        sor2 = new TxRowMapper();
+        mapper1 = newMapper(sor1);
+        mapper2 = newMapper(sor2);
+    }
+
+    @After
+    public void tearDown() {
+        mapper1.close();
+        mapper2.close();
+        OffHeapCachingRowMapper.clearCaches();
+    }
+
+    protected OffHeapCachingRowMapper newMapper(RowMapper rowMapper) {
+        OffHeapCachingRowMapper mapper = new OffHeapCachingRowMapper();
+        Map<String, String> properties = new HashMap<>();
+        properties.put(OffHeapCachingRowMapper.SIZE_PROP, "1MB");
+        properties.put(OffHeapCachingRowMapper.CONCURRENCY_PROP, "1");
+        mapper.initialize(REPOSITORY_NAME, null, rowMapper, propagator, properties);
+        return mapper;
+    }
+
+    protected static Row row(String id, String title) {
+        Row row = new Row("dublincore", id);
+        row.putNew("title", title);
+        return row;
+    }
+
+    protected static RowMapper.RowBatch update(Row row) {
+        RowMapper.RowBatch batch = new RowMapper.RowBatch();
+        batch.updates.add(new RowMapper.RowUpdate(row, Collections.singleton("title")));
+        return batch;
+    }
+
+    @Test
+    public void testCommittedRowIsShared() throws Exception {
+        RowId rowId = new RowId("dublincore", "id1");
+        database.put(rowId, row("id1", "foo"));
+        assertEquals("foo", mapper1.readSimpleRow(rowId).get("title"));
+        // read from the shared cache by the other session
+        database.clear();
+        assertEquals("foo", mapper2.readSimpleRow(rowId).get("title"));
+    }
+
+    @Test
+    public void testRollbackDoesNotLeakUncommittedRows() throws Exception {
+        RowId rowId = new RowId("dublincore", "id1");
+        database.put(rowId, row("id1", "foo"));
+        assertEquals("foo", mapper1.readSimpleRow(rowId).get("title"));
+
+        // write then read back in the transaction
+        mapper1.write(update(row("id1", "uncommitted")));
+        assertEquals("uncommitted", mapper1.readSimpleRow(rowId).get("title"));
+        assertEquals("uncommitted", ((Row) mapper1.read(Collections.singleton(rowId), false).get(0)).get("title"));
+
+        // the other session doesn't see the uncommitted value while the transaction is running
+        assertEquals("foo", mapper2.readSimpleRow(rowId).get("title"));
+
+        mapper1.rollback(null);
+
+        // neither session sees the uncommitted value after rollback
+        assertEquals("foo", mapper2.readSimpleRow(rowId).get("title"));
+        assertEquals("foo", mapper1.readSimpleRow(rowId).get("title"));
+    }
+
+    @Test
+    public void testCommitInvalidatesOtherSessions() throws Exception {
+        RowId rowId = new RowId("dublincore", "id1");
+        database.put(rowId, row("id1", "foo"));
+        assertEquals("foo", mapper2.readSimpleRow(rowId).get("title"));
+
+        mapper1.write(update(row("id1", "bar")));
+        assertEquals("bar", mapper1.readSimpleRow(rowId).get("title"));
+        sor1.commit();
+        mapper1.sendInvalidations(null);
+
+        assertEquals("bar", mapper2.readSimpleRow(rowId).get("title"));
+        // committed value is now cached
+        database.clear();
+        assertEquals("bar", mapper2.readSimpleRow(rowId).get("title"));
+    }
+
+    @Test
+    public void testCreateRollback() throws Exception {
+        RowId rowId = new RowId("dublincore", "id1");
+        assertNull(mapper2.readSimpleRow(rowId));
+
+        RowMapper.RowBatch batch = new RowMapper.RowBatch();
+        batch.creates.add(row("id1", "new"));
+        mapper1.write(batch);
+        assertEquals("new", mapper1.readSimpleRow(rowId).get("title"));
+        mapper1.rollback(null);
+
+        assertNull(mapper2.readSimpleRow(rowId));
+        assertNull(mapper1.readSimpleRow(rowId));
+    }
+
+    /**
+     * Underlying mapper holding uncommitted writes per session, like a database connection in a transaction.
+     */
+    protected class TxRowMapper implements RowMapper {
+
+        protected final Map<RowId, Row> pending = new HashMap<>();
+
+        protected void commit() {
+            database.putAll(pending);
+            pending.clear();
+        }
+
+        @Override
+        public Serializable generateNewId() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<? extends RowId> read(Collection<RowId> rowIds, boolean cacheOnly) {
+            List<RowId> res = new ArrayList<>();
+            for (RowId rowId : rowIds) {
+                Row row = readSimpleRow(rowId);
+                res.add(row == null ? new RowId(rowId) : row);
+            }
+            return res;
+        }
+
+        @Override
+        public void write(RowBatch batch) {
+            batch.creates.forEach(row -> pending.put(new RowId(row), row.clone()));
+            batch.updates.forEach(rowu -> pending.put(new RowId(rowu.row), rowu.row.clone()));
+        }
+
+        @Override
+        public Row readSimpleRow(RowId rowId) {
+            Row row = pending.get(rowId);
+            if (row == null) {
+                row = database.get(rowId);
+            }
+            return row == null ? null : row.clone();
+        }
+
+        @Override
+        public Map<String, String> getBinaryFulltext(RowId rowId) {
+            return null;
+        }
+
+        @Override
+        public Serializable[] readCollectionRowArray(RowId rowId) {
+            Row row = readSimpleRow(rowId);
+            return row == null ? new Serializable[0] : row.values;
+        }
+
+        @Override
+        public List<Row> readSelectionRows(SelectionType selType, Serializable selId, Serializable filter,
+                Serializable criterion, boolean limitToOne) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Set<Serializable> readSelectionsIds(SelectionType selType, List<Serializable> values) {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public CopyResult copy(IdWithTypes source, Serializable destParentId, String destName, Row overwriteRow) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<NodeInfo> getDescendantsInfo(Serializable rootId) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void remove(Serializable rootId, List<NodeInfo> nodeInfos) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Invalidations receiveInvalidations() {
+            return null;
+        }
+
+        @Override
+        public void sendInvalidations(Invalidations invalidations) {
+        }
+
+        @Override
+        public void clearCache() {
+        }
+
+        @Override
+        public long getCacheSize() {
+            return 0;
+        }
+
+        @Override
+        public void rollback(Xid xid) {
+            pending.clear();
+        }
+    }
+
+}
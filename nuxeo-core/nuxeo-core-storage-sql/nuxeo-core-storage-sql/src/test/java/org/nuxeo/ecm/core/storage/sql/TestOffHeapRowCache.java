@@ -0,0 +1,106 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.Serializable;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class TestOffHeapRowCache {
+
+    protected static final Row ABSENT = new Row("absent", (Serializable) null);
+
+    protected MetricRegistry registry;
+
+    protected OffHeapRowCache cache;
+
+    @Before
+    public void setUp() {
+        registry = new MetricRegistry();
+        cache = new OffHeapRowCache(64 * 1024, 1, registry, "test");
+    }
+
+    protected static Row simpleRow(String id, String title) {
+        Row row = new Row("dublincore", id);
+        row.putNew("title", title);
+        row.putNew("count", Long.valueOf(3));
+        return row;
+    }
+
+    @Test
+    public void testPutGet() {
+        RowId rowId = new RowId("dublincore", "id1");
+        assertNull(cache.get(rowId, ABSENT));
+        cache.put(simpleRow("id1", "foo"), cache.getStamp(rowId));
+        Row row = cache.get(rowId, ABSENT);
+        assertNotNull(row);
+        assertEquals("id1", row.id);
+        assertEquals("foo", row.get("title"));
+        assertEquals(Long.valueOf(3), row.get("count"));
+        assertEquals(1, cache.getCount());
+        assertEquals(1, registry.counter("test.hits").getCount());
+        assertEquals(1, registry.counter("test.misses").getCount());
+    }
+
+    @Test
+    public void testCollection() {
+        RowId rowId = new RowId("tags", "id1");
+        cache.put(new Row("tags", "id1", new String[] { "a", "b" }), cache.getStamp(rowId));
+        Row row = cache.get(rowId, ABSENT);
+        assertEquals(2, row.values.length);
+        assertEquals("b", row.values[1]);
+    }
+
+    @Test
+    public void testAbsent() {
+        RowId rowId = new RowId("dublincore", "id1");
+        cache.put(rowId, cache.getStamp(rowId));
+        assertSame(ABSENT, cache.get(rowId, ABSENT));
+    }
+
+    @Test
+    public void testPutAfterInvalidationIgnored() {
+        RowId rowId = new RowId("dublincore", "id1");
+        long stamp = cache.getStamp(rowId);
+        cache.remove(rowId); // concurrent invalidation
+        cache.put(simpleRow("id1", "foo"), stamp);
+        assertNull(cache.get(rowId, ABSENT));
+    }
+
+    @Test
+    public void testEviction() {
+        for (int i = 0; i < 1000; i++) {
+            RowId rowId = new RowId("dublincore", "id" + i);
+            cache.put(simpleRow("id" + i, "title" + i), cache.getStamp(rowId));
+        }
+        assertEquals(1000 - cache.getCount(), registry.counter("test.evictions").getCount());
+        // most recent ones are still there
+        assertEquals("title999", cache.get(new RowId("dublincore", "id999"), ABSENT).get("title"));
+        assertNull(cache.get(new RowId("dublincore", "id0"), ABSENT));
+    }
+
+}
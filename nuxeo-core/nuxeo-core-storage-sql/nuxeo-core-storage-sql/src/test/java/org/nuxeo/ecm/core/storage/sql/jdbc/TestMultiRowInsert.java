@@ -0,0 +1,140 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+import org.nuxeo.ecm.core.storage.sql.ColumnType;
+import org.nuxeo.ecm.core.storage.sql.jdbc.db.Insert;
+import org.nuxeo.ecm.core.storage.sql.jdbc.db.Table;
+import org.nuxeo.ecm.core.storage.sql.jdbc.db.TableImpl;
+import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.Dialect;
+import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.DialectH2;
+import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.DialectMySQL;
+import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.DialectPostgreSQL;
+
+public class TestMultiRowInsert {
+
+    protected static DatabaseMetaData getMetaData() {
+        ResultSet empty = (ResultSet) Proxy.newProxyInstance(TestMultiRowInsert.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, (proxy, method, args) -> Boolean.FALSE);
+        return (DatabaseMetaData) Proxy.newProxyInstance(TestMultiRowInsert.class.getClassLoader(),
+                new Class<?>[] { DatabaseMetaData.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getDatabaseMajorVersion":
+                        return Integer.valueOf(11);
+                    case "getDatabaseMinorVersion":
+                        return Integer.valueOf(0);
+                    case "getColumns":
+                        return empty;
+                    default:
+                        return Boolean.FALSE;
+                    }
+                });
+    }
+
+    protected static String chunks(int rowCount, int maxRowsPerStatement) {
+        List<String> list = new ArrayList<>();
+        int total = 0;
+        for (Pair<Integer, Integer> chunk : JDBCRowMapper.getMultiRowInsertChunks(rowCount, maxRowsPerStatement)) {
+            list.add(chunk.getLeft() + "x" + chunk.getRight());
+            total += chunk.getLeft().intValue() * chunk.getRight().intValue();
+        }
+        assertEquals(rowCount, total);
+        return String.join(" ", list);
+    }
+
+    @Test
+    public void testChunks() {
+        assertEquals("", chunks(0, 100));
+        // single row
+        assertEquals("1x1", chunks(1, 100));
+        // exact multiple of the maximum size
+        assertEquals("100x1", chunks(100, 100));
+        assertEquals("100x3", chunks(300, 100));
+        // remainder
+        assertEquals("100x2 32x1 16x1 2x1", chunks(250, 100));
+        assertEquals("64x1 32x1 2x1 1x1", chunks(99, 100));
+        assertEquals("8x2 2x1 1x1", chunks(19, 8));
+        // multi-row insert not supported
+        assertEquals("1x1", chunks(1, 1));
+        assertEquals("1x7", chunks(7, 1));
+    }
+
+    @Test
+    public void testMultiRowInsertSize() {
+        Dialect h2 = new DialectH2(getMetaData(), null);
+        assertEquals(100, h2.getMultiRowInsertSize(10));
+        assertEquals(1, h2.getMultiRowInsertSize(0));
+        Dialect postgresql = new DialectPostgreSQL(getMetaData(), null);
+        assertEquals(100, postgresql.getMultiRowInsertSize(10));
+        // capped by the maximum number of bind parameters
+        assertEquals(Short.MAX_VALUE / 1000, postgresql.getMultiRowInsertSize(1000));
+        assertEquals(1, postgresql.getMultiRowInsertSize(Short.MAX_VALUE + 1));
+        // not supported
+        Dialect mysql = new DialectMySQL(getMetaData(), null);
+        assertEquals(1, mysql.getMultiRowInsertSize(10));
+    }
+
+    protected static Insert getInsert(Dialect dialect) {
+        Table table = new TableImpl(dialect, "dublincore", "dublincore");
+        Insert insert = new Insert(table);
+        insert.addColumn(table.addColumn("id", ColumnType.STRING, "id", null));
+        insert.addColumn(table.addColumn("title", ColumnType.STRING, "title", null));
+        return insert;
+    }
+
+    @Test
+    public void testInsertStatement() {
+        Insert insert = getInsert(new DialectH2(getMetaData(), null));
+        assertEquals("INSERT INTO \"dublincore\" (\"id\", \"title\") VALUES (?, ?)", insert.getStatement());
+        assertEquals(insert.getStatement(), insert.getStatement(1));
+        assertEquals("INSERT INTO \"dublincore\" (\"id\", \"title\") VALUES (?, ?), (?, ?), (?, ?)",
+                insert.getStatement(3));
+
+        insert = getInsert(new DialectPostgreSQL(getMetaData(), null));
+        assertEquals("INSERT INTO \"dublincore\" (\"id\", \"title\") VALUES (?, ?), (?, ?)", insert.getStatement(2));
+
+        insert = getInsert(new DialectMySQL(getMetaData(), null));
+        assertEquals("INSERT INTO `dublincore` (`id`, `title`) VALUES (?, ?), (?, ?)", insert.getStatement(2));
+    }
+
+    @Test
+    public void testInsertStatementWithValues() {
+        Insert insert = getInsert(new DialectH2(getMetaData(), null));
+        insert.setValues("SELECT ?, title FROM dublincore WHERE id = ?");
+        insert.getStatement(1);
+        try {
+            insert.getStatement(2);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.sql.DatabaseMetaData;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.ecm.core.query.QueryFilter;
+import org.nuxeo.ecm.core.query.sql.model.SQLQuery.Transformer;
+import org.nuxeo.ecm.core.storage.sql.Model;
+import org.nuxeo.ecm.core.storage.sql.Session.PathResolver;
+import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.Dialect;
+import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.DialectH2;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class TestQueryCache {
+
+    protected MetricRegistry registry;
+
+    protected QueryCache queryCache;
+
+    protected CountingQueryMaker queryMaker;
+
+    protected PathResolver pathResolver = path -> "id-of-" + path;
+
+    @Before
+    public void setUp() {
+        DatabaseMetaData metadata = (DatabaseMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { DatabaseMetaData.class }, (proxy, method, args) -> Boolean.FALSE);
+        Dialect dialect = new DialectH2(metadata, null);
+        registry = new MetricRegistry();
+        queryCache = new QueryCache(dialect, 2, registry, "test");
+        queryMaker = new CountingQueryMaker();
+    }
+
+    protected static QueryFilter filter(String[] principals, String... permissions) {
+        return new QueryFilter(null, principals, permissions, null, Collections.singletonList(Transformer.IDENTITY),
+                0, 0);
+    }
+
+    protected QueryMaker.Query build(String query, QueryFilter queryFilter) {
+        return queryCache.buildQuery(queryMaker, null, null, pathResolver, query, queryFilter);
+    }
+
+    protected long hits() {
+        return registry.counter("nuxeo.repositories.test.queryCache.hits").getCount();
+    }
+
+    @Test
+    public void testReusedWithOtherPrincipals() {
+        QueryMaker.Query q1 = build("SELECT * FROM Document", filter(new String[] { "bob", "members" }, "Read"));
+        QueryMaker.Query q2 = build("SELECT * FROM Document", filter(new String[] { "alice" }, "Read"));
+        assertEquals(1, queryMaker.count);
+        assertEquals(1, hits());
+        assertEquals(Arrays.asList("Read", "bob|members"), q1.selectParams);
+        assertEquals(Arrays.asList("Read", "alice"), q2.selectParams);
+    }
+
+    @Test
+    public void testKeyedOnPermissions() {
+        build("SELECT * FROM Document", filter(new String[] { "bob" }, "Read"));
+        QueryMaker.Query q = build("SELECT * FROM Document", filter(new String[] { "bob" }, "Write"));
+        assertEquals(2, queryMaker.count);
+        assertEquals(Arrays.asList("Write", "bob"), q.selectParams);
+    }
+
+    @Test
+    public void testPathResolutionNotCached() {
+        String query = "SELECT * FROM Document WHERE ecm:path STARTSWITH '/foo'";
+        build(query, filter(new String[] { "bob" }, "Read"));
+        QueryMaker.Query q = build(query, filter(new String[] { "bob" }, "Read"));
+        assertEquals(2, queryMaker.count);
+        assertEquals(0, hits());
+        assertEquals(Arrays.asList("Read", "bob", "id-of-/foo"), q.selectParams);
+    }
+
+    @Test
+    public void testNowNotCached() {
+        String query = "SELECT * FROM Document WHERE dc:modified < now('-P1D')";
+        build(query, filter(new String[] { "bob" }, "Read"));
+        build(query, filter(new String[] { "bob" }, "Read"));
+        assertEquals(2, queryMaker.count);
+        assertEquals(0, hits());
+    }
+
+    @Test
+    public void testTransformerNotCached() {
+        Transformer transformer = (principal, query) -> query;
+        QueryFilter queryFilter = new QueryFilter(null, new String[] { "bob" }, new String[] { "Read" }, null,
+                Collections.singletonList(transformer), 0, 0);
+        build("SELECT * FROM Document", queryFilter);
+        build("SELECT * FROM Document", queryFilter);
+        assertEquals(2, queryMaker.count);
+        assertEquals(0, hits());
+    }
+
+    @Test
+    public void testEviction() {
+        QueryFilter queryFilter = filter(new String[] { "bob" }, "Read");
+        build("SELECT * FROM Document", queryFilter);
+        build("SELECT * FROM File", queryFilter);
+        build("SELECT * FROM Document", queryFilter); // hit
+        build("SELECT * FROM Note", queryFilter); // evicts File
+        build("SELECT * FROM Document", queryFilter); // hit
+        build("SELECT * FROM File", queryFilter);
+        assertEquals(4, queryMaker.count);
+        assertEquals(2, hits());
+    }
+
+    /**
+     * Query maker using the permissions and principals as parameters, and resolving paths.
+     */
+    protected static class CountingQueryMaker implements QueryMaker {
+
+        protected int count;
+
+        @Override
+        public String getName() {
+            return "counting";
+        }
+
+        @Override
+        public boolean accepts(String query) {
+            return true;
+        }
+
+        @Override
+        public Query buildQuery(SQLInfo sqlInfo, Model model, PathResolver pathResolver, String query,
+                QueryFilter queryFilter, Object... params) {
+            count++;
+            Query q = new Query();
+            q.selectParams.add(queryFilter.getPermissions()[0]);
+            q.selectParams.add(StringUtils.join(queryFilter.getPrincipals(), Dialect.ARRAY_SEP));
+            int i = query.indexOf('\'');
+            if (query.contains("ecm:path") && i > 0) {
+                q.selectParams.add(pathResolver.getIdForPath(query.substring(i + 1, query.lastIndexOf('\''))));
+            }
+            return q;
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class TestStatementCache {
+
+    protected StatementMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new StatementMetrics(new MetricRegistry(), "test");
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        FakeConnection fake = new FakeConnection();
+        StatementCache cache = new StatementCache(fake.connection, metrics, 10);
+        try (PreparedStatement ps = cache.prepareStatement("SELECT 1")) {
+            ps.setString(1, "foo");
+            ps.executeQuery();
+        }
+        try (PreparedStatement ps = cache.prepareStatement("SELECT 1")) {
+            ps.executeQuery();
+        }
+        assertEquals(1, fake.prepared.size());
+        assertFalse(fake.prepared.get(0).closed);
+        assertEquals(2, fake.prepared.get(0).clearParameters);
+        assertEquals(2, metrics.getTimer("SELECT 1").getCount());
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        FakeConnection fake = new FakeConnection();
+        StatementCache cache = new StatementCache(fake.connection, metrics, 10);
+        PreparedStatement ps1 = cache.prepareStatement("SELECT 1");
+        PreparedStatement ps2 = cache.prepareStatement("SELECT 1");
+        assertEquals(2, fake.prepared.size());
+        ps1.close();
+        ps2.close();
+        // only one kept for the same SQL
+        assertEquals(1, fake.closedCount());
+        assertTrue(ps1.isClosed());
+        try {
+            ps1.executeQuery();
+            fail();
+        } catch (SQLException e) {
+            assertEquals("Statement is closed", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        FakeConnection fake = new FakeConnection();
+        StatementCache cache = new StatementCache(fake.connection, metrics, 2);
+        for (String sql : new String[] { "SELECT 1", "SELECT 2", "SELECT 1", "SELECT 3" }) {
+            cache.prepareStatement(sql).close();
+        }
+        // SELECT 2 was the least recently used
+        assertEquals(3, fake.prepared.size());
+        assertTrue(fake.prepared.get(1).closed);
+        assertEquals(1, fake.closedCount());
+        cache.close();
+        assertEquals(3, fake.closedCount());
+    }
+
+    @Test
+    public void testRegistryKeepsCacheByPhysicalConnection() throws Exception {
+        StatementCache.Registry registry = new StatementCache.Registry(metrics, 10);
+        FakeConnection fake1 = new FakeConnection();
+        FakeConnection fake2 = new FakeConnection();
+        // successive uses of the same physical connection from the pool
+        for (int i = 0; i < 3; i++) {
+            try (PreparedStatement ps = registry.get(fake1.connection).prepareStatement("SELECT 1")) {
+                ps.executeQuery();
+            }
+        }
+        assertSame(registry.get(fake1.connection), registry.get(fake1.connection));
+        assertNotSame(registry.get(fake1.connection), registry.get(fake2.connection));
+        assertEquals(1, fake1.prepared.size());
+        assertEquals(2, registry.size());
+
+        // physical connection closed by the pool
+        fake1.closed = true;
+        registry.get(new FakeConnection().connection);
+        assertEquals(2, registry.size());
+        assertEquals(1, fake1.closedCount());
+
+        registry.close();
+        assertEquals(0, registry.size());
+    }
+
+    protected static class FakeStatement {
+
+        protected boolean closed;
+
+        protected int clearParameters;
+
+        protected final PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(
+                TestStatementCache.class.getClassLoader(), new Class<?>[] { PreparedStatement.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "close":
+                        closed = true;
+                        return null;
+                    case "clearParameters":
+                        clearParameters++;
+                        return null;
+                    default:
+                        return null;
+                    }
+                });
+    }
+
+    protected static class FakeConnection {
+
+        protected boolean closed;
+
+        protected final List<FakeStatement> prepared = new ArrayList<>();
+
+        protected final Connection connection = (Connection) Proxy.newProxyInstance(
+                TestStatementCache.class.getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "prepareStatement":
+                        FakeStatement fs = new FakeStatement();
+                        prepared.add(fs);
+                        return fs.statement;
+                    case "isClosed":
+                        return Boolean.valueOf(closed);
+                    case "hashCode":
+                        return Integer.valueOf(System.identityHashCode(proxy));
+                    case "equals":
+                        return Boolean.valueOf(proxy == args[0]);
+                    default:
+                        return null;
+                    }
+                });
+
+        protected int closedCount() {
+            return (int) prepared.stream().filter(fs -> fs.closed).count();
+        }
+    }
+
+}
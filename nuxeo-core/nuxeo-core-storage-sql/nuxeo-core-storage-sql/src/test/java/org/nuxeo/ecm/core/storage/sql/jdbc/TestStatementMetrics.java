@@ -0,0 +1,81 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+public class TestStatementMetrics {
+
+    protected MetricRegistry registry;
+
+    protected StatementMetrics metrics;
+
+    @Before
+    public void setUp() {
+        registry = new MetricRegistry();
+        metrics = new StatementMetrics(registry, "test");
+    }
+
+    @Test
+    public void testTimerPerStatement() {
+        Timer t1 = metrics.getTimer("SELECT 1");
+        Timer t2 = metrics.getTimer("SELECT 2");
+        assertNotSame(t1, t2);
+        assertSame(t1, metrics.getTimer("SELECT 1"));
+        assertTrue(registry.getTimers().containsKey(
+                "nuxeo.repositories.test.statements." + Integer.toHexString("SELECT 1".hashCode())));
+    }
+
+    @Test
+    public void testTop() {
+        metrics.getTimer("SELECT 1").update(1, TimeUnit.MILLISECONDS);
+        metrics.getTimer("SELECT 2").update(5, TimeUnit.MILLISECONDS);
+        metrics.getTimer("SELECT 2").update(5, TimeUnit.MILLISECONDS);
+        metrics.getTimer("SELECT 3").update(2, TimeUnit.MILLISECONDS);
+        List<Map.Entry<String, Timer>> top = metrics.getTop(2);
+        assertEquals(2, top.size());
+        assertEquals("SELECT 2", top.get(0).getKey());
+        assertEquals("SELECT 3", top.get(1).getKey());
+    }
+
+    @Test
+    public void testOverflowAndClose() {
+        for (int i = 0; i < StatementMetrics.MAX_STATEMENTS; i++) {
+            metrics.getTimer("SELECT " + i);
+        }
+        Timer other = metrics.getTimer("SELECT overflow");
+        assertSame(registry.getTimers().get("nuxeo.repositories.test.statements.other"), other);
+        metrics.close();
+        assertTrue(registry.getMetrics().isEmpty());
+    }
+
+}
@@ -33,6 +33,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.commons.text.StringEscapeUtils;
 import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.DocumentRef;
 import org.nuxeo.ecm.core.api.IdRef;
@@ -89,6 +90,13 @@ public class FulltextExtractorWork extends AbstractWork {
 
     protected transient List<DocumentRef> docsToUpdate;
 
+    /**
+     * Text already extracted from blobs, keyed by blob digest, used when several documents are processed together.
+     *
+     * @since 11.1
+     */
+    protected transient Map<String, String> blobsTextByDigest;
+
     /** If true, update the simple text from the document. */
     protected final boolean updateSimpleText;
 
@@ -129,16 +137,9 @@ public class FulltextExtractorWork extends AbstractWork {
         if (session.getPrincipal() == null) {
             return;
         }
-        DocumentRef docRef = new IdRef(docId);
-        if (!session.exists(docRef)) {
+        if (!prepare(session)) {
             return;
         }
-        document = session.getDocument(docRef);
-        findDocsToUpdate();
-        if (docsToUpdate.isEmpty()) {
-            return;
-        }
-        initFulltextConfiguration();
 
         setStatus("Extracting");
         setProgress(Progress.PROGRESS_0_PC);
@@ -149,6 +150,27 @@ public class FulltextExtractorWork extends AbstractWork {
         setStatus("Done");
     }
 
+    /**
+     * Loads the document and finds the documents to update using the given session.
+     *
+     * @return {@code false} if there is nothing to update
+     * @since 11.1
+     */
+    protected boolean prepare(CoreSession session) {
+        this.session = session;
+        DocumentRef docRef = new IdRef(docId);
+        if (!session.exists(docRef)) {
+            return false;
+        }
+        document = session.getDocument(docRef);
+        findDocsToUpdate();
+        if (docsToUpdate.isEmpty()) {
+            return false;
+        }
+        initFulltextConfiguration();
+        return true;
+    }
+
     protected void initFulltextConfiguration() {
         RepositoryService repositoryService = Framework.getService(RepositoryService.class);
         Repository repository = repositoryService.getRepository(repositoryName);
@@ -221,18 +243,14 @@ public class FulltextExtractorWork extends AbstractWork {
         BlobsExtractor blobsExtractor = new BlobsExtractor();
         Map<Blob, String> blobsText = new IdentityHashMap<>();
         for (String indexName : fulltextConfiguration.indexNames) {
-            if (!fulltextConfiguration.indexesAllBinary.contains(indexName)
-                    && fulltextConfiguration.propPathsByIndexBinary.get(indexName) == null) {
+            if (!setBinaryExtractorProperties(blobsExtractor, indexName)) {
                 // nothing to do: index not configured for blob
                 continue;
             }
             // get original text from all blobs
-            blobsExtractor.setExtractorProperties(fulltextConfiguration.propPathsByIndexBinary.get(indexName),
-                    fulltextConfiguration.propPathsExcludedByIndexBinary.get(indexName),
-                    fulltextConfiguration.indexesAllBinary.contains(indexName));
             List<String> strings = new ArrayList<>();
             for (Blob blob : blobsExtractor.getBlobs(document)) {
-                String string = blobsText.computeIfAbsent(blob, this::blobToText);
+                String string = blobsText.computeIfAbsent(blob, this::getBlobText);
                 strings.add(string);
             }
             // add space at beginning and end for simulated phrase search using LIKE "% foo bar %"
@@ -245,6 +263,52 @@ public class FulltextExtractorWork extends AbstractWork {
         }
     }
 
+    protected boolean setBinaryExtractorProperties(BlobsExtractor blobsExtractor, String indexName) {
+        if (!fulltextConfiguration.indexesAllBinary.contains(indexName)
+                && fulltextConfiguration.propPathsByIndexBinary.get(indexName) == null) {
+            return false;
+        }
+        blobsExtractor.setExtractorProperties(fulltextConfiguration.propPathsByIndexBinary.get(indexName),
+                fulltextConfiguration.propPathsExcludedByIndexBinary.get(indexName),
+                fulltextConfiguration.indexesAllBinary.contains(indexName));
+        return true;
+    }
+
+    /**
+     * Gets the blobs whose text is needed to update the binary text of the document.
+     *
+     * @since 11.1
+     */
+    protected List<Blob> getBinaryBlobs() {
+        if (!updateBinaryText) {
+            return Collections.emptyList();
+        }
+        BlobsExtractor blobsExtractor = new BlobsExtractor();
+        List<Blob> blobs = new ArrayList<>();
+        for (String indexName : fulltextConfiguration.indexNames) {
+            if (setBinaryExtractorProperties(blobsExtractor, indexName)) {
+                blobs.addAll(blobsExtractor.getBlobs(document));
+            }
+        }
+        return blobs;
+    }
+
+    /**
+     * Gets the text of a blob, from the already extracted texts if available.
+     *
+     * @since 11.1
+     */
+    protected String getBlobText(Blob blob) {
+        String digest = blob.getDigest();
+        if (blobsTextByDigest != null && digest != null) {
+            String text = blobsTextByDigest.get(digest);
+            if (text != null) {
+                return text;
+            }
+        }
+        return blobToText(blob);
+    }
+
     protected String stringToText(String string) {
         string = removeHtml(string);
         string = removeEntities(string);
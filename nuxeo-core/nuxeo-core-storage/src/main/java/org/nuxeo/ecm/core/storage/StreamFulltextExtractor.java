@@ -0,0 +1,287 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.CloseableCoreSession;
+import org.nuxeo.ecm.core.api.CoreInstance;
+import org.nuxeo.ecm.core.api.DocumentLocation;
+import org.nuxeo.ecm.core.work.api.Work;
+import org.nuxeo.lib.stream.computation.AbstractBatchComputation;
+import org.nuxeo.lib.stream.computation.ComputationContext;
+import org.nuxeo.lib.stream.computation.Record;
+import org.nuxeo.lib.stream.computation.Topology;
+import org.nuxeo.lib.stream.log.LogAppender;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.stream.StreamProcessorTopology;
+import org.nuxeo.runtime.stream.StreamService;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * Stream processor doing the fulltext extraction of saved documents by batches, as an alternative to scheduling one
+ * {@link FulltextExtractorWork} per document.
+ * <p>
+ * When enabled, the repositories append one record per document to extract to the fulltext stream after commit. The
+ * computation then processes records by batches: the blobs of all the documents of a batch are converted only once
+ * per digest using a bounded pool of threads, outside of any transaction, and the extracted text is written back to
+ * all the documents of the batch with a single save.
+ * <p>
+ * The lag of the fulltext stream is available through the stream processor metrics.
+ *
+ * @since 11.1
+ */
+public class StreamFulltextExtractor implements StreamProcessorTopology {
+
+    private static final Log log = LogFactory.getLog(StreamFulltextExtractor.class);
+
+    public static final String ENABLED_PROP = "nuxeo.fulltext.extractor.stream.enabled";
+
+    public static final String LOG_CONFIG_NAME = "fulltext";
+
+    public static final String STREAM_NAME = "fulltext";
+
+    public static final String COMPUTATION_NAME = "FulltextExtractor";
+
+    public static final String CONVERSION_THREADS_OPT = "conversionThreads";
+
+    public static final int DEFAULT_CONVERSION_THREADS = 4;
+
+    protected static final char SIMPLE_TEXT = 's';
+
+    protected static final char BINARY_TEXT = 'b';
+
+    protected static final char SEPARATOR = ':';
+
+    /**
+     * Checks if fulltext extraction is done by this stream processor instead of works.
+     */
+    public static boolean isEnabled() {
+        return Framework.isBooleanPropertyTrue(ENABLED_PROP);
+    }
+
+    @Override
+    public Topology getTopology(Map<String, String> options) {
+        int threads = Integer.parseInt(
+                options.getOrDefault(CONVERSION_THREADS_OPT, String.valueOf(DEFAULT_CONVERSION_THREADS)));
+        return Topology.builder()
+                       .addComputation(() -> new FulltextExtractorComputation(COMPUTATION_NAME, threads),
+                               Collections.singletonList("i1:" + STREAM_NAME))
+                       .build();
+    }
+
+    /**
+     * Appends the fulltext extractions of the given works to the fulltext stream, after commit if a transaction is
+     * active.
+     *
+     * @return the works that are not fulltext extraction works, and must still be scheduled
+     */
+    public static List<Work> submit(List<Work> works) {
+        List<Record> records = new ArrayList<>(works.size());
+        List<Work> others = new ArrayList<>();
+        for (Work work : works) {
+            if (work instanceof FulltextExtractorWork) {
+                records.add(toRecord((FulltextExtractorWork) work));
+            } else {
+                others.add(work);
+            }
+        }
+        if (!records.isEmpty()) {
+            if (TransactionHelper.isTransactionActive()) {
+                TransactionHelper.registerSynchronization(new Synchronization() {
+                    @Override
+                    public void beforeCompletion() {
+                        // nothing
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status == Status.STATUS_COMMITTED) {
+                            append(records);
+                        }
+                    }
+                });
+            } else {
+                append(records);
+            }
+        }
+        return others;
+    }
+
+    protected static void append(List<Record> records) {
+        LogAppender<Record> appender = Framework.getService(StreamService.class)
+                                                .getLogManager(LOG_CONFIG_NAME)
+                                                .getAppender(STREAM_NAME);
+        // keyed by document id, so that the updates of a document are processed in order
+        records.forEach(record -> appender.append(record.getKey(), record));
+    }
+
+    /**
+     * Encodes a work as a record keyed by document id, whose value is the flags followed by the repository name.
+     */
+    protected static Record toRecord(FulltextExtractorWork work) {
+        DocumentLocation doc = work.getDocument();
+        StringBuilder value = new StringBuilder();
+        if (work.updateSimpleText) {
+            value.append(SIMPLE_TEXT);
+        }
+        if (work.updateBinaryText) {
+            value.append(BINARY_TEXT);
+        }
+        value.append(SEPARATOR).append(doc.getServerName());
+        return Record.of(doc.getIdRef().value, value.toString().getBytes(UTF_8));
+    }
+
+    public static class FulltextExtractorComputation extends AbstractBatchComputation {
+
+        protected final int threads;
+
+        protected ExecutorService conversionPool;
+
+        public FulltextExtractorComputation(String name, int threads) {
+            super(name, 1, 0);
+            this.threads = threads;
+        }
+
+        @Override
+        public void init(ComputationContext context) {
+            super.init(context);
+            conversionPool = Executors.newFixedThreadPool(threads);
+        }
+
+        @Override
+        public void destroy() {
+            if (conversionPool != null) {
+                conversionPool.shutdownNow();
+                conversionPool = null;
+            }
+        }
+
+        @Override
+        protected void batchProcess(ComputationContext context, String inputStreamName, List<Record> records) {
+            // merge the flags of the records of a same document, grouped by repository
+            Map<String, Map<String, String>> flagsByRepository = new LinkedHashMap<>();
+            for (Record record : records) {
+                String value = new String(record.getData(), UTF_8);
+                int i = value.indexOf(SEPARATOR);
+                flagsByRepository.computeIfAbsent(value.substring(i + 1), k -> new LinkedHashMap<>())
+                                 .merge(record.getKey(), value.substring(0, i), String::concat);
+            }
+            flagsByRepository.forEach(this::process);
+        }
+
+        protected void process(String repositoryName, Map<String, String> flagsByDocId) {
+            List<FulltextExtractorWork> works = new ArrayList<>(flagsByDocId.size());
+            flagsByDocId.forEach((docId, flags) -> works.add(new FulltextExtractorWork(repositoryName, docId,
+                    flags.indexOf(SIMPLE_TEXT) >= 0, flags.indexOf(BINARY_TEXT) >= 0, true)));
+            // find the blobs to convert, deduplicated by digest
+            Map<String, Supplier<String>> conversions = new HashMap<>();
+            boolean found = TransactionHelper.runInTransaction(() -> {
+                boolean prepared = false;
+                try (CloseableCoreSession session = CoreInstance.openCoreSessionSystem(repositoryName)) {
+                    for (FulltextExtractorWork work : works) {
+                        if (!work.prepare(session)) {
+                            continue;
+                        }
+                        prepared = true;
+                        for (Blob blob : work.getBinaryBlobs()) {
+                            if (blob.getDigest() != null) {
+                                conversions.putIfAbsent(blob.getDigest(), () -> work.blobToText(blob));
+                            }
+                        }
+                    }
+                }
+                return Boolean.valueOf(prepared);
+            }).booleanValue();
+            if (!found) {
+                return;
+            }
+            // convert outside of any transaction, as conversions may be long
+            Map<String, String> blobsTextByDigest = convert(conversions);
+            // write back the text with a single save
+            TransactionHelper.runInTransaction(() -> {
+                try (CloseableCoreSession session = CoreInstance.openCoreSessionSystem(repositoryName)) {
+                    for (FulltextExtractorWork work : works) {
+                        if (work.prepare(session)) {
+                            work.blobsTextByDigest = blobsTextByDigest;
+                            work.extractAndUpdate();
+                        }
+                    }
+                    session.save();
+                }
+            });
+        }
+
+        protected Map<String, String> convert(Map<String, Supplier<String>> conversions) {
+            if (conversions.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Converting " + conversions.size() + " distinct blobs");
+            }
+            Map<String, CompletableFuture<String>> futures = new HashMap<>();
+            conversions.forEach((digest, conversion) -> futures.put(digest,
+                    CompletableFuture.supplyAsync(conversion, conversionPool)));
+            Map<String, String> texts = new HashMap<>();
+            futures.forEach((digest, future) -> texts.put(digest, getText(digest, future)));
+            return texts;
+        }
+
+        /**
+         * Waits for a conversion, returning an empty text if it failed so that the rest of the batch is still updated,
+         * like {@link FulltextExtractorWork#blobToText} does.
+         */
+        protected String getText(String digest, CompletableFuture<String> future) {
+            try {
+                return future.join();
+            } catch (CompletionException | CancellationException e) {
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                String msg = "Could not extract fulltext of blob with digest: " + digest + ": " + cause;
+                log.warn(msg);
+                log.debug(msg, cause);
+                return "";
+            }
+        }
+
+        @Override
+        public void batchFailure(ComputationContext context, String inputStreamName, List<Record> records) {
+            // error log already done by abstract
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.storage;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.storage.StreamFulltextExtractor.FulltextExtractorComputation;
+
+public class TestStreamFulltextExtractor {
+
+    protected FulltextExtractorComputation computation;
+
+    @Before
+    public void setUp() {
+        computation = new FulltextExtractorComputation("test", 2);
+        computation.conversionPool = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        computation.destroy();
+    }
+
+    @Test
+    public void testConvert() {
+        Map<String, Supplier<String>> conversions = new LinkedHashMap<>();
+        conversions.put("digest1", () -> "foo");
+        conversions.put("digest2", () -> "bar");
+        Map<String, String> expected = new HashMap<>();
+        expected.put("digest1", "foo");
+        expected.put("digest2", "bar");
+        assertEquals(expected, computation.convert(conversions));
+    }
+
+    @Test
+    public void testConversionFailureDoesNotFailBatch() {
+        Map<String, Supplier<String>> conversions = new LinkedHashMap<>();
+        conversions.put("digest1", () -> "foo");
+        conversions.put("digest2", () -> {
+            throw new NuxeoException("conversion failure");
+        });
+        conversions.put("digest3", () -> "baz");
+        Map<String, String> expected = new HashMap<>();
+        expected.put("digest1", "foo");
+        // failed conversions have an empty text, like with the fulltext extractor work
+        expected.put("digest2", "");
+        expected.put("digest3", "baz");
+        assertEquals(expected, computation.convert(conversions));
+    }
+
+    @Test
+    public void testCancelledConversion() {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        future.cancel(true);
+        assertEquals("", computation.getText("digest1", future));
+    }
+
+}
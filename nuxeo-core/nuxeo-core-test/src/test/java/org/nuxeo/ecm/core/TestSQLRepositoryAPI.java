@@ -655,6 +655,31 @@ public class TestSQLRepositoryAPI {
         assertEquals(name2, returnedChildFiles.get(1).getName());
     }
 
+    @Test
+    public void testCreateManyInOneSave() {
+        // counts around the multi-row insert chunk boundaries: single row, exact multiple, remainder
+        int total = 0;
+        for (int count : new int[] { 1, 100, 200, 251 }) {
+            DocumentModel folder = session.createDocument(session.createDocumentModel("/", "folder" + count, "Folder"));
+            for (int i = 0; i < count; i++) {
+                DocumentModel doc = session.createDocumentModel(folder.getPathAsString(), "doc" + i, "File");
+                doc.setPropertyValue("dc:title", "title" + i);
+                session.createDocument(doc);
+            }
+            session.save();
+            total += count;
+            DocumentModelList children = session.getChildren(folder.getRef());
+            assertEquals(count, children.size());
+            for (int i = 0; i < count; i++) {
+                DocumentModel doc = session.getChild(folder.getRef(), "doc" + i);
+                assertEquals("title" + i, doc.getPropertyValue("dc:title"));
+            }
+        }
+        nextTransaction();
+        DocumentModelList docs = session.query("SELECT * FROM File WHERE dc:title LIKE 'title%'");
+        assertEquals(total, docs.size());
+    }
+
     @Test
     public void testExists() {
         DocumentModel root = session.getRootDocument();
@@ -4962,6 +4987,76 @@ public class TestSQLRepositoryAPI {
         }
     }
 
+    @Test
+    public void testOptimisticLockingWithParallelChangeBatched() throws Exception {
+        DocumentModel doc1 = session.createDocumentModel("/", "doc1", "File");
+        DocumentModel doc2 = session.createDocumentModel("/", "doc2", "File");
+        // create row in VCS dublincore table to avoid later concurrent update upon its creation
+        doc1.setPropertyValue("dc:title", "foo");
+        doc2.setPropertyValue("dc:title", "foo");
+        maybeCreateChangeToken(doc1);
+        maybeCreateChangeToken(doc2);
+        doc1 = session.createDocument(doc1);
+        doc2 = session.createDocument(doc2);
+        DocumentRef doc1Ref = doc1.getRef();
+        DocumentRef doc2Ref = doc2.getRef();
+        session.save();
+
+        // re-start a new transaction that hasn't done any writes
+        nextTransaction();
+        waitForAsyncCompletion();
+        reopenSession();
+
+        // both sessions start from the same base change token
+        doc1 = session.getDocument(doc1Ref);
+        doc2 = session.getDocument(doc2Ref);
+
+        // in other thread, update both docs as a user change
+        MutableObject<RuntimeException> me = new MutableObject<>();
+        Thread thread = new Thread(() -> {
+            TransactionHelper.runInTransaction(() -> {
+                try (CloseableCoreSession session2 = CoreInstance.openCoreSession(coreFeature.getRepositoryName())) {
+                    for (DocumentRef docRef : Arrays.asList(doc1Ref, doc2Ref)) {
+                        DocumentModel doc = session2.getDocument(docRef);
+                        doc.setPropertyValue("dc:title", "bar parallel");
+                        doc.putContextData(CoreSession.USER_CHANGE, Boolean.TRUE);
+                        maybeUpdateChangeToken(doc);
+                        session2.saveDocument(doc);
+                    }
+                    session2.save(); // save succeeds
+                } catch (RuntimeException e) {
+                    me.setValue(e);
+                }
+            });
+        });
+        thread.start();
+        thread.join();
+        if (me.getValue() != null) {
+            throw me.getValue();
+        }
+
+        // now try to save both docs in the same batch as a user change as well
+        for (DocumentModel doc : Arrays.asList(doc1, doc2)) {
+            doc.setPropertyValue("dc:title", "bar");
+            doc.putContextData(CoreSession.USER_CHANGE, Boolean.TRUE);
+            maybeUpdateChangeToken(doc);
+            session.saveDocument(doc);
+        }
+        try {
+            session.save();
+            if (isChangeTokenEnabled()) { // not failing for manual change tokens
+                fail("save should fail because of concurrent update in other transaction");
+            }
+        } catch (ConcurrentUpdateException e) {
+            if (!isChangeTokenEnabled()) {
+                // no exception expected for manual change token
+                throw e;
+            }
+            // ok
+            TransactionHelper.setTransactionRollbackOnly();
+        }
+    }
+
     protected static class SavingJob implements Runnable {
 
         protected final List<DocumentRef> docRefs;
@@ -3649,6 +3649,26 @@ public class TestSQLRepositoryQuery {
         assertFalse(ret.hasResults());
     }
 
+    @Test
+    public void testScrollClose() {
+        assumeTrue("Backend must support true scrolling", supportsScroll());
+
+        DocumentModel doc1 = session.createDocumentModel("/", "doc1", "File");
+        session.createDocument(doc1);
+        DocumentModel doc2 = session.createDocumentModel("/", "doc2", "File");
+        session.createDocument(doc2);
+        session.save();
+
+        ScrollResult<String> ret = session.scroll("SELECT * FROM Document", 1, 10);
+        assertTrue(ret.hasResults());
+        assertTrue(session.closeScroll(ret.getScrollId()));
+        assertFalse(session.closeScroll(ret.getScrollId()));
+
+        exception.expect(NuxeoException.class);
+        exception.expectMessage("Unknown or timed out scrollId");
+        session.scroll(ret.getScrollId());
+    }
+
     @Test
     public void testScrollBadUsageInvalidScrollId() {
         exception.expect(NuxeoException.class);
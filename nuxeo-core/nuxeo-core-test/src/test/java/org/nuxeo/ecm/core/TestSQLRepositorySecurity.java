@@ -906,6 +906,76 @@ public class TestSQLRepositorySecurity {
         assertEquals(nbDocs, numberOfReadableDocuments(secondUser));
     }
 
+    @Test
+    public void testMoveAndReadAclOnLargeTreeRollback() {
+        String enabledProp = "nuxeo.core.readacl.async.enabled";
+        String batchSizeProp = "nuxeo.core.descendants.batch.size";
+        Framework.getProperties().put(enabledProp, "false");
+        Framework.getProperties().put(batchSizeProp, "7");
+        try {
+            doTestMoveAndReadAclOnLargeTreeRollback();
+        } finally {
+            Framework.getProperties().remove(enabledProp);
+            Framework.getProperties().remove(batchSizeProp);
+        }
+    }
+
+    protected void doTestMoveAndReadAclOnLargeTreeRollback() {
+        DocumentModel rootFolder = session.createDocumentModel("/", "folder", "Folder");
+        rootFolder = session.createDocument(rootFolder);
+        DocumentModel otherFolder = session.createDocumentModel("/", "other", "Folder");
+        otherFolder = session.createDocument(otherFolder);
+        String firstUser = "mickey";
+        String secondUser = "minnie";
+
+        // set ACL for first user on root folder
+        ACP acp = new ACPImpl();
+        acp.addACE(ACL.LOCAL_ACL, new ACE(firstUser, READ, true));
+        rootFolder.setACP(acp, true);
+
+        int nbLevels = 10;
+        int nbPerLevel = 10;
+        DocumentModel parent = rootFolder;
+        for (int level = 0; level < nbLevels; level++) {
+            DocumentModel folder = session.createDocumentModel(parent.getPathAsString(), "folder-" + level, "Folder");
+            folder = session.createDocument(folder);
+            for (int i = 0; i < nbPerLevel; i++) {
+                DocumentModel doc = session.createDocumentModel(folder.getPathAsString(), "doc-" + level + "-" + i,
+                        "File");
+                doc = session.createDocument(doc);
+            }
+            parent = folder;
+        }
+        session.save();
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+        int nbDescendants = nbLevels * (nbPerLevel + 1);
+        int nbDocs = 1 + nbDescendants;
+        String descendantsQuery = "SELECT * FROM Document WHERE ecm:ancestorId = '%s'";
+        assertEquals(nbDocs, numberOfReadableDocuments(firstUser));
+        assertEquals(0, numberOfReadableDocuments(secondUser));
+
+        // move the tree and give access to the second user, by batches
+        session.move(rootFolder.getRef(), otherFolder.getRef(), null);
+        acp.addACE(ACL.LOCAL_ACL, new ACE(secondUser, READ, true));
+        session.setACP(rootFolder.getRef(), acp, true);
+        session.save();
+        assertEquals(nbDescendants, session.query(String.format(descendantsQuery, otherFolder.getId())).size() - 1);
+        assertTrue(session.exists(new PathRef("/other/folder/folder-0/folder-1/doc-1-0")));
+
+        // rollback
+        TransactionHelper.setTransactionRollbackOnly();
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+
+        // check that the whole tree is back in place with its original ACLs
+        assertEquals(0, session.query(String.format(descendantsQuery, otherFolder.getId())).size());
+        assertEquals(nbDescendants, session.query(String.format(descendantsQuery, rootFolder.getId())).size());
+        assertTrue(session.exists(new PathRef("/folder/folder-0/folder-1/doc-1-0")));
+        assertEquals(nbDocs, numberOfReadableDocuments(firstUser));
+        assertEquals(0, numberOfReadableDocuments(secondUser));
+    }
+
     protected int numberOfReadableDocuments(String username) {
         try (CloseableCoreSession userSession = openSessionAs(username)) {
             String nxql = "SELECT ecm:uuid FROM Document";
@@ -0,0 +1,170 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
+import org.nuxeo.ecm.core.api.blobholder.SimpleBlobHolder;
+import org.nuxeo.ecm.core.convert.api.ConversionException;
+import org.nuxeo.ecm.core.convert.extension.Converter;
+import org.nuxeo.ecm.core.convert.extension.ConverterDescriptor;
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventListener;
+import org.nuxeo.ecm.core.storage.StreamFulltextExtractor;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.lib.stream.log.LogManager;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.stream.StreamService;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * Fulltext extraction by the stream processor, from the save of the documents to the search of their text.
+ *
+ * @since 11.1
+ */
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+@Deploy("org.nuxeo.ecm.core.convert")
+@Deploy("org.nuxeo.ecm.core.convert.plugins")
+@Deploy("org.nuxeo.ecm.core.test.tests:OSGI-INF/test-fulltext-stream-contrib.xml")
+public class TestStreamFulltextExtraction {
+
+    protected static final AtomicInteger conversions = new AtomicInteger();
+
+    protected static final AtomicInteger saves = new AtomicInteger();
+
+    /**
+     * Text converter counting its conversions.
+     */
+    public static class CountingConverter implements Converter {
+
+        @Override
+        public void init(ConverterDescriptor descriptor) {
+            // nothing to do
+        }
+
+        @Override
+        public BlobHolder convert(BlobHolder blobHolder, Map<String, Serializable> parameters)
+                throws ConversionException {
+            conversions.incrementAndGet();
+            try {
+                return new SimpleBlobHolder(Blobs.createBlob(blobHolder.getBlob().getString()));
+            } catch (IOException e) {
+                throw new ConversionException("Cannot read blob", e);
+            }
+        }
+    }
+
+    /**
+     * Listener counting the session saves.
+     */
+    public static class SaveCounter implements EventListener {
+
+        @Override
+        public void handleEvent(Event event) {
+            saves.incrementAndGet();
+        }
+    }
+
+    @Inject
+    protected CoreFeature coreFeature;
+
+    @Inject
+    protected CoreSession session;
+
+    @Before
+    public void setUp() {
+        Framework.getProperties().put(StreamFulltextExtractor.ENABLED_PROP, "true");
+    }
+
+    @After
+    public void tearDown() {
+        Framework.getProperties().remove(StreamFulltextExtractor.ENABLED_PROP);
+    }
+
+    protected void createFile(String name, String content) {
+        DocumentModel doc = session.createDocumentModel("/", name, "File");
+        doc.getAdapter(BlobHolder.class).setBlob(Blobs.createBlob(content));
+        session.createDocument(doc);
+    }
+
+    protected void waitForFulltextStream() throws InterruptedException {
+        LogManager manager = Framework.getService(StreamService.class)
+                                      .getLogManager(StreamFulltextExtractor.LOG_CONFIG_NAME);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (manager.getLag(StreamFulltextExtractor.STREAM_NAME, StreamFulltextExtractor.COMPUTATION_NAME)
+                      .lag() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Fulltext stream not processed");
+            }
+            Thread.sleep(100);
+        }
+        coreFeature.getStorageConfiguration().sleepForFulltext();
+    }
+
+    protected int search(String text) {
+        return session.query("SELECT * FROM Document WHERE ecm:fulltext = '" + text + "'").size();
+    }
+
+    @Test
+    public void testExtractionByBatch() throws InterruptedException {
+        createFile("file1", "shared content");
+        createFile("file2", "shared content");
+        createFile("file3", "other content");
+        session.save();
+        conversions.set(0);
+        saves.set(0);
+
+        // the documents are appended to the fulltext stream after commit
+        TransactionHelper.commitOrRollbackTransaction();
+        TransactionHelper.startTransaction();
+        waitForFulltextStream();
+
+        assertEquals(2, search("shared"));
+        assertEquals(1, search("other"));
+        // the blob with the same digest is converted once for both documents
+        assertEquals(2, conversions.get());
+        // the text of the whole batch is written with a single save
+        assertEquals(1, saves.get());
+    }
+
+}
@@ -21,6 +21,8 @@ package org.nuxeo.ecm.core.io.download;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
+import java.util.List;
+
 import org.junit.Test;
 import org.nuxeo.ecm.core.io.download.DownloadService.ByteRange;
 
@@ -89,4 +91,45 @@ public class TestDownloadHelper {
         assertNull(DownloadHelper.parseRange("bytes=foo-bar", 12345));
     }
 
+    @Test
+    public void testParseMultipleByteRanges() throws Exception {
+        List<ByteRange> byteRanges = DownloadHelper.parseRanges("bytes=0-123, -45", 12345);
+        assertEquals(2, byteRanges.size());
+        assertEquals(0, byteRanges.get(0).getStart());
+        assertEquals(123, byteRanges.get(0).getEnd());
+        assertEquals(12300, byteRanges.get(1).getStart());
+        assertEquals(12344, byteRanges.get(1).getEnd());
+    }
+
+    @Test
+    public void testParseCoalescedByteRanges() throws Exception {
+        // overlapping, out of order
+        List<ByteRange> byteRanges = DownloadHelper.parseRanges("bytes=-10, 50-149, 0-99", 1000);
+        assertEquals(2, byteRanges.size());
+        assertEquals(0, byteRanges.get(0).getStart());
+        assertEquals(149, byteRanges.get(0).getEnd());
+        assertEquals(990, byteRanges.get(1).getStart());
+        assertEquals(999, byteRanges.get(1).getEnd());
+        // repeated
+        byteRanges = DownloadHelper.parseRanges("bytes=0-0,0-0,0-0", 1000);
+        assertEquals(1, byteRanges.size());
+        assertEquals(0, byteRanges.get(0).getStart());
+        assertEquals(0, byteRanges.get(0).getEnd());
+        // adjacent
+        byteRanges = DownloadHelper.parseRanges("bytes=10-19,0-9,20-", 1000);
+        assertEquals(1, byteRanges.size());
+        assertEquals(0, byteRanges.get(0).getStart());
+        assertEquals(999, byteRanges.get(0).getEnd());
+    }
+
+    @Test
+    public void testParseUnsupportedMultipleByteRanges() throws Exception {
+        assertNull(DownloadHelper.parseRanges("bytes=0-123,45-12", 12345)); // start > end in second range
+        StringBuilder range = new StringBuilder("bytes=0-0");
+        for (int i = 1; i <= DownloadHelper.MAX_RANGES; i++) {
+            range.append(',').append(i).append('-').append(i);
+        }
+        assertNull(DownloadHelper.parseRanges(range.toString(), 12345)); // too many ranges
+    }
+
 }
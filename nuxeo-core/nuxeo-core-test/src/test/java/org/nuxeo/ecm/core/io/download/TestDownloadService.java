@@ -60,6 +60,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.Blobs;
 import org.nuxeo.ecm.core.api.CloseableCoreSession;
@@ -704,6 +705,58 @@ public class TestDownloadService {
         }
     }
 
+    @Test
+    public void testDownloadFileByteRange() throws IOException {
+        Blob blob = new FileBlob(new ByteArrayInputStream("Hello World".getBytes()));
+        doTestDownloadByteRanges(blob, "6-10", null, "World");
+    }
+
+    @Test
+    public void testDownloadMultipleByteRanges() throws IOException {
+        doTestDownloadByteRanges(Blobs.createBlob("Hello World"), "0-4,-5", "multipart/byteranges; boundary=",
+                "Content-Range: bytes 0-4/11\r\n\r\nHello\r\n");
+    }
+
+    @Test
+    public void testDownloadFileMultipleByteRanges() throws IOException {
+        Blob blob = new FileBlob(new ByteArrayInputStream("Hello World".getBytes()));
+        doTestDownloadByteRanges(blob, "0-4,-5", "multipart/byteranges; boundary=",
+                "Content-Range: bytes 6-10/11\r\n\r\nWorld\r\n--");
+    }
+
+    protected void doTestDownloadByteRanges(Blob blob, String range, String expectedContentType,
+            String expectedResult) throws IOException {
+        blob.setFilename("myFile.txt");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HttpServletRequest req = mock(HttpServletRequest.class);
+        when(req.getHeader("Range")).thenReturn("bytes=" + range);
+
+        HttpServletResponse resp = mock(HttpServletResponse.class);
+        ServletOutputStream sos = new DummyServletOutputStream() {
+            @Override
+            public void write(int b) {
+                out.write(b);
+            }
+        };
+        when(resp.getOutputStream()).thenReturn(sos);
+
+        DownloadContext context = DownloadContext.newBuilder(req, resp).blob(blob).build();
+        downloadService.downloadBlob(context);
+
+        verify(resp).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        String result = out.toString("UTF-8");
+        if (expectedContentType == null) {
+            assertEquals(expectedResult, result);
+        } else {
+            ArgumentCaptor<String> contentType = ArgumentCaptor.forClass(String.class);
+            verify(resp, atLeastOnce()).setContentType(contentType.capture());
+            assertTrue(contentType.getValue(), contentType.getValue().startsWith(expectedContentType));
+            assertTrue(result, result.contains(expectedResult));
+            verify(resp).setContentLengthLong(result.length());
+        }
+    }
+
     @Test
     @Deploy("org.nuxeo.ecm.core.api.tests:OSGI-INF/test-default-blob-provider.xml")
     public void testDownloadWithNginxAccel() throws IOException {
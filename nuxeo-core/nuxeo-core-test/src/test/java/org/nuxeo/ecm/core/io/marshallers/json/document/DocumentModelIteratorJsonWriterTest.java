@@ -0,0 +1,100 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.core.io.marshallers.json.document;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import javax.inject.Inject;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentModelIterator;
+import org.nuxeo.ecm.core.api.IterableQueryResult;
+import org.nuxeo.ecm.core.api.ScrollResult;
+import org.nuxeo.ecm.core.io.marshallers.json.AbstractJsonWriterTest;
+import org.nuxeo.ecm.core.io.marshallers.json.JsonAssert;
+import org.nuxeo.ecm.core.query.sql.NXQL;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+
+@Features(CoreFeature.class)
+@Deploy("org.nuxeo.ecm.core.io:OSGI-INF/doc-type-contrib.xml")
+public class DocumentModelIteratorJsonWriterTest
+        extends AbstractJsonWriterTest.Local<DocumentModelIteratorJsonWriter, DocumentModelIterator> {
+
+    public DocumentModelIteratorJsonWriterTest() {
+        super(DocumentModelIteratorJsonWriter.class, DocumentModelIterator.class);
+    }
+
+    @Inject
+    private CoreSession session;
+
+    @Before
+    public void createDocuments() {
+        for (int i = 1; i <= 5; i++) {
+            DocumentModel doc = session.createDocumentModel("/", "myDoc" + i, "RefDoc");
+            session.createDocument(doc);
+        }
+        session.save();
+    }
+
+    @Test
+    public void testQueryResult() throws Exception {
+        IterableQueryResult result = session.queryAndFetch("SELECT ecm:uuid FROM RefDoc ORDER BY ecm:name DESC",
+                NXQL.NXQL);
+        BatchDocumentModelIterator docs = new BatchDocumentModelIterator(session, result, 2);
+        JsonAssert json = jsonAssert(docs);
+        json.isObject();
+        json.properties(2);
+        json.has("entity-type").isEquals("documents");
+        json = json.has("entries").length(5);
+        json.childrenContains("entity-type", "document", "document", "document", "document", "document");
+        // ids order is kept across batches
+        for (int i = 0; i < 5; i++) {
+            json.has(i).has("title").isEquals("myDoc" + (5 - i));
+        }
+        // the query result was closed by the writer
+        assertFalse(result.mustBeClosed());
+    }
+
+    @Test
+    public void testScroll() throws Exception {
+        ScrollResult<String> scroll = session.scroll("SELECT * FROM RefDoc", 2, 60);
+        BatchDocumentModelIterator docs = new BatchDocumentModelIterator(session, scroll, 3);
+        JsonAssert json = jsonAssert(docs);
+        json.has("entity-type").isEquals("documents");
+        json.has("entries").length(5);
+    }
+
+    @Test
+    public void testCloseAbandonedScroll() throws Exception {
+        ScrollResult<String> scroll = session.scroll("SELECT * FROM RefDoc", 2, 60);
+        try (BatchDocumentModelIterator docs = new BatchDocumentModelIterator(session, scroll, 2)) {
+            assertTrue(docs.hasNext());
+            docs.next();
+        }
+        // the scroll was closed before its end
+        assertFalse(session.closeScroll(scroll.getScrollId()));
+    }
+
+}
@@ -1298,6 +1298,11 @@ public abstract class AbstractSession implements CoreSession, Serializable {
         return getSession().scroll(scrollId);
     }
 
+    @Override
+    public boolean closeScroll(String scrollId) {
+        return getSession().closeScroll(scrollId);
+    }
+
     @Override
     public void removeChildren(DocumentRef docRef) {
         // TODO: check req permissions with td
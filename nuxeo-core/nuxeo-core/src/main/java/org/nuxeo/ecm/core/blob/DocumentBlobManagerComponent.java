@@ -260,6 +260,9 @@ public class DocumentBlobManagerComponent extends DefaultComponent implements Do
             globalStatus.sizeBinaries += status.sizeBinaries;
             globalStatus.numBinariesGC += status.numBinariesGC;
             globalStatus.sizeBinariesGC += status.sizeBinariesGC;
+            globalStatus.numBinariesMarked += status.numBinariesMarked;
+            globalStatus.numDirectoriesToSweep += status.numDirectoriesToSweep;
+            globalStatus.numDirectoriesSwept += status.numDirectoriesSwept;
         }
         globalStatus.gcDuration = System.currentTimeMillis() - start;
         return globalStatus;
@@ -18,6 +18,7 @@
  */
 package org.nuxeo.ecm.automation.core.util;
 
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
 import static org.nuxeo.common.utils.DateUtils.formatISODateTime;
 import static org.nuxeo.common.utils.DateUtils.nowIfNull;
 import static org.nuxeo.ecm.platform.query.api.PageProviderService.NAMED_PARAMETERS;
@@ -100,6 +101,13 @@ public class PageProviderHelper {
 
     public static final String CURRENT_REPO_PATTERN = "$currentRepository";
 
+    /**
+     * Request parameter holding the keyset of the page to fetch with keyset pagination.
+     *
+     * @since 11.1
+     */
+    public static final String KEYSET_PARAM = "keyset";
+
     protected static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
     public static PageProviderDefinition getQueryAndFetchProviderDefinition(String query) {
@@ -269,6 +277,24 @@ public class PageProviderHelper {
         });
     }
 
+    /**
+     * Sets the keyset of the page to fetch on a page provider, if any.
+     *
+     * @param keyset the keyset from the request, {@code null} or empty to use offset pagination
+     * @throws NuxeoException with a bad request status if the page provider doesn't support keyset pagination
+     * @since 11.1
+     */
+    public static void setCurrentPageKeyset(PageProvider<?> provider, String keyset) {
+        if (StringUtils.isEmpty(keyset)) {
+            return;
+        }
+        if (!provider.isKeysetPaginationSupported()) {
+            throw new NuxeoException("Keyset pagination not supported by page provider: " + provider.getName(),
+                    SC_BAD_REQUEST);
+        }
+        provider.setCurrentPageKeyset(keyset);
+    }
+
     public static String buildQueryString(PageProvider<?> provider) {
         return buildQueryStringWithPageProvider(provider, false);
     }
@@ -19,8 +19,12 @@
 
 package org.nuxeo.elasticsearch.provider;
 
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,16 +32,19 @@ import java.util.Map;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.Aggregation;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.DocumentModelList;
 import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.SortInfo;
 import org.nuxeo.ecm.core.query.QueryParseException;
 import org.nuxeo.ecm.platform.query.api.Aggregate;
 import org.nuxeo.ecm.platform.query.api.AggregateDefinition;
 import org.nuxeo.ecm.platform.query.api.Bucket;
 import org.nuxeo.ecm.platform.query.nxql.CoreQueryDocumentPageProvider;
+import org.nuxeo.ecm.platform.query.nxql.KeysetHelper;
 import org.nuxeo.elasticsearch.aggregate.AggregateEsBase;
 import org.nuxeo.elasticsearch.aggregate.AggregateFactory;
 import org.nuxeo.elasticsearch.api.ElasticSearchService;
@@ -72,6 +79,9 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
 
     protected Long maxResultWindow;
 
+    /** @since 11.1 */
+    protected String nextPageKeyset;
+
     @Override
     public List<DocumentModel> getCurrentPage() {
 
@@ -96,10 +106,15 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
         // Build and execute the ES query
         ElasticSearchService ess = Framework.getService(ElasticSearchService.class);
         try {
+            boolean useKeyset = keysetSortInfos != null;
             NxQueryBuilder nxQuery = new NxQueryBuilder(getCoreSession()).nxql(query)
-                                                                         .offset((int) getCurrentPageOffset())
+                                                                         .offset(useKeyset ? 0
+                                                                                 : (int) getCurrentPageOffset())
                                                                          .limit(getLimit())
                                                                          .addAggregates(buildAggregates());
+            if (useKeyset && !KEYSET_FIRST_PAGE.equals(keyset)) {
+                nxQuery.searchAfter(getSearchAfter(keyset));
+            }
             if (searchOnAllRepositories()) {
                 nxQuery.searchOnAllRepositories();
             }
@@ -118,6 +133,9 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
             }
             setResultsCount(dmList.totalSize());
             currentPageDocuments = dmList;
+            if (useKeyset) {
+                nextPageKeyset = computeNextPageKeyset(ret);
+            }
         } catch (QueryParseException e) {
             error = e;
             errorMessage = e.getMessage();
@@ -130,6 +148,58 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
         return currentPageDocuments;
     }
 
+    /**
+     * Keysets are applied with search_after rather than through the NXQL query.
+     *
+     * @since 11.1
+     */
+    @Override
+    protected String getKeysetClause(List<SortInfo> sortInfos, String keyset) {
+        return null;
+    }
+
+    /**
+     * Gets the search_after sort values for a keyset.
+     *
+     * @since 11.1
+     */
+    protected Object[] getSearchAfter(String keyset) {
+        List<Serializable> values = KeysetHelper.decode(keyset);
+        if (values.size() != keysetSortInfos.size()) {
+            throw new NuxeoException("Keyset does not match sort: " + keysetSortInfos, SC_BAD_REQUEST);
+        }
+        // Elasticsearch sort values of dates are epoch millis
+        return values.stream()
+                     .map(v -> v instanceof Calendar ? Long.valueOf(((Calendar) v).getTimeInMillis()) : v)
+                     .toArray();
+    }
+
+    /**
+     * Computes the keyset of the next page from the sort values of the last hit.
+     *
+     * @since 11.1
+     */
+    protected String computeNextPageKeyset(EsResult result) {
+        SearchHit[] hits = result.getElasticsearchResponse().getHits().getHits();
+        long pageSize = getMinMaxPageSize();
+        if (pageSize == 0 || hits.length < pageSize) {
+            return null;
+        }
+        Object[] sortValues = hits[hits.length - 1].getSortValues();
+        for (Object value : sortValues) {
+            if (!KeysetHelper.isSupportedValue(value)) {
+                return null;
+            }
+        }
+        return KeysetHelper.encode(Arrays.asList(sortValues));
+    }
+
+    @Override
+    public String getNextPageKeyset() {
+        getCurrentPage();
+        return nextPageKeyset;
+    }
+
     protected int getLimit() {
         int ret = (int) getMinMaxPageSize();
         if (ret == 0) {
@@ -147,6 +217,7 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
     protected void pageChanged() {
         currentPageDocuments = null;
         currentAggregates = null;
+        nextPageKeyset = null;
         super.pageChanged();
     }
 
@@ -154,6 +225,7 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
     public void refresh() {
         currentPageDocuments = null;
         currentAggregates = null;
+        nextPageKeyset = null;
         super.refresh();
     }
 
@@ -237,7 +309,8 @@ public class ElasticSearchNxqlPageProvider extends CoreQueryDocumentPageProvider
 
     @Override
     public boolean isNextPageAvailable() {
-        if ((getCurrentPageOffset() + 2 * getPageSize()) <= getMaxResultWindow()) {
+        // search_after is not limited by the max result window
+        if (keyset != null || (getCurrentPageOffset() + 2 * getPageSize()) <= getMaxResultWindow()) {
             return super.isNextPageAvailable();
         }
         return false;
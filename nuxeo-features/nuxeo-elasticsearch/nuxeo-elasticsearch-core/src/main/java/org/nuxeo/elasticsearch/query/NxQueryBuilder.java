@@ -103,6 +103,8 @@ public class NxQueryBuilder {
 
     protected boolean useUnrestrictedSession;
 
+    protected Object[] searchAfter;
+
     public NxQueryBuilder(CoreSession coreSession) {
         session = coreSession;
         repositories.add(coreSession.getRepositoryName());
@@ -137,6 +139,17 @@ public class NxQueryBuilder {
         return this;
     }
 
+    /**
+     * Says to return the documents following the given sort values in the sort order, instead of skipping an offset.
+     * The sort values are usually the ones of the last hit of the previous page.
+     *
+     * @since 11.1
+     */
+    public NxQueryBuilder searchAfter(Object[] sortValues) {
+        searchAfter = sortValues;
+        return this;
+    }
+
     public NxQueryBuilder addSort(SortInfo sortInfo) {
         sortInfos.add(sortInfo);
         return this;
@@ -241,6 +254,13 @@ public class NxQueryBuilder {
         return offset;
     }
 
+    /**
+     * @since 11.1
+     */
+    public Object[] getSearchAfter() {
+        return searchAfter;
+    }
+
     public List<SortInfo> getSortInfos() {
         return sortInfos;
     }
@@ -374,7 +394,11 @@ public class NxQueryBuilder {
 
     public void updateRequest(SearchSourceBuilder request) {
         // Set limits
-        request.from(getOffset()).size(getLimit());
+        if (searchAfter == null) {
+            request.from(getOffset()).size(getLimit());
+        } else {
+            request.searchAfter(searchAfter).size(getLimit());
+        }
         // Build query with security checks
         request.query(makeQuery());
         // Add sort
@@ -89,6 +89,7 @@ public abstract class AbstractRenditionBuilderWork extends TransientStoreWork {
         return CATEGORY;
     }
 
+    @Override
     protected String getTransientStoreName() {
         return AbstractLazyCachableRenditionProvider.CACHE_NAME;
     }
@@ -106,6 +107,24 @@ public abstract class AbstractRenditionBuilderWork extends TransientStoreWork {
         return true;
     }
 
+    @Override
+    public boolean isPriority() {
+        // A lazy rendition is requested by a user waiting for the download
+        return true;
+    }
+
+    @Override
+    public long getDeadline() {
+        // The rendition is useless once its transient store entry would have expired
+        return getEntryExpirationTime();
+    }
+
+    @Override
+    public void expire() {
+        // complete the entry with an error rendition so that the client stops waiting for it
+        updateAndCompleteStoreEntry(null, createErrorBlobs());
+    }
+
     @Override
     public void work() {
         log.debug("Starting work: {} with id: {} for transient store key: {} and document: {}",
@@ -140,12 +159,16 @@ public abstract class AbstractRenditionBuilderWork extends TransientStoreWork {
         }
         DocumentModel doc = session.getDocument(docRef);
         String sourceDocumentModificationDate = getSourceDocumentModificationDate(doc);
+        updateAndCompleteStoreEntry(sourceDocumentModificationDate, createErrorBlobs());
+    }
+
+    protected List<Blob> createErrorBlobs() {
         List<Blob> blobs = new ArrayList<>();
         StringBlob emptyBlob = new StringBlob("");
         emptyBlob.setFilename("error");
         emptyBlob.setMimeType("text/plain;" + LazyRendition.ERROR_MARKER);
         blobs.add(emptyBlob);
-        updateAndCompleteStoreEntry(sourceDocumentModificationDate, blobs);
+        return blobs;
     }
 
     void updateAndCompleteStoreEntry(String sourceDocumentModificationDate, List<Blob> blobs) {
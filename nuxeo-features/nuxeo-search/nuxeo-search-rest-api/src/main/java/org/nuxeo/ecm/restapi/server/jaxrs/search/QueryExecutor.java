@@ -76,6 +76,15 @@ public abstract class QueryExecutor extends AbstractResource<ResourceTypeImpl> {
 
     public static final String MAX_RESULTS = "maxResults";
 
+    /**
+     * Keyset of the page to fetch with keyset pagination, as returned in the {@code nextPageKeyset} field of the
+     * previous page, or {@link PageProvider#KEYSET_FIRST_PAGE} for the first page. Offset and current page index are
+     * then ignored.
+     *
+     * @since 11.1
+     */
+    public static final String KEYSET = PageProviderHelper.KEYSET_PARAM;
+
     public static final String SORT_BY = "sortBy";
 
     public static final String SORT_ORDER = "sortOrder";
@@ -140,6 +149,14 @@ public abstract class QueryExecutor extends AbstractResource<ResourceTypeImpl> {
         return null;
     }
 
+    /**
+     * @since 11.1
+     */
+    protected String getKeyset(MultivaluedMap<String, String> queryParams) {
+        String keyset = queryParams.getFirst(KEYSET);
+        return StringUtils.isEmpty(keyset) ? null : keyset;
+    }
+
     protected Long getPageSize(MultivaluedMap<String, String> queryParams) {
         String pageSize = queryParams.getFirst(PAGE_SIZE);
         if (pageSize != null && !pageSize.isEmpty()) {
@@ -298,6 +315,11 @@ public abstract class QueryExecutor extends AbstractResource<ResourceTypeImpl> {
         DocumentModel searchDocumentModel = PageProviderHelper.getSearchDocumentModel(ctx.getCoreSession(), null,
                 namedParameters);
 
+        String keyset = getKeyset(queryParams);
+        if (keyset != null) {
+            return queryByLang(query, pageSize, keyset, maxResults, sortInfo, props, searchDocumentModel,
+                    parameters);
+        }
         return queryByLang(query, pageSize, currentPageIndex, currentPageOffset, maxResults, sortInfo,
                 props, searchDocumentModel, parameters);
     }
@@ -321,14 +343,38 @@ public abstract class QueryExecutor extends AbstractResource<ResourceTypeImpl> {
         DocumentModel searchDocumentModel = PageProviderHelper.getSearchDocumentModel(ctx.getCoreSession(),
                 pageProviderName, namedParameters);
 
+        String keyset = getKeyset(queryParams);
+        if (keyset != null) {
+            return queryByPageProvider(pageProviderName, pageSize, keyset, sortInfo, highlights, quickFilters, props,
+                    searchDocumentModel, parameters);
+        }
         return queryByPageProvider(pageProviderName, pageSize, currentPageIndex, currentPageOffset, sortInfo,
                 highlights, quickFilters, props, searchDocumentModel, parameters);
     }
 
-    @SuppressWarnings("unchecked")
     protected DocumentModelList queryByLang(String query, Long pageSize, Long currentPageIndex, Long currentPageOffset,
             Long maxResults, List<SortInfo> sortInfo, Map<String, Serializable> props,
             DocumentModel searchDocumentModel, Object... parameters) {
+        return queryByLang(query, pageSize, currentPageIndex, currentPageOffset, null, maxResults, sortInfo, props,
+                searchDocumentModel, parameters);
+    }
+
+    /**
+     * Queries using keyset pagination.
+     *
+     * @since 11.1
+     */
+    protected DocumentModelList queryByLang(String query, Long pageSize, String keyset, Long maxResults,
+            List<SortInfo> sortInfo, Map<String, Serializable> props, DocumentModel searchDocumentModel,
+            Object... parameters) {
+        return queryByLang(query, pageSize, null, null, keyset, maxResults, sortInfo, props, searchDocumentModel,
+                parameters);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected DocumentModelList queryByLang(String query, Long pageSize, Long currentPageIndex, Long currentPageOffset,
+            String keyset, Long maxResults, List<SortInfo> sortInfo, Map<String, Serializable> props,
+            DocumentModel searchDocumentModel, Object... parameters) {
         PageProviderDefinition ppdefinition = pageProviderService.getPageProviderDefinition(
                 SearchAdapter.pageProviderName);
         ppdefinition.setPattern(query);
@@ -336,15 +382,10 @@ public abstract class QueryExecutor extends AbstractResource<ResourceTypeImpl> {
             // set the maxResults to avoid slowing down queries
             ppdefinition.getProperties().put("maxResults", maxResults.toString());
         }
-        PaginableDocumentModelListImpl res = new PaginableDocumentModelListImpl(
-                (PageProvider<DocumentModel>) pageProviderService.getPageProvider(SearchAdapter.pageProviderName,
-                        ppdefinition, searchDocumentModel, sortInfo, pageSize, currentPageIndex, currentPageOffset,
-                        props, null, null, parameters),
-                null);
-        if (res.hasError()) {
-            throw new NuxeoException(res.getErrorMessage(), SC_BAD_REQUEST);
-        }
-        return res;
+        PageProvider<DocumentModel> pp = (PageProvider<DocumentModel>) pageProviderService.getPageProvider(
+                SearchAdapter.pageProviderName, ppdefinition, searchDocumentModel, sortInfo, pageSize,
+                currentPageIndex, currentPageOffset, props, null, null, parameters);
+        return getPaginableDocuments(pp, keyset);
     }
 
     /**
@@ -361,11 +402,33 @@ public abstract class QueryExecutor extends AbstractResource<ResourceTypeImpl> {
     protected DocumentModelList queryByPageProvider(String pageProviderName, Long pageSize, Long currentPageIndex,
             Long currentPageOffset, List<SortInfo> sortInfo, List<String> highlights, List<QuickFilter> quickFilters,
             Map<String, Serializable> props, DocumentModel searchDocumentModel, Object... parameters) {
-        PaginableDocumentModelListImpl res = new PaginableDocumentModelListImpl(
-                (PageProvider<DocumentModel>) pageProviderService.getPageProvider(pageProviderName, searchDocumentModel,
-                        sortInfo, pageSize, currentPageIndex, currentPageOffset, props, highlights, quickFilters,
-                        parameters),
-                null);
+        PageProvider<DocumentModel> pp = (PageProvider<DocumentModel>) pageProviderService.getPageProvider(
+                pageProviderName, searchDocumentModel, sortInfo, pageSize, currentPageIndex, currentPageOffset, props,
+                highlights, quickFilters, parameters);
+        return getPaginableDocuments(pp, null);
+    }
+
+    /**
+     * Queries a page provider using keyset pagination.
+     *
+     * @since 11.1
+     */
+    @SuppressWarnings("unchecked")
+    protected DocumentModelList queryByPageProvider(String pageProviderName, Long pageSize, String keyset,
+            List<SortInfo> sortInfo, List<String> highlights, List<QuickFilter> quickFilters,
+            Map<String, Serializable> props, DocumentModel searchDocumentModel, Object... parameters) {
+        PageProvider<DocumentModel> pp = (PageProvider<DocumentModel>) pageProviderService.getPageProvider(
+                pageProviderName, searchDocumentModel, sortInfo, pageSize, null, null, props, highlights,
+                quickFilters, parameters);
+        return getPaginableDocuments(pp, keyset);
+    }
+
+    /**
+     * @since 11.1
+     */
+    protected DocumentModelList getPaginableDocuments(PageProvider<DocumentModel> pp, String keyset) {
+        PageProviderHelper.setCurrentPageKeyset(pp, keyset);
+        PaginableDocumentModelListImpl res = new PaginableDocumentModelListImpl(pp, null);
         if (res.hasError()) {
             throw new NuxeoException(res.getErrorMessage(), SC_BAD_REQUEST);
         }
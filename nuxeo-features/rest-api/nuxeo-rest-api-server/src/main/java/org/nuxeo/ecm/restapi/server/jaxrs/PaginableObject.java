@@ -25,6 +25,7 @@ import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 
+import org.nuxeo.ecm.automation.core.util.PageProviderHelper;
 import org.nuxeo.ecm.automation.core.util.Paginable;
 import org.nuxeo.ecm.automation.core.util.PaginablePageProvider;
 import org.nuxeo.ecm.core.api.DocumentModel;
@@ -51,6 +52,9 @@ public abstract class PaginableObject<T> extends DefaultObject {
 
     protected String maxResults;
 
+    /** @since 11.1 */
+    protected String keyset;
+
     @Override
     protected void initialize(Object... args) {
         super.initialize(args);
@@ -59,6 +63,7 @@ public abstract class PaginableObject<T> extends DefaultObject {
         currentPageIndex = extractLongParam(request, "currentPageIndex", 0L);
         pageSize = extractLongParam(request, "pageSize", 50L);
         maxResults = request.getParameter("maxResults");
+        keyset = request.getParameter(PageProviderHelper.KEYSET_PARAM);
     }
 
     protected abstract PageProviderDefinition getPageProviderDefinition();
@@ -82,8 +87,10 @@ public abstract class PaginableObject<T> extends DefaultObject {
         Map<String, Serializable> props = new HashMap<>();
         props.put(CoreQueryDocumentPageProvider.CORE_SESSION_PROPERTY, (Serializable) ctx.getCoreSession());
 
-        return getPaginableEntries((PageProvider<T>) pps.getPageProvider("", ppDefinition, getSearchDocument(), null,
-                pageSize, currentPageIndex, props, getParams()));
+        PageProvider<T> pp = (PageProvider<T>) pps.getPageProvider("", ppDefinition, getSearchDocument(), null,
+                pageSize, currentPageIndex, props, getParams());
+        PageProviderHelper.setCurrentPageKeyset(pp, keyset);
+        return getPaginableEntries(pp);
     }
 
     protected Paginable<T> getPaginableEntries(PageProvider<T> pageProvider) {
@@ -40,9 +40,12 @@ import org.nuxeo.ecm.automation.core.util.Properties;
 import org.nuxeo.ecm.automation.jaxrs.io.documents.PaginableDocumentModelListImpl;
 import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentModelIterator;
 import org.nuxeo.ecm.core.api.DocumentModelList;
 import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.ScrollResult;
 import org.nuxeo.ecm.core.api.SortInfo;
+import org.nuxeo.ecm.core.io.marshallers.json.document.BatchDocumentModelIterator;
 import org.nuxeo.ecm.platform.query.api.PageProvider;
 import org.nuxeo.ecm.platform.query.api.PageProviderDefinition;
 import org.nuxeo.ecm.platform.query.api.PageProviderService;
@@ -82,6 +85,18 @@ public class QueryObject extends AbstractResource<ResourceTypeImpl> {
 
     public static final String CURRENT_REPO_PATTERN = "$currentRepository";
 
+    /**
+     * @since 11.1
+     */
+    public static final String EXPORT = "export";
+
+    /**
+     * Lifetime of the export scrolls between two batches, in seconds.
+     *
+     * @since 11.1
+     */
+    public static final int EXPORT_SCROLL_KEEP_ALIVE_SECONDS = 60;
+
     /**
      * @since 8.4
      */
@@ -111,8 +126,22 @@ public class QueryObject extends AbstractResource<ResourceTypeImpl> {
         langPathMap.put(LangParams.NXQL, NXQL);
     }
 
-    @SuppressWarnings("unchecked")
     protected DocumentModelList getQuery(UriInfo uriInfo, String langOrProviderName) {
+        PaginableDocumentModelListImpl res = new PaginableDocumentModelListImpl(
+                getPageProvider(uriInfo, langOrProviderName), null);
+        if (res.hasError()) {
+            throw new NuxeoException(res.getErrorMessage(), SC_BAD_REQUEST);
+        }
+        return res;
+    }
+
+    /**
+     * Gets the page provider for a NXQL query or a named page provider, configured from the query parameters.
+     *
+     * @since 11.1
+     */
+    @SuppressWarnings("unchecked")
+    protected PageProvider<DocumentModel> getPageProvider(UriInfo uriInfo, String langOrProviderName) {
         // Fetching all parameters
         MultivaluedMap<String, String> queryParams = uriInfo.getQueryParameters();
         // Look if provider name is given
@@ -202,7 +231,6 @@ public class QueryObject extends AbstractResource<ResourceTypeImpl> {
             }
         }
 
-        PaginableDocumentModelListImpl res;
         if (query != null) {
             PageProviderDefinition ppdefinition = pageProviderService.getPageProviderDefinition(
                     SearchAdapter.pageProviderName);
@@ -215,10 +243,8 @@ public class QueryObject extends AbstractResource<ResourceTypeImpl> {
                 providerName = SearchAdapter.pageProviderName;
             }
 
-            res = new PaginableDocumentModelListImpl(
-                    (PageProvider<DocumentModel>) pageProviderService.getPageProvider(providerName, ppdefinition,
-                            searchDocumentModel, sortInfoList, targetPageSize, targetPage, props, parameters),
-                    null);
+            return (PageProvider<DocumentModel>) pageProviderService.getPageProvider(providerName, ppdefinition,
+                    searchDocumentModel, sortInfoList, targetPageSize, targetPage, props, parameters);
         } else {
             PageProviderDefinition pageProviderDefinition = pageProviderService.getPageProviderDefinition(providerName);
             // Quick filters management
@@ -235,15 +261,28 @@ public class QueryObject extends AbstractResource<ResourceTypeImpl> {
                     }
                 }
             }
-            res = new PaginableDocumentModelListImpl(
-                    (PageProvider<DocumentModel>) pageProviderService.getPageProvider(providerName, searchDocumentModel,
-                            sortInfoList, targetPageSize, targetPage, props, quickFilterList, parameters),
-                    null);
+            return (PageProvider<DocumentModel>) pageProviderService.getPageProvider(providerName,
+                    searchDocumentModel, sortInfoList, targetPageSize, targetPage, props, quickFilterList, parameters);
         }
-        if (res.hasError()) {
-            throw new NuxeoException(res.getErrorMessage(), SC_BAD_REQUEST);
+    }
+
+    /**
+     * Gets all the documents matching a NXQL query or a named page provider, regardless of pagination. The document ids
+     * are scrolled and the documents loaded by batches while they are written to the response.
+     *
+     * @since 11.1
+     */
+    protected DocumentModelIterator getExport(UriInfo uriInfo, String langOrProviderName) {
+        PageProvider<DocumentModel> pageProvider = getPageProvider(uriInfo, langOrProviderName);
+        if (!(pageProvider instanceof CoreQueryDocumentPageProvider)) {
+            throw new NuxeoException("Export not supported by page provider: " + pageProvider.getName(),
+                    SC_BAD_REQUEST);
         }
-        return res;
+        String query = ((CoreQueryDocumentPageProvider) pageProvider).buildCurrentQuery();
+        CoreSession session = ctx.getCoreSession();
+        ScrollResult<String> scrollResult = session.scroll(query, BatchDocumentModelIterator.DEFAULT_BATCH_SIZE,
+                EXPORT_SCROLL_KEEP_ALIVE_SECONDS);
+        return new BatchDocumentModelIterator(session, scrollResult, BatchDocumentModelIterator.DEFAULT_BATCH_SIZE);
     }
 
     /**
@@ -282,6 +321,20 @@ public class QueryObject extends AbstractResource<ResourceTypeImpl> {
         return getQuery(uriInfo, langOrProviderName);
     }
 
+    /**
+     * Exports all the documents matching a NXQL query, or a specific pageprovider name, ignoring pagination.
+     *
+     * @param uriInfo Query parameters
+     * @param langOrProviderName NXQL or specific provider name
+     * @return Document Listing, streamed
+     * @since 11.1
+     */
+    @GET
+    @Path("{langOrProviderName}/" + EXPORT)
+    public Object doExport(@Context UriInfo uriInfo, @PathParam("langOrProviderName") String langOrProviderName) {
+        return getExport(uriInfo, langOrProviderName);
+    }
+
     public enum QueryParams {
         PAGE_SIZE, CURRENT_PAGE_INDEX, MAX_RESULTS, SORT_BY, SORT_ORDER, ORDERED_PARAMS, QUERY, QUICK_FILTERS
     }
@@ -26,6 +26,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.GET;
 
 import org.apache.commons.lang3.StringUtils;
+import org.nuxeo.ecm.automation.core.util.PageProviderHelper;
 import org.nuxeo.ecm.automation.core.util.Paginable;
 import org.nuxeo.ecm.automation.core.util.PaginablePageProvider;
 import org.nuxeo.ecm.core.api.DocumentModel;
@@ -73,6 +74,14 @@ public abstract class PaginableAdapter<T> extends DefaultAdapter {
      */
     protected String sortOrder;
 
+    /**
+     * Keyset of the page to fetch with keyset pagination, as returned in the {@code nextPageKeyset} field of the
+     * previous page, or {@code *} for the first page. The current page index is then ignored.
+     *
+     * @since 11.1
+     */
+    protected String keyset;
+
     @Override
     protected void initialize(Object... args) {
         super.initialize(args);
@@ -83,6 +92,7 @@ public abstract class PaginableAdapter<T> extends DefaultAdapter {
         maxResults = request.getParameter("maxResults");
         sortBy = request.getParameter("sortBy");
         sortOrder = request.getParameter("sortOrder");
+        keyset = request.getParameter(PageProviderHelper.KEYSET_PARAM);
     }
 
     @Override
@@ -133,6 +143,7 @@ public abstract class PaginableAdapter<T> extends DefaultAdapter {
                 }
             }
         }
+        PageProviderHelper.setCurrentPageKeyset(pp, keyset);
         return getPaginableEntries(pp);
     }
 
@@ -19,6 +19,7 @@
 package org.nuxeo.ecm.restapi.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
 
 import java.io.IOException;
@@ -149,6 +150,41 @@ public class DocumentListTest extends BaseTest {
         }
     }
 
+    /**
+     * @since 11.1
+     */
+    @Test
+    public void iCanExportQueryResults() throws IOException {
+        int total = session.query("SELECT * FROM Document").size();
+        assertTrue(total > 20);
+
+        // Given a repository, when I export a query in NXQL on it
+        MultivaluedMap<String, String> queryParams = new MultivaluedMapImpl();
+        queryParams.putSingle("query", "SELECT * FROM Document");
+        try (CloseableClientResponse response = getResponse(RequestType.GET,
+                QueryObject.PATH + "/" + QueryObject.NXQL + "/" + QueryObject.EXPORT, queryParams)) {
+
+            // Then I get all the documents, regardless of the page size
+            assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+            JsonNode node = mapper.readTree(response.getEntityInputStream());
+            assertEquals("documents", node.get("entity-type").asText());
+            assertEquals(total, getLogEntries(node).size());
+        }
+
+        // Given a repository, when I export a pageprovider on it
+        DocumentModel folder = RestServerInit.getFolder(1, session);
+        queryParams.clear();
+        queryParams.add("queryParams", folder.getId());
+        try (CloseableClientResponse response = getResponse(RequestType.GET,
+                QueryObject.PATH + "/TEST_PP/" + QueryObject.EXPORT, queryParams)) {
+
+            // Then I get document listing as result
+            assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+            JsonNode node = mapper.readTree(response.getEntityInputStream());
+            assertEquals(2, getLogEntries(node).size());
+        }
+    }
+
     @Test
     public void iCanPerformQueriesWithNamedParametersOnRepository() throws IOException {
         // Given a repository and named parameters, when I perform a query in
@@ -58,6 +58,14 @@ public class StreamProcessorDescriptor implements Descriptor {
         @XNode("@concurrency")
         public Integer concurrency = DEFAULT_CONCURRENCY;
 
+        // @since 11.1 the autoscaler adjusts the concurrency between min and max
+        @XNode("@minConcurrency")
+        public Integer minConcurrency;
+
+        // @since 11.1
+        @XNode("@maxConcurrency")
+        public Integer maxConcurrency;
+
         @Override
         public String getId() {
             return name;
@@ -18,6 +18,8 @@
  */
 package org.nuxeo.runtime.stream;
 
+import java.util.Map;
+
 import org.nuxeo.lib.stream.computation.StreamManager;
 import org.nuxeo.lib.stream.log.LogManager;
 
@@ -38,4 +40,12 @@ public interface StreamService {
      * @since 11.1
      */
     StreamManager getStreamManager(String configName);
+
+    /**
+     * Gets the number of threads of each computation of a started processor, as adjusted by the autoscaler for
+     * computations having a concurrency range.
+     *
+     * @since 11.1
+     */
+    Map<String, Integer> getComputationThreads(String processorName);
 }
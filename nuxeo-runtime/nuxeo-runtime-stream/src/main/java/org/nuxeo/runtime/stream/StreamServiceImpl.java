@@ -28,6 +28,7 @@ import java.util.Objects;
 
 import org.apache.logging.log4j.Logger;
 import org.nuxeo.common.Environment;
+import org.nuxeo.common.utils.DurationUtils;
 import org.nuxeo.lib.stream.StreamRuntimeException;
 import org.nuxeo.lib.stream.codec.Codec;
 import org.nuxeo.lib.stream.computation.Record;
@@ -39,6 +40,7 @@ import org.nuxeo.lib.stream.computation.log.LogStreamManager;
 import org.nuxeo.lib.stream.log.LogManager;
 import org.nuxeo.lib.stream.log.chronicle.ChronicleLogManager;
 import org.nuxeo.lib.stream.log.kafka.KafkaLogManager;
+import org.nuxeo.lib.stream.log.mem.MemLogManager;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.codec.CodecService;
 import org.nuxeo.runtime.kafka.KafkaConfigService;
@@ -60,6 +62,20 @@ public class StreamServiceImpl extends DefaultComponent implements StreamService
 
     public static final String DEFAULT_CODEC = "avro";
 
+    /**
+     * Number of threads of a pool shared by the computations of each processor, 0 to use dedicated threads.
+     *
+     * @since 11.1
+     */
+    public static final String NUXEO_STREAM_SHARED_THREADS_PROP = "nuxeo.stream.processor.sharedThreads";
+
+    /**
+     * Period between two checks of the autoscaler of computations having a concurrency range.
+     *
+     * @since 11.1
+     */
+    public static final String NUXEO_STREAM_AUTOSCALE_PERIOD_PROP = "nuxeo.stream.processor.autoscale.period";
+
     protected static final String XP_LOG_CONFIG = "logConfig";
 
     protected static final String XP_STREAM_PROCESSOR = "streamProcessor";
@@ -86,6 +102,8 @@ public class StreamServiceImpl extends DefaultComponent implements StreamService
             }
             if ("kafka".equalsIgnoreCase(config.type)) {
                 logManagers.put(name, createKafkaLogManager(config));
+            } else if ("mem".equalsIgnoreCase(config.type)) {
+                logManagers.put(name, new MemLogManager());
             } else {
                 logManagers.put(name, createChronicleLogManager(config));
             }
@@ -98,6 +116,15 @@ public class StreamServiceImpl extends DefaultComponent implements StreamService
         return streamManagers.computeIfAbsent(name, app -> new LogStreamManager(getLogManager(name)));
     }
 
+    @Override
+    public Map<String, Integer> getComputationThreads(String processorName) {
+        StreamProcessor processor = processors.get(processorName);
+        if (processor == null) {
+            throw new IllegalArgumentException("Unknown processor: " + processorName);
+        }
+        return processor.getComputationThreads();
+    }
+
     protected LogManager createKafkaLogManager(LogConfigDescriptor config) {
         String kafkaConfig = config.options.getOrDefault("kafkaConfig", "default");
         KafkaConfigService service = Framework.getService(KafkaConfigService.class);
@@ -184,7 +211,16 @@ public class StreamServiceImpl extends DefaultComponent implements StreamService
                 : codecService.getCodec(descriptor.defaultCodec, Record.class);
         Settings settings = new Settings(descriptor.defaultConcurrency, descriptor.defaultPartitions, actualCodec,
                 descriptor.getDefaultPolicy());
-        descriptor.computations.forEach(comp -> settings.setConcurrency(comp.name, comp.concurrency));
+        settings.setSharedThreads(Integer.parseInt(Framework.getProperty(NUXEO_STREAM_SHARED_THREADS_PROP, "0")));
+        settings.setAutoscalePeriod(
+                DurationUtils.parse(Framework.getProperty(NUXEO_STREAM_AUTOSCALE_PERIOD_PROP, "10s")));
+        descriptor.computations.forEach(comp -> {
+            settings.setConcurrency(comp.name, comp.concurrency);
+            if (comp.minConcurrency != null || comp.maxConcurrency != null) {
+                settings.setConcurrencyRange(comp.name, comp.minConcurrency == null ? 1 : comp.minConcurrency,
+                        comp.maxConcurrency == null ? comp.concurrency : comp.maxConcurrency);
+            }
+        });
         descriptor.policies.forEach(policy -> settings.setPolicy(policy.name, descriptor.getPolicy(policy.name)));
         for (StreamProcessorDescriptor.StreamDescriptor streamDescriptor : descriptor.streams) {
             settings.setPartitions(streamDescriptor.name, streamDescriptor.partitions);
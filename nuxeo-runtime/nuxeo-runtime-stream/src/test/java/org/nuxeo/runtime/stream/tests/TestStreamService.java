@@ -20,6 +20,7 @@ package org.nuxeo.runtime.stream.tests;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.time.Duration;
@@ -34,6 +35,7 @@ import org.nuxeo.lib.stream.log.LogAppender;
 import org.nuxeo.lib.stream.log.LogManager;
 import org.nuxeo.lib.stream.log.LogRecord;
 import org.nuxeo.lib.stream.log.LogTailer;
+import org.nuxeo.lib.stream.log.mem.MemLogManager;
 import org.nuxeo.runtime.stream.StreamService;
 import org.nuxeo.runtime.test.runner.Deploy;
 import org.nuxeo.runtime.test.runner.Features;
@@ -107,6 +109,23 @@ public class TestStreamService {
         // never close the manager this is done by the service
     }
 
+    @Test
+    public void testMemLogUsage() throws Exception {
+        @SuppressWarnings("resource")
+        LogManager manager = service.getLogManager("mem");
+        assertTrue(manager instanceof MemLogManager);
+        assertEquals(2, manager.size("memLog"));
+        LogAppender<Record> appender = manager.getAppender("memLog");
+        appender.append(0, Record.of("key", null));
+        try (LogTailer<Record> tailer = manager.createTailer("myGroup", "memLog")) {
+            LogRecord<Record> logRecord = tailer.read(Duration.ofSeconds(1));
+            assertNotNull(logRecord);
+            assertEquals("key", logRecord.message().getKey());
+            tailer.commit();
+        }
+        assertEquals(0, manager.getLag("memLog", "myGroup").lag());
+    }
+
     @Test
     public void testStreamProcessor() throws Exception {
         @SuppressWarnings("resource")
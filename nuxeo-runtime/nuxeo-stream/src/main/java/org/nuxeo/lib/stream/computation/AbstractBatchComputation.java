@@ -47,6 +47,9 @@ public abstract class AbstractBatchComputation extends AbstractComputation {
 
     protected boolean removeLastRecordOnRetry;
 
+    // @since 11.1
+    protected int lastRecordsAdded;
+
     /**
      * Constructor
      *
@@ -63,6 +66,7 @@ public abstract class AbstractBatchComputation extends AbstractComputation {
      * - the batch capacity is reached<br/>
      * - the time threshold is reached<br/>
      * - the inputStreamName has changed<br/>
+     * - the input partition has changed<br/>
      * If this method raises an exception the retry policy is applied.
      *
      * @param context used to send records to output streams, note that the checkpoint is managed automatically.
@@ -106,11 +110,47 @@ public abstract class AbstractBatchComputation extends AbstractComputation {
         batchRecords.add(record);
         if (batchRecords.size() >= context.getPolicy().getBatchCapacity()) {
             removeLastRecordOnRetry = true;
+            lastRecordsAdded = 1;
+            batchProcess(context);
+            removeLastRecordOnRetry = false;
+        }
+    }
+
+    /**
+     * Processes records read together from the same input partition. This is called by the computation runner instead of
+     * {@link #processRecord} when reading records by batch, the retry policy is then applied to the whole call.
+     *
+     * @since 11.1
+     */
+    public void processRecords(ComputationContext context, String inputStreamName, List<Record> records) {
+        if (!inputStreamName.equals(currentInputStream) && !batchRecords.isEmpty()) {
+            batchProcess(context);
+        }
+        if (newBatch) {
+            currentInputStream = inputStreamName;
+            newBatch = false;
+        }
+        batchRecords.addAll(records);
+        if (batchRecords.size() >= context.getPolicy().getBatchCapacity()) {
+            removeLastRecordOnRetry = true;
+            lastRecordsAdded = records.size();
             batchProcess(context);
             removeLastRecordOnRetry = false;
         }
     }
 
+    /**
+     * Processes the pending batch of records, if any. This is called by the computation runner before handing records
+     * of another partition, so that the batch and its state belong to a single partition.
+     *
+     * @since 11.1
+     */
+    public void flushBatch(ComputationContext context) {
+        if (!batchRecords.isEmpty()) {
+            batchProcess(context);
+        }
+    }
+
     private void batchProcess(ComputationContext context) {
         batchProcess(context, currentInputStream, batchRecords);
         checkpointBatch(context);
@@ -125,9 +165,9 @@ public abstract class AbstractBatchComputation extends AbstractComputation {
     @Override
     public void processRetry(ComputationContext context, Throwable failure) {
         if (removeLastRecordOnRetry) {
-            // the batchProcess has failed, processRecord will be retried with the same record
-            // but first we have to remove the record from the batch
-            batchRecords.remove(batchRecords.size() -1);
+            // the batchProcess has failed, processRecord(s) will be retried with the same record(s)
+            // but first we have to remove them from the batch
+            batchRecords.subList(batchRecords.size() - lastRecordsAdded, batchRecords.size()).clear();
             removeLastRecordOnRetry = false;
         }
         log.warn(String.format("Computation: %s fails to process batch of %d records, last record: %s, retrying ...",
@@ -82,5 +82,12 @@ public interface ComputationContext {
      */
     ComputationPolicy getPolicy();
 
-}
+    /**
+     * Gets the keyed state of the computation for the partition of the last record read. Sources without input
+     * streams have a single state.
+     *
+     * @since 11.1
+     */
+    ComputationState getState();
 
+}
@@ -0,0 +1,47 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.lib.stream.computation;
+
+/**
+ * A keyed state of a computation, scoped to the partition of the last record read.
+ * <p>
+ * Changes are visible immediately to the computation and are saved atomically with the offset of the last record read
+ * on the next checkpoint, so the state survives rebalances and restarts. The records included in a saved state are not
+ * processed again, even if the committed offsets are behind it.
+ *
+ * @since 11.1
+ */
+public interface ComputationState {
+
+    /**
+     * Returns the value of the key, or {@code null} if there is none.
+     */
+    byte[] get(String key);
+
+    /**
+     * Sets the value of the key.
+     */
+    void put(String key, byte[] value);
+
+    /**
+     * Removes the key.
+     */
+    void remove(String key);
+
+}
@@ -20,6 +20,7 @@ package org.nuxeo.lib.stream.computation;
 
 import static org.nuxeo.lib.stream.codec.NoCodec.NO_CODEC;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -33,6 +34,9 @@ import org.nuxeo.lib.stream.computation.internals.RecordFilterChainImpl;
  * @since 9.3
  */
 public class Settings {
+    // @since 11.1
+    public static final Duration DEFAULT_AUTOSCALE_PERIOD = Duration.ofSeconds(10);
+
     // streams
     protected final int defaultPartitions;
 
@@ -55,6 +59,18 @@ public class Settings {
 
     protected final Map<String, ComputationPolicy> policies = new HashMap<>();
 
+    // @since 11.1
+    protected int sharedThreads;
+
+    // @since 11.1
+    protected final Map<String, Integer> minConcurrencies = new HashMap<>();
+
+    // @since 11.1
+    protected final Map<String, Integer> maxConcurrencies = new HashMap<>();
+
+    // @since 11.1
+    protected Duration autoscalePeriod = DEFAULT_AUTOSCALE_PERIOD;
+
     /**
      * Default concurrency and partition to use if not specified explicitly.
      */
@@ -192,4 +208,78 @@ public class Settings {
         return filters.getOrDefault(streamName, defaultFilter);
     }
 
+    /**
+     * Runs all the computations of the processor on a shared scheduled pool of the given size, instead of one
+     * dedicated thread per computation thread. Zero, the default, disables the shared pool.
+     *
+     * @since 11.1
+     */
+    public Settings setSharedThreads(int sharedThreads) {
+        this.sharedThreads = sharedThreads;
+        return this;
+    }
+
+    /**
+     * Gets the size of the shared computation pool, zero when computations use dedicated threads.
+     *
+     * @since 11.1
+     */
+    public int getSharedThreads() {
+        return sharedThreads;
+    }
+
+    /**
+     * Lets the autoscaler adjust the computation thread pool size between {@code min} and {@code max} depending on
+     * the lag of its input streams. The pool starts with the {@link #getConcurrency(String) concurrency}.
+     *
+     * @since 11.1
+     */
+    public Settings setConcurrencyRange(String computationName, int min, int max) {
+        if (min > max) {
+            throw new IllegalArgumentException(
+                    "Invalid concurrency range for " + computationName + ": " + min + " > " + max);
+        }
+        minConcurrencies.put(computationName, min);
+        maxConcurrencies.put(computationName, max);
+        return this;
+    }
+
+    /**
+     * Gets the minimum computation thread pool size, by default the pool is not resized.
+     *
+     * @since 11.1
+     */
+    public int getMinConcurrency(String computationName) {
+        return Math.min(getConcurrency(computationName),
+                minConcurrencies.getOrDefault(computationName, getConcurrency(computationName)));
+    }
+
+    /**
+     * Gets the maximum computation thread pool size, by default the pool is not resized.
+     *
+     * @since 11.1
+     */
+    public int getMaxConcurrency(String computationName) {
+        return Math.max(getConcurrency(computationName),
+                maxConcurrencies.getOrDefault(computationName, getConcurrency(computationName)));
+    }
+
+    /**
+     * Sets the period between two checks of the autoscaler.
+     *
+     * @since 11.1
+     */
+    public Settings setAutoscalePeriod(Duration autoscalePeriod) {
+        Objects.requireNonNull(autoscalePeriod);
+        this.autoscalePeriod = autoscalePeriod;
+        return this;
+    }
+
+    /**
+     * @since 11.1
+     */
+    public Duration getAutoscalePeriod() {
+        return autoscalePeriod;
+    }
+
 }
@@ -0,0 +1,48 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.lib.stream.computation;
+
+import java.util.Map;
+
+import org.nuxeo.lib.stream.log.LogPartition;
+
+/**
+ * Storage of the computation states, a state is identified by the computation name and a partition.
+ *
+ * @since 11.1
+ */
+public interface StateStore {
+
+    /**
+     * Returns the value of the key, or {@code null} if there is none.
+     */
+    byte[] get(String computationName, LogPartition partition, String key);
+
+    /**
+     * Returns the offset of the last record included in the state, or {@code -1} if there is none.
+     */
+    long getOffset(String computationName, LogPartition partition);
+
+    /**
+     * Applies all the changes atomically together with the offset of the last record they include, a {@code null}
+     * value removes the key.
+     */
+    void putAll(String computationName, LogPartition partition, Map<String, byte[]> changes, long offset);
+
+}
@@ -18,6 +18,9 @@
  */
 package org.nuxeo.lib.stream.computation;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.nuxeo.lib.stream.log.LogOffset;
 
 /**
@@ -49,4 +52,17 @@ public interface StreamManager {
      * Appends a record to a processor's source stream.
      */
     LogOffset append(String stream, Record record);
+
+    /**
+     * Appends a batch of records to a processor's source stream, returns the offsets in the same order.
+     *
+     * @since 11.1
+     */
+    default List<LogOffset> append(String stream, List<Record> records) {
+        List<LogOffset> offsets = new ArrayList<>(records.size());
+        for (Record record : records) {
+            offsets.add(append(stream, record));
+        }
+        return offsets;
+    }
 }
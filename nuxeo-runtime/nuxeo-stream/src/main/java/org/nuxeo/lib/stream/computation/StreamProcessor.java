@@ -19,6 +19,7 @@
 package org.nuxeo.lib.stream.computation;
 
 import java.time.Duration;
+import java.util.Map;
 
 import org.nuxeo.lib.stream.log.Latency;
 
@@ -78,6 +79,14 @@ public interface StreamProcessor {
      */
     Latency getLatency(String computationName);
 
+    /**
+     * Returns the number of threads of each computation, this can change over time for computations with a
+     * concurrency range.
+     *
+     * @since 11.1
+     */
+    Map<String, Integer> getComputationThreads();
+
     /**
      * Returns true if all messages with a lower timestamp has been processed by the topology.
      */
@@ -28,9 +28,12 @@ import java.util.Objects;
 import org.nuxeo.lib.stream.computation.ComputationContext;
 import org.nuxeo.lib.stream.computation.ComputationMetadataMapping;
 import org.nuxeo.lib.stream.computation.ComputationPolicy;
+import org.nuxeo.lib.stream.computation.ComputationState;
 import org.nuxeo.lib.stream.computation.Record;
+import org.nuxeo.lib.stream.computation.StateStore;
 import org.nuxeo.lib.stream.computation.StreamManager;
 import org.nuxeo.lib.stream.log.LogOffset;
+import org.nuxeo.lib.stream.log.LogPartition;
 
 /**
  * @since 9.3
@@ -54,13 +57,35 @@ public class ComputationContextImpl implements ComputationContext {
 
     protected LogOffset lastOffset;
 
+    // @since 11.1
+    protected final StateStore stateStore;
+
+    // @since 11.1
+    protected final Map<LogPartition, ComputationStateImpl> states = new HashMap<>();
+
+    // @since 11.1
+    protected final Map<LogPartition, Long> lastOffsets = new HashMap<>();
+
+    // @since 11.1
+    protected final Map<LogPartition, Long> stateOffsets = new HashMap<>();
+
+    /**
+     * @param stateStore the store of the computation states, {@code null} if states are not supported
+     * @since 11.1
+     */
     public ComputationContextImpl(StreamManager streamManager, ComputationMetadataMapping metadata,
-            ComputationPolicy policy) {
+            ComputationPolicy policy, StateStore stateStore) {
         this.manager = streamManager;
         this.metadata = metadata;
         this.timers = new HashMap<>();
         this.streamRecords = new HashMap<>();
         this.policy = policy;
+        this.stateStore = stateStore;
+    }
+
+    public ComputationContextImpl(StreamManager streamManager, ComputationMetadataMapping metadata,
+            ComputationPolicy policy) {
+        this(streamManager, metadata, policy, new MemStateStore());
     }
 
     public ComputationContextImpl(StreamManager streamManager, ComputationMetadataMapping metadata) {
@@ -128,8 +153,55 @@ public class ComputationContextImpl implements ComputationContext {
         return policy;
     }
 
+    @Override
+    public ComputationState getState() {
+        if (stateStore == null) {
+            throw new UnsupportedOperationException(
+                    "No durable state store for the Log implementation, cannot use a state in computation: "
+                            + metadata.name());
+        }
+        LogPartition partition = lastOffset != null ? lastOffset.partition() : getSourcePartition();
+        return states.computeIfAbsent(partition, p -> new ComputationStateImpl(stateStore, metadata.name(), p));
+    }
+
+    /**
+     * A source has no input partition, its state is attached to its first output stream.
+     */
+    protected LogPartition getSourcePartition() {
+        String stream = metadata.outputStreams().stream().sorted().findFirst().orElse(metadata.name());
+        return LogPartition.of(stream, 0);
+    }
+
+    /**
+     * Saves the state changes done since the last checkpoint.
+     *
+     * @since 11.1
+     */
+    public void saveState() {
+        states.forEach((partition, state) -> state.save(lastOffsets.getOrDefault(partition, Long.valueOf(-1)).longValue()));
+    }
+
+    /**
+     * Checks if the record at this offset is already included in the saved state of its partition. This happens when
+     * the computation stopped after saving its state but before committing its offsets, such a record must not be
+     * processed again.
+     *
+     * @since 11.1
+     */
+    public boolean isIncludedInState(LogOffset offset) {
+        if (stateStore == null) {
+            return false;
+        }
+        long stateOffset = stateOffsets.computeIfAbsent(offset.partition(),
+                partition -> Long.valueOf(stateStore.getOffset(metadata.name(), partition))).longValue();
+        return offset.offset() <= stateOffset;
+    }
+
     public void setLastOffset(LogOffset lastOffset) {
         this.lastOffset = lastOffset;
+        if (lastOffset != null) {
+            lastOffsets.put(lastOffset.partition(), Long.valueOf(lastOffset.offset()));
+        }
     }
 
     public long getSourceLowWatermark() {
@@ -0,0 +1,85 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.lib.stream.computation.internals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.nuxeo.lib.stream.computation.ComputationState;
+import org.nuxeo.lib.stream.computation.StateStore;
+import org.nuxeo.lib.stream.log.LogPartition;
+
+/**
+ * A computation state buffering its changes until the next checkpoint.
+ *
+ * @since 11.1
+ */
+public class ComputationStateImpl implements ComputationState {
+
+    protected final StateStore store;
+
+    protected final String computationName;
+
+    protected final LogPartition partition;
+
+    // a null value is a removed key
+    protected final Map<String, byte[]> changes = new HashMap<>();
+
+    public ComputationStateImpl(StateStore store, String computationName, LogPartition partition) {
+        this.store = store;
+        this.computationName = computationName;
+        this.partition = partition;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        Objects.requireNonNull(key);
+        if (changes.containsKey(key)) {
+            return changes.get(key);
+        }
+        return store.get(computationName, partition, key);
+    }
+
+    @Override
+    public void put(String key, byte[] value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        changes.put(key, value);
+    }
+
+    @Override
+    public void remove(String key) {
+        Objects.requireNonNull(key);
+        changes.put(key, null);
+    }
+
+    /**
+     * Saves the pending changes in the store.
+     *
+     * @param offset the offset of the last record included in the changes, {@code -1} if none
+     */
+    public void save(long offset) {
+        if (!changes.isEmpty()) {
+            store.putAll(computationName, partition, changes, offset);
+            changes.clear();
+        }
+    }
+
+}
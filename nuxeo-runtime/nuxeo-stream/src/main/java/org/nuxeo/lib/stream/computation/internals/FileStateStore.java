@@ -0,0 +1,267 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.lib.stream.computation.internals;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.lib.stream.computation.StateStore;
+import org.nuxeo.lib.stream.log.LogPartition;
+
+/**
+ * A StateStore persisting states in files, used with Chronicle Logs.
+ * <p>
+ * Each state is kept in memory and its changes are appended to a file as a single checksummed frame together with the
+ * offset of the last record they include, an incomplete frame left by a crash is ignored when loading. The file is
+ * rewritten with only the live values when it becomes twice as big as them.
+ * <p>
+ * The states must not be stored under the Chronicle base path, where every directory is a Log, see
+ * {@link #getStatePath}. The state of a deleted Log must be deleted with it.
+ *
+ * @since 11.1
+ */
+public class FileStateStore implements StateStore {
+    private static final Log log = LogFactory.getLog(FileStateStore.class);
+
+    public static final String STATE_DIR_SUFFIX = "-state";
+
+    protected static final long COMPACT_MIN_SIZE = 1024 * 1024;
+
+    protected final Path basePath;
+
+    protected final Map<String, FileState> states = new ConcurrentHashMap<>();
+
+    /**
+     * @param basePath the directory of the states
+     */
+    public FileStateStore(Path basePath) {
+        this.basePath = basePath;
+    }
+
+    /**
+     * Gets the directory of the states of the Chronicle Logs located in the given base path: a sibling directory.
+     */
+    public static Path getStatePath(Path chronicleBasePath) {
+        Path path = chronicleBasePath.toAbsolutePath();
+        return path.resolveSibling(path.getFileName() + STATE_DIR_SUFFIX);
+    }
+
+    protected FileState getState(String computationName, LogPartition partition) {
+        return states.computeIfAbsent(computationName + ":" + partition,
+                k -> new FileState(basePath.resolve(computationName)
+                                           .resolve(partition.name())
+                                           .resolve(String.format("P-%02d.state", partition.partition()))));
+    }
+
+    @Override
+    public byte[] get(String computationName, LogPartition partition, String key) {
+        return getState(computationName, partition).get(key);
+    }
+
+    @Override
+    public long getOffset(String computationName, LogPartition partition) {
+        return getState(computationName, partition).getOffset();
+    }
+
+    @Override
+    public void putAll(String computationName, LogPartition partition, Map<String, byte[]> changes, long offset) {
+        getState(computationName, partition).putAll(changes, offset);
+    }
+
+    protected static byte[] encode(Map<String, byte[]> values, long offset) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(offset);
+            out.writeInt(values.size());
+            for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+                out.writeUTF(entry.getKey());
+                byte[] value = entry.getValue();
+                if (value == null) {
+                    out.writeInt(-1);
+                } else {
+                    out.writeInt(value.length);
+                    out.write(value);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer frame = ByteBuffer.allocate(12 + payload.length);
+        frame.putInt(payload.length).putLong(crc.getValue()).put(payload);
+        return frame.array();
+    }
+
+    /**
+     * A state and its file.
+     */
+    protected static class FileState {
+
+        protected final Path file;
+
+        protected final Map<String, byte[]> values = new HashMap<>();
+
+        protected long fileSize;
+
+        protected long liveSize;
+
+        protected long offset = -1;
+
+        protected FileState(Path file) {
+            this.file = file;
+            load();
+        }
+
+        protected synchronized byte[] get(String key) {
+            return values.get(key);
+        }
+
+        protected synchronized long getOffset() {
+            return offset;
+        }
+
+        protected synchronized void putAll(Map<String, byte[]> changes, long offset) {
+            byte[] frame = encode(changes, offset);
+            try {
+                Files.createDirectories(file.getParent());
+                try (FileChannel channel = FileChannel.open(file, CREATE, WRITE, APPEND)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(frame);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot save state: " + file, e);
+            }
+            fileSize += frame.length;
+            changes.forEach(this::apply);
+            this.offset = offset;
+            if (fileSize > COMPACT_MIN_SIZE && fileSize > 2 * liveSize) {
+                compact();
+            }
+        }
+
+        protected void apply(String key, byte[] value) {
+            byte[] old = value == null ? values.remove(key) : values.put(key, value);
+            if (old != null) {
+                liveSize -= key.length() + old.length;
+            }
+            if (value != null) {
+                liveSize += key.length() + value.length;
+            }
+        }
+
+        protected void load() {
+            if (!Files.exists(file)) {
+                return;
+            }
+            byte[] data;
+            try {
+                data = Files.readAllBytes(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot load state: " + file, e);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.remaining() >= 12) {
+                int length = buffer.getInt();
+                long checksum = buffer.getLong();
+                if (length < 0 || length > buffer.remaining()) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if (crc.getValue() != checksum) {
+                    break;
+                }
+                decode(payload);
+                fileSize = buffer.position();
+            }
+            if (fileSize < data.length) {
+                log.warn("Ignoring incomplete state at the end of: " + file);
+                truncate();
+            }
+        }
+
+        protected void decode(byte[] payload) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+                offset = in.readLong();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String key = in.readUTF();
+                    int length = in.readInt();
+                    byte[] value = null;
+                    if (length >= 0) {
+                        value = new byte[length];
+                        in.readFully(value);
+                    }
+                    apply(key, value);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Invalid state: " + file, e);
+            }
+        }
+
+        protected void truncate() {
+            try (FileChannel channel = FileChannel.open(file, WRITE)) {
+                channel.truncate(fileSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot truncate state: " + file, e);
+            }
+        }
+
+        protected void compact() {
+            byte[] frame = encode(values, offset);
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try {
+                Files.write(tmp, frame);
+                Files.move(tmp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+            } catch (IOException e) {
+                // not fatal, the current file is still valid
+                log.warn("Cannot compact state: " + file, e);
+                return;
+            }
+            fileSize = frame.length;
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.lib.stream.computation.internals;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.nuxeo.lib.stream.computation.StateStore;
+import org.nuxeo.lib.stream.log.LogPartition;
+
+/**
+ * A StateStore keeping states in memory, states survive rebalances but not restarts. It is used with the in-memory
+ * Logs, which don't survive restarts either.
+ *
+ * @since 11.1
+ */
+public class MemStateStore implements StateStore {
+
+    protected final Map<String, Map<String, byte[]>> states = new ConcurrentHashMap<>();
+
+    protected final Map<String, Long> offsets = new ConcurrentHashMap<>();
+
+    protected Map<String, byte[]> getState(String computationName, LogPartition partition) {
+        return states.computeIfAbsent(computationName + ":" + partition, k -> new ConcurrentHashMap<>());
+    }
+
+    @Override
+    public byte[] get(String computationName, LogPartition partition, String key) {
+        return getState(computationName, partition).get(key);
+    }
+
+    @Override
+    public long getOffset(String computationName, LogPartition partition) {
+        return offsets.getOrDefault(computationName + ":" + partition, Long.valueOf(-1)).longValue();
+    }
+
+    @Override
+    public void putAll(String computationName, LogPartition partition, Map<String, byte[]> changes, long offset) {
+        Map<String, byte[]> state = getState(computationName, partition);
+        synchronized (state) {
+            changes.forEach((key, value) -> {
+                if (value == null) {
+                    state.remove(key);
+                } else {
+                    state.put(key, value);
+                }
+            });
+            offsets.put(computationName + ":" + partition, Long.valueOf(offset));
+        }
+    }
+
+}
@@ -0,0 +1,202 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.lib.stream.computation.log;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.lib.stream.computation.ComputationMetadataMapping;
+import org.nuxeo.lib.stream.computation.Settings;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
+/**
+ * Periodically adjusts the number of threads of the computation pools depending on the lag of their input streams.
+ * <p>
+ * A pool is scaled up, doubling its threads, when its lag per thread is above {@link #SCALE_UP_LAG_PER_THREAD} and is
+ * not decreasing, or when there is a lag and the record latency is above {@link #SCALE_UP_LATENCY_MS}. It is scaled
+ * down one thread at a time after {@link #SCALE_DOWN_IDLE_CHECKS} consecutive checks without lag. The number of
+ * threads stays within the computation concurrency range and never exceeds the number of input partitions.
+ *
+ * @since 11.1
+ */
+public class ComputationAutoscaler {
+    private static final Log log = LogFactory.getLog(ComputationAutoscaler.class);
+
+    protected static final long SCALE_UP_LAG_PER_THREAD = 100;
+
+    protected static final long SCALE_UP_LATENCY_MS = 5_000;
+
+    protected static final int SCALE_DOWN_IDLE_CHECKS = 3;
+
+    protected static final Duration RESCALE_TIMEOUT = Duration.ofSeconds(10);
+
+    protected final LogStreamProcessor processor;
+
+    protected final Settings settings;
+
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(
+            ComputationRunner.NUXEO_METRICS_REGISTRY_NAME);
+
+    protected final Map<String, Scaling> scalings = new HashMap<>();
+
+    protected ScheduledExecutorService scheduler;
+
+    public ComputationAutoscaler(LogStreamProcessor processor) {
+        this.processor = processor;
+        this.settings = processor.settings;
+    }
+
+    /**
+     * Returns {@code true} if at least one computation of the processor has a concurrency range.
+     */
+    public static boolean isNeeded(LogStreamProcessor processor) {
+        Settings settings = processor.settings;
+        return processor.topology.metadataList()
+                                 .stream()
+                                 .map(ComputationMetadataMapping::name)
+                                 .anyMatch(name -> settings.getMinConcurrency(name) < settings.getMaxConcurrency(name));
+    }
+
+    @SuppressWarnings("FutureReturnValueIgnored")
+    public void start() {
+        processor.pools.forEach(pool -> {
+            String name = pool.getComputationName();
+            registry.remove(getMetricName(name, "threads"));
+            registry.register(getMetricName(name, "threads"), (Gauge<Integer>) pool::getThreads);
+        });
+        long periodMs = settings.getAutoscalePeriod().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ComputationPool.NamedThreadFactory("computationAutoscaler"));
+        scheduler.scheduleWithFixedDelay(this::check, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        log.debug("Autoscaler started, period: " + periodMs + "ms");
+    }
+
+    /**
+     * Stops the autoscaler, waiting for a rescale in progress to complete.
+     */
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(2 * RESCALE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Timeout on wait for autoscaler termination");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for autoscaler termination");
+        }
+        scheduler = null;
+        processor.pools.forEach(pool -> registry.remove(getMetricName(pool.getComputationName(), "threads")));
+    }
+
+    protected void check() {
+        for (ComputationPool pool : processor.pools) {
+            try {
+                check(pool);
+            } catch (RuntimeException e) {
+                // an exception would cancel the next checks
+                log.error(pool.getComputationName() + ": Autoscaler check failed: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    protected void check(ComputationPool pool) {
+        String name = pool.getComputationName();
+        ComputationMetadataMapping meta = processor.topology.getMetadata(name);
+        int threads = pool.getThreads();
+        if (meta.inputStreams().isEmpty() || (threads > 0 && pool.isTerminated())) {
+            // nothing to scale for a source, and a computation terminated on failure must stay down
+            return;
+        }
+        int min = settings.getMinConcurrency(name);
+        int max = Math.min(settings.getMaxConcurrency(name), getPartitions(meta));
+        if (min >= max) {
+            return;
+        }
+        long lag = meta.inputStreams().stream().mapToLong(stream -> processor.manager.getLag(stream, name).lag()).sum();
+        Scaling scaling = scalings.computeIfAbsent(name, Scaling::new);
+        int target = threads;
+        if (lag > 0) {
+            scaling.idleChecks = 0;
+            boolean lagging = lag > SCALE_UP_LAG_PER_THREAD * Math.max(1, threads) && lag >= scaling.lastLag;
+            if (lagging || getLatencyMs(name) > SCALE_UP_LATENCY_MS) {
+                target = Math.max(1, threads * 2);
+            }
+        } else if (++scaling.idleChecks >= SCALE_DOWN_IDLE_CHECKS) {
+            scaling.idleChecks = 0;
+            target = threads - 1;
+        }
+        scaling.lastLag = lag;
+        target = Math.max(min, Math.min(max, target));
+        if (target == threads) {
+            return;
+        }
+        log.info(name + ": Autoscaling from " + threads + " to " + target + " threads, lag: " + lag);
+        (target > threads ? scaling.scaleUp : scaling.scaleDown).inc();
+        pool.rescale(processor.getAssignments(meta, target), RESCALE_TIMEOUT);
+    }
+
+    protected int getPartitions(ComputationMetadataMapping meta) {
+        return meta.inputStreams().stream().mapToInt(settings::getPartitions).sum();
+    }
+
+    protected long getLatencyMs(String computationName) {
+        // updated by the runners
+        double latencyNs = registry.timer(getMetricName(computationName, "recordLatency"))
+                                   .getSnapshot()
+                                   .get75thPercentile();
+        return TimeUnit.NANOSECONDS.toMillis((long) latencyNs);
+    }
+
+    protected static String getMetricName(String computationName, String metric) {
+        return MetricRegistry.name("nuxeo", "stream", "computation", computationName, metric);
+    }
+
+    /**
+     * The scaling state of a computation.
+     */
+    protected class Scaling {
+
+        protected long lastLag;
+
+        protected int idleChecks;
+
+        protected final Counter scaleUp;
+
+        protected final Counter scaleDown;
+
+        protected Scaling(String computationName) {
+            scaleUp = registry.counter(getMetricName(computationName, "scaleUp"));
+            scaleDown = registry.counter(getMetricName(computationName, "scaleDown"));
+        }
+    }
+
+}
@@ -21,11 +21,14 @@ package org.nuxeo.lib.stream.computation.log;
 import static java.util.concurrent.Executors.newFixedThreadPool;
 
 import java.time.Duration;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -50,11 +53,11 @@ public class ComputationPool {
 
     protected final ComputationMetadataMapping metadata;
 
-    protected final int threads;
+    protected int threads;
 
     protected final Supplier<Computation> supplier;
 
-    protected final List<List<LogPartition>> defaultAssignments;
+    protected List<List<LogPartition>> defaultAssignments;
 
     protected final List<ComputationRunner> runners;
 
@@ -64,28 +67,78 @@ public class ComputationPool {
 
     protected ExecutorService threadPool;
 
+    // @since 11.1
+    protected final ScheduledExecutorService sharedPool;
+
+    // @since 11.1
+    protected CountDownLatch sharedTermination;
+
     public ComputationPool(Supplier<Computation> supplier, ComputationMetadataMapping metadata,
             List<List<LogPartition>> defaultAssignments, LogStreamManager streamManager, ComputationPolicy policy) {
+        this(supplier, metadata, defaultAssignments, streamManager, policy, null);
+    }
+
+    /**
+     * Creates a pool whose runners are scheduled on a shared pool instead of dedicated threads when
+     * {@code sharedPool} is not {@code null}. The shared pool is not owned by the computation pool.
+     *
+     * @since 11.1
+     */
+    public ComputationPool(Supplier<Computation> supplier, ComputationMetadataMapping metadata,
+            List<List<LogPartition>> defaultAssignments, LogStreamManager streamManager, ComputationPolicy policy,
+            ScheduledExecutorService sharedPool) {
         Objects.requireNonNull(policy);
+        this.sharedPool = sharedPool;
         this.supplier = supplier;
         this.metadata = metadata;
         this.threads = defaultAssignments.size();
         this.streamManager = streamManager;
         this.defaultAssignments = defaultAssignments;
         this.policy = policy;
-        this.runners = new ArrayList<>(threads);
+        this.runners = new CopyOnWriteArrayList<>();
     }
 
     public String getComputationName() {
         return metadata.name();
     }
 
+    /**
+     * Returns the number of runners of the pool.
+     *
+     * @since 11.1
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Stops the runners after their checkpoint and starts new ones with the given assignments. Records are processed
+     * at least once across a rescale, like on a rebalance.
+     *
+     * @return {@code false} if the runners did not stop within the timeout, the pool is restarted anyway
+     * @since 11.1
+     */
+    public boolean rescale(List<List<LogPartition>> assignments, Duration timeout) {
+        log.info(metadata.name() + ": Rescaling pool from " + threads + " to " + assignments.size() + " threads");
+        boolean ret = stop(timeout);
+        // also releases runners that were already terminated
+        shutdown();
+        this.defaultAssignments = assignments;
+        this.threads = assignments.size();
+        start();
+        return ret;
+    }
+
     @SuppressWarnings("FutureReturnValueIgnored")
     public void start() {
         if (threads == 0) {
             log.info(metadata.name() + ": Empty pool");
             return;
         }
+        if (sharedPool != null) {
+            startShared();
+            return;
+        }
         log.info(metadata.name() + ": Starting pool");
         threadPool = newFixedThreadPool(threads, new NamedThreadFactory(metadata.name() + "Pool"));
         defaultAssignments.forEach(assignments -> {
@@ -98,13 +151,48 @@ public class ComputationPool {
         log.debug(metadata.name() + ": Pool started, threads: " + threads);
     }
 
+    protected void startShared() {
+        log.info(metadata.name() + ": Starting on shared pool");
+        sharedTermination = new CountDownLatch(threads);
+        defaultAssignments.forEach(assignments -> {
+            ComputationRunner runner = new ComputationRunner(supplier, metadata, assignments, streamManager, policy);
+            runners.add(runner);
+            schedule(runner, 0);
+        });
+        log.debug(metadata.name() + ": Pool started on shared pool, runners: " + threads);
+    }
+
+    @SuppressWarnings("FutureReturnValueIgnored")
+    protected void schedule(ComputationRunner runner, long delayMs) {
+        try {
+            sharedPool.schedule(() -> step(runner), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn(metadata.name() + ": Shared pool is shut down, terminating runner");
+            runner.stop();
+            runner.destroy();
+            sharedTermination.countDown();
+        }
+    }
+
+    protected void step(ComputationRunner runner) {
+        long delayMs = runner.runStep();
+        if (delayMs < 0) {
+            sharedTermination.countDown();
+        } else {
+            schedule(runner, delayMs);
+        }
+    }
+
     public boolean isTerminated() {
+        if (sharedPool != null) {
+            return sharedTermination == null || sharedTermination.getCount() == 0;
+        }
         return threadPool == null ? true : threadPool.isTerminated();
     }
 
     public boolean waitForAssignments(Duration timeout) throws InterruptedException {
         log.info(metadata.name() + ": Wait for partitions assignments");
-        if (threadPool == null || threadPool.isTerminated()) {
+        if (isTerminated()) {
             return true;
         }
         for (ComputationRunner runner : runners) {
@@ -116,7 +204,7 @@ public class ComputationPool {
     }
 
     public boolean drainAndStop(Duration timeout) {
-        if (threadPool == null || threadPool.isTerminated()) {
+        if (isTerminated()) {
             return true;
         }
         log.info(metadata.name() + ": Draining");
@@ -127,7 +215,7 @@ public class ComputationPool {
     }
 
     public boolean stop(Duration timeout) {
-        if (threadPool == null || threadPool.isTerminated()) {
+        if (isTerminated()) {
             return true;
         }
         log.info(metadata.name() + ": Stopping");
@@ -138,6 +226,10 @@ public class ComputationPool {
     }
 
     public void shutdown() {
+        if (sharedPool != null) {
+            shutdownShared();
+            return;
+        }
         if (threadPool != null && !threadPool.isTerminated()) {
             log.info(metadata.name() + ": Shutting down");
             threadPool.shutdownNow();
@@ -153,7 +245,20 @@ public class ComputationPool {
         threadPool = null;
     }
 
+    protected void shutdownShared() {
+        if (!isTerminated()) {
+            log.info(metadata.name() + ": Shutting down");
+            // the shared pool is not ours, runners exit on their next step
+            runners.forEach(ComputationRunner::stop);
+            awaitPoolTermination(Duration.ofSeconds(1));
+        }
+        runners.clear();
+    }
+
     protected boolean awaitPoolTermination(Duration timeout) {
+        if (sharedPool != null) {
+            return awaitSharedTermination(timeout);
+        }
         try {
             if (!threadPool.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
                 log.warn(metadata.name() + ": Timeout on wait for pool termination");
@@ -167,6 +272,20 @@ public class ComputationPool {
         return true;
     }
 
+    protected boolean awaitSharedTermination(Duration timeout) {
+        try {
+            if (!sharedTermination.await(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn(metadata.name() + ": Timeout on wait for runners termination");
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn(metadata.name() + ": Interrupted while waiting for runners termination");
+            return false;
+        }
+        return true;
+    }
+
     public long getLowWatermark() {
         // Collect all the low watermark of the pool, filtering 0 (or 1 which is completed of 0)
         Set<Watermark> watermarks = runners.stream()
@@ -19,6 +19,7 @@
 package org.nuxeo.lib.stream.computation.log;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -31,6 +32,7 @@ import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.nuxeo.lib.stream.computation.AbstractBatchComputation;
 import org.nuxeo.lib.stream.computation.Computation;
 import org.nuxeo.lib.stream.computation.ComputationMetadataMapping;
 import org.nuxeo.lib.stream.computation.ComputationPolicy;
@@ -124,18 +126,36 @@ public class ComputationRunner implements Runnable, RebalanceListener {
 
     protected Timer processTimerTimer;
 
+    // @since 11.1
+    protected Timer recordLatencyTimer;
+
+    // @since 11.1
+    protected Timer processBatchTimer;
+
+    // @since 11.1
+    protected boolean batchRead;
+
     // @since 11.1
     protected static AtomicInteger skipFailures = new AtomicInteger(0);
 
     // @since 11.1
     protected boolean recordActivity;
 
+    // @since 11.1
+    protected boolean initialized;
+
+    // @since 11.1
+    protected long idleBackoffMs;
+
+    // @since 11.1
+    protected LogPartition lastPartition;
+
     @SuppressWarnings("unchecked")
     public ComputationRunner(Supplier<Computation> supplier, ComputationMetadataMapping metadata,
             List<LogPartition> defaultAssignment, LogStreamManager streamManager, ComputationPolicy policy) {
         this.supplier = supplier;
         this.metadata = metadata;
-        this.context = new ComputationContextImpl(streamManager, metadata, policy);
+        this.context = new ComputationContextImpl(streamManager, metadata, policy, streamManager.getStateStore());
         this.streamManager = streamManager;
         this.policy = policy;
         if (metadata.inputStreams().isEmpty()) {
@@ -175,7 +195,7 @@ public class ComputationRunner implements Runnable, RebalanceListener {
     public void run() {
         threadName = Thread.currentThread().getName();
         boolean interrupted = false;
-        computation = supplier.get();
+        createComputation();
         log.debug(metadata.name() + ": Init");
         registerMetrics();
         try {
@@ -212,6 +232,73 @@ public class ComputationRunner implements Runnable, RebalanceListener {
         }
     }
 
+    /**
+     * Runs one iteration of the processing loop without blocking, this is used instead of {@link #run()} when the
+     * runner is scheduled on a pool shared with other runners. The first call initializes the computation.
+     *
+     * @return the delay in milliseconds before the next call, or -1 when the runner is terminated and must not be
+     *         scheduled again
+     * @since 11.1
+     */
+    public long runStep() {
+        String poolThreadName = Thread.currentThread().getName();
+        boolean terminated = true;
+        try {
+            if (!initialized) {
+                initialized = true;
+                threadName = metadata.name();
+                createComputation();
+                log.debug(metadata.name() + ": Init");
+                registerMetrics();
+                computation.init(context);
+                log.debug(metadata.name() + ": Start");
+            }
+            if (!continueLoop()) {
+                return -1;
+            }
+            boolean timerActivity = processTimer();
+            recordActivity = processRecord(Duration.ZERO);
+            counter++;
+            terminated = false;
+            if (timerActivity || recordActivity) {
+                idleBackoffMs = 0;
+                return 0;
+            }
+            // no activity, back off exponentially but never beyond the next timer deadline
+            idleBackoffMs = Math.min(INACTIVITY_BREAK_MS, Math.max(1, idleBackoffMs * 2));
+            return getIdleWaitMs(idleBackoffMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.debug(metadata.name() + ": Interrupted");
+            return -1;
+        } catch (Exception e) {
+            log.error(metadata.name() + ": Exception in processStep: " + e.getMessage(), e);
+            return -1;
+        } finally {
+            if (terminated) {
+                destroy();
+            }
+            Thread.currentThread().setName(poolThreadName);
+        }
+    }
+
+    protected void createComputation() {
+        computation = supplier.get();
+        // batch computations are given all the records read at once
+        batchRead = computation instanceof AbstractBatchComputation && policy.getBatchCapacity() > 1;
+    }
+
+    protected void destroy() {
+        try {
+            if (computation != null) {
+                computation.destroy();
+            }
+        } finally {
+            closeTailer();
+            log.debug(metadata.name() + ": Exited");
+        }
+    }
+
     protected void registerMetrics() {
         globalFailureCount = registry.counter(GLOBAL_FAILURE_COUNT_REGISTRY_NAME);
         runningCount = registry.counter(
@@ -224,6 +311,10 @@ public class ComputationRunner implements Runnable, RebalanceListener {
                 MetricRegistry.name("nuxeo", "stream", "computation", metadata.name(), "processRecord"));
         processTimerTimer = registry.timer(
                 MetricRegistry.name("nuxeo", "stream", "computation", metadata.name(), "processTimer"));
+        processBatchTimer = registry.timer(
+                MetricRegistry.name("nuxeo", "stream", "computation", metadata.name(), "processBatch"));
+        recordLatencyTimer = registry.timer(
+                MetricRegistry.name("nuxeo", "stream", "computation", metadata.name(), "recordLatency"));
     }
 
     protected void closeTailer() {
@@ -239,10 +330,43 @@ public class ComputationRunner implements Runnable, RebalanceListener {
             recordActivity = processRecord();
             counter++;
             if (!timerActivity && !recordActivity) {
-                // no activity take a break
-                Thread.sleep(INACTIVITY_BREAK_MS);
+                // no activity, wait for a record until the next timer is due instead of sleeping
+                recordActivity = waitForActivity();
+            }
+        }
+    }
+
+    /**
+     * Waits at most {@link #INACTIVITY_BREAK_MS} for a record to process, returning earlier when a timer is due.
+     *
+     * @since 11.1
+     */
+    protected boolean waitForActivity() throws InterruptedException {
+        long waitMs = getIdleWaitMs(INACTIVITY_BREAK_MS);
+        if (waitMs <= 0) {
+            return false;
+        }
+        if (tailer == null) {
+            Thread.sleep(waitMs);
+            return false;
+        }
+        return processRecord(Duration.ofMillis(waitMs));
+    }
+
+    /**
+     * Returns the time to wait before the next timer deadline, bounded by the given maximum.
+     *
+     * @since 11.1
+     */
+    protected long getIdleWaitMs(long maxMs) {
+        long waitMs = maxMs;
+        if (!context.getTimers().isEmpty()) {
+            long now = System.currentTimeMillis();
+            for (long deadline : context.getTimers().values()) {
+                waitMs = Math.min(waitMs, deadline - now);
             }
         }
+        return Math.max(0, waitMs);
     }
 
     protected boolean continueLoop() {
@@ -313,6 +437,15 @@ public class ComputationRunner implements Runnable, RebalanceListener {
     }
 
     protected boolean processRecord() throws InterruptedException {
+        return processRecord(getTimeoutDuration());
+    }
+
+    /**
+     * Reads and processes a record waiting at most the given timeout.
+     *
+     * @since 11.1
+     */
+    protected boolean processRecord(Duration timeoutRead) throws InterruptedException {
         if (context.requireTerminate()) {
             stop = true;
             return true;
@@ -320,7 +453,9 @@ public class ComputationRunner implements Runnable, RebalanceListener {
         if (tailer == null) {
             return false;
         }
-        Duration timeoutRead = getTimeoutDuration();
+        if (batchRead) {
+            return processRecords(timeoutRead);
+        }
         LogRecord<Record> logRecord = null;
         try {
             logRecord = tailer.read(timeoutRead);
@@ -337,13 +472,18 @@ public class ComputationRunner implements Runnable, RebalanceListener {
                     log.debug("Filtering skip record: " + record);
                 }
                 return false;
+            } else if (context.isIncludedInState(logRecord.offset())) {
+                log.debug("Skip record already included in the state: " + logRecord.offset());
+                return false;
             } else if (filteredRecord != record) {
                 logRecord = new LogRecord<>(filteredRecord, logRecord.offset());
                 record = filteredRecord;
             }
             lastReadTime = System.currentTimeMillis();
             inRecords++;
+            updateRecordLatency(record);
             lowWatermark.mark(record.getWatermark());
+            checkPartitionChange(logRecord.offset().partition());
             context.setLastOffset(logRecord.offset());
             String from = metadata.reverseMap(stream);
             processRecordWithRetry(from, record);
@@ -356,6 +496,107 @@ public class ComputationRunner implements Runnable, RebalanceListener {
         return false;
     }
 
+    /**
+     * Reads up to a batch capacity of records and hands them to the batch computation, grouped by input partition so
+     * that the state of a batch is saved for the partition of its records.
+     *
+     * @since 11.1
+     */
+    protected boolean processRecords(Duration timeoutRead) throws InterruptedException {
+        List<LogRecord<Record>> logRecords;
+        try {
+            logRecords = tailer.read(policy.getBatchCapacity(), timeoutRead);
+        } catch (RebalanceException e) {
+            // the revoke has done a checkpoint we can continue
+            return false;
+        }
+        if (logRecords.isEmpty()) {
+            return false;
+        }
+        lastReadTime = System.currentTimeMillis();
+        List<Record> records = new ArrayList<>(logRecords.size());
+        List<Record> batch = new ArrayList<>(logRecords.size());
+        LogPartition batchPartition = null;
+        for (LogRecord<Record> logRecord : logRecords) {
+            String stream = logRecord.offset().partition().name();
+            Record record = streamManager.getFilter(stream).afterRead(logRecord.message(), logRecord.offset());
+            if (record == null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Filtering skip record: " + logRecord.message());
+                }
+                continue;
+            }
+            if (context.isIncludedInState(logRecord.offset())) {
+                log.debug("Skip record already included in the state: " + logRecord.offset());
+                continue;
+            }
+            if (!logRecord.offset().partition().equals(batchPartition) && !batch.isEmpty()) {
+                processRecordsWithRetry(metadata.reverseMap(batchPartition.name()), batch);
+                batch = new ArrayList<>(logRecords.size());
+            }
+            batchPartition = logRecord.offset().partition();
+            inRecords++;
+            updateRecordLatency(record);
+            lowWatermark.mark(record.getWatermark());
+            checkPartitionChange(batchPartition);
+            context.setLastOffset(logRecord.offset());
+            batch.add(record);
+            records.add(record);
+        }
+        if (records.isEmpty()) {
+            return false;
+        }
+        processRecordsWithRetry(metadata.reverseMap(batchPartition.name()), batch);
+        records.forEach(this::checkRecordFlags);
+        checkSourceLowWatermark();
+        setThreadName("records");
+        checkpointIfNecessary();
+        return true;
+    }
+
+    protected void processRecordsWithRetry(String from, List<Record> records) {
+        runningCount.inc();
+        try (Timer.Context ignored = processBatchTimer.time()) {
+            Failsafe.with(policy.getRetryPolicy())
+                    .onRetry(failure -> computation.processRetry(context, failure))
+                    .onFailure(failure -> computation.processFailure(context, failure))
+                    .withFallback(() -> processFallback(context))
+                    .run(() -> ((AbstractBatchComputation) computation).processRecords(context, from, records));
+        } finally {
+            runningCount.dec();
+        }
+    }
+
+    /**
+     * Processes the batch pending in a batch computation before handing it records of another partition, the last
+     * offset still refers to the partition of the pending records so their state is saved under this partition.
+     *
+     * @since 11.1
+     */
+    protected void checkPartitionChange(LogPartition partition) {
+        if (lastPartition != null && !lastPartition.equals(partition)
+                && computation instanceof AbstractBatchComputation) {
+            runningCount.inc();
+            try (Timer.Context ignored = processBatchTimer.time()) {
+                Failsafe.with(policy.getRetryPolicy())
+                        .onRetry(failure -> computation.processRetry(context, failure))
+                        .onFailure(failure -> computation.processFailure(context, failure))
+                        .withFallback(() -> processFallback(context))
+                        .run(() -> ((AbstractBatchComputation) computation).flushBatch(context));
+            } finally {
+                runningCount.dec();
+            }
+        }
+        lastPartition = partition;
+    }
+
+    protected void updateRecordLatency(Record record) {
+        long timestamp = Watermark.ofValue(record.getWatermark()).getTimestamp();
+        if (timestamp > 0) {
+            recordLatencyTimer.update(Math.max(0, lastReadTime - timestamp), TimeUnit.MILLISECONDS);
+        }
+    }
+
     protected void processRecordWithRetry(String from, Record record) {
         runningCount.inc();
         try (Timer.Context ignored = processRecordTimer.time()) {
@@ -455,7 +696,9 @@ public class ComputationRunner implements Runnable, RebalanceListener {
     }
 
     protected void saveState() {
-        // TODO: save key value store NXP-22112
+        // the state is saved with the offsets of the records it includes, so that they are not processed again if
+        // the computation stops before committing the offsets
+        context.saveState();
     }
 
     protected void saveOffsets() {
@@ -502,7 +745,7 @@ public class ComputationRunner implements Runnable, RebalanceListener {
         lastReadTime = System.currentTimeMillis();
         setThreadName("rebalance assigned");
         // reset the context
-        this.context = new ComputationContextImpl(streamManager, metadata, policy);
+        this.context = new ComputationContextImpl(streamManager, metadata, policy, streamManager.getStateStore());
         log.debug(metadata.name() + ": Init");
         computation.init(context);
         lastReadTime = System.currentTimeMillis();
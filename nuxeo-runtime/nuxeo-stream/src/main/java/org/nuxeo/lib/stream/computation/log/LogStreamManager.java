@@ -18,9 +18,14 @@
  */
 package org.nuxeo.lib.stream.computation.log;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -32,15 +37,20 @@ import org.nuxeo.lib.stream.computation.Record;
 import org.nuxeo.lib.stream.computation.RecordFilter;
 import org.nuxeo.lib.stream.computation.RecordFilterChain;
 import org.nuxeo.lib.stream.computation.Settings;
+import org.nuxeo.lib.stream.computation.StateStore;
 import org.nuxeo.lib.stream.computation.StreamManager;
 import org.nuxeo.lib.stream.computation.StreamProcessor;
 import org.nuxeo.lib.stream.computation.Topology;
+import org.nuxeo.lib.stream.computation.internals.FileStateStore;
+import org.nuxeo.lib.stream.computation.internals.MemStateStore;
 import org.nuxeo.lib.stream.log.LogManager;
 import org.nuxeo.lib.stream.log.LogOffset;
 import org.nuxeo.lib.stream.log.LogPartition;
 import org.nuxeo.lib.stream.log.LogTailer;
 import org.nuxeo.lib.stream.log.RebalanceListener;
+import org.nuxeo.lib.stream.log.chronicle.ChronicleLogManager;
 import org.nuxeo.lib.stream.log.internals.LogOffsetImpl;
+import org.nuxeo.lib.stream.log.mem.MemLogManager;
 
 /**
  * StreamManager based on a LogManager
@@ -64,6 +74,9 @@ public class LogStreamManager implements StreamManager {
 
     protected final Set<String> streams = new HashSet<>();
 
+    // @since 11.1
+    protected StateStore stateStore;
+
     @Override
     public void register(String processorName, Topology topology, Settings settings) {
         log.debug("Register processor: " + processorName);
@@ -88,6 +101,26 @@ public class LogStreamManager implements StreamManager {
         return logManager;
     }
 
+    /**
+     * Returns the store of the computation states. With Chronicle Queue states are persisted in files next to the base
+     * path, with in-memory Logs they are kept in memory like the records.
+     *
+     * @return the store, or {@code null} if there is no durable store for the Log implementation, computations can
+     *         then not use a state
+     * @since 11.1
+     */
+    public synchronized StateStore getStateStore() {
+        if (stateStore == null) {
+            if (logManager instanceof ChronicleLogManager) {
+                Path basePath = Paths.get(((ChronicleLogManager) logManager).getBasePath());
+                stateStore = new FileStateStore(FileStateStore.getStatePath(basePath));
+            } else if (logManager instanceof MemLogManager) {
+                stateStore = new MemStateStore();
+            }
+        }
+        return stateStore;
+    }
+
     @Override
     public LogOffset append(String stream, Record record) {
         RecordFilterChain filter = filters.get(stream);
@@ -103,6 +136,34 @@ public class LogStreamManager implements StreamManager {
         return offset;
     }
 
+    @Override
+    public List<LogOffset> append(String stream, List<Record> records) {
+        RecordFilterChain filter = filters.get(stream);
+        if (filter == null) {
+            throw new IllegalArgumentException("Unknown stream: " + stream);
+        }
+        LogOffset[] offsets = new LogOffset[records.size()];
+        List<Record> filtered = new ArrayList<>(records.size());
+        int[] positions = new int[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            Record record = filter.beforeAppend(records.get(i));
+            if (record == null) {
+                offsets[i] = new LogOffsetImpl(stream, 0, 0);
+            } else {
+                positions[filtered.size()] = i;
+                filtered.add(record);
+            }
+        }
+        if (!filtered.isEmpty()) {
+            List<LogOffset> appended = logManager.<Record> getAppender(stream).append(filtered, Record::getKey);
+            for (int i = 0; i < filtered.size(); i++) {
+                offsets[positions[i]] = appended.get(i);
+                filter.afterAppend(filtered.get(i), appended.get(i));
+            }
+        }
+        return Arrays.asList(offsets);
+    }
+
     public boolean supportSubscribe() {
         return logManager.supportSubscribe();
     }
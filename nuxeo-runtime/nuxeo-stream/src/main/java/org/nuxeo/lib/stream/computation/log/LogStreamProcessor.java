@@ -31,6 +31,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
@@ -65,6 +67,12 @@ public class LogStreamProcessor implements StreamProcessor {
 
     protected final boolean needRegister;
 
+    // @since 11.1
+    protected ScheduledExecutorService sharedPool;
+
+    // @since 11.1
+    protected ComputationAutoscaler autoscaler;
+
     @Deprecated
     public LogStreamProcessor(LogManager manager) {
         needRegister = true;
@@ -93,9 +101,17 @@ public class LogStreamProcessor implements StreamProcessor {
     @Override
     public void start() {
         log.debug("Starting ...");
+        if (settings.getSharedThreads() > 0) {
+            sharedPool = Executors.newScheduledThreadPool(settings.getSharedThreads(),
+                    new ComputationPool.NamedThreadFactory("sharedComputationPool"));
+        }
         this.pools = initPools();
         Objects.requireNonNull(pools);
         pools.forEach(ComputationPool::start);
+        if (ComputationAutoscaler.isNeeded(this)) {
+            autoscaler = new ComputationAutoscaler(this);
+            autoscaler.start();
+        }
     }
 
     @Override
@@ -120,7 +136,9 @@ public class LogStreamProcessor implements StreamProcessor {
         if (pools == null) {
             return true;
         }
+        stopAutoscaler();
         long failures = pools.parallelStream().filter(comp -> !comp.stop(timeout)).count();
+        shutdownSharedPool();
         log.debug(String.format("Stopped %d failure", failures));
         return failures == 0;
     }
@@ -132,7 +150,9 @@ public class LogStreamProcessor implements StreamProcessor {
         if (pools == null) {
             return true;
         }
+        stopAutoscaler();
         long failures = pools.stream().filter(comp -> !comp.drainAndStop(timeout)).count();
+        shutdownSharedPool();
         log.debug(String.format("Drained and stopped %d failure", failures));
         return failures == 0;
     }
@@ -143,10 +163,26 @@ public class LogStreamProcessor implements StreamProcessor {
         if (pools == null) {
             return;
         }
+        stopAutoscaler();
         pools.parallelStream().forEach(ComputationPool::shutdown);
+        shutdownSharedPool();
         log.debug("Shutdown done");
     }
 
+    protected void stopAutoscaler() {
+        if (autoscaler != null) {
+            autoscaler.stop();
+            autoscaler = null;
+        }
+    }
+
+    protected void shutdownSharedPool() {
+        if (sharedPool != null) {
+            sharedPool.shutdownNow();
+            sharedPool = null;
+        }
+    }
+
     @Override
     public long getLowWatermark() {
         Map<String, Long> watermarks = new HashMap<>(pools.size());
@@ -197,6 +233,13 @@ public class LogStreamProcessor implements StreamProcessor {
         return ret;
     }
 
+    @Override
+    public Map<String, Integer> getComputationThreads() {
+        Map<String, Integer> ret = new HashMap<>(pools.size());
+        pools.forEach(pool -> ret.put(pool.getComputationName(), pool.getThreads()));
+        return ret;
+    }
+
     @Override
     public boolean isDone(long timestamp) {
         return Watermark.ofValue(getLowWatermark()).isDone(timestamp);
@@ -208,7 +251,7 @@ public class LogStreamProcessor implements StreamProcessor {
                        .stream()
                        .map(meta -> new ComputationPool(topology.getSupplier(meta.name()), meta,
                                getDefaultAssignments(meta), streamManager,
-                               settings.getPolicy(meta.name())))
+                               settings.getPolicy(meta.name()), sharedPool))
                        .collect(Collectors.toList());
     }
 
@@ -231,7 +274,15 @@ public class LogStreamProcessor implements StreamProcessor {
     }
 
     protected List<List<LogPartition>> getDefaultAssignments(ComputationMetadataMapping meta) {
-        int threads = settings.getConcurrency(meta.name());
+        return getAssignments(meta, settings.getConcurrency(meta.name()));
+    }
+
+    /**
+     * Returns the partitions assigned to each thread of a computation.
+     *
+     * @since 11.1
+     */
+    protected List<List<LogPartition>> getAssignments(ComputationMetadataMapping meta, int threads) {
         if (threads == 0) {
             return Collections.emptyList();
         }
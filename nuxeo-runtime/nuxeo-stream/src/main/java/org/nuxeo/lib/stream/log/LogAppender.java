@@ -20,7 +20,10 @@ package org.nuxeo.lib.stream.log;
 
 import java.io.Externalizable;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.Function;
 
 import org.nuxeo.lib.stream.codec.Codec;
 
@@ -62,6 +65,20 @@ public interface LogAppender<M extends Externalizable> {
         return append(partition, message);
     }
 
+    /**
+     * Appends a batch of messages, each one in the partition chosen using a hash of its key, returns the offsets in the
+     * same order. Implementations may send the whole batch before waiting for the acknowledgments.
+     *
+     * @since 11.1
+     */
+    default List<LogOffset> append(List<M> messages, Function<M, String> keyFunction) {
+        List<LogOffset> offsets = new ArrayList<>(messages.size());
+        for (M message : messages) {
+            offsets.add(append(keyFunction.apply(message), message));
+        }
+        return offsets;
+    }
+
     /**
      * Wait for consumer to process a message up to the offset. The message is processed if a consumer of the group
      * commits a greater or equals offset. Return {@code true} if the message has been consumed, {@code false} in case
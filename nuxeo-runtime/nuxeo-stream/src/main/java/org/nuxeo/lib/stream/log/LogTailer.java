@@ -20,7 +20,9 @@ package org.nuxeo.lib.stream.log;
 
 import java.io.Externalizable;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.nuxeo.lib.stream.codec.Codec;
 
@@ -50,6 +52,28 @@ public interface LogTailer<M extends Externalizable> extends AutoCloseable {
      */
     LogRecord<M> read(Duration timeout) throws InterruptedException;
 
+    /**
+     * Read up to {@code max} messages from assigned partitions, waiting at most the timeout for the first message.
+     * Messages already available are returned without waiting for more.
+     *
+     * @return the messages read, an empty list if there is no message in the queue after the timeout.
+     * @throws RebalanceException if a partition rebalancing happen during the read, this is possible only when using
+     *             {@link LogManager#subscribe}.
+     * @since 11.1
+     */
+    default List<LogRecord<M>> read(int max, Duration timeout) throws InterruptedException {
+        List<LogRecord<M>> ret = new ArrayList<>();
+        LogRecord<M> record = read(timeout);
+        while (record != null) {
+            ret.add(record);
+            if (ret.size() >= max) {
+                break;
+            }
+            record = read(Duration.ZERO);
+        }
+        return ret;
+    }
+
     /**
      * Commit current positions for all partitions (last message offset returned by read).
      */
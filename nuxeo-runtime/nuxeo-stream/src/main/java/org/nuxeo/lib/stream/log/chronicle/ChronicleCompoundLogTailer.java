@@ -79,6 +79,20 @@ public class ChronicleCompoundLogTailer<M extends Externalizable> implements Log
         return ret;
     }
 
+    @Override
+    public List<LogRecord<M>> read(int max, Duration timeout) throws InterruptedException {
+        List<LogRecord<M>> ret = new ArrayList<>();
+        LogRecord<M> record = read(timeout);
+        while (record != null) {
+            ret.add(record);
+            if (ret.size() >= max) {
+                break;
+            }
+            record = read();
+        }
+        return ret;
+    }
+
     protected LogRecord<M> read() {
         if (size <= 0) {
             return null;
@@ -108,6 +108,21 @@ public class ChronicleLogTailer<M extends Externalizable> implements LogTailer<M
         return ret;
     }
 
+    @Override
+    public List<LogRecord<M>> read(int max, Duration timeout) throws InterruptedException {
+        List<LogRecord<M>> ret = new ArrayList<>();
+        LogRecord<M> record = read(timeout);
+        // then read the following excerpts without waiting
+        while (record != null) {
+            ret.add(record);
+            if (ret.size() >= max) {
+                break;
+            }
+            record = read();
+        }
+        return ret;
+    }
+
     @SuppressWarnings("unchecked")
     protected LogRecord<M> read() {
         if (closed) {
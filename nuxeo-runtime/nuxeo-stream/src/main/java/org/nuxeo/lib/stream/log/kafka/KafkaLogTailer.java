@@ -23,11 +23,13 @@ import static org.nuxeo.lib.stream.codec.NoCodec.NO_CODEC;
 
 import java.io.Externalizable;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
@@ -170,6 +172,25 @@ public class KafkaLogTailer<M extends Externalizable> implements LogTailer<M>, C
                 return null;
             }
         }
+        return nextRecord();
+    }
+
+    @Override
+    public List<LogRecord<M>> read(int max, Duration timeout) throws InterruptedException {
+        List<LogRecord<M>> ret = new ArrayList<>();
+        LogRecord<M> record = read(timeout);
+        if (record == null) {
+            return ret;
+        }
+        ret.add(record);
+        // take the rest of the poll batch, don't poll again
+        while (ret.size() < max && !records.isEmpty()) {
+            ret.add(nextRecord());
+        }
+        return ret;
+    }
+
+    protected LogRecord<M> nextRecord() {
         ConsumerRecord<String, Bytes> record = records.poll();
         lastOffsets.put(new TopicPartition(record.topic(), record.partition()), record.offset());
         M value = decodeCodec.decode(record.value().get());
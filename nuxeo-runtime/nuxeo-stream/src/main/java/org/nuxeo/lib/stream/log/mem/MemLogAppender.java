@@ -0,0 +1,117 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.lib.stream.log.mem;
+
+import static org.nuxeo.lib.stream.codec.NoCodec.NO_CODEC;
+
+import java.io.Externalizable;
+import java.time.Duration;
+import java.util.Objects;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.lib.stream.codec.Codec;
+import org.nuxeo.lib.stream.codec.SerializableCodec;
+import org.nuxeo.lib.stream.log.LogOffset;
+import org.nuxeo.lib.stream.log.internals.CloseableLogAppender;
+import org.nuxeo.lib.stream.log.internals.LogOffsetImpl;
+
+/**
+ * In-memory implementation of LogAppender. Records are stored encoded so that consumers never share instances.
+ *
+ * @since 11.1
+ */
+public class MemLogAppender<M extends Externalizable> implements CloseableLogAppender<M> {
+    private static final Log log = LogFactory.getLog(MemLogAppender.class);
+
+    protected final String name;
+
+    protected final int size;
+
+    protected MemLogPartition[] partitions;
+
+    protected final MemLogSignal signal;
+
+    protected final Codec<M> codec;
+
+    protected final Codec<M> encodeCodec;
+
+    protected volatile boolean closed;
+
+    public MemLogAppender(String name, MemLogPartition[] partitions, MemLogSignal signal, Codec<M> codec) {
+        Objects.requireNonNull(codec);
+        this.name = name;
+        this.size = partitions.length;
+        this.partitions = partitions;
+        this.signal = signal;
+        this.codec = codec;
+        this.encodeCodec = NO_CODEC.equals(codec) ? new SerializableCodec<>() : codec;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public LogOffset append(int partition, M message) {
+        long offset = partitions[partition].append(encodeCodec.encode(message));
+        LogOffset ret = new LogOffsetImpl(name, partition, offset);
+        if (log.isDebugEnabled()) {
+            log.debug(String.format("append to %s, value: %s", ret, message));
+        }
+        return ret;
+    }
+
+    @Override
+    public boolean waitFor(LogOffset offset, String group, Duration timeout) throws InterruptedException {
+        MemLogPartition partition = partitions[offset.partition().partition()];
+        return signal.await(() -> {
+            Long committed = partition.getCommittedOffset(group);
+            return committed != null && committed > offset.offset();
+        }, timeout.toMillis());
+    }
+
+    @Override
+    public boolean closed() {
+        return closed;
+    }
+
+    @Override
+    public Codec<M> getCodec() {
+        return codec;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        partitions = new MemLogPartition[0];
+    }
+
+    @Override
+    public String toString() {
+        return "MemLogAppender{" + "name='" + name + '\'' + ", size=" + size + ", codec=" + codec + '}';
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.lib.stream.log.mem;
+
+import java.io.Externalizable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.nuxeo.lib.stream.codec.Codec;
+import org.nuxeo.lib.stream.log.LogLag;
+import org.nuxeo.lib.stream.log.LogPartition;
+import org.nuxeo.lib.stream.log.LogTailer;
+import org.nuxeo.lib.stream.log.RebalanceListener;
+import org.nuxeo.lib.stream.log.internals.AbstractLogManager;
+import org.nuxeo.lib.stream.log.internals.CloseableLogAppender;
+
+/**
+ * A LogManager keeping Logs in memory, for single node deployments and tests that don't need records to survive a
+ * restart.
+ * <p>
+ * Records are kept until all the consumer groups that have a tailer or have committed on a partition are past them.
+ *
+ * @since 11.1
+ */
+public class MemLogManager extends AbstractLogManager {
+
+    protected final Map<String, MemLogPartition[]> logs = new ConcurrentHashMap<>();
+
+    protected final MemLogSignal signal = new MemLogSignal();
+
+    @Override
+    public boolean exists(String name) {
+        return logs.containsKey(name);
+    }
+
+    @Override
+    protected void create(String name, int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Number of partitions must be > 0");
+        }
+        MemLogPartition[] partitions = new MemLogPartition[size];
+        for (int i = 0; i < size; i++) {
+            partitions[i] = new MemLogPartition(signal);
+        }
+        logs.putIfAbsent(name, partitions);
+    }
+
+    @Override
+    protected int getSize(String name) {
+        MemLogPartition[] partitions = logs.get(name);
+        if (partitions == null) {
+            throw new IllegalArgumentException("Unknown Log: " + name);
+        }
+        return partitions.length;
+    }
+
+    @Override
+    public boolean delete(String name) {
+        appenders.remove(name);
+        return logs.remove(name) != null;
+    }
+
+    protected MemLogPartition getPartition(LogPartition partition) {
+        MemLogPartition[] partitions = logs.get(partition.name());
+        if (partitions == null || partition.partition() >= partitions.length) {
+            throw new IllegalArgumentException("Unknown Log partition: " + partition);
+        }
+        return partitions[partition.partition()];
+    }
+
+    @Override
+    protected <M extends Externalizable> CloseableLogAppender<M> createAppender(String name, Codec<M> codec) {
+        return new MemLogAppender<>(name, logs.get(name), signal, codec);
+    }
+
+    @Override
+    protected <M extends Externalizable> LogTailer<M> doCreateTailer(Collection<LogPartition> partitions, String group,
+            Codec<M> codec) {
+        List<MemLogPartition> memPartitions = new ArrayList<>(partitions.size());
+        partitions.forEach(partition -> memPartitions.add(getPartition(partition)));
+        return new MemLogTailer<>(group, partitions, memPartitions, signal, codec);
+    }
+
+    @Override
+    protected <M extends Externalizable> LogTailer<M> doSubscribe(String group, Collection<String> names,
+            RebalanceListener listener, Codec<M> codec) {
+        throw new UnsupportedOperationException("subscribe is not supported by Mem implementation");
+    }
+
+    @Override
+    public List<LogLag> getLagPerPartition(String name, String group) {
+        int size = size(name);
+        List<LogLag> ret = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            MemLogPartition partition = getPartition(LogPartition.of(name, i));
+            long start = partition.start();
+            long end = partition.end();
+            Long committed = partition.getCommittedOffset(group);
+            long pos = committed == null ? start : committed;
+            ret.add(new LogLag(pos, end, end - pos, end - start));
+        }
+        return ret;
+    }
+
+    @Override
+    public List<String> listAll() {
+        return new ArrayList<>(logs.keySet());
+    }
+
+    @Override
+    public List<String> listConsumerGroups(String name) {
+        MemLogPartition[] partitions = logs.get(name);
+        if (partitions == null) {
+            throw new IllegalArgumentException("Unknown Log: " + name);
+        }
+        Set<String> groups = new LinkedHashSet<>();
+        for (MemLogPartition partition : partitions) {
+            partition.groups().forEach(groups::add);
+        }
+        return new ArrayList<>(groups);
+    }
+
+    @Override
+    public String toString() {
+        return "MemLogManager{" + "logs=" + logs.size() + '}';
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.lib.stream.log.mem;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A partition of an in-memory Log.
+ * <p>
+ * Records are stored in fixed size segments indexed by offset, appending a record is lock free: the offset is reserved
+ * with an atomic counter then the record is published in its segment slot. Segments are released once every known
+ * consumer group is past them: a group is known as soon as a tailer is created for it, and until it commits it holds
+ * the records from the first offset available at that time.
+ *
+ * @since 11.1
+ */
+public class MemLogPartition {
+
+    protected static final int SEGMENT_BITS = 10;
+
+    protected static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+    protected static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    protected final ConcurrentSkipListMap<Long, AtomicReferenceArray<Entry>> segments = new ConcurrentSkipListMap<>();
+
+    protected final Map<String, Long> committedOffsets = new ConcurrentHashMap<>();
+
+    /** The next offset to be reserved by an append. */
+    protected final AtomicLong end = new AtomicLong();
+
+    /** The first offset still available. */
+    protected volatile long start;
+
+    protected final MemLogSignal signal;
+
+    public MemLogPartition(MemLogSignal signal) {
+        this.signal = signal;
+    }
+
+    /**
+     * Appends an encoded record and returns its offset.
+     */
+    public long append(byte[] data) {
+        long offset = end.getAndIncrement();
+        segments.computeIfAbsent(offset >>> SEGMENT_BITS, k -> new AtomicReferenceArray<>(SEGMENT_SIZE))
+                .set((int) (offset & SEGMENT_MASK), new Entry(System.currentTimeMillis(), data));
+        signal.signalAll();
+        return offset;
+    }
+
+    /**
+     * Gets the record at the given offset, or {@code null} if it is not yet available.
+     */
+    public Entry get(long offset) {
+        AtomicReferenceArray<Entry> segment = segments.get(offset >>> SEGMENT_BITS);
+        return segment == null ? null : segment.get((int) (offset & SEGMENT_MASK));
+    }
+
+    public long start() {
+        return start;
+    }
+
+    public long end() {
+        return end.get();
+    }
+
+    /**
+     * Returns the first offset of a record appended at or after the timestamp, or -1 if there is none.
+     */
+    public long offsetForTimestamp(long timestamp) {
+        long low = start;
+        long high = end() - 1;
+        long ret = -1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            Entry entry = get(mid);
+            if (entry == null || entry.timestamp >= timestamp) {
+                // unpublished records are the most recent ones
+                ret = mid;
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return ret;
+    }
+
+    public Long getCommittedOffset(String group) {
+        return committedOffsets.get(group);
+    }
+
+    /**
+     * Registers a consumer group, so that the records it has not yet read are kept even before its first commit.
+     */
+    public synchronized void register(String group) {
+        committedOffsets.putIfAbsent(group, Long.valueOf(start));
+    }
+
+    public synchronized void commit(String group, long offset) {
+        committedOffsets.put(group, Long.valueOf(offset));
+        releaseSegments();
+        signal.signalAll();
+    }
+
+    public synchronized void reset(String group) {
+        // the group is still known, it starts again from the first offset available
+        committedOffsets.put(group, Long.valueOf(start));
+    }
+
+    public Iterable<String> groups() {
+        return committedOffsets.keySet();
+    }
+
+    protected void releaseSegments() {
+        long min = committedOffsets.values().stream().mapToLong(Long::longValue).min().orElse(0);
+        // keep the last committed record readable, it is used to compute latencies
+        long first = Math.max(0, min - 1) >>> SEGMENT_BITS;
+        if (first << SEGMENT_BITS > start) {
+            start = first << SEGMENT_BITS;
+        }
+        segments.headMap(first).clear();
+    }
+
+    /**
+     * An encoded record with its append time.
+     */
+    public static class Entry {
+
+        protected final long timestamp;
+
+        protected final byte[] data;
+
+        protected Entry(long timestamp, byte[] data) {
+            this.timestamp = timestamp;
+            this.data = data;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.lib.stream.log.mem;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Wakes up the readers waiting for new records or commits of a {@link MemLogManager}.
+ * <p>
+ * Writers only take the monitor when a reader is actually waiting.
+ *
+ * @since 11.1
+ */
+public class MemLogSignal {
+
+    protected final AtomicInteger waiters = new AtomicInteger();
+
+    protected final Object monitor = new Object();
+
+    public void signalAll() {
+        if (waiters.get() > 0) {
+            synchronized (monitor) {
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until the condition is true or the timeout expires.
+     *
+     * @return the last evaluation of the condition
+     */
+    public boolean await(BooleanSupplier condition, long timeoutMs) throws InterruptedException {
+        if (condition.getAsBoolean()) {
+            return true;
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        waiters.incrementAndGet();
+        try {
+            synchronized (monitor) {
+                long remaining = timeoutMs;
+                while (!condition.getAsBoolean()) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    monitor.wait(remaining);
+                    remaining = deadline - System.currentTimeMillis();
+                }
+                return true;
+            }
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+}
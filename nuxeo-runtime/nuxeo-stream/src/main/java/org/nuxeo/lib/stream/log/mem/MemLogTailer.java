@@ -0,0 +1,239 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.lib.stream.log.mem;
+
+import static org.nuxeo.lib.stream.codec.NoCodec.NO_CODEC;
+
+import java.io.Externalizable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.lib.stream.codec.Codec;
+import org.nuxeo.lib.stream.codec.SerializableCodec;
+import org.nuxeo.lib.stream.log.LogOffset;
+import org.nuxeo.lib.stream.log.LogPartition;
+import org.nuxeo.lib.stream.log.LogRecord;
+import org.nuxeo.lib.stream.log.LogTailer;
+import org.nuxeo.lib.stream.log.internals.LogOffsetImpl;
+
+/**
+ * In-memory implementation of LogTailer, reading its assigned partitions in round robin.
+ *
+ * @since 11.1
+ */
+public class MemLogTailer<M extends Externalizable> implements LogTailer<M> {
+    private static final Log log = LogFactory.getLog(MemLogTailer.class);
+
+    protected final String group;
+
+    protected final List<LogPartition> assignments;
+
+    protected final MemLogPartition[] partitions;
+
+    protected final long[] positions;
+
+    protected final MemLogSignal signal;
+
+    protected final Codec<M> codec;
+
+    protected final Codec<M> decodeCodec;
+
+    protected int counter;
+
+    protected volatile boolean closed;
+
+    public MemLogTailer(String group, Collection<LogPartition> assignments, List<MemLogPartition> partitions,
+            MemLogSignal signal, Codec<M> codec) {
+        this.group = group;
+        this.assignments = new ArrayList<>(assignments);
+        this.partitions = partitions.toArray(new MemLogPartition[0]);
+        this.positions = new long[this.partitions.length];
+        this.signal = signal;
+        this.codec = codec;
+        this.decodeCodec = NO_CODEC.equals(codec) ? new SerializableCodec<>() : codec;
+        for (MemLogPartition partition : this.partitions) {
+            partition.register(group);
+        }
+        toLastCommitted();
+    }
+
+    @Override
+    public String group() {
+        return group;
+    }
+
+    @Override
+    public Collection<LogPartition> assignments() {
+        return assignments;
+    }
+
+    @Override
+    public LogRecord<M> read(Duration timeout) throws InterruptedException {
+        LogRecord<M> ret = read();
+        if (ret != null || !signal.await(this::hasNext, timeout.toMillis())) {
+            return ret;
+        }
+        return read();
+    }
+
+    @Override
+    public List<LogRecord<M>> read(int max, Duration timeout) throws InterruptedException {
+        List<LogRecord<M>> ret = new ArrayList<>();
+        LogRecord<M> record = read(timeout);
+        while (record != null) {
+            ret.add(record);
+            if (ret.size() >= max) {
+                break;
+            }
+            record = read();
+        }
+        return ret;
+    }
+
+    protected boolean hasNext() {
+        for (int i = 0; i < partitions.length; i++) {
+            if (positions[i] < partitions[i].start() || partitions[i].get(positions[i]) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected LogRecord<M> read() {
+        if (closed) {
+            throw new IllegalStateException("The tailer has been closed.");
+        }
+        int size = partitions.length;
+        for (int n = 0; n < size; n++) {
+            int i = counter++ % size;
+            if (counter == size) {
+                counter = 0;
+            }
+            MemLogPartition partition = partitions[i];
+            if (positions[i] < partition.start()) {
+                log.warn(String.format("Records of %s before offset %d are no longer available for group %s",
+                        assignments.get(i), partition.start(), group));
+                positions[i] = partition.start();
+            }
+            long offset = positions[i];
+            MemLogPartition.Entry entry = partition.get(offset);
+            if (entry != null) {
+                M value = decodeCodec.decode(entry.getData());
+                positions[i] = offset + 1;
+                return new LogRecord<>(value, new LogOffsetImpl(assignments.get(i), offset));
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void commit() {
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i].commit(group, positions[i]);
+        }
+    }
+
+    @Override
+    public LogOffset commit(LogPartition partition) {
+        int i = indexOf(partition);
+        partitions[i].commit(group, positions[i]);
+        return new LogOffsetImpl(partition, positions[i]);
+    }
+
+    @Override
+    public void toEnd() {
+        for (int i = 0; i < partitions.length; i++) {
+            positions[i] = partitions[i].end();
+        }
+    }
+
+    @Override
+    public void toStart() {
+        for (int i = 0; i < partitions.length; i++) {
+            positions[i] = partitions[i].start();
+        }
+    }
+
+    @Override
+    public void toLastCommitted() {
+        for (int i = 0; i < partitions.length; i++) {
+            Long committed = partitions[i].getCommittedOffset(group);
+            positions[i] = committed == null ? partitions[i].start() : committed;
+        }
+    }
+
+    @Override
+    public void seek(LogOffset offset) {
+        positions[indexOf(offset.partition())] = offset.offset();
+    }
+
+    @Override
+    public LogOffset offsetForTimestamp(LogPartition partition, long timestamp) {
+        long offset = partitions[indexOf(partition)].offsetForTimestamp(timestamp);
+        return offset < 0 ? null : new LogOffsetImpl(partition, offset);
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i].reset(group);
+            positions[i] = partitions[i].start();
+        }
+    }
+
+    @Override
+    public void reset(LogPartition partition) {
+        int i = indexOf(partition);
+        partitions[i].reset(group);
+        positions[i] = partitions[i].start();
+    }
+
+    protected int indexOf(LogPartition partition) {
+        int i = assignments.indexOf(partition);
+        if (i < 0) {
+            throw new IllegalStateException("Partition: " + partition + " is not assigned to: " + this);
+        }
+        return i;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public boolean closed() {
+        return closed;
+    }
+
+    @Override
+    public Codec<M> getCodec() {
+        return codec;
+    }
+
+    @Override
+    public String toString() {
+        return "MemLogTailer{" + "group='" + group + '\'' + ", assignments=" + assignments + '}';
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * (C) Copyright 2018 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     bdelbosc
+ */
+package org.nuxeo.lib.stream.tests.computation;
+
+import java.util.List;
+
+import org.nuxeo.lib.stream.computation.ComputationContext;
+import org.nuxeo.lib.stream.computation.Record;
+
+/**
+ * Fails once the first batch containing a given key, before producing anything.
+ *
+ * @since 11.1
+ */
+public class ComputationBatchFailOnceForward extends ComputationBatchForward {
+
+    protected final String failingKey;
+
+    protected boolean failed;
+
+    public ComputationBatchFailOnceForward(String name, int nbInputStream, String failingKey) {
+        super(name, nbInputStream);
+        this.failingKey = failingKey;
+    }
+
+    @Override
+    public void batchProcess(ComputationContext context, String inputStreamName, List<Record> records) {
+        if (!failed && records.stream().anyMatch(record -> failingKey.equals(record.getKey()))) {
+            failed = true;
+            throw new IllegalStateException("Simulated error for test purpose");
+        }
+        super.batchProcess(context, inputStreamName, records);
+    }
+
+}
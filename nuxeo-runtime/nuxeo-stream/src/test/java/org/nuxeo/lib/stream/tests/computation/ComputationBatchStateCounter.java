@@ -0,0 +1,58 @@
+/*
+ * (C) Copyright 2018 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     bdelbosc
+ */
+package org.nuxeo.lib.stream.tests.computation;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.List;
+
+import org.nuxeo.lib.stream.computation.AbstractBatchComputation;
+import org.nuxeo.lib.stream.computation.ComputationContext;
+import org.nuxeo.lib.stream.computation.ComputationState;
+import org.nuxeo.lib.stream.computation.Record;
+
+/**
+ * Batch computation counting the records per key in its state, and outputting the count after each record.
+ *
+ * @since 11.1
+ */
+public class ComputationBatchStateCounter extends AbstractBatchComputation {
+
+    public ComputationBatchStateCounter(String name) {
+        super(name, 1, 1);
+    }
+
+    @Override
+    protected void batchProcess(ComputationContext context, String inputStreamName, List<Record> records) {
+        ComputationState state = context.getState();
+        for (Record record : records) {
+            byte[] value = state.get(record.getKey());
+            long count = value == null ? 1 : Long.parseLong(new String(value, UTF_8)) + 1;
+            byte[] newValue = String.valueOf(count).getBytes(UTF_8);
+            state.put(record.getKey(), newValue);
+            context.produceRecord("o1", Record.of(record.getKey(), newValue));
+        }
+    }
+
+    @Override
+    public void batchFailure(ComputationContext context, String inputStreamName, List<Record> records) {
+        // nothing to do
+    }
+
+}
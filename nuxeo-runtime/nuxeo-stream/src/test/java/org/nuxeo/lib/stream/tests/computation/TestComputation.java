@@ -20,6 +20,10 @@ package org.nuxeo.lib.stream.tests.computation;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.time.Duration;
 import java.util.Arrays;
@@ -29,9 +33,15 @@ import java.util.HashSet;
 import org.junit.Test;
 import org.nuxeo.lib.stream.computation.Computation;
 import org.nuxeo.lib.stream.computation.ComputationMetadataMapping;
+import org.nuxeo.lib.stream.computation.ComputationPolicy;
 import org.nuxeo.lib.stream.computation.Record;
+import org.nuxeo.lib.stream.computation.StateStore;
 import org.nuxeo.lib.stream.computation.Watermark;
 import org.nuxeo.lib.stream.computation.internals.ComputationContextImpl;
+import org.nuxeo.lib.stream.computation.internals.MemStateStore;
+import org.nuxeo.lib.stream.log.LogOffset;
+import org.nuxeo.lib.stream.log.LogPartition;
+import org.nuxeo.lib.stream.log.internals.LogOffsetImpl;
 
 /**
  * @since 9.3
@@ -154,4 +164,40 @@ public class TestComputation {
         assertEquals("1", context.getRecords("o1").get(1).getKey());
     }
 
+    @Test
+    public void testComputationState() {
+        Computation comp = new ComputationStateCounter("foo");
+        ComputationMetadataMapping metadata = new ComputationMetadataMapping(comp.metadata(), Collections.emptyMap());
+        StateStore store = new MemStateStore();
+        ComputationContextImpl context = new ComputationContextImpl(null, metadata, ComputationPolicy.NONE, store);
+        LogPartition partition = LogPartition.of("i1", 0);
+        for (int i = 0; i < 3; i++) {
+            LogOffset offset = new LogOffsetImpl(partition, i);
+            assertFalse(context.isIncludedInState(offset));
+            context.setLastOffset(offset);
+            comp.processRecord(context, "i1", Record.of("key", null));
+        }
+        assertEquals("3", new String(context.getState().get("key"), UTF_8));
+        assertNull(store.get("foo", partition, "key"));
+        context.saveState();
+        assertEquals("3", new String(store.get("foo", partition, "key"), UTF_8));
+        assertEquals(2, store.getOffset("foo", partition));
+
+        // a new context, like after a restart, doesn't process again the records included in the state
+        context = new ComputationContextImpl(null, metadata, ComputationPolicy.NONE, store);
+        assertTrue(context.isIncludedInState(new LogOffsetImpl(partition, 2)));
+        assertFalse(context.isIncludedInState(new LogOffsetImpl(partition, 3)));
+        assertFalse(context.isIncludedInState(new LogOffsetImpl(LogPartition.of("i1", 1), 0)));
+
+        // no state without a durable store
+        context = new ComputationContextImpl(null, metadata, ComputationPolicy.NONE, null);
+        assertFalse(context.isIncludedInState(new LogOffsetImpl(partition, 0)));
+        try {
+            context.getState();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
 }
@@ -0,0 +1,118 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.lib.stream.tests.computation;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nuxeo.lib.stream.computation.StateStore;
+import org.nuxeo.lib.stream.computation.internals.ComputationStateImpl;
+import org.nuxeo.lib.stream.computation.internals.FileStateStore;
+import org.nuxeo.lib.stream.log.LogPartition;
+
+/**
+ * @since 11.1
+ */
+public class TestFileStateStore {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    protected static final LogPartition PARTITION = LogPartition.of("input", 1);
+
+    @Test
+    public void testStateSurvivesRestart() throws IOException {
+        Path root = folder.newFolder().toPath();
+        StateStore store = new FileStateStore(root);
+        ComputationStateImpl state = new ComputationStateImpl(store, "comp", PARTITION);
+        state.put("foo", "1".getBytes(UTF_8));
+        state.put("bar", "2".getBytes(UTF_8));
+        // pending changes are visible but not saved
+        assertArrayEquals("1".getBytes(UTF_8), state.get("foo"));
+        assertNull(store.get("comp", PARTITION, "foo"));
+        state.save(5);
+        state.remove("bar");
+        state.put("foo", "3".getBytes(UTF_8));
+        state.save(10);
+
+        // open another store using the same directory
+        StateStore store2 = new FileStateStore(root);
+        assertArrayEquals("3".getBytes(UTF_8), store2.get("comp", PARTITION, "foo"));
+        assertNull(store2.get("comp", PARTITION, "bar"));
+        assertNull(store2.get("comp", LogPartition.of("input", 0), "foo"));
+        assertNull(store2.get("other", PARTITION, "foo"));
+        assertEquals(10, store2.getOffset("comp", PARTITION));
+        assertEquals(-1, store2.getOffset("comp", LogPartition.of("input", 0)));
+    }
+
+    @Test
+    public void testIncompleteChangesAreIgnored() throws IOException {
+        Path root = folder.newFolder().toPath();
+        StateStore store = new FileStateStore(root);
+        store.putAll("comp", PARTITION, Collections.singletonMap("foo", "1".getBytes(UTF_8)), 1);
+        store.putAll("comp", PARTITION, Collections.singletonMap("foo", "2".getBytes(UTF_8)), 2);
+        Path file = Files.list(root.resolve("comp").resolve("input")).findFirst().get();
+        // simulate a crash while writing the last changes
+        byte[] data = Files.readAllBytes(file);
+        Files.write(file, new byte[] { data[0], data[1] }, StandardOpenOption.APPEND);
+
+        StateStore store2 = new FileStateStore(root);
+        assertArrayEquals("2".getBytes(UTF_8), store2.get("comp", PARTITION, "foo"));
+        assertEquals(2, store2.getOffset("comp", PARTITION));
+        store2.putAll("comp", PARTITION, Collections.singletonMap("bar", "3".getBytes(UTF_8)), 3);
+        StateStore store3 = new FileStateStore(root);
+        assertArrayEquals("2".getBytes(UTF_8), store3.get("comp", PARTITION, "foo"));
+        assertArrayEquals("3".getBytes(UTF_8), store3.get("comp", PARTITION, "bar"));
+        assertEquals(3, store3.getOffset("comp", PARTITION));
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        Path root = folder.newFolder().toPath();
+        StateStore store = new FileStateStore(root);
+        byte[] value = new byte[10_000];
+        for (int i = 0; i < 500; i++) {
+            Map<String, byte[]> changes = new HashMap<>();
+            changes.put("key" + (i % 10), value);
+            store.putAll("comp", PARTITION, changes, i);
+        }
+        Path file = Files.list(root.resolve("comp").resolve("input")).findFirst().get();
+        assertTrue(Files.size(file) < 500 * value.length);
+
+        StateStore store2 = new FileStateStore(root);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(value.length, store2.get("comp", PARTITION, "key" + i).length);
+        }
+        assertEquals(499, store2.getOffset("comp", PARTITION));
+    }
+
+}
@@ -18,13 +18,17 @@
  */
 package org.nuxeo.lib.stream.tests.computation;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.nuxeo.lib.stream.tests.TestLibChronicle.IS_WIN;
 
 import java.io.File;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -40,6 +44,9 @@ import org.nuxeo.lib.stream.computation.Topology;
 import org.nuxeo.lib.stream.computation.log.LogStreamManager;
 import org.nuxeo.lib.stream.log.LogLag;
 import org.nuxeo.lib.stream.log.LogManager;
+import org.nuxeo.lib.stream.log.LogPartition;
+import org.nuxeo.lib.stream.log.LogRecord;
+import org.nuxeo.lib.stream.log.LogTailer;
 import org.nuxeo.lib.stream.log.chronicle.ChronicleLogManager;
 
 import net.jodah.failsafe.RetryPolicy;
@@ -98,4 +105,53 @@ public class TestLogStreamProcessorChronicle extends TestStreamProcessor {
             assertEquals(lag.toString(), 1, lag.lag());
         }
     }
+
+    @Test
+    public void testStateRecovery() throws Exception {
+        Topology topology = Topology.builder()
+                                    .addComputation(() -> new ComputationStateCounter("C1"),
+                                            Arrays.asList("i1:input", "o1:output"))
+                                    .build();
+        Settings settings = new Settings(1, 1, codec);
+        try (LogManager manager = getLogManager()) {
+            StreamManager streamManager = new LogStreamManager(manager);
+            StreamProcessor processor = streamManager.registerAndCreateProcessor("processor", topology, settings);
+            for (int i = 0; i < 5; i++) {
+                streamManager.append("input", Record.of("foo", null));
+            }
+            processor.start();
+            processor.waitForAssignments(Duration.ofSeconds(10));
+            assertTrue(processor.drainAndStop(Duration.ofSeconds(20)));
+            // the states are not stored with the Logs
+            assertEquals(new HashSet<>(Arrays.asList("input", "output")), new HashSet<>(manager.listAll()));
+            // simulate a stop after saving the state but before committing the offsets
+            try (LogTailer<Record> tailer = manager.createTailer("C1", LogPartition.of("input", 0), codec)) {
+                tailer.reset();
+            }
+            assertEquals(5, manager.getLag("input", "C1").lag());
+        }
+        // restart
+        try (LogManager manager = getSameLogManager()) {
+            StreamManager streamManager = new LogStreamManager(manager);
+            StreamProcessor processor = streamManager.registerAndCreateProcessor("processor", topology, settings);
+            for (int i = 0; i < 3; i++) {
+                streamManager.append("input", Record.of("foo", null));
+            }
+            processor.start();
+            processor.waitForAssignments(Duration.ofSeconds(10));
+            assertTrue(processor.drainAndStop(Duration.ofSeconds(20)));
+            assertEquals(0, manager.getLag("input", "C1").lag());
+            // the count continues from the saved state, without processing the first records twice
+            List<String> counts = new ArrayList<>();
+            try (LogTailer<Record> tailer = manager.createTailer("results", LogPartition.of(OUTPUT_STREAM, 0),
+                    codec)) {
+                for (LogRecord<Record> logRecord = tailer.read(Duration.ofMillis(1000)); logRecord != null;
+                        logRecord = tailer.read(Duration.ofMillis(500))) {
+                    counts.add(new String(logRecord.message().getData(), UTF_8));
+                }
+            }
+            assertEquals(Arrays.asList("1", "2", "3", "4", "5", "6", "7", "8"), counts);
+        }
+    }
+
 }
@@ -0,0 +1,42 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.lib.stream.tests.computation;
+
+import org.nuxeo.lib.stream.log.LogManager;
+import org.nuxeo.lib.stream.log.mem.MemLogManager;
+
+/**
+ * @since 11.1
+ */
+public class TestLogStreamProcessorMem extends TestStreamProcessor {
+
+    protected MemLogManager manager;
+
+    @Override
+    public LogManager getLogManager() throws Exception {
+        manager = new MemLogManager();
+        return manager;
+    }
+
+    @Override
+    public LogManager getSameLogManager() {
+        return manager;
+    }
+
+}
@@ -20,14 +20,20 @@ package org.nuxeo.lib.stream.tests.computation;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeNotNull;
 import static org.nuxeo.lib.stream.codec.NoCodec.NO_CODEC;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -42,6 +48,7 @@ import org.nuxeo.lib.stream.computation.ComputationPolicy;
 import org.nuxeo.lib.stream.computation.ComputationPolicyBuilder;
 import org.nuxeo.lib.stream.computation.Record;
 import org.nuxeo.lib.stream.computation.Settings;
+import org.nuxeo.lib.stream.computation.StateStore;
 import org.nuxeo.lib.stream.computation.StreamManager;
 import org.nuxeo.lib.stream.computation.StreamProcessor;
 import org.nuxeo.lib.stream.computation.Topology;
@@ -51,6 +58,7 @@ import org.nuxeo.lib.stream.log.Latency;
 import org.nuxeo.lib.stream.log.LogAppender;
 import org.nuxeo.lib.stream.log.LogLag;
 import org.nuxeo.lib.stream.log.LogManager;
+import org.nuxeo.lib.stream.log.LogOffset;
 import org.nuxeo.lib.stream.log.LogPartition;
 import org.nuxeo.lib.stream.log.LogRecord;
 import org.nuxeo.lib.stream.log.LogTailer;
@@ -73,6 +81,10 @@ public abstract class TestStreamProcessor {
     public abstract LogManager getSameLogManager();
 
     public void testSimpleTopo(int nbRecords, int concurrency) throws Exception {
+        testSimpleTopo(nbRecords, concurrency, 0);
+    }
+
+    public void testSimpleTopo(int nbRecords, int concurrency, int sharedThreads) throws Exception {
         final long targetTimestamp = System.currentTimeMillis();
         final long targetWatermark = Watermark.ofTimestamp(targetTimestamp).getValue();
         Topology topology = Topology.builder()
@@ -90,7 +102,8 @@ public abstract class TestStreamProcessor {
                                             Arrays.asList("i1:s4", "o1:" + OUTPUT_STREAM))
                                     .build();
         // one thread for each computation
-        Settings settings = new Settings(concurrency, concurrency, codec).setConcurrency("GENERATOR", 1);
+        Settings settings = new Settings(concurrency, concurrency, codec).setConcurrency("GENERATOR", 1)
+                                                                        .setSharedThreads(sharedThreads);
         // uncomment to get the plantuml diagram
         // System.out.println(topology.toPlantuml(settings));
         try (LogManager manager = getLogManager()) {
@@ -140,6 +153,12 @@ public abstract class TestStreamProcessor {
         testSimpleTopo(1, 1);
     }
 
+    @Test
+    public void testSimpleTopoOnSharedPool() throws Exception {
+        // 5 computations sharing 2 threads
+        testSimpleTopo(100, 1, 2);
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void testSimpleTopoOneRecordOneThreadLegacyCodec() throws Exception {
@@ -453,6 +472,38 @@ public abstract class TestStreamProcessor {
         }
     }
 
+    @Test
+    public void testAutoscale() throws Exception {
+        final long targetTimestamp = System.currentTimeMillis();
+        final int nbRecords = 500;
+        Topology topology = Topology.builder()
+                                    .addComputation(() -> new ComputationSource("GENERATOR", 1, nbRecords, 100,
+                                            targetTimestamp), Collections.singletonList("o1:input"))
+                                    .addComputation(() -> new ComputationForwardSlow("SLOW", 1, 1, 10),
+                                            Arrays.asList("i1:input", "o1:output"))
+                                    .build();
+        Settings settings = new Settings(1, 4, codec).setPartitions("output", 1)
+                                                     .setConcurrencyRange("SLOW", 1, 4)
+                                                     .setAutoscalePeriod(Duration.ofMillis(200));
+
+        try (LogManager manager = getLogManager()) {
+            StreamManager streamManager = new LogStreamManager(manager);
+            StreamProcessor processor = streamManager.registerAndCreateProcessor("processor", topology, settings);
+            processor.start();
+            assertTrue(processor.waitForAssignments(Duration.ofSeconds(10)));
+            assertEquals(1, processor.getComputationThreads().get("SLOW").intValue());
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (processor.getComputationThreads().get("SLOW") == 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            // the lag on input makes the autoscaler add threads
+            assertTrue(processor.getComputationThreads().get("SLOW") > 1);
+            assertTrue(processor.drainAndStop(Duration.ofSeconds(60)));
+            // records are processed at least once across a rescale
+            assertTrue(countRecordIn(manager, "output") >= nbRecords);
+        }
+    }
+
     @Test
     public void testSingleSource() throws Exception {
         final int nbRecords = 10;
@@ -664,6 +715,90 @@ public abstract class TestStreamProcessor {
 
     }
 
+    @Test
+    public void testBatchReadRetry() throws Exception {
+        Topology topology = Topology.builder()
+                                    .addComputation(() -> new ComputationBatchFailOnceForward("C1", 1, "5"),
+                                            Arrays.asList("i1:input", "o1:output"))
+                                    .build();
+        int nbRecords = 10;
+        RetryPolicy retryPolicy = new RetryPolicy().withMaxRetries(1).retryOn(IllegalStateException.class);
+        ComputationPolicy policy = new ComputationPolicyBuilder().batchPolicy(4, Duration.ofMillis(200))
+                                                                 .retryPolicy(retryPolicy)
+                                                                 .continueOnFailure(false)
+                                                                 .build();
+        try (LogManager manager = getLogManager()) {
+            StreamManager streamManager = new LogStreamManager(manager);
+            Settings settings = new Settings(1, 1, codec, policy);
+            StreamProcessor processor = streamManager.registerAndCreateProcessor("processor", topology, settings);
+            // records are available before starting so that they are read by batch
+            for (int i = 0; i < nbRecords; i++) {
+                streamManager.append("input", Record.of(String.valueOf(i), null));
+            }
+            processor.start();
+            processor.waitForAssignments(Duration.ofSeconds(10));
+            assertTrue(processor.drainAndStop(Duration.ofSeconds(20)));
+            LogLag lag = manager.getLag("input", "C1");
+            assertEquals(lag.toString(), 0, lag.lag());
+            // the batch failing part-way is retried: no record is processed twice or skipped
+            List<String> keys = new ArrayList<>();
+            try (LogTailer<Record> tailer = manager.createTailer("results", LogPartition.of(OUTPUT_STREAM, 0),
+                    codec)) {
+                for (LogRecord<Record> logRecord = tailer.read(Duration.ofMillis(1000)); logRecord != null;
+                        logRecord = tailer.read(Duration.ofMillis(500))) {
+                    keys.add(logRecord.message().getKey());
+                }
+            }
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < nbRecords; i++) {
+                expected.add(String.valueOf(i));
+            }
+            assertEquals(expected, keys);
+        }
+    }
+
+    @Test
+    public void testBatchReadStateOnPartitions() throws Exception {
+        Topology topology = Topology.builder()
+                                    .addComputation(() -> new ComputationBatchStateCounter("C1"),
+                                            Arrays.asList("i1:input", "o1:output"))
+                                    .build();
+        int nbKeys = 10;
+        int nbRounds = 3;
+        ComputationPolicy policy = new ComputationPolicyBuilder().batchPolicy(8, Duration.ofMillis(200)).build();
+        try (LogManager manager = getLogManager()) {
+            LogStreamManager streamManager = new LogStreamManager(manager);
+            StateStore stateStore = streamManager.getStateStore();
+            assumeNotNull(stateStore);
+            Settings settings = new Settings(1, 2, codec, policy);
+            StreamProcessor processor = streamManager.registerAndCreateProcessor("processor", topology, settings);
+            // records of both partitions are available before starting so that they are read by batch
+            Map<String, LogOffset> lastOffsets = new HashMap<>();
+            for (int round = 0; round < nbRounds; round++) {
+                for (int i = 0; i < nbKeys; i++) {
+                    String key = String.valueOf(i);
+                    LogOffset offset = streamManager.append("input", Record.of(key, null));
+                    lastOffsets.put(key, offset);
+                }
+            }
+            processor.start();
+            processor.waitForAssignments(Duration.ofSeconds(10));
+            assertTrue(processor.drainAndStop(Duration.ofSeconds(20)));
+            assertEquals(0, manager.getLag("input", "C1").lag());
+            // each key is counted in the state of its own partition
+            for (int i = 0; i < nbKeys; i++) {
+                String key = String.valueOf(i);
+                LogPartition partition = lastOffsets.get(key).partition();
+                LogPartition other = LogPartition.of("input", 1 - partition.partition());
+                assertEquals(key, String.valueOf(nbRounds),
+                        new String(stateStore.get("C1", partition, key), StandardCharsets.UTF_8));
+                assertNull(key, stateStore.get("C1", other, key));
+                assertEquals(key, lastOffsets.get(String.valueOf(nbKeys - 2 + partition.partition())).offset(),
+                        stateStore.getOffset("C1", partition));
+            }
+        }
+    }
+
     @Test
     public void testRegisterWithoutExecution() throws Exception {
         Topology topology = Topology.builder()
@@ -292,6 +292,33 @@ public abstract class TestLog {
         assertEquals(LogLag.of(3), manager.getLag(logName, GROUP));
     }
 
+    @Test
+    public void testBatchRead() throws Exception {
+        final int LOG_SIZE = 1;
+        final int NB_MSG = 10;
+        final String GROUP = "defaultTest";
+        manager.createIfNotExists(logName, LOG_SIZE);
+        LogAppender<KeyValueMessage> appender = manager.getAppender(logName);
+        for (int i = 0; i < NB_MSG; i++) {
+            appender.append(0, KeyValueMessage.of("id" + i));
+        }
+        try (LogTailer<KeyValueMessage> tailer = manager.createTailer(GROUP, LogPartition.of(logName, 0))) {
+            List<KeyValueMessage> messages = new ArrayList<>();
+            while (messages.size() < NB_MSG) {
+                List<LogRecord<KeyValueMessage>> records = tailer.read(4, DEF_TIMEOUT);
+                assertFalse(records.isEmpty());
+                assertTrue(records.size() <= 4);
+                records.forEach(record -> messages.add(record.message()));
+            }
+            for (int i = 0; i < NB_MSG; i++) {
+                assertEquals(KeyValueMessage.of("id" + i), messages.get(i));
+            }
+            assertTrue(tailer.read(4, SMALL_TIMEOUT).isEmpty());
+            tailer.commit();
+        }
+        assertEquals(LogLag.of(0), manager.getLag(logName, GROUP));
+    }
+
     @Test
     public void testCommitAndSeek() throws Exception {
         final int LOG_SIZE = 5;
@@ -0,0 +1,85 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.lib.stream.tests.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.junit.After;
+import org.junit.Test;
+import org.nuxeo.lib.stream.log.LogAppender;
+import org.nuxeo.lib.stream.log.LogManager;
+import org.nuxeo.lib.stream.log.LogPartition;
+import org.nuxeo.lib.stream.log.LogRecord;
+import org.nuxeo.lib.stream.log.LogTailer;
+import org.nuxeo.lib.stream.log.mem.MemLogManager;
+import org.nuxeo.lib.stream.tests.KeyValueMessage;
+
+/**
+ * @since 11.1
+ */
+public class TestLogMem extends TestLog {
+
+    // the same manager is returned until the end of the test to simulate a restart
+    protected MemLogManager memManager;
+
+    @After
+    public void resetMemManager() {
+        memManager = null;
+    }
+
+    @Override
+    public LogManager createManager() throws Exception {
+        if (memManager == null) {
+            memManager = new MemLogManager();
+        }
+        return memManager;
+    }
+
+    @Test
+    public void testRecordsKeptForGroupWithoutCommit() throws Exception {
+        // more than a few segments of records
+        final int NB_RECORDS = 5000;
+        manager.createIfNotExists(logName, 1);
+        LogAppender<KeyValueMessage> appender = manager.getAppender(logName);
+        try (LogTailer<KeyValueMessage> tailer1 = manager.createTailer("group1", LogPartition.of(logName, 0));
+                LogTailer<KeyValueMessage> tailer2 = manager.createTailer("group2", LogPartition.of(logName, 0))) {
+            for (int i = 0; i < NB_RECORDS; i++) {
+                appender.append(0, KeyValueMessage.of("id" + i));
+            }
+            // only the first group reads and commits
+            for (int i = 0; i < NB_RECORDS; i++) {
+                assertNotNull(tailer1.read(DEF_TIMEOUT));
+                tailer1.commit();
+            }
+            // the second group still reads all the records
+            for (int i = 0; i < NB_RECORDS; i++) {
+                LogRecord<KeyValueMessage> record = tailer2.read(DEF_TIMEOUT);
+                assertNotNull(record);
+                assertEquals("id" + i, record.message().key());
+            }
+            assertEquals(NB_RECORDS, manager.getLag(logName, "group2").lag());
+        }
+        // a new tailer of the second group restarts from its first record
+        try (LogTailer<KeyValueMessage> tailer2 = manager.createTailer("group2", LogPartition.of(logName, 0))) {
+            assertEquals("id0", tailer2.read(DEF_TIMEOUT).message().key());
+        }
+    }
+
+}
@@ -129,6 +129,13 @@ public abstract class AbstractPageProvider<T> implements PageProvider<T> {
 
     protected PageProviderChangedListener pageProviderChangedListener;
 
+    /**
+     * The keyset of the current page, or {@code null} when using offset pagination.
+     *
+     * @since 11.1
+     */
+    protected String keyset;
+
     /**
      * Returns the list of current page items.
      * <p>
@@ -175,6 +182,9 @@ public abstract class AbstractPageProvider<T> implements PageProvider<T> {
         }
         long offset = getCurrentPageOffset();
         if (offset != 0) {
+            if (keyset != null) {
+                keyset = KEYSET_FIRST_PAGE;
+            }
             setCurrentPageOffset(0);
             pageChanged();
         }
@@ -238,6 +248,7 @@ public abstract class AbstractPageProvider<T> implements PageProvider<T> {
     public void setCurrentPageIndex(long currentPageIndex) {
         long pageSize = getPageSize();
         long offset = currentPageIndex * pageSize;
+        keyset = null;
         setCurrentPageOffset(offset);
         pageChanged();
     }
@@ -466,6 +477,7 @@ public abstract class AbstractPageProvider<T> implements PageProvider<T> {
             // do nothing
             return;
         }
+        keyset = null;
         if (resultsCount % pageSize == 0) {
             setCurrentPageOffset(resultsCount - pageSize);
         } else {
@@ -481,6 +493,10 @@ public abstract class AbstractPageProvider<T> implements PageProvider<T> {
             // do nothing
             return;
         }
+        if (keyset != null) {
+            // falls back to offset pagination if the next keyset cannot be computed
+            keyset = getNextPageKeyset();
+        }
         long offset = getCurrentPageOffset();
         offset += pageSize;
         setCurrentPageOffset(offset);
@@ -497,11 +513,26 @@ public abstract class AbstractPageProvider<T> implements PageProvider<T> {
         long offset = getCurrentPageOffset();
         if (offset >= pageSize) {
             offset -= pageSize;
+            keyset = null;
             setCurrentPageOffset(offset);
             pageChanged();
         }
     }
 
+    @Override
+    public void setCurrentPageKeyset(String keyset) {
+        if (keyset != null && !isKeysetPaginationSupported()) {
+            throw new UnsupportedOperationException("Keyset pagination not supported by: " + getName());
+        }
+        this.keyset = keyset;
+        pageChanged();
+    }
+
+    @Override
+    public String getCurrentPageKeyset() {
+        return keyset;
+    }
+
     /**
      * Refresh hook, to override for custom behavior
      * <p>
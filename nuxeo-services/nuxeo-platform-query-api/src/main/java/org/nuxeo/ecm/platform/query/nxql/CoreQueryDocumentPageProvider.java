@@ -19,6 +19,8 @@
  */
 package org.nuxeo.ecm.platform.query.nxql;
 
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -32,7 +34,9 @@ import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.DocumentModelList;
 import org.nuxeo.ecm.core.api.Filter;
 import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.PropertyException;
 import org.nuxeo.ecm.core.api.SortInfo;
+import org.nuxeo.ecm.core.query.sql.NXQL;
 import org.nuxeo.ecm.platform.query.api.AbstractPageProvider;
 import org.nuxeo.ecm.platform.query.api.PageProviderDefinition;
 import org.nuxeo.ecm.platform.query.api.PageSelections;
@@ -102,6 +106,13 @@ public class CoreQueryDocumentPageProvider extends AbstractPageProvider<Document
 
     protected Long maxResults;
 
+    /**
+     * The sorts of the current query when it uses keyset pagination, {@code null} otherwise.
+     *
+     * @since 11.1
+     */
+    protected List<SortInfo> keysetSortInfos;
+
     @Override
     public List<DocumentModel> getCurrentPage() {
 
@@ -126,7 +137,8 @@ public class CoreQueryDocumentPageProvider extends AbstractPageProvider<Document
 
                 final long minMaxPageSize = getMinMaxPageSize();
 
-                final long offset = getCurrentPageOffset();
+                final boolean useKeyset = keysetSortInfos != null;
+                final long offset = useKeyset ? 0 : getCurrentPageOffset();
                 if (log.isDebugEnabled()) {
                     log.debug(String.format("Perform query for provider '%s': '%s' with pageSize=%s, offset=%s",
                             getName(), query, Long.valueOf(minMaxPageSize), Long.valueOf(offset)));
@@ -138,14 +150,16 @@ public class CoreQueryDocumentPageProvider extends AbstractPageProvider<Document
                 final boolean useUnrestricted = useUnrestrictedSession();
 
                 final boolean detachDocs = detachDocuments();
-                if (maxResults > 0) {
+                if (maxResults > 0 || useKeyset) {
+                    // with keyset pagination the total count is not computed
+                    final long countUpTo = useKeyset ? 0 : maxResults;
                     if (useUnrestricted) {
                         CoreQueryUnrestrictedSessionRunner r = new CoreQueryUnrestrictedSessionRunner(coreSession,
-                                query, filter, minMaxPageSize, offset, false, maxResults, detachDocs);
+                                query, filter, minMaxPageSize, offset, false, countUpTo, detachDocs);
                         r.runUnrestricted();
                         docs = r.getDocs();
                     } else {
-                        docs = coreSession.query(query, getFilter(), minMaxPageSize, offset, maxResults);
+                        docs = coreSession.query(query, getFilter(), minMaxPageSize, offset, countUpTo);
                     }
                 } else {
                     // use a totalCount=true instead of countUpTo=-1 to
@@ -220,6 +234,20 @@ public class CoreQueryDocumentPageProvider extends AbstractPageProvider<Document
             sort = sortInfos;
         }
 
+        keysetSortInfos = null;
+        String keysetClause = null;
+        if (keyset != null) {
+            if (sort == null || sort.isEmpty()) {
+                throw new NuxeoException("Keyset pagination requires a sort order on page provider: " + getName(),
+                        SC_BAD_REQUEST);
+            }
+            keysetSortInfos = getKeysetSortInfos(sort);
+            sort = keysetSortInfos;
+            if (!KEYSET_FIRST_PAGE.equals(keyset)) {
+                keysetClause = getKeysetClause(keysetSortInfos, keyset);
+            }
+        }
+
         SortInfo[] sortArray = null;
         if (sort != null) {
             sortArray = sort.toArray(new SortInfo[] {});
@@ -249,6 +277,11 @@ public class CoreQueryDocumentPageProvider extends AbstractPageProvider<Document
                     sortArray);
         }
 
+        if (keysetClause != null) {
+            // added once the query is built, as pattern parameters must not be replaced in the keyset values
+            newQuery = KeysetHelper.addClause(newQuery, keysetClause);
+        }
+
         if (query != null && newQuery != null && !newQuery.equals(query)) {
             // query has changed => refresh
             refresh();
@@ -256,6 +289,82 @@ public class CoreQueryDocumentPageProvider extends AbstractPageProvider<Document
         query = newQuery;
     }
 
+    /**
+     * Gets the sorts to use for keyset pagination: the given sorts, with a sort on the document id making sort keys
+     * unique.
+     *
+     * @since 11.1
+     */
+    protected List<SortInfo> getKeysetSortInfos(List<SortInfo> sortInfos) {
+        List<SortInfo> keysetSortInfos = new ArrayList<>(sortInfos);
+        if (sortInfos.stream().noneMatch(sortInfo -> NXQL.ECM_UUID.equals(sortInfo.getSortColumn()))) {
+            keysetSortInfos.add(new SortInfo(NXQL.ECM_UUID, true));
+        }
+        return keysetSortInfos;
+    }
+
+    /**
+     * Gets the NXQL clause selecting the documents following the given keyset, or {@code null} if the keyset is not
+     * applied through the NXQL query.
+     *
+     * @since 11.1
+     */
+    protected String getKeysetClause(List<SortInfo> sortInfos, String keyset) {
+        return KeysetHelper.getClause(sortInfos, KeysetHelper.decode(keyset));
+    }
+
+    /**
+     * Gets the value of a sort key for a document, or {@code null} if it cannot be used for keyset pagination.
+     *
+     * @since 11.1
+     */
+    protected Serializable getKeysetValue(DocumentModel doc, String column) {
+        switch (column) {
+        case NXQL.ECM_UUID:
+            return doc.getId();
+        case NXQL.ECM_NAME:
+            return doc.getName();
+        case NXQL.ECM_PRIMARYTYPE:
+            return doc.getType();
+        case NXQL.ECM_LIFECYCLESTATE:
+            return doc.getCurrentLifeCycleState();
+        default:
+            if (column.startsWith(NXQL.ECM_PREFIX)) {
+                return null;
+            }
+            try {
+                return doc.getPropertyValue(column);
+            } catch (PropertyException e) {
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public boolean isKeysetPaginationSupported() {
+        return true;
+    }
+
+    @Override
+    public String getNextPageKeyset() {
+        List<DocumentModel> docs = getCurrentPage();
+        long pageSize = getMinMaxPageSize();
+        if (keysetSortInfos == null || docs == null || pageSize == 0 || docs.size() < pageSize) {
+            return null;
+        }
+        DocumentModel last = docs.get(docs.size() - 1);
+        List<Serializable> values = new ArrayList<>(keysetSortInfos.size());
+        for (SortInfo sortInfo : keysetSortInfos) {
+            Serializable value = getKeysetValue(last, sortInfo.getSortColumn());
+            if (!KeysetHelper.isSupportedValue(value)) {
+                // null or multi-valued sort key
+                return null;
+            }
+            values.add(value);
+        }
+        return KeysetHelper.encode(values);
+    }
+
     protected void checkQueryCache() {
         // maybe handle refresh of select page according to query
         if (getBooleanProperty(CHECK_QUERY_CACHE_PROPERTY, false)) {
@@ -351,6 +460,16 @@ public class CoreQueryDocumentPageProvider extends AbstractPageProvider<Document
         return query;
     }
 
+    /**
+     * Builds the query of the provider for its current parameters, without executing it.
+     *
+     * @since 11.1
+     */
+    public String buildCurrentQuery() {
+        buildQuery(getCoreSession());
+        return query;
+    }
+
     /**
      * Fetch a page that can be selected. It loads the last page if we're targeting a page beyond the last one or the
      * first page if there are no results to show and we're targeting anything other than the first page. Fix for
@@ -400,6 +519,10 @@ public class CoreQueryDocumentPageProvider extends AbstractPageProvider<Document
     @Override
     protected void pageChanged() {
         currentPageDocuments = null;
+        if (keyset != null || keysetSortInfos != null) {
+            // with keyset pagination the query depends on the page
+            query = null;
+        }
         super.pageChanged();
     }
 
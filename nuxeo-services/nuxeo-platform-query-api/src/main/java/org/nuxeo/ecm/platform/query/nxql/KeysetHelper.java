@@ -0,0 +1,259 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.query.nxql;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import org.nuxeo.common.utils.DateUtils;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.SortInfo;
+import org.nuxeo.ecm.core.query.sql.NXQL;
+import org.nuxeo.ecm.core.query.sql.parser.Scanner;
+import org.nuxeo.ecm.core.query.sql.parser.sym;
+
+import java_cup.runtime.Symbol;
+
+/**
+ * Helper for keyset pagination over NXQL queries.
+ * <p>
+ * A keyset holds the values of the sort keys of the last entry of a page. It is exchanged with clients as an opaque
+ * URL-safe string, and turned into an NXQL clause selecting the entries following it in the sort order.
+ *
+ * @since 11.1
+ */
+public class KeysetHelper {
+
+    protected static final byte TYPE_STRING = 's';
+
+    protected static final byte TYPE_LONG = 'l';
+
+    protected static final byte TYPE_DOUBLE = 'd';
+
+    protected static final byte TYPE_BOOLEAN = 'b';
+
+    protected static final byte TYPE_TIMESTAMP = 't';
+
+    private KeysetHelper() {
+        // utility class
+    }
+
+    /**
+     * Checks whether a value can be part of a keyset.
+     */
+    public static boolean isSupportedValue(Object value) {
+        return value instanceof String || value instanceof Long || value instanceof Integer
+                || value instanceof Double || value instanceof Float || value instanceof Boolean
+                || value instanceof Calendar || value instanceof Date;
+    }
+
+    /**
+     * Encodes sort key values into a keyset.
+     *
+     * @throws IllegalArgumentException if a value is not supported, see {@link #isSupportedValue}
+     */
+    public static String encode(List<?> values) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(baos)) {
+            out.writeInt(values.size());
+            for (Object value : values) {
+                if (value instanceof String) {
+                    out.writeByte(TYPE_STRING);
+                    out.writeUTF((String) value);
+                } else if (value instanceof Long || value instanceof Integer) {
+                    out.writeByte(TYPE_LONG);
+                    out.writeLong(((Number) value).longValue());
+                } else if (value instanceof Double || value instanceof Float) {
+                    out.writeByte(TYPE_DOUBLE);
+                    out.writeDouble(((Number) value).doubleValue());
+                } else if (value instanceof Boolean) {
+                    out.writeByte(TYPE_BOOLEAN);
+                    out.writeBoolean(((Boolean) value).booleanValue());
+                } else if (value instanceof Calendar) {
+                    out.writeByte(TYPE_TIMESTAMP);
+                    out.writeLong(((Calendar) value).getTimeInMillis());
+                } else if (value instanceof Date) {
+                    out.writeByte(TYPE_TIMESTAMP);
+                    out.writeLong(((Date) value).getTime());
+                } else {
+                    throw new IllegalArgumentException("Unsupported keyset value: " + value);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(baos.toByteArray());
+    }
+
+    /**
+     * Decodes a keyset into sort key values. Timestamps are returned as {@link Calendar}s.
+     *
+     * @throws NuxeoException if the keyset is invalid
+     */
+    public static List<Serializable> decode(String keyset) {
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(Base64.getUrlDecoder().decode(keyset.getBytes(UTF_8))))) {
+            int size = in.readInt();
+            if (size < 0 || size > in.available()) {
+                throw new IOException("Invalid size: " + size);
+            }
+            List<Serializable> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                byte type = in.readByte();
+                switch (type) {
+                case TYPE_STRING:
+                    values.add(in.readUTF());
+                    break;
+                case TYPE_LONG:
+                    values.add(Long.valueOf(in.readLong()));
+                    break;
+                case TYPE_DOUBLE:
+                    values.add(Double.valueOf(in.readDouble()));
+                    break;
+                case TYPE_BOOLEAN:
+                    values.add(Boolean.valueOf(in.readBoolean()));
+                    break;
+                case TYPE_TIMESTAMP:
+                    Calendar cal = Calendar.getInstance();
+                    cal.setTimeInMillis(in.readLong());
+                    values.add(cal);
+                    break;
+                default:
+                    throw new IOException("Invalid type: " + type);
+                }
+            }
+            return values;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new NuxeoException("Invalid keyset: " + keyset, e, SC_BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Gets the NXQL clause selecting the entries following the given sort key values in the order of the sorts.
+     * <p>
+     * For instance for {@code ORDER BY a, b DESC} the clause is {@code (a > va OR (a = va AND b < vb))}.
+     *
+     * @param sortInfos the sorts
+     * @param values the sort key values, one for each sort
+     * @return the NXQL clause
+     * @throws NuxeoException if the values don't match the sorts
+     */
+    public static String getClause(List<SortInfo> sortInfos, List<Serializable> values) {
+        if (sortInfos.size() != values.size()) {
+            throw new NuxeoException("Keyset does not match sort: " + sortInfos, SC_BAD_REQUEST);
+        }
+        StringBuilder clause = new StringBuilder("(");
+        StringBuilder equalities = new StringBuilder();
+        for (int i = 0; i < sortInfos.size(); i++) {
+            SortInfo sortInfo = sortInfos.get(i);
+            String column = sortInfo.getSortColumn();
+            String literal = toNXQLLiteral(values.get(i));
+            if (i > 0) {
+                clause.append(" OR ");
+            }
+            clause.append('(').append(equalities);
+            clause.append(column).append(sortInfo.getSortAscending() ? " > " : " < ").append(literal).append(')');
+            equalities.append(column).append(" = ").append(literal).append(" AND ");
+        }
+        clause.append(')');
+        return clause.toString();
+    }
+
+    /**
+     * Adds a clause to the {@code WHERE} clause of an NXQL query.
+     * <p>
+     * The query is tokenized with the NXQL scanner, so that keywords inside literals are not matched. The existing
+     * condition is put in parentheses to keep its precedence.
+     *
+     * @param query the NXQL query
+     * @param clause the clause to add
+     * @return the NXQL query with the clause
+     */
+    public static String addClause(String query, String clause) {
+        int where = -1;
+        int end = query.length();
+        try {
+            Scanner scanner = new Scanner(new StringReader(query));
+            for (Symbol symbol = scanner.next_token(); symbol.sym != sym.EOF; symbol = scanner.next_token()) {
+                if (symbol.sym == sym.WHERE) {
+                    where = symbol.right;
+                } else if (symbol.sym == sym.GROUPBY || symbol.sym == sym.HAVING || symbol.sym == sym.ORDERBY
+                        || symbol.sym == sym.LIMIT || symbol.sym == sym.OFFSET) {
+                    // first keyword after the condition
+                    end = symbol.right;
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        StringBuilder sb = new StringBuilder();
+        if (where < 0) {
+            sb.append(query.substring(0, end).trim());
+            sb.append(" WHERE ");
+        } else {
+            sb.append(query.substring(0, where).trim());
+            sb.append(" WHERE (");
+            sb.append(query.substring(where + "WHERE".length(), end).trim());
+            sb.append(") AND ");
+        }
+        sb.append(clause);
+        if (end < query.length()) {
+            sb.append(' ').append(query.substring(end).trim());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Serializes a decoded keyset value as an NXQL literal.
+     */
+    protected static String toNXQLLiteral(Serializable value) {
+        if (value instanceof String) {
+            return NXQL.escapeString((String) value);
+        } else if (value instanceof Calendar) {
+            Instant instant = ((Calendar) value).toInstant();
+            return "TIMESTAMP '" + DateUtils.formatISODateTime(instant.atZone(ZoneOffset.UTC)) + "'";
+        } else if (value instanceof Boolean) {
+            return ((Boolean) value).booleanValue() ? "1" : "0";
+        } else if (value instanceof Double) {
+            // NXQL doesn't support exponents
+            return BigDecimal.valueOf(((Double) value).doubleValue()).toPlainString();
+        } else {
+            return value.toString();
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.query.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.SortInfo;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.ecm.platform.query.api.PageProvider;
+import org.nuxeo.ecm.platform.query.api.PageProviderService;
+import org.nuxeo.ecm.platform.query.nxql.CoreQueryDocumentPageProvider;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+
+/**
+ * @since 11.1
+ */
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+@Deploy("org.nuxeo.ecm.platform.query.api")
+@Deploy("org.nuxeo.ecm.platform.query.api.test:test-schemas-contrib.xml")
+@Deploy("org.nuxeo.ecm.platform.query.api.test:test-pageprovider-keyset-contrib.xml")
+public class TestPageProviderKeyset {
+
+    protected static final int NUM_DOCS = 11;
+
+    @Inject
+    protected PageProviderService pps;
+
+    @Inject
+    protected CoreSession session;
+
+    @Before
+    public void createTestDocuments() {
+        for (int i = 0; i < NUM_DOCS; i++) {
+            DocumentModel doc = session.createDocumentModel("/", "file" + i, "File");
+            // a few distinct sort values, so that pages end in the middle of ties
+            doc.setPropertyValue("dc:format", "format" + (i % 3));
+            doc.setPropertyValue("dc:source", i % 2 == 0 ? "keyset" : "keyset where ORDER BY");
+            session.createDocument(doc);
+        }
+        // not matched by the page provider
+        DocumentModel doc = session.createDocumentModel("/", "other", "File");
+        doc.setPropertyValue("dc:format", "format0");
+        doc.setPropertyValue("dc:source", "other");
+        session.createDocument(doc);
+        session.save();
+    }
+
+    protected PageProvider<?> getPageProvider(String name) {
+        Map<String, Serializable> props = new HashMap<>();
+        props.put(CoreQueryDocumentPageProvider.CORE_SESSION_PROPERTY, (Serializable) session);
+        return pps.getPageProvider(name, (List<SortInfo>) null, null, null, props);
+    }
+
+    @Test
+    public void testPagesThroughTies() {
+        PageProvider<?> pp = getPageProvider("KEYSET_TIES");
+        pp.setCurrentPageKeyset(PageProvider.KEYSET_FIRST_PAGE);
+        List<DocumentModel> docs = new ArrayList<>();
+        int pages = 0;
+        for (;;) {
+            List<?> page = pp.getCurrentPage();
+            pages++;
+            page.forEach(doc -> docs.add((DocumentModel) doc));
+            String keyset = pp.getNextPageKeyset();
+            if (keyset == null) {
+                break;
+            }
+            assertEquals(pp.getPageSize(), page.size());
+            pp.setCurrentPageKeyset(keyset);
+        }
+        assertEquals(4, pages);
+        assertEquals(NUM_DOCS, docs.size());
+        Set<String> ids = new HashSet<>();
+        docs.forEach(doc -> assertTrue("Duplicate: " + doc.getName(), ids.add(doc.getId())));
+        // descending on the format, then ascending on the id
+        List<DocumentModel> sorted = new ArrayList<>(docs);
+        sorted.sort(Comparator.comparing((DocumentModel doc) -> (String) doc.getPropertyValue("dc:format"))
+                              .reversed()
+                              .thenComparing(DocumentModel::getId));
+        assertEquals(sorted, docs);
+    }
+
+    @Test
+    public void testNextPage() {
+        PageProvider<?> pp = getPageProvider("KEYSET_TIES");
+        pp.setCurrentPageKeyset(PageProvider.KEYSET_FIRST_PAGE);
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            for (Object doc : pp.getCurrentPage()) {
+                assertTrue(ids.add(((DocumentModel) doc).getId()));
+            }
+            pp.nextPage();
+        }
+        assertEquals(NUM_DOCS, ids.size());
+    }
+
+    @Test
+    public void testKeysetRequiresSort() {
+        PageProvider<?> pp = getPageProvider("KEYSET_NO_SORT");
+        pp.setCurrentPageKeyset(PageProvider.KEYSET_FIRST_PAGE);
+        try {
+            pp.getCurrentPage();
+            fail();
+        } catch (NuxeoException e) {
+            assertEquals(400, e.getStatusCode());
+        }
+    }
+
+}
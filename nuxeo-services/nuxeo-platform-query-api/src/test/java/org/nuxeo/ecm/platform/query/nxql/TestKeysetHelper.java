@@ -0,0 +1,89 @@
+/*
+ * (C) Copyright 2019 Nuxeo (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     Nuxeo - initial API and implementation
+ */
+package org.nuxeo.ecm.platform.query.nxql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+import org.junit.Test;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.SortInfo;
+
+public class TestKeysetHelper {
+
+    @Test
+    public void testEncodeDecode() {
+        Calendar cal = Calendar.getInstance();
+        cal.setTimeInMillis(1234567890123L);
+        String keyset = KeysetHelper.encode(Arrays.asList("foo'bar", 123, 1.5d, Boolean.TRUE, cal));
+        List<Serializable> values = KeysetHelper.decode(keyset);
+        assertEquals(5, values.size());
+        assertEquals("foo'bar", values.get(0));
+        assertEquals(Long.valueOf(123), values.get(1));
+        assertEquals(Double.valueOf(1.5), values.get(2));
+        assertEquals(Boolean.TRUE, values.get(3));
+        assertEquals(cal.getTimeInMillis(), ((Calendar) values.get(4)).getTimeInMillis());
+    }
+
+    @Test
+    public void testDecodeInvalid() {
+        try {
+            KeysetHelper.decode("not a keyset");
+            fail();
+        } catch (NuxeoException e) {
+            assertEquals(400, e.getStatusCode());
+        }
+    }
+
+    @Test
+    public void testClause() {
+        List<SortInfo> sortInfos = Arrays.asList(new SortInfo("dc:title", true), new SortInfo("ecm:uuid", false));
+        List<Serializable> values = Arrays.asList("a'b", "1234");
+        assertEquals("((dc:title > 'a\\'b') OR (dc:title = 'a\\'b' AND ecm:uuid < '1234'))",
+                KeysetHelper.getClause(sortInfos, values));
+    }
+
+    @Test
+    public void testAddClause() {
+        assertEquals("SELECT * FROM Document WHERE dc:title > 'a'",
+                KeysetHelper.addClause("SELECT * FROM Document", "dc:title > 'a'"));
+        assertEquals("SELECT * FROM Document WHERE dc:title > 'a' ORDER BY dc:title",
+                KeysetHelper.addClause("SELECT * FROM Document ORDER BY dc:title", "dc:title > 'a'"));
+        // existing condition keeps its precedence
+        assertEquals("SELECT * FROM Document WHERE (ecm:isProxy = 0 OR ecm:isVersion = 0) AND dc:title > 'a'",
+                KeysetHelper.addClause("SELECT * FROM Document WHERE ecm:isProxy = 0 OR ecm:isVersion = 0",
+                        "dc:title > 'a'"));
+        // keywords are case insensitive
+        assertEquals("select * from Document WHERE (ecm:isProxy = 0) AND dc:title > 'a' order by dc:title limit 5",
+                KeysetHelper.addClause("select * from Document where ecm:isProxy = 0 order by dc:title limit 5",
+                        "dc:title > 'a'"));
+        // keywords in literals are ignored
+        assertEquals("SELECT * FROM Document WHERE (dc:description = ' where x ORDER BY y') AND dc:title > 'a'",
+                KeysetHelper.addClause("SELECT * FROM Document WHERE dc:description = ' where x ORDER BY y'",
+                        "dc:title > 'a'"));
+        assertEquals("SELECT * FROM Document WHERE dc:title > 'a' ORDER BY dc:title",
+                KeysetHelper.addClause("SELECT * FROM Document\n  ORDER BY dc:title", "dc:title > 'a'"));
+    }
+
+}